@@ -0,0 +1,32 @@
+#Benchmark Runner script
+#!/bin/bash
+
+NEWLINE=$'\n'
+
+if [[ ! -d bench-out ]]; then
+	mkdir bench-out
+fi
+
+#erase everything in bench-out
+rm -rf bench-out/*
+
+#The benchmarks are compiled together with the simulation they measure
+find ./src/ ./benchmarks/src/ -type f -name "*.java" > bench-sources.txt
+
+echo "${NEWLINE}Using Java Version: "
+java --version
+
+#compile and dump into bench-out directory
+javac -d ./bench-out/ @bench-sources.txt
+
+if [[ $? -ne 0 ]]; then
+	echo "Compilation failed"
+	exit 1
+fi
+
+echo "${NEWLINE}Compilation Success!"
+
+echo "Running Benchmarks${NEWLINE}"
+
+#Every argument is handed to the suite, for example ./bench.sh --filter dispatch. --out bench.csv
+java -cp ./bench-out/ benchmark.Benchmarks "$@"
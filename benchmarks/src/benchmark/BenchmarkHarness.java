@@ -0,0 +1,84 @@
+/**
+ * Author: Jack Robbins
+ *
+ * This class times workloads in the same way that JMH does in its throughput mode
+ * 	- A number of warmup iterations are run and thrown away, so the JIT has settled
+ * 	- Each measured iteration calls the workload over and over for a fixed amount of time
+ * 	- The rate of every measured iteration is kept, and they are combined into a 95% confidence interval
+ *
+ * 	Anything that a workload computes should be handed to consume(), so that the JIT can not
+ * 	decide that the work is unused and throw it away
+ */
+
+package benchmark;
+
+import statistics.ConfidenceInterval;
+
+
+public class BenchmarkHarness{
+	//Everything consumed is folded in here, it is volatile so the fold can never be skipped
+	private static volatile long sink;
+
+	private int warmupIterations;
+	private int measurementIterations;
+	private long iterationNanos;
+
+
+	/**
+	 * Basic constructor, iteration time is given in milliseconds
+	 */
+	public BenchmarkHarness(int warmupIterations, int measurementIterations, long iterationMillis){
+		if(warmupIterations < 0 || measurementIterations < 2 || iterationMillis < 1){
+			throw new IllegalArgumentException("Benchmarks need at least two measured iterations of at least one millisecond");
+		}
+
+		this.warmupIterations = warmupIterations;
+		this.measurementIterations = measurementIterations;
+		this.iterationNanos = iterationMillis * 1_000_000L;
+	}
+
+
+	/**
+	 * Keep a value alive so the work that made it is not optimised away
+	 */
+	public static void consume(long value){
+		sink += value;
+	}
+
+
+	/**
+	 * Warm up and then measure one workload
+	 */
+	public BenchmarkResult measure(String name, String unit, Workload workload) throws Exception{
+		for(int i = 0; i < this.warmupIterations; i++){
+			iteration(workload);
+		}
+
+		double[] rates = new double[this.measurementIterations];
+		for(int i = 0; i < this.measurementIterations; i++){
+			rates[i] = iteration(workload);
+		}
+
+		return new BenchmarkResult(name, unit, new ConfidenceInterval(rates));
+	}
+
+
+	/**
+	 * Run the workload until an iteration's worth of wall time has gone by, and return the
+	 * number of operations per second of timed work. Time spent in reset() is not counted
+	 */
+	private double iteration(Workload workload) throws Exception{
+		long operations = 0;
+		long timed = 0;
+		long start = System.nanoTime();
+
+		do{
+			workload.reset();
+			long before = System.nanoTime();
+			operations += workload.run();
+			timed += System.nanoTime() - before;
+		} while(System.nanoTime() - start < this.iterationNanos);
+
+		return operations * 1e9 / Math.max(timed, 1);
+	}
+}
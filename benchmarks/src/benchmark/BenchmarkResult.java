@@ -0,0 +1,57 @@
+/**
+ * Author: Jack Robbins
+ * The measured throughput of one benchmark
+ */
+
+package benchmark;
+
+import statistics.ConfidenceInterval;
+
+
+public class BenchmarkResult{
+	private String name;
+	private String unit;
+	private ConfidenceInterval throughput;
+
+
+	/**
+	 * Basic constructor, the throughput is in operations per second
+	 */
+	public BenchmarkResult(String name, String unit, ConfidenceInterval throughput){
+		this.name = name;
+		this.unit = unit;
+		this.throughput = throughput;
+	}
+
+
+	/**
+	 * A simple helper method to get the name of the benchmark
+	 */
+	public String getName(){
+		return this.name;
+	}
+
+
+	/**
+	 * A simple helper method to get what one operation of the benchmark is
+	 */
+	public String getUnit(){
+		return this.unit;
+	}
+
+
+	/**
+	 * A simple helper method to get the operations per second over every measured iteration
+	 */
+	public ConfidenceInterval getThroughput(){
+		return this.throughput;
+	}
+
+
+	/**
+	 * A simple helper method to get the average cost of one operation in nanoseconds
+	 */
+	public double getNanosPerOperation(){
+		return 1e9 / this.throughput.getMean();
+	}
+}
@@ -0,0 +1,201 @@
+/**
+ * Author: Jack Robbins
+ *
+ * Entry point for the benchmark suite. The suite covers
+ * 	- Enqueue, dequeue and handoff throughput of every queue backend
+ * 	- The cost of one dispatch decision for every strategy at 5, 64 and 1024 queues
+ * 	- Simulated customers per second for every strategy at 5, 64 and 1024 stations
+ *
+ * 	Results can be written to a CSV file, and a previous CSV file can be given as a baseline.
+ * 	Any benchmark that got clearly slower than its baseline is reported as a regression, and the
+ * 	suite exits with a failure code so that a build script can stop
+ */
+
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+
+public class Benchmarks{
+	private static final String HEADER = "benchmark,unit,operations_per_second,ci_half_width,nanos_per_operation";
+
+	//A benchmark has regressed when it is this much slower than its baseline, and the
+	//difference is bigger than the noise of this run
+	private static final double REGRESSION_THRESHOLD = 0.10;
+
+	private List<String> names;
+	private List<String> units;
+	private List<Supplier<Workload>> workloads;
+
+
+	/**
+	 * Basic constructor, the suite starts out empty
+	 */
+	public Benchmarks(){
+		this.names = new ArrayList<>();
+		this.units = new ArrayList<>();
+		this.workloads = new ArrayList<>();
+	}
+
+
+	/**
+	 * Add one benchmark to the suite. The workload is only built if the benchmark is run
+	 */
+	public void add(String name, String unit, Supplier<Workload> workload){
+		this.names.add(name);
+		this.units.add(unit);
+		this.workloads.add(workload);
+	}
+
+
+	/**
+	 * Runs the suite from the command line, for example
+	 * 	--filter dispatch. --warmup 3 --iterations 5 --time 1000 --out bench.csv --baseline old.csv
+	 */
+	public static void main(String[] args){
+		String filter = "";
+		int warmup = 3;
+		int iterations = 5;
+		long time = 1000;
+		String out = null;
+		String baseline = null;
+		BenchmarkHarness harness;
+
+		try{
+			for(int i = 0; i + 1 < args.length; i += 2){
+				switch(args[i]){
+					case "--filter":
+						filter = args[i + 1];
+						break;
+					case "--warmup":
+						warmup = Integer.parseInt(args[i + 1]);
+						break;
+					case "--iterations":
+						iterations = Integer.parseInt(args[i + 1]);
+						break;
+					case "--time":
+						time = Long.parseLong(args[i + 1]);
+						break;
+					case "--out":
+						out = args[i + 1];
+						break;
+					case "--baseline":
+						baseline = args[i + 1];
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+
+			harness = new BenchmarkHarness(warmup, iterations, time);
+		} catch(IllegalArgumentException iae){
+			System.out.println(iae.getMessage());
+			System.out.println("Usage: Benchmarks [--filter text] [--warmup n] [--iterations n] [--time millis]"
+							   + " [--out file.csv] [--baseline file.csv]");
+			return;
+		}
+
+		Benchmarks suite = new Benchmarks();
+		QueueBenchmarks.addTo(suite);
+		DispatchBenchmarks.addTo(suite);
+		SimulationBenchmarks.addTo(suite);
+
+		try{
+			List<BenchmarkResult> results = suite.run(harness, filter);
+
+			if(out != null){
+				writeResults(results, out);
+			}
+
+			if(baseline != null && compareToBaseline(results, baseline) > 0){
+				System.exit(1);
+			}
+		} catch(Exception e){
+			System.out.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+
+
+	/**
+	 * Run every benchmark whose name contains the filter, printing each one as it finishes
+	 */
+	public List<BenchmarkResult> run(BenchmarkHarness harness, String filter) throws Exception{
+		List<BenchmarkResult> results = new ArrayList<>();
+
+		System.out.printf("%-36s %28s %14s\n", "Benchmark", "Operations per second", "ns/operation");
+		for(int i = 0; i < this.names.size(); i++){
+			if(!this.names.get(i).contains(filter)){
+				continue;
+			}
+
+			BenchmarkResult result = harness.measure(this.names.get(i), this.units.get(i), this.workloads.get(i).get());
+			results.add(result);
+			System.out.printf("%-36s %14.0f +/- %9.0f %14.1f\n", result.getName(), result.getThroughput().getMean(),
+							  result.getThroughput().getHalfWidth(), result.getNanosPerOperation());
+		}
+
+		return results;
+	}
+
+
+	/**
+	 * Helper method for writing the results to a CSV file, overwriting anything already there
+	 */
+	private static void writeResults(List<BenchmarkResult> results, String out) throws IOException{
+		try(BufferedWriter writer = Files.newBufferedWriter(Paths.get(out), StandardCharsets.UTF_8)){
+			writer.write(HEADER);
+			writer.newLine();
+
+			for(BenchmarkResult result : results){
+				writer.write(result.getName() + "," + result.getUnit() + "," + result.getThroughput().getMean() + ","
+							 + result.getThroughput().getHalfWidth() + "," + result.getNanosPerOperation());
+				writer.newLine();
+			}
+		}
+	}
+
+
+	/**
+	 * Compare the results to a CSV file written by an earlier run, and return the number of
+	 * benchmarks that regressed. Benchmarks missing from either side are skipped
+	 */
+	private static int compareToBaseline(List<BenchmarkResult> results, String baseline) throws IOException{
+		Map<String, Double> previous = new HashMap<>();
+		for(String line : Files.readAllLines(Paths.get(baseline), StandardCharsets.UTF_8)){
+			String[] fields = line.split(",");
+			if(fields.length == HEADER.split(",").length && !line.equals(HEADER)){
+				previous.put(fields[0], Double.parseDouble(fields[2]));
+			}
+		}
+
+		int regressions = 0;
+		System.out.println("\nCompared to " + baseline);
+		for(BenchmarkResult result : results){
+			Double before = previous.get(result.getName());
+			if(before == null){
+				continue;
+			}
+
+			double change = (result.getThroughput().getMean() - before) / before;
+			boolean regressed = change < -REGRESSION_THRESHOLD && result.getThroughput().getUpper() < before;
+			if(regressed){
+				regressions++;
+			}
+
+			System.out.printf("\t%-36s %+7.1f%%%s\n", result.getName(), change * 100, regressed ? "  REGRESSION" : "");
+		}
+
+		System.out.println(regressions + " regression" + (regressions == 1 ? "" : "s") + " found");
+		return regressions;
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ * Author: Jack Robbins
+ *
+ * Cost of one dispatch decision for every multiple queue strategy, over a range of queue counts
+ */
+
+package benchmark;
+
+import dispatch.DispatchStrategy;
+import dispatch.Dispatcher;
+import java.util.Random;
+
+
+public class DispatchBenchmarks{
+	//Queue counts that every strategy is measured at
+	private static final int[] QUEUE_COUNTS = {5, 64, 1024};
+
+	//Decisions made by one call of a workload
+	private static final int DECISIONS = 65_536;
+
+
+	/**
+	 * Add the benchmarks for every strategy to the suite
+	 */
+	public static void addTo(Benchmarks suite){
+		for(DispatchStrategy strategy : DispatchStrategy.values()){
+			//The single queue has no decision to make
+			if(strategy.isSingleQueue()){
+				continue;
+			}
+
+			for(int numQueues : QUEUE_COUNTS){
+				suite.add("dispatch." + strategy + "." + numQueues, "passengers", () -> dispatch(strategy, numQueues));
+			}
+		}
+	}
+
+
+	/**
+	 * Time a run of decisions on a fresh dispatcher, so that strategies which remember their
+	 * past decisions start from the same place every time. Every decision is paired with a
+	 * departure from the queue chosen a lap of the queues earlier, so a dispatcher that tracks
+	 * live depths sees a steady state of about one passenger per queue
+	 */
+	private static Workload dispatch(DispatchStrategy strategy, int numQueues){
+		Random random = new Random(42);
+		Dispatcher[] dispatcher = new Dispatcher[1];
+		int[] waiting = new int[numQueues];
+
+		return new Workload(){
+			@Override
+			public long run(){
+				long chosen = 0;
+				for(int i = 0; i < DECISIONS; i++){
+					int slot = i % numQueues;
+					if(i >= numQueues){
+						dispatcher[0].passengerLeft(waiting[slot]);
+					}
+
+					waiting[slot] = dispatcher[0].selectQueue();
+					chosen += waiting[slot];
+				}
+				BenchmarkHarness.consume(chosen);
+				return DECISIONS;
+			}
+
+			@Override
+			public void reset(){
+				dispatcher[0] = strategy.createDispatcher(numQueues, random);
+			}
+		};
+	}
+}
@@ -0,0 +1,144 @@
+/**
+ * Author: Jack Robbins
+ *
+ * Throughput of every queue backend, measured three ways
+ * 	- Enqueue: one thread filling an empty queue
+ * 	- Dequeue: one thread emptying a full queue
+ * 	- Handoff: one arrival thread feeding a number of station threads, as in a real time run
+ */
+
+package benchmark;
+
+import queueBackend.QueueBackend;
+import queueOccupant.Passenger;
+import java.util.concurrent.BlockingQueue;
+
+
+public class QueueBenchmarks{
+	//Passengers moved by one call of a workload
+	private static final int BATCH = 4096;
+
+	//Passengers passed from the arrival thread to the stations by one handoff call
+	private static final int HANDOFF_PASSENGERS = 100_000;
+
+	//Number of station threads taking from the queue during a handoff
+	private static final int HANDOFF_STATIONS = 4;
+
+
+	/**
+	 * Add the benchmarks for every backend to the suite
+	 */
+	public static void addTo(Benchmarks suite){
+		for(QueueBackend backend : QueueBackend.values()){
+			suite.add("queue." + backend + ".enqueue", "passengers", () -> enqueue(backend));
+			suite.add("queue." + backend + ".dequeue", "passengers", () -> dequeue(backend));
+			suite.add("queue." + backend + ".handoff", "passengers", () -> handoff(backend));
+		}
+	}
+
+
+	/**
+	 * Time filling the queue, the queue is emptied again outside of the timed region
+	 */
+	private static Workload enqueue(QueueBackend backend){
+		BlockingQueue<Passenger> queue = backend.create(BATCH);
+		Passenger[] passengers = newPassengers(BATCH);
+
+		return new Workload(){
+			@Override
+			public long run(){
+				for(Passenger p : passengers){
+					queue.offer(p);
+				}
+				return BATCH;
+			}
+
+			@Override
+			public void reset(){
+				queue.clear();
+			}
+		};
+	}
+
+
+	/**
+	 * Time emptying the queue, the queue is filled again outside of the timed region
+	 */
+	private static Workload dequeue(QueueBackend backend){
+		BlockingQueue<Passenger> queue = backend.create(BATCH);
+		Passenger[] passengers = newPassengers(BATCH);
+
+		return new Workload(){
+			@Override
+			public long run(){
+				long taken = 0;
+				Passenger p;
+				while((p = queue.poll()) != null){
+					taken += p.getQueueID();
+				}
+				BenchmarkHarness.consume(taken);
+				return BATCH;
+			}
+
+			@Override
+			public void reset(){
+				for(Passenger p : passengers){
+					queue.offer(p);
+				}
+			}
+		};
+	}
+
+
+	/**
+	 * Time passing passengers from one producer to a group of stations through put and take.
+	 * The queue is kept small so that both sides really do have to wait on each other
+	 */
+	private static Workload handoff(QueueBackend backend){
+		BlockingQueue<Passenger> queue = backend.create(BATCH);
+		Passenger[] passengers = newPassengers(HANDOFF_PASSENGERS);
+
+		return () -> {
+			Thread[] stations = new Thread[HANDOFF_STATIONS];
+			for(int i = 0; i < HANDOFF_STATIONS; i++){
+				//Each station takes an equal share, and the first one takes whatever is left over
+				int quota = HANDOFF_PASSENGERS / HANDOFF_STATIONS + (i == 0 ? HANDOFF_PASSENGERS % HANDOFF_STATIONS : 0);
+				stations[i] = Thread.ofPlatform().start(() -> {
+					try{
+						long taken = 0;
+						for(int j = 0; j < quota; j++){
+							taken += queue.take().getQueueID();
+						}
+						BenchmarkHarness.consume(taken);
+					} catch(InterruptedException ie){
+						System.out.println(ie.getMessage());
+					}
+				});
+			}
+
+			for(Passenger p : passengers){
+				queue.put(p);
+			}
+
+			for(Thread station : stations){
+				station.join();
+			}
+
+			return HANDOFF_PASSENGERS;
+		};
+	}
+
+
+	/**
+	 * Helper method for making passengers to move around
+	 */
+	private static Passenger[] newPassengers(int count){
+		Passenger[] passengers = new Passenger[count];
+		for(int i = 0; i < count; i++){
+			passengers[i] = new Passenger();
+			passengers[i].startWaiting(i % 8, 0);
+		}
+
+		return passengers;
+	}
+}
@@ -0,0 +1,47 @@
+/**
+ * Author: Jack Robbins
+ *
+ * End to end speed of the discrete event simulation, in simulated customers per second of
+ * wall time, for every strategy over a range of station counts
+ */
+
+package benchmark;
+
+import dispatch.DispatchStrategy;
+import simulation.DiscreteEventSimulation;
+import simulation.Scenario;
+
+
+public class SimulationBenchmarks{
+	//Station counts that every strategy is measured at
+	private static final int[] STATION_COUNTS = {5, 64, 1024};
+
+	//Six simulated hours with a customer every second
+	private static final int DURATION = 6 * 60 * 60;
+	private static final int AVERAGE_ARRIVAL_TIME = 1;
+
+
+	/**
+	 * Add the benchmarks for every strategy to the suite
+	 */
+	public static void addTo(Benchmarks suite){
+		for(DispatchStrategy strategy : DispatchStrategy.values()){
+			for(int numStations : STATION_COUNTS){
+				suite.add("simulation." + strategy + "." + numStations, "customers", () -> simulate(strategy, numStations));
+			}
+		}
+	}
+
+
+	/**
+	 * Time whole runs. Service is set so that the stations are about 80% busy, which keeps
+	 * the queues from either staying empty or growing without bound as stations are added
+	 */
+	private static Workload simulate(DispatchStrategy strategy, int numStations){
+		int averageServiceTime = Math.max(1, numStations * AVERAGE_ARRIVAL_TIME * 4 / 5);
+		Scenario scenario = new Scenario(strategy, DURATION, AVERAGE_ARRIVAL_TIME, averageServiceTime, numStations, numStations);
+		long[] seed = {42};
+
+		return () -> DiscreteEventSimulation.run(scenario, seed[0]++).getPassengersServed();
+	}
+}
@@ -0,0 +1,25 @@
+/**
+ * Author: Jack Robbins
+ * This interface is one piece of work that the benchmark harness can time
+ */
+
+package benchmark;
+
+
+/**
+ * The harness calls reset() outside of the timed region and then times run(). Each call
+ * to run() reports how many operations it did, so the harness can turn time into a rate
+ */
+public interface Workload{
+	/**
+	 * Do the timed work, returning the number of operations that were performed
+	 */
+	long run() throws Exception;
+
+
+	/**
+	 * Get ready for the next call to run(), this is never timed
+	 */
+	default void reset() throws Exception{
+	}
+}
@@ -5,7 +5,19 @@
  * This class is the runner for the simulation, taking in all of the needed input
  */
 
+import dispatch.DispatchStrategy;
+import distribution.Distribution;
+import eventLog.EventLogMode;
+import experiment.ReplicationRunner;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Scanner;
+import queueBackend.PriorityPolicy;
+import queueBackend.QueueBackend;
+import simulation.DiscreteEventSimulation;
+import simulation.ExecutionMode;
+import simulation.Scenario;
 import simulation.Simulation;
 
 
@@ -23,6 +35,7 @@ public class Main{
 		System.out.println("2. Multiple queues with Round Robin dispatch strategy");
 		System.out.println("3. Multiple queues with shortest queue dispatch strategy");
 		System.out.println("4. Multiple queues with random queue dispatch strategy");
+		System.out.println("5. Multiple queues with power of d choices dispatch strategy");
 		System.out.println("\n============================================================");	
 		System.out.print("\nWhich simulation would you like to run: ");
 
@@ -41,28 +54,215 @@ public class Main{
 		System.out.print("Enter the average service time in seconds: ");
 		int averageServiceTime = in.nextInt();
 
+		//Get the number of service stations
+		System.out.print("Enter the number of service stations: ");
+		int numStations = in.nextInt();
+
+		//The single queue simulation only ever has one queue
+		int numQueues = 1;
+		if(option != 1){
+			System.out.print("Enter the number of queues(at most one per station): ");
+			numQueues = in.nextInt();
+		}
+
+		//The power of d choices strategy needs to know how many queues to look at
+		int choices = DispatchStrategy.DEFAULT_CHOICES;
+		if(option == 5){
+			System.out.print("Enter the number of queues each entrant looks at: ");
+			choices = in.nextInt();
+		}
+
+		//Every queue needs at least one station serving it
+		if(numStations < 1 || numQueues < 1 || numQueues > numStations || choices < 1){
+			System.out.println("Invalid entry, program will now terminate");
+			in.close();
+			return;
+		}
+
+		//Stations of a multiple queue run can be allowed to help out other lines
+		boolean workStealing = false;
+		if(option != 1){
+			System.out.print("Let idle stations steal from other lines(y/n): ");
+			workStealing = in.next().equalsIgnoreCase("y");
+		}
+
+		//Premium passengers go ahead of standard ones in every line. Stolen passengers come off
+		//the back of a line, so this is only asked when stations do not steal
+		int premiumPercentage = 0;
+		PriorityPolicy priorityPolicy = PriorityPolicy.STRICT;
+		if(!workStealing){
+			System.out.print("Enter the percentage of premium passengers(0 for no priority classes): ");
+			premiumPercentage = in.nextInt();
+		}
+
+		if(premiumPercentage < 0 || premiumPercentage > 100){
+			System.out.println("Invalid entry, program will now terminate");
+			in.close();
+			return;
+		}
+
+		//Aging moves standard passengers up once they have waited long enough, so they never starve
+		if(premiumPercentage > 0){
+			System.out.print("Let waiting standard passengers age into premium(y/n): ");
+			if(in.next().equalsIgnoreCase("y")){
+				priorityPolicy = PriorityPolicy.AGING;
+			}
+		}
+
+		//Real time runs take as long as the duration, simulated time runs finish right away
+		System.out.print("Run on the simulated clock instead of in real time(y/n): ");
+		boolean simulatedClock = in.next().equalsIgnoreCase("y");
+
+		//Simulated time runs are cheap enough to replicate
+		int replications = 1;
+		if(simulatedClock){
+			System.out.print("Enter the number of replications to run(1 for a single run): ");
+			replications = in.nextInt();
+		}
+
+		//Any run can replay a recorded arrival log instead of making up arrivals
+		System.out.print("Enter an arrival log to replay(n for synthetic arrivals): ");
+		String arrivalFile = in.next();
+
+		//Real time runs can put their stations on virtual threads instead of one executor each
+		ExecutionMode mode = ExecutionMode.EXECUTOR;
+		if(!simulatedClock){
+			System.out.print("Run the service stations on virtual threads(y/n): ");
+			if(in.next().equalsIgnoreCase("y")){
+				mode = ExecutionMode.VIRTUAL_THREAD;
+			}
+		}
+
+		//Real time runs log every enqueue and dequeue, which can be sent elsewhere or turned off
+		int logOption = 1;
+		if(!simulatedClock){
+			System.out.println("\n1. Log events to the console");
+			System.out.println("2. Log events to events.csv");
+			System.out.println("3. Do not log events");
+			System.out.print("Where would you like to log events: ");
+			logOption = in.nextInt();
+		}
+
+		//A single run can be traced to a binary file, and analyzed later with trace.TraceAnalyzer
+		boolean recordTrace = false;
+		if(!simulatedClock || replications == 1){
+			System.out.print("Record a binary trace of the run to trace.bin(y/n): ");
+			recordTrace = in.next().equalsIgnoreCase("y");
+		}
+
+		//A single run can publish live metrics over JMX and to a Prometheus text file while it goes
+		boolean publishMetrics = false;
+		if(!simulatedClock || replications == 1){
+			System.out.print("Publish live metrics over JMX and to metrics.prom(y/n): ");
+			publishMetrics = in.next().equalsIgnoreCase("y");
+		}
+
+		//A single run can sample how deep every line is over time, and be summed up later with timeSeries.TimeSeriesExport
+		boolean sampleTimeSeries = false;
+		if(!simulatedClock || replications == 1){
+			System.out.print("Sample queue depths and busy stations to timeseries.bin every second(y/n): ");
+			sampleTimeSeries = in.next().equalsIgnoreCase("y");
+		}
+
+		//A single run on the simulated clock can take snapshots as it goes, and be picked back up from the last one
+		boolean takeCheckpoints = false;
+		boolean resume = false;
+		if(simulatedClock && replications == 1 && !recordTrace && !publishMetrics && !sampleTimeSeries){
+			System.out.print("Take a snapshot of the run to checkpoint.bin every simulated hour(y/n): ");
+			takeCheckpoints = in.next().equalsIgnoreCase("y");
+			if(takeCheckpoints && Files.exists(Paths.get("checkpoint.bin"))){
+				System.out.print("Pick the run back up from the snapshot in checkpoint.bin(y/n): ");
+				resume = in.next().equalsIgnoreCase("y");
+			}
+		}
+
+		//Arrivals and service times can follow something other than the mean plus or minus 2 seconds
+		String arrivalDescription = "regular";
+		if(arrivalFile.equalsIgnoreCase("n")){
+			System.out.print("Enter the arrival distribution(regular, exponential, erlang:k, lognormal:cv, hyperexponential:cv, empirical:file): ");
+			arrivalDescription = in.next();
+		}
+		System.out.print("Enter the service distribution(jitter, exponential, erlang:k, lognormal:cv, hyperexponential:cv, empirical:file): ");
+		String serviceDescription = in.next();
+
+		//Every random stream is split off of one seed, so a run can be repeated
+		System.out.print("Enter a seed for the run(n to seed from the clock): ");
+		String seedEntry = in.next();
+
+		//Every line can be built on a different kind of blocking queue
+		System.out.println("\n1. LinkedBlockingQueue");
+		System.out.println("2. ArrayBlockingQueue");
+		System.out.println("3. Lock-free ring buffer");
+		System.out.print("Which queue backend would you like to use: ");
+		int backendOption = in.nextInt();
+
 		//Done scanning
 		in.close();
-	
-		System.out.println("\n=============== Displaying Realtime Evolution ==============\n");
 
-		//Switch on user input, call appropriate simulation
-		switch(option){
-			case 1:
-				Simulation.single_QueueSimulation(simulationDuration, averageArrivalTime, averageServiceTime);
-				break;
-			case 2:
-				Simulation.multi_RoundRobinSimulation(simulationDuration, averageArrivalTime, averageServiceTime);
-				break;
-			case 3:
-				Simulation.multi_ShortestQueueSimulation(simulationDuration, averageArrivalTime, averageServiceTime);
-				break;
-			case 4:
-				Simulation.multi_RandomQueueSimulation(simulationDuration, averageArrivalTime, averageServiceTime);
-				break;
-			default:
-				System.out.println("Invalid entry, program will now terminate");
-				return;
+		if(option < 1 || option > 5 || backendOption < 1 || backendOption > 3 || logOption < 1 || logOption > 3){
+			System.out.println("Invalid entry, program will now terminate");
+			return;
+		}
+
+		//The strategies and backends are listed in the same order as the menus
+		Scenario scenario = new Scenario(DispatchStrategy.values()[option - 1], simulationDuration, averageArrivalTime,
+										 averageServiceTime, numStations, numQueues);
+		scenario.setExecutionMode(mode);
+		scenario.setChoices(choices);
+		scenario.setWorkStealing(workStealing);
+		scenario.setQueueBackend(QueueBackend.values()[backendOption - 1]);
+		scenario.setEventLogMode(EventLogMode.values()[logOption - 1]);
+		if(recordTrace){
+			scenario.setTraceFile(Paths.get("trace.bin"));
+		}
+		if(publishMetrics){
+			scenario.setMetricsFile(Paths.get("metrics.prom"));
+		}
+		if(!arrivalFile.equalsIgnoreCase("n")){
+			scenario.setArrivalFile(Paths.get(arrivalFile));
+		}
+		if(sampleTimeSeries){
+			scenario.setTimeSeriesFile(Paths.get("timeseries.bin"));
+		}
+		if(takeCheckpoints){
+			scenario.setCheckpointFile(Paths.get("checkpoint.bin"));
+		}
+		if(premiumPercentage > 0){
+			scenario.setPriorityClasses(premiumPercentage, 100 - premiumPercentage);
+			scenario.setPriorityPolicy(priorityPolicy);
+		}
+
+		long seed;
+		try{
+			if(!arrivalDescription.equalsIgnoreCase("regular")){
+				scenario.setArrivalDistribution(Distribution.parse(arrivalDescription, averageArrivalTime));
+			}
+			scenario.setServiceDistribution(Distribution.parse(serviceDescription, averageServiceTime));
+			seed = seedEntry.equalsIgnoreCase("n") ? System.currentTimeMillis() : Long.parseLong(seedEntry);
+		} catch(IllegalArgumentException | UncheckedIOException e){
+			System.out.println("Invalid entry, program will now terminate");
+			return;
+		}
+
+		//Many replications are combined into confidence intervals instead of printing every run
+		if(simulatedClock && replications > 1){
+			ReplicationRunner.printReplicationStatistics(ReplicationRunner.run(scenario, replications, seed));
+			return;
 		}
+
+		//A resumed run takes its seed from the snapshot
+		if(resume){
+			DiscreteEventSimulation.resumeScenario(scenario);
+			return;
+		}
+
+		//The simulated clock has no realtime display, it jumps straight to the statistics
+		if(simulatedClock){
+			DiscreteEventSimulation.runScenario(scenario, seed);
+			return;
+		}
+
+		System.out.println("\n=============== Displaying Realtime Evolution ==============\n");
+		Simulation.runScenario(scenario, seed);
 	}
 }
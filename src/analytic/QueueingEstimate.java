@@ -0,0 +1,116 @@
+/**
+ * Author: Jack Robbins
+ * Steady state figures of one line, worked out from queueing theory instead of simulated
+ *
+ * Times are in seconds, like every other statistic of the simulation. The waiting time follows the
+ * definition that the simulation uses, which runs until a passenger leaves the service station, so
+ * it is the time spent in line plus the time spent being served
+ */
+
+package analytic;
+
+
+public class QueueingEstimate{
+	private String model;
+	private boolean exact;
+	private int servers;
+	private double arrivalRate;
+	private double meanServiceTime;
+	private double probabilityOfWaiting;
+	private double lineWaitTime;
+
+
+	/**
+	 * Basic constructor, the arrival rate is per second into this one line
+	 */
+	QueueingEstimate(String model, boolean exact, int servers, double arrivalRate, double meanServiceTime,
+					 double probabilityOfWaiting, double lineWaitTime){
+		this.model = model;
+		this.exact = exact;
+		this.servers = servers;
+		this.arrivalRate = arrivalRate;
+		this.meanServiceTime = meanServiceTime;
+		this.probabilityOfWaiting = probabilityOfWaiting;
+		this.lineWaitTime = lineWaitTime;
+	}
+
+
+	/**
+	 * A simple helper method to get the name of the model, in Kendall notation
+	 */
+	public String getModel(){
+		return this.model;
+	}
+
+
+	/**
+	 * Is the model exact for the scenario, or only an approximation
+	 */
+	public boolean isExact(){
+		return this.exact;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of service stations that work on the line
+	 */
+	public int getServers(){
+		return this.servers;
+	}
+
+
+	/**
+	 * A simple helper method to get the arrival rate into the line, per second
+	 */
+	public double getArrivalRate(){
+		return this.arrivalRate;
+	}
+
+
+	/**
+	 * The percentage of the time that each service station is busy
+	 */
+	public double getUtilisation(){
+		return this.arrivalRate * this.meanServiceTime / this.servers * 100;
+	}
+
+
+	/**
+	 * A simple helper method to get the chance that an arriving passenger has to wait in line
+	 */
+	public double getProbabilityOfWaiting(){
+		return this.probabilityOfWaiting;
+	}
+
+
+	/**
+	 * A simple helper method to get the expected time spent in line before service starts
+	 */
+	public double getLineWaitTime(){
+		return this.lineWaitTime;
+	}
+
+
+	/**
+	 * The expected waiting time as the simulation measures it, the time in line plus the service
+	 */
+	public double getWaitTime(){
+		return this.lineWaitTime + this.meanServiceTime;
+	}
+
+
+	/**
+	 * The expected number of passengers waiting in line, by Little's law
+	 */
+	public double getLineLength(){
+		return this.arrivalRate * this.lineWaitTime;
+	}
+
+
+	/**
+	 * The expected number of passengers in line or being served, by Little's law
+	 */
+	public double getNumberInSystem(){
+		return this.arrivalRate * this.getWaitTime();
+	}
+}
@@ -0,0 +1,189 @@
+/**
+ * Author: Jack Robbins
+ * Closed form queueing theory for the scenarios that match a textbook model
+ *
+ * 	- A single shared line with exponential arrivals and service is an M/M/c queue, solved with Erlang C
+ * 	- One station per line with exponential arrivals is an M/G/1 queue, solved with Pollaczek-Khinchine
+ * 	- Anything else with a fixed split of the arrivals is approximated with Allen-Cunneen, which scales
+ * 	  the M/M/c wait by the variability of the arrivals and the service
+ *
+ * 	An estimate takes a few microseconds, against seconds for a simulation, so a parameter search can
+ * 	skip the simulation wherever the model is exact
+ */
+
+package analytic;
+
+import dispatch.DispatchStrategy;
+import distribution.Distribution;
+import distribution.ExponentialDistribution;
+import distribution.JitterDistribution;
+import simulation.Scenario;
+
+
+public class QueueingModel{
+	/**
+	 * The chance that an arriving passenger has to wait, in a line served by the given number of
+	 * stations with the given offered load(arrival rate times mean service time). Erlang B is built up
+	 * one server at a time, which never overflows, and then turned into Erlang C
+	 */
+	public static double erlangC(int servers, double offeredLoad){
+		double utilisation = offeredLoad / servers;
+		if(servers < 1 || offeredLoad < 0 || utilisation >= 1){
+			throw new IllegalArgumentException("Erlang C needs at least one server and a utilisation below 1, got "
+											   + servers + " servers with a load of " + offeredLoad);
+		}
+
+		double erlangB = 1;
+		for(int k = 1; k <= servers; k++){
+			erlangB = offeredLoad * erlangB / (k + offeredLoad * erlangB);
+		}
+
+		return erlangB / (1 - utilisation * (1 - erlangB));
+	}
+
+
+	/**
+	 * The M/M/c queue, exponential arrivals at the given rate per second and exponential service
+	 * with the given mean in seconds, on the given number of stations
+	 */
+	public static QueueingEstimate mmc(double arrivalRate, double meanServiceTime, int servers){
+		return ggc(arrivalRate, meanServiceTime, servers, 1, 1);
+	}
+
+
+	/**
+	 * The M/G/1 queue. Pollaczek-Khinchine only needs the mean and the squared coefficient of
+	 * variation of the service time
+	 */
+	public static QueueingEstimate mg1(double arrivalRate, double meanServiceTime, double serviceVariability){
+		return ggc(arrivalRate, meanServiceTime, 1, 1, serviceVariability);
+	}
+
+
+	/**
+	 * The G/G/c queue, given the squared coefficients of variation of the gaps between arrivals and of
+	 * the service times. This is exact for M/M/c and for M/G/1, and the Allen-Cunneen approximation
+	 * otherwise
+	 */
+	public static QueueingEstimate ggc(double arrivalRate, double meanServiceTime, int servers,
+									   double arrivalVariability, double serviceVariability){
+		return solve(arrivalRate, meanServiceTime, servers, arrivalVariability, serviceVariability,
+					 arrivalVariability == 1, serviceVariability == 1);
+	}
+
+
+	/**
+	 * Can the scenario be estimated at all
+	 */
+	public static boolean appliesTo(Scenario scenario){
+		return reasonNotApplicable(scenario) == null;
+	}
+
+
+	/**
+	 * Estimate one line of a scenario. Every line of a scenario gets the same share of the arrivals and
+	 * the same number of stations, so they all have the same estimate. Throws if there is no model for
+	 * the scenario, with the reason as the message
+	 */
+	public static QueueingEstimate estimate(Scenario scenario){
+		String reason = reasonNotApplicable(scenario);
+		if(reason != null){
+			throw new IllegalArgumentException(reason);
+		}
+
+		int numQueues = scenario.getNumQueues();
+		int servers = scenario.getNumStations() / numQueues;
+
+		//The gaps between arrivals into the whole system
+		Distribution arrivals = scenario.getArrivalDistribution();
+		double arrivalRate;
+		double arrivalVariability;
+		boolean poisson;
+		if(arrivals == null){
+			//Every arrival is jittered around a fixed slot, so a gap is the slot plus the difference of two jitters
+			double variance = 2 * new JitterDistribution(scenario.getAverageArrivalTime(), JitterDistribution.DEFAULT_SPREAD).getVariance();
+			arrivalRate = 1.0 / scenario.getAverageArrivalTime();
+			arrivalVariability = variance * arrivalRate * arrivalRate;
+			poisson = false;
+		} else {
+			arrivalRate = 1 / arrivals.getMean();
+			arrivalVariability = arrivals.getSquaredCoefficientOfVariation();
+			poisson = arrivals instanceof ExponentialDistribution;
+		}
+
+		//How the split over the lines changes the gaps that each line sees
+		if(scenario.getStrategy() == DispatchStrategy.ROUND_ROBIN && numQueues > 1){
+			//Each line gets every n-th passenger, so its gaps are sums of n gaps and far more regular
+			arrivalVariability /= numQueues;
+			poisson = false;
+		} else if(scenario.getStrategy() == DispatchStrategy.RANDOM_QUEUE){
+			//Thinning a stream at random keeps a Poisson stream Poisson and pulls others towards it
+			double share = 1.0 / numQueues;
+			arrivalVariability = share * arrivalVariability + 1 - share;
+		}
+		arrivalRate /= numQueues;
+
+		Distribution service = scenario.getServiceDistribution();
+		return solve(arrivalRate, service.getMean(), servers, arrivalVariability, service.getSquaredCoefficientOfVariation(),
+					 poisson, service instanceof ExponentialDistribution);
+	}
+
+
+	/**
+	 * Work out the G/G/c figures. Whether the arrivals are Poisson and the service is exponential is
+	 * passed in, since other distributions can have the same variability without being memoryless
+	 */
+	private static QueueingEstimate solve(double arrivalRate, double meanServiceTime, int servers, double arrivalVariability,
+										  double serviceVariability, boolean poisson, boolean exponential){
+		if(arrivalRate <= 0 || meanServiceTime <= 0){
+			throw new IllegalArgumentException("Need a positive arrival rate and service time, got " + arrivalRate
+											   + " and " + meanServiceTime);
+		}
+
+		double probabilityOfWaiting = erlangC(servers, arrivalRate * meanServiceTime);
+		double utilisation = arrivalRate * meanServiceTime / servers;
+
+		//The M/M/c time in line, scaled by how variable the arrivals and service are compared to exponential
+		double lineWaitTime = probabilityOfWaiting * meanServiceTime / (servers * (1 - utilisation))
+							  * (arrivalVariability + serviceVariability) / 2;
+
+		boolean exact = poisson && (exponential || servers == 1);
+		String model = (poisson ? "M" : "G") + "/" + (exponential ? "M" : "G") + "/" + servers;
+
+		return new QueueingEstimate(model, exact, servers, arrivalRate, meanServiceTime, probabilityOfWaiting, lineWaitTime);
+	}
+
+
+	/**
+	 * Why there is no model for a scenario, or null if there is one
+	 */
+	private static String reasonNotApplicable(Scenario scenario){
+		DispatchStrategy strategy = scenario.getStrategy();
+
+		if(strategy == DispatchStrategy.SHORTEST_QUEUE || strategy == DispatchStrategy.POWER_OF_CHOICES){
+			return strategy + " picks lines by their length, which no closed form covers";
+		}
+
+		if(scenario.isWorkStealing()){
+			return "Work stealing couples the lines together, which no closed form covers";
+		}
+
+		if(scenario.getArrivalFile() != null){
+			return "A replayed arrival log has no distribution to model";
+		}
+
+		if(scenario.getNumStations() % scenario.getNumQueues() != 0){
+			return "The stations are not shared out evenly over the lines";
+		}
+
+		//An overloaded line has no steady state, its wait just keeps growing
+		double arrivalTime = scenario.getArrivalDistribution() == null ? scenario.getAverageArrivalTime()
+							 : scenario.getArrivalDistribution().getMean();
+		double utilisation = scenario.getServiceDistribution().getMean() / (arrivalTime * scenario.getNumStations());
+		if(utilisation >= 1){
+			return "The stations are overloaded(utilisation " + Math.round(utilisation * 100) + "%), so there is no steady state";
+		}
+
+		return null;
+	}
+}
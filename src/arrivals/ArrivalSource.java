@@ -0,0 +1,59 @@
+/**
+ * Author: Jack Robbins
+ * This interface streams recorded arrivals into a simulation in place of the synthetic ones
+ */
+
+package arrivals;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+
+/**
+ * A source is read one arrival at a time and only ever holds a fixed size buffer of its file, so
+ * an arrival log of any length can be replayed. Arrival times are in milliseconds from the first
+ * arrival in the log and never go backwards
+ */
+public interface ArrivalSource extends AutoCloseable{
+	/**
+	 * Move on to the next arrival. Returns false once the log is used up
+	 */
+	boolean next();
+
+
+	/**
+	 * The time of the current arrival in milliseconds from the first one
+	 */
+	long getArrivalTime();
+
+
+	/**
+	 * The service time that was observed for the current arrival in milliseconds, or -1 if the log
+	 * has none, in which case the simulation makes one up as usual
+	 */
+	long getServiceTime();
+
+
+	/**
+	 * Close the underlying file
+	 */
+	@Override
+	void close();
+
+
+	/**
+	 * Open an arrival log. Files ending in .csv are read as text, anything else as the binary format
+	 */
+	static ArrivalSource open(Path file){
+		try{
+			if(file.getFileName().toString().toLowerCase().endsWith(".csv")){
+				return new CsvArrivalSource(file);
+			}
+
+			return new BinaryArrivalSource(file);
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+	}
+}
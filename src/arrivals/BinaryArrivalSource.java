@@ -0,0 +1,118 @@
+/**
+ * Author: Jack Robbins
+ * Arrival source that streams a binary arrival log
+ *
+ * The file is nothing but 16 byte records in big endian order, the arrival timestamp in milliseconds
+ * followed by the observed service time in milliseconds, or -1 if it was not observed. It is read
+ * through one fixed size buffer, so a log of any size is replayed in the same amount of memory
+ */
+
+package arrivals;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+class BinaryArrivalSource implements ArrivalSource{
+	//Bytes in one record
+	static final int RECORD_BYTES = 16;
+
+	//Records read from the file at a time
+	static final int BUFFER_RECORDS = 4096;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private long records;
+	private long origin;
+	private long previous;
+	private long arrivalTime;
+	private long serviceTime;
+
+
+	/**
+	 * Basic constructor, opens the file
+	 */
+	BinaryArrivalSource(Path file) throws IOException{
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+		if(this.channel.size() % RECORD_BYTES != 0){
+			this.channel.close();
+			throw new IllegalArgumentException(file + " is not a whole number of " + RECORD_BYTES + " byte arrival records");
+		}
+
+		this.buffer = ByteBuffer.allocateDirect(RECORD_BYTES * BUFFER_RECORDS);
+		this.buffer.flip();
+		this.records = 0;
+	}
+
+
+	/**
+	 * Read the next record, refilling the buffer when it runs dry
+	 */
+	@Override
+	public boolean next(){
+		try{
+			while(this.buffer.remaining() < RECORD_BYTES){
+				this.buffer.compact();
+				int read = this.channel.read(this.buffer);
+				this.buffer.flip();
+				if(read < 0){
+					return false;
+				}
+			}
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+
+		long timestamp = this.buffer.getLong();
+		this.serviceTime = this.buffer.getLong();
+
+		if(this.records == 0){
+			this.origin = timestamp;
+			this.previous = timestamp;
+		}
+
+		if(timestamp < this.previous){
+			throw new IllegalArgumentException("Arrivals go back in time at record " + (this.records + 1));
+		}
+
+		this.records++;
+		this.previous = timestamp;
+		this.arrivalTime = timestamp - this.origin;
+		return true;
+	}
+
+
+	/**
+	 * A simple helper method to get the time of the current arrival in milliseconds from the first one
+	 */
+	@Override
+	public long getArrivalTime(){
+		return this.arrivalTime;
+	}
+
+
+	/**
+	 * A simple helper method to get the observed service time of the current arrival, -1 if there is none
+	 */
+	@Override
+	public long getServiceTime(){
+		return this.serviceTime;
+	}
+
+
+	/**
+	 * Close the file
+	 */
+	@Override
+	public void close(){
+		try{
+			this.channel.close();
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+	}
+}
@@ -0,0 +1,250 @@
+/**
+ * Author: Jack Robbins
+ * Arrival source that streams a CSV arrival log
+ *
+ * Every line holds an arrival timestamp and optionally the observed service time, like
+ * 	1718000000000,38000
+ * 	2024-06-10T06:13:20.250Z,41000
+ * Timestamps are either milliseconds since the epoch or ISO-8601 instants, and service times are in
+ * milliseconds. A header line at the top and blank lines are skipped
+ *
+ * 	The file is read through one fixed size buffer, and numbers are parsed straight out of the bytes,
+ * 	so a plain millisecond log is replayed without making a single object per line
+ */
+
+package arrivals;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+
+class CsvArrivalSource implements ArrivalSource{
+	//Bytes read from the file at a time
+	static final int BUFFER_BYTES = 1 << 16;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private byte[] line;
+	private int lineLength;
+	private long lineNumber;
+	private boolean seenData;
+	private long origin;
+	private long previous;
+	private long arrivalTime;
+	private long serviceTime;
+
+
+	/**
+	 * Basic constructor, opens the file
+	 */
+	CsvArrivalSource(Path file) throws IOException{
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+		this.buffer.flip();
+		this.line = new byte[256];
+		this.lineNumber = 0;
+		this.seenData = false;
+	}
+
+
+	/**
+	 * Read lines until one with an arrival on it turns up
+	 */
+	@Override
+	public boolean next(){
+		while(this.readLine()){
+			this.lineNumber++;
+			if(this.lineLength == 0){
+				continue;
+			}
+
+			int comma = this.indexOf(',');
+			int timeEnd = comma < 0 ? this.lineLength : comma;
+			long timestamp = this.parseTimestamp(0, timeEnd);
+
+			//Anything unreadable before the first arrival is taken to be a header
+			if(timestamp == Long.MIN_VALUE){
+				if(this.seenData){
+					throw new IllegalArgumentException("Can not read the arrival time on line " + this.lineNumber);
+				}
+				continue;
+			}
+
+			if(!this.seenData){
+				this.origin = timestamp;
+				this.previous = timestamp;
+				this.seenData = true;
+			}
+
+			if(timestamp < this.previous){
+				throw new IllegalArgumentException("Arrivals go back in time on line " + this.lineNumber);
+			}
+
+			this.previous = timestamp;
+			this.arrivalTime = timestamp - this.origin;
+			this.serviceTime = comma < 0 ? -1 : this.parseServiceTime(comma + 1, this.lineLength);
+			return true;
+		}
+
+		return false;
+	}
+
+
+	/**
+	 * A simple helper method to get the time of the current arrival in milliseconds from the first one
+	 */
+	@Override
+	public long getArrivalTime(){
+		return this.arrivalTime;
+	}
+
+
+	/**
+	 * A simple helper method to get the observed service time of the current arrival, -1 if there is none
+	 */
+	@Override
+	public long getServiceTime(){
+		return this.serviceTime;
+	}
+
+
+	/**
+	 * Close the file
+	 */
+	@Override
+	public void close(){
+		try{
+			this.channel.close();
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+
+	/**
+	 * Helper method for copying the next line, without its line break, into the line array.
+	 * Returns false at the end of the file
+	 */
+	private boolean readLine(){
+		this.lineLength = 0;
+		boolean readAnything = false;
+
+		try{
+			while(true){
+				if(!this.buffer.hasRemaining()){
+					this.buffer.clear();
+					int read = this.channel.read(this.buffer);
+					this.buffer.flip();
+					if(read < 0){
+						return readAnything;
+					}
+					continue;
+				}
+
+				readAnything = true;
+				byte next = this.buffer.get();
+				if(next == '\n'){
+					break;
+				}
+
+				if(this.lineLength == this.line.length){
+					this.line = Arrays.copyOf(this.line, this.line.length * 2);
+				}
+				this.line[this.lineLength++] = next;
+			}
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+
+		//Windows line endings
+		if(this.lineLength > 0 && this.line[this.lineLength - 1] == '\r'){
+			this.lineLength--;
+		}
+
+		return true;
+	}
+
+
+	/**
+	 * Helper method for finding the first occurrence of a character in the current line
+	 */
+	private int indexOf(char character){
+		for(int i = 0; i < this.lineLength; i++){
+			if(this.line[i] == character){
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+
+	/**
+	 * Helper method for reading a timestamp as either epoch milliseconds or an ISO-8601 instant.
+	 * Returns Long.MIN_VALUE if it is neither
+	 */
+	private long parseTimestamp(int start, int end){
+		long millis = this.parseMillis(start, end);
+		if(millis >= 0){
+			return millis;
+		}
+
+		try{
+			return Instant.parse(new String(this.line, start, end - start, StandardCharsets.US_ASCII).trim()).toEpochMilli();
+		} catch(DateTimeParseException dtpe){
+			return Long.MIN_VALUE;
+		}
+	}
+
+
+	/**
+	 * Helper method for reading the observed service time after the arrival time. A missing or empty
+	 * field means the service time was not observed, but anything else has to be a whole number of
+	 * milliseconds, so that a broken log is never quietly replayed with made up service times
+	 */
+	private long parseServiceTime(int start, int end){
+		long millis = this.parseMillis(start, end);
+		if(millis < 0 && new String(this.line, start, end - start, StandardCharsets.US_ASCII).trim().length() > 0){
+			throw new IllegalArgumentException("Can not read the service time on line " + this.lineNumber);
+		}
+
+		return millis;
+	}
+
+
+	/**
+	 * Helper method for reading a whole number of milliseconds out of the line. Spaces around it are
+	 * ignored. Returns -1 if the field is empty or is not a plain number
+	 */
+	private long parseMillis(int start, int end){
+		while(start < end && this.line[start] == ' '){
+			start++;
+		}
+		while(end > start && this.line[end - 1] == ' '){
+			end--;
+		}
+
+		if(start == end){
+			return -1;
+		}
+
+		long value = 0;
+		for(int i = start; i < end; i++){
+			byte digit = this.line[i];
+			if(digit < '0' || digit > '9'){
+				return -1;
+			}
+			value = value * 10 + (digit - '0');
+		}
+
+		return value;
+	}
+}
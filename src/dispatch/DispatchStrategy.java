@@ -0,0 +1,56 @@
+/**
+ * Author: Jack Robbins
+ * This enum lists every dispatch strategy that a simulation can be run with
+ */
+
+package dispatch;
+
+import java.util.Random;
+
+
+public enum DispatchStrategy{
+	SINGLE_QUEUE,
+	ROUND_ROBIN,
+	SHORTEST_QUEUE,
+	RANDOM_QUEUE,
+	POWER_OF_CHOICES;
+
+	//Number of queues a power of d choices dispatcher looks at when none is given
+	public static final int DEFAULT_CHOICES = 2;
+
+
+	/**
+	 * Does this strategy put every passenger into one shared queue
+	 */
+	public boolean isSingleQueue(){
+		return this == SINGLE_QUEUE;
+	}
+
+
+	/**
+	 * Make a fresh dispatcher for one run of this strategy
+	 */
+	public Dispatcher createDispatcher(int numQueues, Random random){
+		return createDispatcher(numQueues, DEFAULT_CHOICES, random);
+	}
+
+
+	/**
+	 * Make a fresh dispatcher for one run of this strategy. The number of choices is only
+	 * used by the power of d choices strategy
+	 */
+	public Dispatcher createDispatcher(int numQueues, int choices, Random random){
+		switch(this){
+			case ROUND_ROBIN:
+				return new RoundRobinDispatcher(numQueues);
+			case SHORTEST_QUEUE:
+				return new ShortestQueueDispatcher(numQueues, random);
+			case RANDOM_QUEUE:
+				return new RandomQueueDispatcher(numQueues, random);
+			case POWER_OF_CHOICES:
+				return new PowerOfChoicesDispatcher(numQueues, choices, random);
+			default:
+				return new RoundRobinDispatcher(1);
+		}
+	}
+}
@@ -0,0 +1,45 @@
+/**
+ * Author: Jack Robbins
+ * Dispatcher interface
+ *
+ * A dispatcher decides which queue each new entrant will join. Dispatchers are asked at the
+ * moment an entrant arrives, and are told whenever a passenger is done being served, so a
+ * dispatcher can keep track of how long every queue really is
+ */
+
+package dispatch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+
+public interface Dispatcher{
+	/**
+	 * Choose the queue that the next entrant will join
+	 */
+	int selectQueue();
+
+
+	/**
+	 * A passenger from the given queue finished being served and left. Dispatchers that do
+	 * not look at queue lengths can ignore this
+	 */
+	default void passengerLeft(int queueID){
+	}
+
+
+	/**
+	 * Write out whatever the dispatcher keeps track of between entrants. Random draws are not kept
+	 * here, they belong to the random that was handed in
+	 */
+	default void writeState(DataOutput out) throws IOException{
+	}
+
+
+	/**
+	 * Replace whatever the dispatcher keeps track of with what writeState() wrote out
+	 */
+	default void readState(DataInput in) throws IOException{
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ * Author: Jack Robbins
+ * Power of d choices dispatch strategy, also known as JSQ(d)
+ *
+ * Each entrant looks at d queues picked at random and joins the shortest of them. Even d = 2
+ * gets most of the way to the shortest queue strategy, but a decision only costs d probes no
+ * matter how many queues there are. Like the shortest queue strategy, a passenger counts against
+ * a queue until they are done being served
+ */
+
+package dispatch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Random;
+
+
+public class PowerOfChoicesDispatcher implements Dispatcher{
+	private int[] depth;
+	private int choices;
+	private Random random;
+
+
+	/**
+	 * Basic constructor, the random is shared with the caller so that runs can be seeded
+	 */
+	public PowerOfChoicesDispatcher(int numQueues, int choices, Random random){
+		if(choices < 1){
+			throw new IllegalArgumentException("Need to look at one queue or more, got " + choices);
+		}
+
+		this.depth = new int[numQueues];
+		this.choices = choices;
+		this.random = random;
+	}
+
+
+	/**
+	 * Probe the queues at random and take the first of the shortest ones that turned up.
+	 * The same queue can be probed twice, which only matters when there are very few queues
+	 */
+	@Override
+	public synchronized int selectQueue(){
+		int shortestQueueID = this.random.nextInt(0, this.depth.length);
+
+		for(int i = 1; i < this.choices; i++){
+			int probe = this.random.nextInt(0, this.depth.length);
+			if(this.depth[probe] < this.depth[shortestQueueID]){
+				shortestQueueID = probe;
+			}
+		}
+
+		this.depth[shortestQueueID]++;
+		return shortestQueueID;
+	}
+
+
+	/**
+	 * A passenger from the queue is done being served
+	 */
+	@Override
+	public synchronized void passengerLeft(int queueID){
+		this.depth[queueID]--;
+	}
+
+
+	/**
+	 * Write out how deep every queue is
+	 */
+	@Override
+	public synchronized void writeState(DataOutput out) throws IOException{
+		for(int depth : this.depth){
+			out.writeInt(depth);
+		}
+	}
+
+
+	/**
+	 * Replace the depth of every queue with what writeState() wrote out
+	 */
+	@Override
+	public synchronized void readState(DataInput in) throws IOException{
+		for(int i = 0; i < this.depth.length; i++){
+			this.depth[i] = in.readInt();
+		}
+	}
+
+
+	/**
+	 * A simple helper method to get the number of queues looked at for every entrant
+	 */
+	public int getChoices(){
+		return this.choices;
+	}
+}
@@ -0,0 +1,178 @@
+/**
+ * Author: Jack Robbins
+ * Indexed min-heap of queue depths
+ *
+ * Every queue sits in the heap once, ordered by how many passengers are in it. The heap
+ * remembers where each queue is, so a single queue's depth can be moved up or down and the
+ * heap repaired in O(log N). Ties are broken by a random key that every queue draws again
+ * whenever its depth changes, so the shortest queue is picked fairly among equally long ones
+ * instead of always going to the lowest queue ID
+ */
+
+package dispatch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Random;
+
+
+class QueueDepthHeap{
+	//heap[i] is the queue at heap slot i, position[q] is the heap slot of queue q
+	private int[] heap;
+	private int[] position;
+	private int[] depth;
+	private int[] tieBreak;
+	private Random random;
+
+
+	/**
+	 * Basic constructor, every queue starts out empty. The random is shared with the caller so
+	 * that runs can be seeded
+	 */
+	QueueDepthHeap(int numQueues, Random random){
+		this.heap = new int[numQueues];
+		this.position = new int[numQueues];
+		this.depth = new int[numQueues];
+		this.tieBreak = new int[numQueues];
+		this.random = random;
+
+		for(int i = 0; i < numQueues; i++){
+			this.heap[i] = i;
+			this.position[i] = i;
+			this.tieBreak[i] = random.nextInt();
+		}
+
+		//Every queue is as long as every other, so the keys alone decide the order
+		for(int slot = numQueues / 2 - 1; slot >= 0; slot--){
+			siftDown(slot);
+		}
+	}
+
+
+	/**
+	 * The queue with the fewest passengers in it
+	 */
+	int shortest(){
+		return this.heap[0];
+	}
+
+
+	/**
+	 * A simple helper method to get how many passengers are in a queue
+	 */
+	int getDepth(int queueID){
+		return this.depth[queueID];
+	}
+
+
+	/**
+	 * One more passenger is in the queue, so it can only move down
+	 */
+	void increment(int queueID){
+		this.depth[queueID]++;
+		this.tieBreak[queueID] = this.random.nextInt();
+		siftDown(this.position[queueID]);
+	}
+
+
+	/**
+	 * One passenger left the queue, so it can only move up
+	 */
+	void decrement(int queueID){
+		this.depth[queueID]--;
+		this.tieBreak[queueID] = this.random.nextInt();
+		siftUp(this.position[queueID]);
+	}
+
+
+	/**
+	 * Write out the heap exactly as it is laid out, along with every depth and tie break key
+	 */
+	void writeState(DataOutput out) throws IOException{
+		for(int i = 0; i < this.heap.length; i++){
+			out.writeInt(this.heap[i]);
+			out.writeInt(this.depth[i]);
+			out.writeInt(this.tieBreak[i]);
+		}
+	}
+
+
+	/**
+	 * Lay the heap back out the way writeState() found it
+	 */
+	void readState(DataInput in) throws IOException{
+		for(int i = 0; i < this.heap.length; i++){
+			this.heap[i] = in.readInt();
+			this.depth[i] = in.readInt();
+			this.tieBreak[i] = in.readInt();
+			this.position[this.heap[i]] = i;
+		}
+	}
+
+
+	/**
+	 * Move the queue in the given slot towards the top until its parent is no longer deeper
+	 */
+	private void siftUp(int slot){
+		while(slot > 0){
+			int parent = (slot - 1) / 2;
+			if(!before(this.heap[slot], this.heap[parent])){
+				return;
+			}
+
+			swap(slot, parent);
+			slot = parent;
+		}
+	}
+
+
+	/**
+	 * Move the queue in the given slot towards the bottom until neither child is shorter
+	 */
+	private void siftDown(int slot){
+		while(true){
+			int smallest = slot;
+			int left = 2 * slot + 1;
+			int right = left + 1;
+
+			if(left < this.heap.length && before(this.heap[left], this.heap[smallest])){
+				smallest = left;
+			}
+			if(right < this.heap.length && before(this.heap[right], this.heap[smallest])){
+				smallest = right;
+			}
+			if(smallest == slot){
+				return;
+			}
+
+			swap(slot, smallest);
+			slot = smallest;
+		}
+	}
+
+
+	/**
+	 * Should queue a sit above queue b in the heap
+	 */
+	private boolean before(int a, int b){
+		if(this.depth[a] != this.depth[b]){
+			return this.depth[a] < this.depth[b];
+		}
+
+		return this.tieBreak[a] < this.tieBreak[b];
+	}
+
+
+	/**
+	 * Helper method for swapping two heap slots and keeping the positions in step
+	 */
+	private void swap(int i, int j){
+		int queueID = this.heap[i];
+		this.heap[i] = this.heap[j];
+		this.heap[j] = queueID;
+
+		this.position[this.heap[i]] = i;
+		this.position[this.heap[j]] = j;
+	}
+}
@@ -0,0 +1,34 @@
+/**
+ * Author: Jack Robbins
+ * Random queue dispatch strategy
+ *
+ * Entrants are assigned to a queue completely at random
+ */
+
+package dispatch;
+
+import java.util.Random;
+
+
+public class RandomQueueDispatcher implements Dispatcher{
+	private int numQueues;
+	private Random random;
+
+
+	/**
+	 * Basic constructor, the random is shared with the caller so that runs can be seeded
+	 */
+	public RandomQueueDispatcher(int numQueues, Random random){
+		this.numQueues = numQueues;
+		this.random = random;
+	}
+
+
+	/**
+	 * Any queue is as good as any other
+	 */
+	@Override
+	public int selectQueue(){
+		return this.random.nextInt(0, this.numQueues);
+	}
+}
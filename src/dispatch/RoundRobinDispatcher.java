@@ -0,0 +1,56 @@
+/**
+ * Author: Jack Robbins
+ * Round robin dispatch strategy
+ *
+ * Entrants are assigned to the queues in order, one after the other
+ */
+
+package dispatch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+
+public class RoundRobinDispatcher implements Dispatcher{
+	private int numQueues;
+	private int nextQueue;
+
+
+	/**
+	 * Basic constructor, the first entrant goes to the first queue
+	 */
+	public RoundRobinDispatcher(int numQueues){
+		this.numQueues = numQueues;
+		this.nextQueue = 0;
+	}
+
+
+	/**
+	 * Hand out the queues in order, wrapping around at the end
+	 */
+	@Override
+	public int selectQueue(){
+		int queueID = this.nextQueue;
+		this.nextQueue = (this.nextQueue + 1) % this.numQueues;
+		return queueID;
+	}
+
+
+	/**
+	 * Write out which queue is next
+	 */
+	@Override
+	public void writeState(DataOutput out) throws IOException{
+		out.writeInt(this.nextQueue);
+	}
+
+
+	/**
+	 * Carry on handing out queues from the one writeState() wrote out
+	 */
+	@Override
+	public void readState(DataInput in) throws IOException{
+		this.nextQueue = in.readInt();
+	}
+}
@@ -0,0 +1,77 @@
+/**
+ * Author: Jack Robbins
+ * Shortest queue dispatch strategy
+ *
+ * Entrants are assigned to whichever queue has the fewest passengers in it right now. A passenger
+ * counts against a queue from the moment they are assigned to it until they are done being served,
+ * so a queue whose station is busy is longer than an empty one with an idle station. Ties are
+ * broken at random, so that no station is favoured just for having a lower number
+ */
+
+package dispatch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Random;
+
+
+public class ShortestQueueDispatcher implements Dispatcher{
+	private QueueDepthHeap depths;
+
+
+	/**
+	 * Basic constructor, every queue starts out empty. The random is shared with the caller so that
+	 * runs can be seeded
+	 */
+	public ShortestQueueDispatcher(int numQueues, Random random){
+		this.depths = new QueueDepthHeap(numQueues, random);
+	}
+
+
+	/**
+	 * Pick the shortest queue and count the entrant against it straight away, so that two
+	 * entrants arriving together can not both see the same queue as the shortest
+	 */
+	@Override
+	public synchronized int selectQueue(){
+		int shortestQueueID = this.depths.shortest();
+		this.depths.increment(shortestQueueID);
+		return shortestQueueID;
+	}
+
+
+	/**
+	 * A passenger from the queue is done being served
+	 */
+	@Override
+	public synchronized void passengerLeft(int queueID){
+		this.depths.decrement(queueID);
+	}
+
+
+	/**
+	 * Write out how deep every queue is and where it sits in the heap
+	 */
+	@Override
+	public synchronized void writeState(DataOutput out) throws IOException{
+		this.depths.writeState(out);
+	}
+
+
+	/**
+	 * Replace the depth of every queue with what writeState() wrote out
+	 */
+	@Override
+	public synchronized void readState(DataInput in) throws IOException{
+		this.depths.readState(in);
+	}
+
+
+	/**
+	 * A simple helper method to get how many passengers are in a queue, including the ones being served
+	 */
+	public synchronized int getDepth(int queueID){
+		return this.depths.getDepth(queueID);
+	}
+}
@@ -0,0 +1,116 @@
+/**
+ * Author: Jack Robbins
+ * This interface is a probability distribution of arrival or service times
+ */
+
+package distribution;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.random.RandomGenerator;
+
+
+/**
+ * Every distribution draws from a random generator that is handed to it, and keeps no state of
+ * its own. Sampling never allocates, and the same generator state always gives the same sample,
+ * so one distribution can be shared by every station and every replication
+ */
+public interface Distribution{
+	/**
+	 * Draw one time in seconds
+	 */
+	double sample(RandomGenerator random);
+
+
+	/**
+	 * The mean of the distribution in seconds
+	 */
+	double getMean();
+
+
+	/**
+	 * The variance of the distribution in seconds squared
+	 */
+	double getVariance();
+
+
+	/**
+	 * The squared coefficient of variation, the variance over the squared mean. This is 1 for
+	 * exponential times, below 1 for more regular ones and above 1 for burstier ones
+	 */
+	default double getSquaredCoefficientOfVariation(){
+		double mean = this.getMean();
+		return this.getVariance() / (mean * mean);
+	}
+
+
+	/**
+	 * Draw one time in whole milliseconds. Times are never negative
+	 */
+	default long sampleMillis(RandomGenerator random){
+		return Math.max(0, Math.round(this.sample(random) * 1000));
+	}
+
+
+	/**
+	 * Describe a distribution by its kind and its first two moments, without any commas so that it can
+	 * go in a CSV column. No distribution means times come at a steady pace
+	 */
+	static String describe(Distribution distribution){
+		if(distribution == null){
+			return "regular";
+		}
+
+		return distribution.getClass().getSimpleName() + "(mean " + distribution.getMean() + " variance "
+			   + distribution.getVariance() + ")";
+	}
+
+
+	/**
+	 * Build a distribution from a short description, with the given mean in seconds where the
+	 * description does not pin it down. Descriptions are
+	 * 	jitter				the mean plus or minus up to 2 seconds, in whole seconds
+	 * 	exponential			memoryless times, which makes arrivals a Poisson process
+	 * 	erlang:k			the sum of k exponential phases, less variable than exponential
+	 * 	lognormal:cv		lognormal with the given coefficient of variation
+	 * 	hyperexponential:cv	a mix of two exponentials with the given coefficient of variation(above 1)
+	 * 	empirical:file		resampled from observed times in seconds, one per line of the file
+	 */
+	static Distribution parse(String description, double mean){
+		String[] parts = description.trim().split(":", 2);
+		String name = parts[0].toLowerCase();
+
+		if(parts.length == 1){
+			switch(name){
+				case "jitter":
+					return new JitterDistribution(mean, JitterDistribution.DEFAULT_SPREAD);
+				case "exponential":
+					return new ExponentialDistribution(mean);
+				default:
+					break;
+			}
+		} else {
+			try{
+				switch(name){
+					case "erlang":
+						return new ErlangDistribution(Integer.parseInt(parts[1]), mean);
+					case "lognormal":
+						return LognormalDistribution.withCoefficientOfVariation(mean, Double.parseDouble(parts[1]));
+					case "hyperexponential":
+						return HyperexponentialDistribution.balanced(mean, Double.parseDouble(parts[1]));
+					case "empirical":
+						return EmpiricalDistribution.load(Paths.get(parts[1]));
+					default:
+						break;
+				}
+			} catch(NumberFormatException nfe){
+				throw new IllegalArgumentException("Can not read the parameter of " + description);
+			} catch(IOException ioe){
+				throw new UncheckedIOException(ioe);
+			}
+		}
+
+		throw new IllegalArgumentException("Unknown distribution " + description);
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * Author: Jack Robbins
+ * Empirical distribution, built from times that were actually observed
+ *
+ * The observations are sorted once, and a sample is read off of the inverse of their cumulative
+ * distribution, interpolating linearly between neighbouring observations. Samples therefore always
+ * fall between the smallest and largest observation
+ */
+
+package distribution;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+
+public class EmpiricalDistribution implements Distribution{
+	private double[] observations;
+	private double mean;
+	private double variance;
+
+
+	/**
+	 * Basic constructor, the observations are in seconds
+	 */
+	public EmpiricalDistribution(double[] observations){
+		if(observations.length == 0){
+			throw new IllegalArgumentException("Need at least one observation");
+		}
+
+		this.observations = observations.clone();
+		Arrays.sort(this.observations);
+
+		//Samples are uniform between each pair of neighbouring observations, and every pair is
+		//equally likely, so the moments are averaged over the pairs rather than the observations
+		if(this.observations.length == 1){
+			this.mean = this.observations[0];
+			this.variance = 0;
+		} else {
+			double sum = 0;
+			double sumOfSquares = 0;
+			for(int i = 0; i + 1 < this.observations.length; i++){
+				double low = this.observations[i];
+				double high = this.observations[i + 1];
+				sum += (low + high) / 2;
+				sumOfSquares += (low * low + low * high + high * high) / 3;
+			}
+
+			int pairs = this.observations.length - 1;
+			this.mean = sum / pairs;
+			this.variance = Math.max(0, sumOfSquares / pairs - this.mean * this.mean);
+		}
+	}
+
+
+	/**
+	 * Read the observations from a file with one time in seconds per line. Blank lines are skipped
+	 */
+	public static EmpiricalDistribution load(Path file) throws IOException{
+		double[] observations = new double[1024];
+		int count = 0;
+
+		try(BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)){
+			String line;
+			while((line = reader.readLine()) != null){
+				line = line.trim();
+				if(line.isEmpty()){
+					continue;
+				}
+
+				if(count == observations.length){
+					observations = Arrays.copyOf(observations, count * 2);
+				}
+				observations[count++] = Double.parseDouble(line);
+			}
+		}
+
+		return new EmpiricalDistribution(Arrays.copyOf(observations, count));
+	}
+
+
+	/**
+	 * Draw one time in seconds
+	 */
+	@Override
+	public double sample(RandomGenerator random){
+		if(this.observations.length == 1){
+			return this.observations[0];
+		}
+
+		double position = random.nextDouble() * (this.observations.length - 1);
+		int below = (int)position;
+		return this.observations[below] + (position - below) * (this.observations[below + 1] - this.observations[below]);
+	}
+
+
+	/**
+	 * A simple helper method to get the mean in seconds
+	 */
+	@Override
+	public double getMean(){
+		return this.mean;
+	}
+
+
+	/**
+	 * A simple helper method to get the variance in seconds squared
+	 */
+	@Override
+	public double getVariance(){
+		return this.variance;
+	}
+}
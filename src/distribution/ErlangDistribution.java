@@ -0,0 +1,69 @@
+/**
+ * Author: Jack Robbins
+ * Erlang distribution, the sum of a number of exponential phases with the same rate
+ */
+
+package distribution;
+
+import java.util.random.RandomGenerator;
+
+
+public class ErlangDistribution implements Distribution{
+	//Smallest the product of the draws is allowed to get before it is folded into the logarithm
+	private static final double MIN_PRODUCT = 1e-250;
+
+	private int phases;
+	private double mean;
+
+
+	/**
+	 * Basic constructor. The mean in seconds is for the whole sum, so each phase has mean / phases
+	 */
+	public ErlangDistribution(int phases, double mean){
+		if(phases < 1 || mean <= 0){
+			throw new IllegalArgumentException("Need at least one phase and a positive mean, got " + phases + " and " + mean);
+		}
+
+		this.phases = phases;
+		this.mean = mean;
+	}
+
+
+	/**
+	 * The sum of the phases is one logarithm of the product of their uniform draws. With many phases
+	 * the product would underflow to zero, so it is folded into a running sum of logarithms whenever it
+	 * gets small. Each draw is at least 2^-53, so the product never underflows in between
+	 */
+	@Override
+	public double sample(RandomGenerator random){
+		double logSum = 0;
+		double product = 1;
+		for(int i = 0; i < this.phases; i++){
+			product *= 1 - random.nextDouble();
+			if(product < MIN_PRODUCT){
+				logSum += Math.log(product);
+				product = 1;
+			}
+		}
+
+		return -(this.mean / this.phases) * (logSum + Math.log(product));
+	}
+
+
+	/**
+	 * A simple helper method to get the mean in seconds
+	 */
+	@Override
+	public double getMean(){
+		return this.mean;
+	}
+
+
+	/**
+	 * The phases are independent, so their variances add up
+	 */
+	@Override
+	public double getVariance(){
+		return this.mean * this.mean / this.phases;
+	}
+}
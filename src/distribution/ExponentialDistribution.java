@@ -0,0 +1,52 @@
+/**
+ * Author: Jack Robbins
+ * Exponential distribution. Exponential gaps between arrivals make the arrivals a Poisson process
+ */
+
+package distribution;
+
+import java.util.random.RandomGenerator;
+
+
+public class ExponentialDistribution implements Distribution{
+	private double mean;
+
+
+	/**
+	 * Basic constructor, the mean is in seconds
+	 */
+	public ExponentialDistribution(double mean){
+		if(mean <= 0){
+			throw new IllegalArgumentException("The mean must be positive, got " + mean);
+		}
+
+		this.mean = mean;
+	}
+
+
+	/**
+	 * Inverse transform of one uniform draw
+	 */
+	@Override
+	public double sample(RandomGenerator random){
+		return -this.mean * Math.log(1 - random.nextDouble());
+	}
+
+
+	/**
+	 * A simple helper method to get the mean in seconds
+	 */
+	@Override
+	public double getMean(){
+		return this.mean;
+	}
+
+
+	/**
+	 * The standard deviation of an exponential distribution is its mean
+	 */
+	@Override
+	public double getVariance(){
+		return this.mean * this.mean;
+	}
+}
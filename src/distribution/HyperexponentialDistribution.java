@@ -0,0 +1,103 @@
+/**
+ * Author: Jack Robbins
+ * Hyperexponential distribution, a mix of exponential distributions with different means. Each
+ * time comes from one of them, picked at random. This is more variable than a single exponential,
+ * so it models bursty traffic
+ */
+
+package distribution;
+
+import java.util.random.RandomGenerator;
+
+
+public class HyperexponentialDistribution implements Distribution{
+	private double[] probabilities;
+	private double[] means;
+
+
+	/**
+	 * Basic constructor. Branch i is picked with probabilities[i] and has means[i] in seconds
+	 */
+	public HyperexponentialDistribution(double[] probabilities, double[] means){
+		if(probabilities.length == 0 || probabilities.length != means.length){
+			throw new IllegalArgumentException("Need one mean for every probability");
+		}
+
+		double total = 0;
+		for(int i = 0; i < probabilities.length; i++){
+			if(probabilities[i] < 0 || means[i] <= 0){
+				throw new IllegalArgumentException("Probabilities can not be negative and means have to be positive");
+			}
+			total += probabilities[i];
+		}
+
+		if(Math.abs(total - 1) > 1e-9){
+			throw new IllegalArgumentException("The probabilities have to add up to 1, got " + total);
+		}
+
+		this.probabilities = probabilities.clone();
+		this.means = means.clone();
+	}
+
+
+	/**
+	 * Make a two branch hyperexponential distribution with the given mean in seconds and coefficient of
+	 * variation, which has to be at least 1. Both branches carry half of the mean, the usual "balanced
+	 * means" fit
+	 */
+	public static HyperexponentialDistribution balanced(double mean, double coefficientOfVariation){
+		if(mean <= 0 || coefficientOfVariation < 1){
+			throw new IllegalArgumentException("Need a positive mean and a coefficient of variation of at least 1, got "
+											   + mean + " and " + coefficientOfVariation);
+		}
+
+		double squared = coefficientOfVariation * coefficientOfVariation;
+		double p = (1 + Math.sqrt((squared - 1) / (squared + 1))) / 2;
+		return new HyperexponentialDistribution(new double[]{p, 1 - p}, new double[]{mean / (2 * p), mean / (2 * (1 - p))});
+	}
+
+
+	/**
+	 * Pick a branch with one uniform draw, then sample its exponential with another
+	 */
+	@Override
+	public double sample(RandomGenerator random){
+		double draw = random.nextDouble();
+		int branch = 0;
+		while(branch < this.probabilities.length - 1 && draw >= this.probabilities[branch]){
+			draw -= this.probabilities[branch];
+			branch++;
+		}
+
+		return -this.means[branch] * Math.log(1 - random.nextDouble());
+	}
+
+
+	/**
+	 * A simple helper method to get the mean in seconds
+	 */
+	@Override
+	public double getMean(){
+		double mean = 0;
+		for(int i = 0; i < this.means.length; i++){
+			mean += this.probabilities[i] * this.means[i];
+		}
+
+		return mean;
+	}
+
+
+	/**
+	 * The second moment of each exponential branch is twice its squared mean
+	 */
+	@Override
+	public double getVariance(){
+		double secondMoment = 0;
+		for(int i = 0; i < this.means.length; i++){
+			secondMoment += this.probabilities[i] * 2 * this.means[i] * this.means[i];
+		}
+
+		double mean = this.getMean();
+		return secondMoment - mean * mean;
+	}
+}
@@ -0,0 +1,58 @@
+/**
+ * Author: Jack Robbins
+ * The original distribution of the simulation, a whole number of seconds around the mean
+ */
+
+package distribution;
+
+import java.util.random.RandomGenerator;
+
+
+public class JitterDistribution implements Distribution{
+	//How many seconds either side of the mean the simulation has always used
+	public static final int DEFAULT_SPREAD = 2;
+
+	private double mean;
+	private int spread;
+
+
+	/**
+	 * Times are the mean plus a whole number of seconds from -spread up to, but not including, spread
+	 */
+	public JitterDistribution(double mean, int spread){
+		if(spread < 1){
+			throw new IllegalArgumentException("The spread must be at least one second, got " + spread);
+		}
+
+		this.mean = mean;
+		this.spread = spread;
+	}
+
+
+	/**
+	 * Draw one time in seconds
+	 */
+	@Override
+	public double sample(RandomGenerator random){
+		return this.mean + random.nextInt(-this.spread, this.spread);
+	}
+
+
+	/**
+	 * The offsets are not symmetric, so the mean is half a second below the nominal one
+	 */
+	@Override
+	public double getMean(){
+		return this.mean - 0.5;
+	}
+
+
+	/**
+	 * The offsets are spread evenly over 2 * spread whole seconds
+	 */
+	@Override
+	public double getVariance(){
+		double values = 2.0 * this.spread;
+		return (values * values - 1) / 12;
+	}
+}
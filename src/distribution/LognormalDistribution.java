@@ -0,0 +1,71 @@
+/**
+ * Author: Jack Robbins
+ * Lognormal distribution, whose logarithm is normally distributed. Service times in practice
+ * often look like this, with most being short and a long tail of slow ones
+ */
+
+package distribution;
+
+import java.util.random.RandomGenerator;
+
+
+public class LognormalDistribution implements Distribution{
+	private double mu;
+	private double sigma;
+
+
+	/**
+	 * Basic constructor, from the mean and standard deviation of the underlying normal distribution
+	 */
+	public LognormalDistribution(double mu, double sigma){
+		if(sigma < 0){
+			throw new IllegalArgumentException("The standard deviation can not be negative, got " + sigma);
+		}
+
+		this.mu = mu;
+		this.sigma = sigma;
+	}
+
+
+	/**
+	 * Make a lognormal distribution with the given mean in seconds and coefficient of variation, the
+	 * standard deviation divided by the mean
+	 */
+	public static LognormalDistribution withCoefficientOfVariation(double mean, double coefficientOfVariation){
+		if(mean <= 0 || coefficientOfVariation < 0){
+			throw new IllegalArgumentException("Need a positive mean and a coefficient of variation of at least 0, got "
+											   + mean + " and " + coefficientOfVariation);
+		}
+
+		double variance = Math.log(1 + coefficientOfVariation * coefficientOfVariation);
+		return new LognormalDistribution(Math.log(mean) - variance / 2, Math.sqrt(variance));
+	}
+
+
+	/**
+	 * Draw one time in seconds
+	 */
+	@Override
+	public double sample(RandomGenerator random){
+		return Math.exp(this.mu + this.sigma * random.nextGaussian());
+	}
+
+
+	/**
+	 * A simple helper method to get the mean in seconds
+	 */
+	@Override
+	public double getMean(){
+		return Math.exp(this.mu + this.sigma * this.sigma / 2);
+	}
+
+
+	/**
+	 * A simple helper method to get the variance in seconds squared
+	 */
+	@Override
+	public double getVariance(){
+		double squared = this.sigma * this.sigma;
+		return (Math.exp(squared) - 1) * Math.exp(2 * this.mu + squared);
+	}
+}
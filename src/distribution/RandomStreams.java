@@ -0,0 +1,113 @@
+/**
+ * Author: Jack Robbins
+ * This class hands out the independent random streams of one simulation run
+ *
+ * Everything is split off of one master seed, so a run can be repeated exactly from its seed.
+ * The arrivals and every station draw from their own stream, so what one station draws
+ * never changes what another one gets, and no station ever has to share a generator with another
+ * thread. Dispatchers keep using a java.util.Random, which is also seeded from the master
+ */
+
+package distribution;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Random;
+
+
+/**
+ * The streams draw exactly the same numbers as SplittableRandoms split off of the seed would, and the
+ * dispatch random the same as a plain Random. Unlike those, the state of every one of them can be
+ * written out and read back, so a run can be stopped and carried on with the very same draws
+ */
+public class RandomStreams{
+	private long seed;
+	private SplitMixStream arrivalStream;
+	private SplitMixStream[] stationStreams;
+	private RestorableRandom dispatchRandom;
+
+
+	/**
+	 * Split every stream of the run off of the master seed
+	 */
+	public RandomStreams(long seed, int numStations){
+		SplitMixStream master = new SplitMixStream(seed);
+		this.seed = seed;
+		this.arrivalStream = master.split();
+		this.stationStreams = new SplitMixStream[numStations];
+		for(int i = 0; i < numStations; i++){
+			this.stationStreams[i] = master.split();
+		}
+		this.dispatchRandom = new RestorableRandom(master.nextLong());
+	}
+
+
+	/**
+	 * Write out the master seed and where every stream is up to
+	 */
+	public void writeState(DataOutput out) throws IOException{
+		out.writeLong(this.seed);
+		writeStream(out, this.arrivalStream);
+		for(SplitMixStream stationStream : this.stationStreams){
+			writeStream(out, stationStream);
+		}
+		out.writeLong(this.dispatchRandom.getState());
+	}
+
+
+	/**
+	 * Take over the master seed and move every stream on to where writeState() found it. The streams
+	 * have to be for the same number of stations
+	 */
+	public void readState(DataInput in) throws IOException{
+		this.seed = in.readLong();
+		this.arrivalStream.setState(in.readLong(), in.readLong());
+		for(SplitMixStream stationStream : this.stationStreams){
+			stationStream.setState(in.readLong(), in.readLong());
+		}
+		this.dispatchRandom.setState(in.readLong());
+	}
+
+
+	/**
+	 * A simple helper method to get the master seed of the run
+	 */
+	public long getSeed(){
+		return this.seed;
+	}
+
+
+	/**
+	 * A simple helper method to get the stream that arrival times and classes are drawn from
+	 */
+	public SplitMixStream getArrivalStream(){
+		return this.arrivalStream;
+	}
+
+
+	/**
+	 * A simple helper method to get the stream that a station draws its service times from. Only
+	 * the thread running that station may use it
+	 */
+	public SplitMixStream getStationStream(int stationID){
+		return this.stationStreams[stationID];
+	}
+
+
+	/**
+	 * A simple helper method to get the random that dispatch decisions and work stealing victims are drawn from
+	 */
+	public Random getDispatchRandom(){
+		return this.dispatchRandom;
+	}
+
+
+	/**
+	 * Helper method for writing out the state of one stream
+	 */
+	private static void writeStream(DataOutput out, SplitMixStream stream) throws IOException{
+		out.writeLong(stream.getSeed());
+		out.writeLong(stream.getGamma());
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ * Author: Jack Robbins
+ * This class is a java.util.Random whose state can be read out and put back
+ */
+
+package distribution;
+
+import java.util.Random;
+
+
+/**
+ * A Random is a 48 bit linear congruential generator, but it keeps its state to itself. This one runs
+ * the very same generator on a copy of the state that it can hand out, so it draws exactly the same
+ * numbers as a Random with the same seed
+ */
+public class RestorableRandom extends Random{
+	private static final long serialVersionUID = 1L;
+
+	//The constants of java.util.Random
+	private static final long MULTIPLIER = 0x5DEECE66DL;
+	private static final long ADDEND = 0xBL;
+	private static final long MASK = (1L << 48) - 1;
+
+	private long state;
+
+
+	/**
+	 * Basic constructor, draws the same numbers as new Random(seed)
+	 */
+	public RestorableRandom(long seed){
+		super(seed);
+	}
+
+
+	/**
+	 * Start over from a seed, scrambled in the same way as Random does it
+	 */
+	@Override
+	public synchronized void setSeed(long seed){
+		this.state = (seed ^ MULTIPLIER) & MASK;
+		super.setSeed(seed);
+	}
+
+
+	/**
+	 * Draw up to 32 random bits. Every other draw of a Random is built on top of this
+	 */
+	@Override
+	protected synchronized int next(int bits){
+		this.state = (this.state * MULTIPLIER + ADDEND) & MASK;
+		return (int)(this.state >>> (48 - bits));
+	}
+
+
+	/**
+	 * A simple helper method to get the state of the generator
+	 */
+	public synchronized long getState(){
+		return this.state;
+	}
+
+
+	/**
+	 * Put the generator back into a state read from getState()
+	 */
+	public synchronized void setState(long state){
+		this.state = state & MASK;
+	}
+}
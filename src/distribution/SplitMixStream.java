@@ -0,0 +1,134 @@
+/**
+ * Author: Jack Robbins
+ * This class is a random stream that draws exactly the same numbers as a SplittableRandom, but whose
+ * state can be read out and put back
+ */
+
+package distribution;
+
+import java.util.random.RandomGenerator;
+
+
+/**
+ * A SplittableRandom is nothing more than a 64 bit seed that moves on by a fixed gamma for every
+ * draw, mixed into the number that is handed out. Neither of them can be read back from a
+ * SplittableRandom, so a run could never be stopped and carried on later with the same numbers.
+ * This class does the same arithmetic with both of them in the open. Only nextInt() and nextLong()
+ * are written out here, everything else is built on top of them by RandomGenerator exactly like it
+ * is for a SplittableRandom
+ */
+public final class SplitMixStream implements RandomGenerator{
+	//The gamma of every stream that is made straight from a seed
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private long seed;
+	private long gamma;
+
+
+	/**
+	 * Basic constructor, draws the same numbers as new SplittableRandom(seed)
+	 */
+	public SplitMixStream(long seed){
+		this(seed, GOLDEN_GAMMA);
+	}
+
+
+	/**
+	 * Constructor for a stream with the given state, as read from getSeed() and getGamma()
+	 */
+	public SplitMixStream(long seed, long gamma){
+		this.seed = seed;
+		this.gamma = gamma;
+	}
+
+
+	/**
+	 * Split off a new stream, drawing the same numbers as SplittableRandom.split() would
+	 */
+	public SplitMixStream split(){
+		return new SplitMixStream(this.nextLong(), mixGamma(this.nextSeed()));
+	}
+
+
+	/**
+	 * Draw 32 random bits
+	 */
+	@Override
+	public int nextInt(){
+		return mix32(this.nextSeed());
+	}
+
+
+	/**
+	 * Draw 64 random bits
+	 */
+	@Override
+	public long nextLong(){
+		return mix64(this.nextSeed());
+	}
+
+
+	/**
+	 * A simple helper method to get the seed the stream has moved on to
+	 */
+	public long getSeed(){
+		return this.seed;
+	}
+
+
+	/**
+	 * A simple helper method to get how far the seed moves on for every draw
+	 */
+	public long getGamma(){
+		return this.gamma;
+	}
+
+
+	/**
+	 * Put the stream back into a state read from getSeed() and getGamma()
+	 */
+	public void setState(long seed, long gamma){
+		this.seed = seed;
+		this.gamma = gamma;
+	}
+
+
+	/**
+	 * Helper method for moving the seed on by one draw
+	 */
+	private long nextSeed(){
+		return this.seed += this.gamma;
+	}
+
+
+	/**
+	 * Stafford's 13th variant of the MurmurHash3 finaliser, which SplittableRandom uses for its longs
+	 */
+	private static long mix64(long z){
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+
+	/**
+	 * Stafford's 4th variant, which SplittableRandom uses for its ints
+	 */
+	private static int mix32(long z){
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int)(((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+
+
+	/**
+	 * The gamma of a split off stream. It has to be odd, and one with too few bit flips is changed so
+	 * that its draws still look random
+	 */
+	private static long mixGamma(long z){
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int flips = Long.bitCount(z ^ (z >>> 1));
+		return flips < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+}
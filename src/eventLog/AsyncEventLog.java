@@ -0,0 +1,243 @@
+/**
+ * Author: Jack Robbins
+ * Asynchronous batched implementation of the passenger event log
+ *
+ * Every thread that records an event gets its own fixed size ring of records, which only that thread
+ * writes into and only the background writer reads from. Recording is a handful of array stores and
+ * one ordered write, with no lock and no allocation. The writer wakes up every so often, takes every
+ * record that is waiting in every ring, puts the batch in time order and writes it out in one go
+ */
+
+package eventLog;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+
+class AsyncEventLog implements EventLog{
+	//Records that each thread can hold before the writer has to catch up
+	static final int BUFFER_RECORDS = 256;
+
+	//How long the writer sleeps between batches
+	static final long FLUSH_INTERVAL_MILLIS = 50;
+
+	//Header of the file, written in FILE mode only
+	private static final String HEADER = "time_ms,type,queue,station,passenger";
+
+	private final BufferedWriter out;
+	private final boolean csv;
+	private final LongSupplier clock;
+	private final long startTime;
+	private final ThreadLocal<EventBuffer> buffers;
+	private final CopyOnWriteArrayList<EventBuffer> allBuffers;
+	private final Thread writer;
+	private volatile boolean closed;
+	private IOException failure;
+
+
+	/**
+	 * Basic constructor, starts the background writer right away
+	 */
+	AsyncEventLog(BufferedWriter out, boolean csv, LongSupplier clock, long startTime){
+		this.out = out;
+		this.csv = csv;
+		this.clock = clock;
+		this.startTime = startTime;
+		this.allBuffers = new CopyOnWriteArrayList<>();
+		this.buffers = ThreadLocal.withInitial(() -> {
+			EventBuffer buffer = new EventBuffer();
+			this.allBuffers.add(buffer);
+			return buffer;
+		});
+		this.closed = false;
+
+		this.writer = new Thread(this::writeLoop, "event-log-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+
+	/**
+	 * Put one record into the ring of the calling thread. If the writer has fallen a whole ring
+	 * behind, the thread waits for it rather than losing the record
+	 */
+	@Override
+	public void record(Type type, int queueID, int stationID, int passengerID){
+		EventBuffer buffer = this.buffers.get();
+		long head = buffer.head.getPlain();
+
+		while(head - buffer.tail.getAcquire() == BUFFER_RECORDS){
+			LockSupport.unpark(this.writer);
+			LockSupport.parkNanos(100_000);
+		}
+
+		int slot = (int)(head % BUFFER_RECORDS);
+		buffer.times[slot] = this.clock.getAsLong() - this.startTime;
+		buffer.fields[slot * 4] = type.ordinal();
+		buffer.fields[slot * 4 + 1] = queueID;
+		buffer.fields[slot * 4 + 2] = stationID;
+		buffer.fields[slot * 4 + 3] = passengerID;
+
+		//Publish the record to the writer
+		buffer.head.setRelease(head + 1);
+	}
+
+
+	/**
+	 * Stop the writer once it has written out every record, and flush the output. The console is
+	 * only flushed, a file is also closed
+	 */
+	@Override
+	public void close(){
+		this.closed = true;
+		LockSupport.unpark(this.writer);
+
+		try{
+			this.writer.join();
+		} catch(InterruptedException ie){
+			System.out.println(ie.getMessage());
+		}
+
+		try{
+			if(this.csv){
+				this.out.close();
+			} else {
+				this.out.flush();
+			}
+		} catch(IOException ioe){
+			this.failure = this.failure == null ? ioe : this.failure;
+		}
+
+		if(this.failure != null){
+			throw new UncheckedIOException(this.failure);
+		}
+	}
+
+
+	/**
+	 * The body of the background writer. It writes a batch every flush interval until the log is
+	 * closed, then writes whatever is left
+	 */
+	private void writeLoop(){
+		Batch batch = new Batch();
+
+		try{
+			if(this.csv){
+				this.out.write(HEADER);
+				this.out.newLine();
+			}
+
+			while(!this.closed){
+				LockSupport.parkNanos(FLUSH_INTERVAL_MILLIS * 1_000_000);
+				this.writeBatch(batch);
+			}
+
+			//Everybody is done recording by now, so this empties every ring
+			this.writeBatch(batch);
+		} catch(IOException ioe){
+			this.failure = ioe;
+		}
+	}
+
+
+	/**
+	 * Take every waiting record out of every ring and write them in time order. At the same
+	 * millisecond an enqueue is written before a dequeue
+	 */
+	private void writeBatch(Batch batch) throws IOException{
+		batch.clear();
+		for(EventBuffer buffer : this.allBuffers){
+			long tail = buffer.tail.getPlain();
+			long head = buffer.head.getAcquire();
+			for(long i = tail; i < head; i++){
+				int slot = (int)(i % BUFFER_RECORDS);
+				batch.add(buffer.times[slot], buffer.fields, slot * 4);
+			}
+
+			//Hand the slots back to the owning thread
+			buffer.tail.setRelease(head);
+		}
+
+		if(batch.size == 0){
+			return;
+		}
+
+		Integer[] order = new Integer[batch.size];
+		Arrays.setAll(order, i -> i);
+		Arrays.sort(order, Comparator.<Integer>comparingLong(i -> batch.times[i]).thenComparingInt(i -> batch.fields[i * 4]));
+
+		for(int i : order){
+			this.out.write(this.format(batch.times[i], batch.fields, i * 4));
+			this.out.newLine();
+		}
+		this.out.flush();
+	}
+
+
+	/**
+	 * Turn one record into a line of output. The console gets the same messages that the stations
+	 * used to print, the file gets one CSV row. Queues, stations and passengers are numbered from 1
+	 */
+	private String format(long time, int[] fields, int offset){
+		Type type = Type.values()[fields[offset]];
+		int queue = fields[offset + 1] + 1;
+		int station = fields[offset + 2] + 1;
+		int passenger = fields[offset + 3] + 1;
+
+		if(this.csv){
+			return time + "," + type + "," + queue + "," + (station > 0 ? station : "") + "," + passenger;
+		}
+
+		switch(type){
+			case ENQUEUE:
+				return "Enqueueing into queue: " + queue;
+			default:
+				return "Station " + station + " dequeueing from queue: " + queue;
+		}
+	}
+
+
+	/**
+	 * The ring of one recording thread. Only the owner moves the head and only the writer moves the tail
+	 */
+	private static final class EventBuffer{
+		private final long[] times = new long[BUFFER_RECORDS];
+		private final int[] fields = new int[BUFFER_RECORDS * 4];
+		private final AtomicLong head = new AtomicLong();
+		private final AtomicLong tail = new AtomicLong();
+	}
+
+
+	/**
+	 * The records of one batch, only ever touched by the writer. It grows as needed and is reused
+	 */
+	private static final class Batch{
+		private long[] times = new long[BUFFER_RECORDS];
+		private int[] fields = new int[BUFFER_RECORDS * 4];
+		private int size;
+
+
+		private void clear(){
+			this.size = 0;
+		}
+
+
+		private void add(long time, int[] source, int offset){
+			if(this.size == this.times.length){
+				this.times = Arrays.copyOf(this.times, this.size * 2);
+				this.fields = Arrays.copyOf(this.fields, this.size * 8);
+			}
+
+			this.times[this.size] = time;
+			System.arraycopy(source, offset, this.fields, this.size * 4, 4);
+			this.size++;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ * Author: Jack Robbins
+ * This interface is the passenger event log of a real time run
+ */
+
+package eventLog;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Stations record what they did here instead of printing it. Recording never does any I/O,
+ * so it can sit on the hot path of every station without them all lining up behind the console
+ */
+@FunctionalInterface
+public interface EventLog{
+	/**
+	 * The kinds of events that a station can record
+	 */
+	enum Type{
+		ENQUEUE,
+		DEQUEUE
+	}
+
+	//A log that throws everything away. It does nothing at all, so the JIT can drop the call entirely
+	EventLog OFF = (type, queueID, stationID, passengerID) -> {};
+
+
+	/**
+	 * Record one event. The log takes the timestamp itself
+	 */
+	void record(Type type, int queueID, int stationID, int passengerID);
+
+
+	/**
+	 * Write out everything that is still buffered and stop the log. Only call this once every
+	 * thread that records into the log is done
+	 */
+	default void close(){
+	}
+
+
+	/**
+	 * Make a log for the given mode. Timestamps are read from the clock in milliseconds and written
+	 * relative to the start time. The file is only used in FILE mode
+	 */
+	static EventLog create(EventLogMode mode, Path file, LongSupplier clock, long startTime){
+		switch(mode){
+			case CONSOLE:
+				return new AsyncEventLog(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)),
+										 false, clock, startTime);
+			case FILE:
+				try{
+					return new AsyncEventLog(Files.newBufferedWriter(file, StandardCharsets.UTF_8), true, clock, startTime);
+				} catch(IOException ioe){
+					throw new UncheckedIOException(ioe);
+				}
+			default:
+				return OFF;
+		}
+	}
+}
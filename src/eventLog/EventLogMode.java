@@ -0,0 +1,16 @@
+/**
+ * Author: Jack Robbins
+ * This enum lists the places that the passenger event log can be written to
+ */
+
+package eventLog;
+
+
+public enum EventLogMode{
+	//Every event is printed to the console as it used to be
+	CONSOLE,
+	//Every event is written to a CSV file, one row per event
+	FILE,
+	//Nothing is recorded, and recording an event costs nothing
+	OFF
+}
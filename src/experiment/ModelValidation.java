@@ -0,0 +1,157 @@
+/**
+ * Author: Jack Robbins
+ *
+ * This class checks the simulation against queueing theory, on the simulated clock
+ * For every scenario that has a closed form model it reports the theoretical and the simulated
+ * 	- Average waiting time, which runs until a passenger leaves the service station
+ * 	- Average number of passengers waiting in line, from the simulated wait by Little's law
+ * 	- Utilisation of the service stations
+ *
+ * 	along with how far apart they are. Exact models should land inside the confidence interval of a
+ * 	long enough run, approximations only roughly. Runs start empty, so short runs come out a little low
+ */
+
+package experiment;
+
+import analytic.QueueingEstimate;
+import analytic.QueueingModel;
+import dispatch.DispatchStrategy;
+import simulation.Scenario;
+import statistics.ConfidenceInterval;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+
+public class ModelValidation{
+	/**
+	 * Runs the validation from the command line. Lists are comma separated, for example
+	 * 	--arrival 4 --service 10,15,18 --stations 5 --strategies SINGLE_QUEUE,RANDOM_QUEUE
+	 * 	--arrival-distribution exponential --service-distribution exponential
+	 * 	--duration 864000 --replications 10 --seed 42
+	 */
+	public static void main(String[] args){
+		int[] arrivalTimes = {4};
+		int[] serviceTimes = {18};
+		int[] stationCounts = {5};
+		DispatchStrategy[] strategies = {DispatchStrategy.SINGLE_QUEUE, DispatchStrategy.ROUND_ROBIN, DispatchStrategy.RANDOM_QUEUE};
+		String arrivalDescription = "exponential";
+		String serviceDescription = "exponential";
+		int duration = 10 * 24 * 60 * 60;
+		int replications = 10;
+		long seed = System.currentTimeMillis();
+		List<Scenario> grid;
+
+		try{
+			for(int i = 0; i + 1 < args.length; i += 2){
+				switch(args[i]){
+					case "--arrival":
+						arrivalTimes = parseList(args[i + 1]);
+						break;
+					case "--service":
+						serviceTimes = parseList(args[i + 1]);
+						break;
+					case "--stations":
+						stationCounts = parseList(args[i + 1]);
+						break;
+					case "--strategies":
+						String[] names = args[i + 1].split(",");
+						strategies = new DispatchStrategy[names.length];
+						for(int j = 0; j < names.length; j++){
+							strategies[j] = DispatchStrategy.valueOf(names[j].trim().toUpperCase());
+						}
+						break;
+					case "--arrival-distribution":
+						arrivalDescription = args[i + 1];
+						break;
+					case "--service-distribution":
+						serviceDescription = args[i + 1];
+						break;
+					case "--duration":
+						duration = Integer.parseInt(args[i + 1]);
+						break;
+					case "--replications":
+						replications = Integer.parseInt(args[i + 1]);
+						break;
+					case "--seed":
+						seed = Long.parseLong(args[i + 1]);
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+
+			if(replications < 2){
+				throw new IllegalArgumentException("Need at least 2 replications for a confidence interval");
+			}
+
+			grid = ParameterSweep.buildGrid(arrivalTimes, serviceTimes, stationCounts, strategies, duration);
+			ParameterSweep.applyDistributions(grid, arrivalDescription, serviceDescription);
+		} catch(IllegalArgumentException | UncheckedIOException e){
+			System.out.println(e.getMessage());
+			System.out.println("Usage: ModelValidation [--arrival a,b] [--service a,b] [--stations a,b] [--strategies s,t]"
+							   + " [--arrival-distribution d] [--service-distribution d] [--duration seconds]"
+							   + " [--replications k] [--seed n]");
+			return;
+		}
+
+		System.out.println("\n================== Simulation Against Theory ==================");
+		System.out.println(arrivalDescription + " arrivals, " + serviceDescription + " service, " + replications
+						   + " replications of " + duration + "s each\n");
+		System.out.printf("%-16s %4s %4s %8s %-6s %-9s %24s %8s %18s %8s %18s %8s\n", "Strategy", "Arr", "Svc", "Stations",
+						  "Model", "Kind", "Wait theory/simulated", "Error", "Line theory/sim", "Error", "Util theory/sim", "Error");
+
+		for(Scenario scenario : grid){
+			QueueingEstimate estimate;
+			try{
+				estimate = QueueingModel.estimate(scenario);
+			} catch(IllegalArgumentException iae){
+				System.out.printf("%-16s %4d %4d %8d skipped, %s\n", scenario.getStrategy(), scenario.getAverageArrivalTime(),
+								  scenario.getAverageServiceTime(), scenario.getNumStations(), iae.getMessage());
+				continue;
+			}
+
+			ReplicationSummary summary = ReplicationRunner.run(scenario, replications, seed);
+			ConfidenceInterval wait = summary.getOverallAverageWaitTime();
+			double utilisation = summary.getAverageUtilisation().getMean();
+
+			//Little's law turns the simulated time in line into the average number in line
+			double serviceTime = scenario.getServiceDistribution().getMean();
+			double lineLength = estimate.getArrivalRate() * Math.max(0, wait.getMean() - serviceTime);
+
+			System.out.printf("%-16s %4d %4d %8d %-6s %-9s %11.2f/%5.2f+-%-5.2f %7.1f%% %8.3f/%-9.3f %7.1f%% %8.2f/%-9.2f %7.1f%%\n",
+							  scenario.getStrategy(), scenario.getAverageArrivalTime(), scenario.getAverageServiceTime(),
+							  scenario.getNumStations(), estimate.getModel(), estimate.isExact() ? "exact" : "approx",
+							  estimate.getWaitTime(), wait.getMean(), wait.getHalfWidth(), error(wait.getMean(), estimate.getWaitTime()),
+							  estimate.getLineLength(), lineLength, error(lineLength, estimate.getLineLength()),
+							  estimate.getUtilisation(), utilisation, error(utilisation, estimate.getUtilisation()));
+		}
+
+		System.out.println("\nWaiting times are in seconds, the line is the average number waiting in one line");
+	}
+
+
+	/**
+	 * How far the simulated value is from the theoretical one, as a percentage of the theoretical one
+	 */
+	private static double error(double simulated, double theoretical){
+		if(theoretical == 0){
+			return simulated == 0 ? 0 : Double.POSITIVE_INFINITY;
+		}
+
+		return (simulated - theoretical) / theoretical * 100;
+	}
+
+
+	/**
+	 * Helper method for parsing a comma separated list of integers
+	 */
+	private static int[] parseList(String list){
+		String[] parts = list.split(",");
+		int[] values = new int[parts.length];
+		for(int i = 0; i < parts.length; i++){
+			values[i] = Integer.parseInt(parts[i].trim());
+		}
+
+		return values;
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ * Author: Jack Robbins
+ *
+ * This class runs a network of stages read from a file on the simulated clock, and reports
+ * 	- The visits, waiting time and utilisation of every stage
+ * 	- The time from coming into the network to leaving it
+ * 	- Which stage is the bottleneck, and how fast arrivals can come before the network can not keep up
+ */
+
+package experiment;
+
+import distribution.Distribution;
+import simulation.NetworkSimulation;
+import simulation.StageNetwork;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+
+public class NetworkAnalysis{
+	/**
+	 * Runs a network from the command line, for example
+	 * 	--network networks/airport.txt --arrival 4 --arrival-distribution exponential --duration 86400 --seed 42
+	 */
+	public static void main(String[] args){
+		Path networkFile = Paths.get("networks", "airport.txt");
+		int averageArrivalTime = 4;
+		String arrivalDescription = "regular";
+		Path arrivalFile = null;
+		int duration = 24 * 60 * 60;
+		long seed = System.currentTimeMillis();
+
+		try{
+			for(int i = 0; i + 1 < args.length; i += 2){
+				switch(args[i]){
+					case "--network":
+						networkFile = Paths.get(args[i + 1]);
+						break;
+					case "--arrival":
+						averageArrivalTime = Integer.parseInt(args[i + 1]);
+						break;
+					case "--arrival-distribution":
+						arrivalDescription = args[i + 1];
+						break;
+					case "--arrival-file":
+						arrivalFile = Paths.get(args[i + 1]);
+						break;
+					case "--duration":
+						duration = Integer.parseInt(args[i + 1]);
+						break;
+					case "--seed":
+						seed = Long.parseLong(args[i + 1]);
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+
+			//Regular arrivals are the original ones, every average arrival time give or take 2 seconds
+			Distribution arrivalDistribution = arrivalDescription.equalsIgnoreCase("regular") ? null
+											   : Distribution.parse(arrivalDescription, averageArrivalTime);
+			StageNetwork network = StageNetwork.read(networkFile, duration, averageArrivalTime, arrivalDistribution);
+			network.getStage(0).setArrivalFile(arrivalFile);
+
+			//Anything wrong with the routing or the arrival log only shows up once the run starts
+			NetworkSimulation.runNetwork(network, seed);
+		} catch(IllegalArgumentException | UncheckedIOException e){
+			System.out.println(e.getMessage());
+			System.out.println("Usage: NetworkAnalysis [--network file] [--arrival seconds] [--arrival-distribution d]"
+							   + " [--arrival-file log] [--duration seconds] [--seed n]");
+		}
+	}
+}
@@ -0,0 +1,347 @@
+/**
+ * Author: Jack Robbins
+ *
+ * This class sweeps a grid of scenarios on the simulated clock, for capacity planning
+ * The grid is every combination of
+ * 	- Average arrival time
+ * 	- Average service time
+ * 	- Number of service stations
+ * 	- Dispatch strategy
+ *
+ * 	Cells are spread over every core, and each finished cell is appended to a CSV file right away.
+ * 	Cells that are already in the file are skipped, so an interrupted sweep can simply be run again.
+ * 	With the analytic option, cells that queueing theory solves exactly are worked out instead of
+ * 	simulated, and written with 0 replications
+ */
+
+package experiment;
+
+import analytic.QueueingEstimate;
+import analytic.QueueingModel;
+import dispatch.DispatchStrategy;
+import distribution.Distribution;
+import queueOccupant.PassengerStorage;
+import simulation.Scenario;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+
+public class ParameterSweep{
+	//Header of the result file. The first eleven columns identify a cell, along with everything else
+	//its results depend on, so only a cell run the very same way is ever skipped
+	private static final String HEADER = "strategy,arrival_time,service_time,stations,queues,duration,storage,"
+									   + "arrival_distribution,service_distribution,seed,replications,"
+									   + "average_wait,average_wait_ci,max_wait,max_wait_ci,longest_length,"
+									   + "longest_length_ci,utilisation,utilisation_ci,runtime";
+
+	//Number of identifying columns at the start of every row
+	private static final int KEY_COLUMNS = 11;
+
+
+	/**
+	 * Runs a sweep from the command line. Lists are comma separated, for example
+	 * 	--arrival 2,4,6 --service 20,40 --stations 5,64 --strategies ROUND_ROBIN,RANDOM_QUEUE
+	 * 	--duration 1440 --replications 10 --seed 42 --out sweep.csv --storage ARRAYS
+	 * 	--arrival-distribution exponential --service-distribution erlang:2 --analytic true
+	 */
+	public static void main(String[] args){
+		int[] arrivalTimes = {4};
+		int[] serviceTimes = {40};
+		int[] stationCounts = {5};
+		DispatchStrategy[] strategies = DispatchStrategy.values();
+		int duration = 24 * 60 * 60;
+		int replications = 1;
+		long seed = System.currentTimeMillis();
+		String out = "sweep.csv";
+		PassengerStorage storage = PassengerStorage.OBJECTS;
+		String arrivalDescription = "regular";
+		String serviceDescription = "jitter";
+		boolean analytic = false;
+		List<Scenario> grid;
+
+		try{
+			for(int i = 0; i + 1 < args.length; i += 2){
+				switch(args[i]){
+					case "--arrival":
+						arrivalTimes = parseList(args[i + 1]);
+						break;
+					case "--service":
+						serviceTimes = parseList(args[i + 1]);
+						break;
+					case "--stations":
+						stationCounts = parseList(args[i + 1]);
+						break;
+					case "--strategies":
+						String[] names = args[i + 1].split(",");
+						strategies = new DispatchStrategy[names.length];
+						for(int j = 0; j < names.length; j++){
+							strategies[j] = DispatchStrategy.valueOf(names[j].trim().toUpperCase());
+						}
+						break;
+					case "--duration":
+						duration = Integer.parseInt(args[i + 1]);
+						break;
+					case "--replications":
+						replications = Integer.parseInt(args[i + 1]);
+						break;
+					case "--seed":
+						seed = Long.parseLong(args[i + 1]);
+						break;
+					case "--out":
+						out = args[i + 1];
+						break;
+					case "--storage":
+						storage = PassengerStorage.valueOf(args[i + 1].trim().toUpperCase());
+						break;
+					case "--arrival-distribution":
+						arrivalDescription = args[i + 1];
+						break;
+					case "--service-distribution":
+						serviceDescription = args[i + 1];
+						break;
+					case "--analytic":
+						analytic = Boolean.parseBoolean(args[i + 1]);
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+
+			grid = buildGrid(arrivalTimes, serviceTimes, stationCounts, strategies, duration);
+			for(Scenario scenario : grid){
+				scenario.setPassengerStorage(storage);
+			}
+			applyDistributions(grid, arrivalDescription, serviceDescription);
+		} catch(IllegalArgumentException | UncheckedIOException e){
+			System.out.println(e.getMessage());
+			System.out.println("Usage: ParameterSweep [--arrival a,b] [--service a,b] [--stations a,b] [--strategies s,t]"
+							   + " [--duration seconds] [--replications k] [--seed n] [--out file.csv] [--storage OBJECTS|ARRAYS|OFF_HEAP]"
+							   + " [--arrival-distribution d] [--service-distribution d] [--analytic true|false]");
+			return;
+		}
+
+		try{
+			int ran = run(grid, replications, seed, Paths.get(out), analytic);
+			System.out.println("Ran " + ran + " of " + grid.size() + " cells, results are in " + out);
+		} catch(IOException ioe){
+			System.out.println(ioe.getMessage());
+		}
+	}
+
+
+	/**
+	 * Build every combination of the parameters. Multiple queue strategies get one queue per station
+	 */
+	public static List<Scenario> buildGrid(int[] arrivalTimes, int[] serviceTimes, int[] stationCounts,
+										   DispatchStrategy[] strategies, int duration){
+		List<Scenario> grid = new ArrayList<>();
+
+		for(int arrivalTime : arrivalTimes){
+			for(int serviceTime : serviceTimes){
+				for(int numStations : stationCounts){
+					for(DispatchStrategy strategy : strategies){
+						grid.add(new Scenario(strategy, duration, arrivalTime, serviceTime, numStations, numStations));
+					}
+				}
+			}
+		}
+
+		return grid;
+	}
+
+
+	/**
+	 * Give every cell of the grid the described arrival and service distributions, with the means of
+	 * that cell. Regular arrivals and jittered service are what a scenario starts out with
+	 */
+	public static void applyDistributions(List<Scenario> grid, String arrivalDescription, String serviceDescription){
+		for(Scenario scenario : grid){
+			if(!arrivalDescription.equalsIgnoreCase("regular")){
+				scenario.setArrivalDistribution(Distribution.parse(arrivalDescription, scenario.getAverageArrivalTime()));
+			}
+			scenario.setServiceDistribution(Distribution.parse(serviceDescription, scenario.getAverageServiceTime()));
+		}
+	}
+
+
+	/**
+	 * Run every cell of the grid that is not already in the result file, appending each one as
+	 * soon as it finishes. Returns the number of cells that were run
+	 */
+	public static int run(List<Scenario> grid, int replications, long masterSeed, Path out) throws IOException{
+		return run(grid, replications, masterSeed, out, false);
+	}
+
+
+	/**
+	 * Run every cell of the grid that is not already in the result file. If analytic is set, cells with
+	 * an exact queueing model are worked out rather than simulated. Returns the number of cells that were
+	 * run or worked out
+	 */
+	public static int run(List<Scenario> grid, int replications, long masterSeed, Path out, boolean analytic) throws IOException{
+		Set<String> finished = loadFinishedCells(out);
+
+		//Cells are seeded by their position in the grid so that a resumed sweep matches a fresh one.
+		//Worked out cells are written with 0 replications, so that is what they are looked up by
+		int[] pending = IntStream.range(0, grid.size())
+								 .filter(i -> !finished.contains(key(grid.get(i), masterSeed,
+																	 isWorkedOut(grid.get(i), analytic) ? 0 : replications)))
+								 .toArray();
+
+		try(BufferedWriter writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8,
+															StandardOpenOption.CREATE, StandardOpenOption.APPEND)){
+			if(finished.isEmpty() && Files.size(out) == 0){
+				writer.write(HEADER);
+				writer.newLine();
+				writer.flush();
+			}
+
+			IntStream.of(pending).parallel().forEach(i -> {
+				//Theory answers in microseconds what a simulation takes seconds to
+				if(isWorkedOut(grid.get(i), analytic)){
+					writeRow(writer, estimateRow(grid.get(i), masterSeed, QueueingModel.estimate(grid.get(i))));
+					return;
+				}
+
+				long seed = new SplittableRandom(masterSeed + i).nextLong();
+				ReplicationSummary summary = ReplicationRunner.run(grid.get(i), replications, seed);
+				writeRow(writer, summary, masterSeed);
+			});
+		} catch(UncheckedIOException uioe){
+			throw uioe.getCause();
+		}
+
+		return pending.length;
+	}
+
+
+	/**
+	 * Helper method for whether a cell is worked out from theory rather than simulated
+	 */
+	private static boolean isWorkedOut(Scenario scenario, boolean analytic){
+		return analytic && QueueingModel.appliesTo(scenario) && QueueingModel.estimate(scenario).isExact();
+	}
+
+
+	/**
+	 * Read the keys of every cell that is already in the result file. If the last row was
+	 * only half written when the sweep died, it is cut off so that the cell is run again. A file
+	 * with any other header was written with other columns, and is never appended to
+	 */
+	private static Set<String> loadFinishedCells(Path out) throws IOException{
+		Set<String> finished = new HashSet<>();
+		if(!Files.exists(out)){
+			return finished;
+		}
+
+		//Drop everything after the last complete line
+		try(RandomAccessFile file = new RandomAccessFile(out.toFile(), "rw")){
+			long end = file.length();
+			while(end > 0){
+				file.seek(end - 1);
+				if(file.read() == '\n'){
+					break;
+				}
+				end--;
+			}
+			file.setLength(end);
+		}
+
+		int columns = HEADER.split(",").length;
+		try(BufferedReader reader = Files.newBufferedReader(out, StandardCharsets.UTF_8)){
+			String line = reader.readLine();
+			if(line != null && !line.equals(HEADER)){
+				throw new IOException(out + " does not have the columns of this sweep, use another result file");
+			}
+
+			while((line = reader.readLine()) != null){
+				String[] fields = line.split(",");
+				if(fields.length == columns){
+					finished.add(String.join(",", List.of(fields).subList(0, KEY_COLUMNS)));
+				}
+			}
+		}
+
+		return finished;
+	}
+
+
+	/**
+	 * Append one finished cell to the result file
+	 */
+	private static void writeRow(BufferedWriter writer, ReplicationSummary summary, long masterSeed){
+		Scenario scenario = summary.getScenario();
+		writeRow(writer, key(scenario, masterSeed, summary.getReplications()) + ","
+				 + summary.getOverallAverageWaitTime().getMean() + "," + summary.getOverallAverageWaitTime().getHalfWidth() + ","
+				 + summary.getOverallMaxWaitTime().getMean() + "," + summary.getOverallMaxWaitTime().getHalfWidth() + ","
+				 + summary.getOverallLongestLength().getMean() + "," + summary.getOverallLongestLength().getHalfWidth() + ","
+				 + summary.getAverageUtilisation().getMean() + "," + summary.getAverageUtilisation().getHalfWidth() + ","
+				 + summary.getRuntime().getMean());
+	}
+
+
+	/**
+	 * The row of a cell that was worked out rather than simulated. Theory gives no maximum wait or
+	 * longest length, and there is no interval around an exact answer
+	 */
+	private static String estimateRow(Scenario scenario, long masterSeed, QueueingEstimate estimate){
+		return key(scenario, masterSeed, 0) + "," + estimate.getWaitTime() + ",0,NaN,NaN,NaN,NaN," + estimate.getUtilisation() + ",0,0";
+	}
+
+
+	/**
+	 * Append one row to the result file. Rows are written whole and flushed, so the file on disk
+	 * only ever ends in a partial row if the process itself dies
+	 */
+	private static void writeRow(BufferedWriter writer, String row){
+		synchronized(writer){
+			try{
+				writer.write(row);
+				writer.newLine();
+				writer.flush();
+			} catch(IOException ioe){
+				throw new UncheckedIOException(ioe);
+			}
+		}
+	}
+
+
+	/**
+	 * The columns that identify a cell in the result file, with the master seed of the sweep and the
+	 * number of replications the cell was run for
+	 */
+	private static String key(Scenario scenario, long masterSeed, int replications){
+		return scenario.getStrategy() + "," + scenario.getAverageArrivalTime() + "," + scenario.getAverageServiceTime()
+			   + "," + scenario.getNumStations() + "," + scenario.getNumQueues() + "," + scenario.getDuration()
+			   + "," + scenario.getPassengerStorage() + "," + Distribution.describe(scenario.getArrivalDistribution())
+			   + "," + Distribution.describe(scenario.getServiceDistribution()) + "," + masterSeed + "," + replications;
+	}
+
+
+	/**
+	 * Helper method for parsing a comma separated list of integers
+	 */
+	private static int[] parseList(String list){
+		String[] parts = list.split(",");
+		int[] values = new int[parts.length];
+		for(int i = 0; i < parts.length; i++){
+			values[i] = Integer.parseInt(parts[i].trim());
+		}
+
+		return values;
+	}
+}
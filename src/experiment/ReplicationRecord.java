@@ -0,0 +1,90 @@
+/**
+ * Author: Jack Robbins
+ * This class lays out the statistics of one replication as a fixed length row of doubles
+ */
+
+package experiment;
+
+import simulation.SimulationResult;
+
+
+/**
+ * Every replication of a scenario is summed up by the same numbers in the same order, so a row
+ * can be written to a file by one process and read back by another without any parsing. The
+ * row holds the overall statistics first, then three per queue, then one per station
+ */
+final class ReplicationRecord{
+	static final int RUNTIME = 0;
+	static final int OVERALL_AVERAGE_WAIT_TIME = 1;
+	static final int OVERALL_MAX_WAIT_TIME = 2;
+	static final int OVERALL_LONGEST_LENGTH = 3;
+	static final int AVERAGE_UTILISATION = 4;
+
+	//Number of overall statistics at the start of a row
+	private static final int OVERALL = 5;
+
+
+	/**
+	 * Number of doubles in the row of a scenario with the given layout
+	 */
+	static int length(int numQueues, int numStations){
+		return OVERALL + 3 * numQueues + numStations;
+	}
+
+
+	/**
+	 * Position of the average waiting time of a queue in a row
+	 */
+	static int averageWaitTime(int queueID){
+		return OVERALL + 3 * queueID;
+	}
+
+
+	/**
+	 * Position of the maximum waiting time of a queue in a row
+	 */
+	static int maxWaitTime(int queueID){
+		return OVERALL + 3 * queueID + 1;
+	}
+
+
+	/**
+	 * Position of the longest length of a queue in a row
+	 */
+	static int longestLength(int queueID){
+		return OVERALL + 3 * queueID + 2;
+	}
+
+
+	/**
+	 * Position of the utilisation of a station in a row
+	 */
+	static int stationUtilisation(int numQueues, int stationID){
+		return OVERALL + 3 * numQueues + stationID;
+	}
+
+
+	/**
+	 * Write out the row of one finished replication
+	 */
+	static double[] of(SimulationResult result){
+		int numQueues = result.getNumQueues();
+		double[] row = new double[length(numQueues, result.getNumStations())];
+
+		row[RUNTIME] = result.getRuntime();
+		row[OVERALL_AVERAGE_WAIT_TIME] = result.getOverallAverageWaitTime();
+		row[OVERALL_MAX_WAIT_TIME] = result.getOverallMaxWaitTime();
+		row[OVERALL_LONGEST_LENGTH] = result.getOverallLongestLength();
+		row[AVERAGE_UTILISATION] = result.getAverageUtilisation();
+		for(int i = 0; i < numQueues; i++){
+			row[averageWaitTime(i)] = result.getAverageWaitTime(i);
+			row[maxWaitTime(i)] = result.getMaxWaitTime(i);
+			row[longestLength(i)] = result.getLongestLength(i);
+		}
+		for(int i = 0; i < result.getNumStations(); i++){
+			row[stationUtilisation(numQueues, i)] = result.getStationUtilisation(i);
+		}
+
+		return row;
+	}
+}
@@ -0,0 +1,87 @@
+/**
+ * Author: Jack Robbins
+ *
+ * This class runs many independent replications of one scenario on the simulated clock
+ * and combines them into confidence intervals
+ *
+ * 	Replications are spread over every core with a parallel stream
+ */
+
+package experiment;
+
+import simulation.DiscreteEventSimulation;
+import simulation.Scenario;
+import simulation.SimulationResult;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+
+/**
+ * Each replication builds its own context, dispatcher and random from its own seed, so
+ * replications never share any mutable state
+ */
+public class ReplicationRunner{
+	/**
+	 * Run a number of replications of the scenario. The seed for every replication is drawn
+	 * from the master seed up front, so the same master seed always gives the same summary
+	 */
+	public static ReplicationSummary run(Scenario scenario, int replications, long masterSeed){
+		//Every replication would write over the same trace file
+		if(scenario.getTraceFile() != null && replications > 1){
+			throw new IllegalArgumentException("A trace can only be recorded from a single run");
+		}
+
+		//Replications run side by side, and there is only one set of metrics to publish
+		if(scenario.getMetricsFile() != null && replications > 1){
+			throw new IllegalArgumentException("Live metrics can only be published for a single run");
+		}
+
+		//Replications run side by side, and would all write their snapshots to the same file
+		if(scenario.getCheckpointFile() != null && replications > 1){
+			throw new IllegalArgumentException("Checkpoints can only be taken of a single run");
+		}
+
+		//Every replication would truncate and write into the same time series file
+		if(scenario.getTimeSeriesFile() != null && replications > 1){
+			throw new IllegalArgumentException("A time series can only be sampled from a single run");
+		}
+
+		SplittableRandom master = new SplittableRandom(masterSeed);
+		long[] seeds = new long[replications];
+		for(int i = 0; i < replications; i++){
+			seeds[i] = master.nextLong();
+		}
+
+		SimulationResult[] results = Arrays.stream(seeds).parallel()
+										   .mapToObj(seed -> new SimulationResult(DiscreteEventSimulation.run(scenario, seed)))
+										   .toArray(SimulationResult[]::new);
+
+		return new ReplicationSummary(scenario, results);
+	}
+
+
+	/**
+	 * A helper method for printing the combined statistics to the command line
+	 */
+	public static void printReplicationStatistics(ReplicationSummary summary){
+		System.out.println("\n\n================= Replication Statistics ====================");
+		System.out.println(summary.getReplications() + " replications of " + summary.getScenario());
+		System.out.println("Means are given with their 95% confidence intervals\n");
+		System.out.println("Program Runtime: " + summary.getRuntime() + " seconds\n");
+
+		for(int i = 0; i < summary.getScenario().getNumQueues(); i++){
+			System.out.println("Queue " + (i + 1) + " Statistics: ");
+			System.out.println("\tAverage waiting time: " + summary.getAverageWaitTime(i) + " seconds");
+			System.out.println("\tMaximum waiting time: " + summary.getMaxWaitTime(i) + " seconds");
+			System.out.println("\tLongest length: " + summary.getLongestLength(i));
+		}
+
+		System.out.println("\nService Time Waiting Percentages");
+		for(int i = 0; i < summary.getScenario().getNumStations(); i++){
+			System.out.println("\tStation " + (i + 1) + ": active " + summary.getStationUtilisation(i) + "% of the time");
+		}
+
+		//For prettiness
+		System.out.println("\n\n=============================================================");
+	}
+}
@@ -0,0 +1,178 @@
+/**
+ * Author: Jack Robbins
+ * This class combines the results of many replications of one scenario
+ */
+
+package experiment;
+
+import simulation.Scenario;
+import simulation.SimulationResult;
+import statistics.ConfidenceInterval;
+import java.util.function.IntFunction;
+
+
+/**
+ * Every statistic that a single run reports is turned into a confidence interval
+ * over all of the replications
+ */
+public class ReplicationSummary{
+	private Scenario scenario;
+	private int replications;
+	private ConfidenceInterval runtime;
+	private ConfidenceInterval[] averageWaitTimes;
+	private ConfidenceInterval[] maxWaitTimes;
+	private ConfidenceInterval[] longestLengths;
+	private ConfidenceInterval[] stationUtilisation;
+	private ConfidenceInterval overallAverageWaitTime;
+	private ConfidenceInterval overallMaxWaitTime;
+	private ConfidenceInterval overallLongestLength;
+	private ConfidenceInterval averageUtilisation;
+
+
+	/**
+	 * Combine the results of every replication
+	 */
+	public ReplicationSummary(Scenario scenario, SimulationResult[] results){
+		this(scenario, results.length, columns(results));
+	}
+
+
+	/**
+	 * Combine replications that are only available as rows of a ReplicationRecord. The samples hand
+	 * back one statistic of every replication at a time, so the rows never all have to be in memory
+	 */
+	ReplicationSummary(Scenario scenario, int replications, IntFunction<double[]> samples){
+		int numQueues = scenario.getNumQueues();
+		this.scenario = scenario;
+		this.replications = replications;
+		this.runtime = new ConfidenceInterval(samples.apply(ReplicationRecord.RUNTIME));
+
+		this.averageWaitTimes = new ConfidenceInterval[numQueues];
+		this.maxWaitTimes = new ConfidenceInterval[numQueues];
+		this.longestLengths = new ConfidenceInterval[numQueues];
+		for(int i = 0; i < numQueues; i++){
+			this.averageWaitTimes[i] = new ConfidenceInterval(samples.apply(ReplicationRecord.averageWaitTime(i)));
+			this.maxWaitTimes[i] = new ConfidenceInterval(samples.apply(ReplicationRecord.maxWaitTime(i)));
+			this.longestLengths[i] = new ConfidenceInterval(samples.apply(ReplicationRecord.longestLength(i)));
+		}
+
+		this.stationUtilisation = new ConfidenceInterval[scenario.getNumStations()];
+		for(int i = 0; i < scenario.getNumStations(); i++){
+			this.stationUtilisation[i] = new ConfidenceInterval(samples.apply(ReplicationRecord.stationUtilisation(numQueues, i)));
+		}
+
+		this.overallAverageWaitTime = new ConfidenceInterval(samples.apply(ReplicationRecord.OVERALL_AVERAGE_WAIT_TIME));
+		this.overallMaxWaitTime = new ConfidenceInterval(samples.apply(ReplicationRecord.OVERALL_MAX_WAIT_TIME));
+		this.overallLongestLength = new ConfidenceInterval(samples.apply(ReplicationRecord.OVERALL_LONGEST_LENGTH));
+		this.averageUtilisation = new ConfidenceInterval(samples.apply(ReplicationRecord.AVERAGE_UTILISATION));
+	}
+
+
+	/**
+	 * A simple helper method to get the scenario that was replicated
+	 */
+	public Scenario getScenario(){
+		return this.scenario;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of replications
+	 */
+	public int getReplications(){
+		return this.replications;
+	}
+
+
+	/**
+	 * A simple helper method to get the runtime interval in seconds
+	 */
+	public ConfidenceInterval getRuntime(){
+		return this.runtime;
+	}
+
+
+	/**
+	 * A simple helper method to get the average waiting time interval for a queue
+	 */
+	public ConfidenceInterval getAverageWaitTime(int queueID){
+		return this.averageWaitTimes[queueID];
+	}
+
+
+	/**
+	 * A simple helper method to get the maximum waiting time interval for a queue
+	 */
+	public ConfidenceInterval getMaxWaitTime(int queueID){
+		return this.maxWaitTimes[queueID];
+	}
+
+
+	/**
+	 * A simple helper method to get the longest length interval for a queue
+	 */
+	public ConfidenceInterval getLongestLength(int queueID){
+		return this.longestLengths[queueID];
+	}
+
+
+	/**
+	 * A simple helper method to get the utilisation interval for a station
+	 */
+	public ConfidenceInterval getStationUtilisation(int stationID){
+		return this.stationUtilisation[stationID];
+	}
+
+
+	/**
+	 * A simple helper method to get the interval for the average waiting time over every passenger
+	 */
+	public ConfidenceInterval getOverallAverageWaitTime(){
+		return this.overallAverageWaitTime;
+	}
+
+
+	/**
+	 * A simple helper method to get the interval for the maximum waiting time over every passenger
+	 */
+	public ConfidenceInterval getOverallMaxWaitTime(){
+		return this.overallMaxWaitTime;
+	}
+
+
+	/**
+	 * A simple helper method to get the interval for the longest length of any queue
+	 */
+	public ConfidenceInterval getOverallLongestLength(){
+		return this.overallLongestLength;
+	}
+
+
+	/**
+	 * A simple helper method to get the interval for the utilisation of the average station
+	 */
+	public ConfidenceInterval getAverageUtilisation(){
+		return this.averageUtilisation;
+	}
+
+
+	/**
+	 * A private helper method for turning the results of every replication into rows, and handing
+	 * back one statistic of every row at a time
+	 */
+	private static IntFunction<double[]> columns(SimulationResult[] results){
+		double[][] rows = new double[results.length][];
+		for(int i = 0; i < results.length; i++){
+			rows[i] = ReplicationRecord.of(results[i]);
+		}
+
+		return statistic -> {
+			double[] samples = new double[rows.length];
+			for(int i = 0; i < rows.length; i++){
+				samples[i] = rows[i][statistic];
+			}
+
+			return samples;
+		};
+	}
+}
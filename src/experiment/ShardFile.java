@@ -0,0 +1,190 @@
+/**
+ * Author: Jack Robbins
+ * This class is the memory-mapped result file of one shard of a sharded replication run
+ */
+
+package experiment;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * The file starts with a fixed header saying which replications of which scenario it holds, followed
+ * by one ReplicationRecord row per replication. Rows are written straight into the mapped file, and the
+ * count of finished rows in the header is only moved on once a row is complete, so the file always
+ * says exactly how far a worker got before it died. A worker that is started again on the same file
+ * carries on from there
+ */
+final class ShardFile implements AutoCloseable{
+	//"QSRS" in ASCII
+	private static final int MAGIC = 0x51535253;
+	private static final int VERSION = 2;
+
+	//Magic, version, queues, stations, seed, first replication, replications, finished replications,
+	//fingerprint of the scenario
+	private static final int HEADER_BYTES = 40;
+	private static final int COMPLETED_OFFSET = 32;
+	private static final int FINGERPRINT_OFFSET = 36;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final int rowLength;
+	private final int count;
+
+
+	/**
+	 * Basic constructor, maps the whole file
+	 */
+	private ShardFile(FileChannel channel, FileChannel.MapMode mode, int rowLength, int count) throws IOException{
+		this.channel = channel;
+		this.rowLength = rowLength;
+		this.count = count;
+		this.buffer = channel.map(mode, 0, size(rowLength, count));
+	}
+
+
+	/**
+	 * Open the file of a shard for writing. A file that was left behind by an earlier attempt at the
+	 * same shard of the same scenario is picked up where it stopped, anything else is started over
+	 */
+	static ShardFile create(Path file, int numQueues, int numStations, long seed, int first, int count, int fingerprint){
+		int rowLength = ReplicationRecord.length(numQueues, numStations);
+
+		try{
+			FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			boolean resume = channel.size() == size(rowLength, count);
+			if(!resume){
+				channel.truncate(0);
+			}
+
+			ShardFile shard = new ShardFile(channel, FileChannel.MapMode.READ_WRITE, rowLength, count);
+
+			if(!resume || !shard.holds(numQueues, numStations, seed, first, count, fingerprint)){
+				shard.buffer.putInt(0, MAGIC);
+				shard.buffer.putInt(4, VERSION);
+				shard.buffer.putInt(8, numQueues);
+				shard.buffer.putInt(12, numStations);
+				shard.buffer.putLong(16, seed);
+				shard.buffer.putInt(24, first);
+				shard.buffer.putInt(28, count);
+				shard.buffer.putInt(COMPLETED_OFFSET, 0);
+				shard.buffer.putInt(FINGERPRINT_OFFSET, fingerprint);
+			}
+
+			return shard;
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+
+	/**
+	 * Open the file of a shard for reading, or return null if it is missing or does not hold all
+	 * of the given replications of the scenario with the given fingerprint
+	 */
+	static ShardFile open(Path file, int numQueues, int numStations, long seed, int first, int count, int fingerprint){
+		int rowLength = ReplicationRecord.length(numQueues, numStations);
+
+		try{
+			if(!Files.exists(file) || Files.size(file) != size(rowLength, count)){
+				return null;
+			}
+
+			ShardFile shard = new ShardFile(FileChannel.open(file, StandardOpenOption.READ), FileChannel.MapMode.READ_ONLY,
+											rowLength, count);
+			if(!shard.holds(numQueues, numStations, seed, first, count, fingerprint) || shard.getCompleted() != count){
+				shard.close();
+				return null;
+			}
+
+			return shard;
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+
+	/**
+	 * Number of bytes in the file of a shard. A single mapping can be at most 2GB
+	 */
+	private static long size(int rowLength, int count){
+		long size = HEADER_BYTES + 8L * rowLength * count;
+		if(size > Integer.MAX_VALUE){
+			throw new IllegalArgumentException("A shard can hold at most " + (Integer.MAX_VALUE - HEADER_BYTES) / (8L * rowLength)
+											   + " replications of this scenario, use more shards");
+		}
+
+		return size;
+	}
+
+
+	/**
+	 * Helper method for checking that the header is for the given replications of the given scenario
+	 */
+	private boolean holds(int numQueues, int numStations, long seed, int first, int count, int fingerprint){
+		return this.buffer.getInt(0) == MAGIC && this.buffer.getInt(4) == VERSION && this.buffer.getInt(8) == numQueues
+			   && this.buffer.getInt(12) == numStations && this.buffer.getLong(16) == seed && this.buffer.getInt(24) == first
+			   && this.buffer.getInt(28) == count && this.buffer.getInt(FINGERPRINT_OFFSET) == fingerprint;
+	}
+
+
+	/**
+	 * Write the row of one replication, counting from the first replication of the shard. Rows have
+	 * to be written in order, and each one only counts once it is all there
+	 */
+	void write(int replication, double[] row){
+		int offset = HEADER_BYTES + 8 * this.rowLength * replication;
+		for(int i = 0; i < this.rowLength; i++){
+			this.buffer.putDouble(offset + 8 * i, row[i]);
+		}
+
+		this.buffer.putInt(COMPLETED_OFFSET, replication + 1);
+	}
+
+
+	/**
+	 * Read one statistic of a replication, counting from the first replication of the shard
+	 */
+	double get(int replication, int statistic){
+		return this.buffer.getDouble(HEADER_BYTES + 8 * (this.rowLength * replication + statistic));
+	}
+
+
+	/**
+	 * A simple helper method to get the number of replications whose rows are all there
+	 */
+	int getCompleted(){
+		return this.buffer.getInt(COMPLETED_OFFSET);
+	}
+
+
+	/**
+	 * A simple helper method to get the number of replications the shard holds
+	 */
+	int getCount(){
+		return this.count;
+	}
+
+
+	/**
+	 * Push everything written out to the disk and close the file. The mapping itself stays valid
+	 * until it is garbage collected
+	 */
+	@Override
+	public void close(){
+		try{
+			if(!this.buffer.isReadOnly()){
+				this.buffer.force();
+			}
+			this.channel.close();
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+	}
+}
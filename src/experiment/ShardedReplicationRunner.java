@@ -0,0 +1,300 @@
+/**
+ * Author: Jack Robbins
+ *
+ * This class runs a very large number of replications of one scenario over several worker JVMs on
+ * the local machine, and merges what they find into one replication summary
+ *
+ * 	Every worker is its own process with its own heap and garbage collector, so no single heap ever
+ * 	has to hold more than one shard of the work. Workers only talk to the coordinator through their
+ * 	memory-mapped result files
+ */
+
+package experiment;
+
+import dispatch.DispatchStrategy;
+import simulation.DiscreteEventSimulation;
+import simulation.Scenario;
+import simulation.SimulationResult;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+
+/**
+ * Shard k runs replications k * R / N up to (k + 1) * R / N, with the same seeds that ReplicationRunner
+ * would give them, so a sharded run gives exactly the same summary as running every replication in
+ * one JVM. A shard whose worker dies is started again on its own, and carries on from the last
+ * replication that it finished. Every file is marked with a fingerprint of the scenario, so the files
+ * of an earlier run of different parameters in the same directory are never merged in
+ */
+public class ShardedReplicationRunner{
+	//How many times a shard is started before the run is given up on
+	private static final int MAX_ATTEMPTS = 3;
+
+
+	/**
+	 * Runs a sharded replication from the command line, for example
+	 * 	--strategy ROUND_ROBIN --arrival 4 --service 18 --stations 5 --queues 5 --duration 86400
+	 * 	--replications 10000 --shards 4 --seed 42 --directory shards
+	 * Workers are started with the same options plus --shard k
+	 */
+	public static void main(String[] args){
+		DispatchStrategy strategy = DispatchStrategy.SINGLE_QUEUE;
+		int averageArrivalTime = 4;
+		int averageServiceTime = 18;
+		int numStations = 5;
+		int numQueues = 1;
+		int choices = DispatchStrategy.DEFAULT_CHOICES;
+		String arrivalDescription = "regular";
+		String serviceDescription = "jitter";
+		int duration = 24 * 60 * 60;
+		int replications = 1000;
+		int shards = Runtime.getRuntime().availableProcessors();
+		long seed = System.currentTimeMillis();
+		Path directory = Paths.get("shards");
+		int shard = -1;
+
+		try{
+			for(int i = 0; i + 1 < args.length; i += 2){
+				switch(args[i]){
+					case "--strategy":
+						strategy = DispatchStrategy.valueOf(args[i + 1].toUpperCase());
+						break;
+					case "--arrival":
+						averageArrivalTime = Integer.parseInt(args[i + 1]);
+						break;
+					case "--service":
+						averageServiceTime = Integer.parseInt(args[i + 1]);
+						break;
+					case "--stations":
+						numStations = Integer.parseInt(args[i + 1]);
+						break;
+					case "--queues":
+						numQueues = Integer.parseInt(args[i + 1]);
+						break;
+					case "--choices":
+						choices = Integer.parseInt(args[i + 1]);
+						break;
+					case "--arrival-distribution":
+						arrivalDescription = args[i + 1];
+						break;
+					case "--service-distribution":
+						serviceDescription = args[i + 1];
+						break;
+					case "--duration":
+						duration = Integer.parseInt(args[i + 1]);
+						break;
+					case "--replications":
+						replications = Integer.parseInt(args[i + 1]);
+						break;
+					case "--shards":
+						shards = Integer.parseInt(args[i + 1]);
+						break;
+					case "--seed":
+						seed = Long.parseLong(args[i + 1]);
+						break;
+					case "--directory":
+						directory = Paths.get(args[i + 1]);
+						break;
+					case "--shard":
+						shard = Integer.parseInt(args[i + 1]);
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+
+			if(shards < 1 || shards > replications){
+				throw new IllegalArgumentException("Need between 1 and " + replications + " shards, got " + shards);
+			}
+
+			Scenario scenario = new Scenario(strategy, duration, averageArrivalTime, averageServiceTime, numStations, numQueues);
+			scenario.setChoices(choices);
+			ParameterSweep.applyDistributions(List.of(scenario), arrivalDescription, serviceDescription);
+
+			//A worker only runs its own shard, and the coordinator does everything else
+			if(shard >= 0){
+				runShard(scenario, replications, shards, shard, seed, directory);
+				return;
+			}
+
+			//The workers are started with the seed that was picked here, so they all agree on it
+			ArrayList<String> workerArgs = new ArrayList<>(List.of(args));
+			workerArgs.add("--seed");
+			workerArgs.add(Long.toString(seed));
+			ReplicationSummary summary = run(scenario, workerArgs, replications, shards, seed, directory);
+			ReplicationRunner.printReplicationStatistics(summary);
+		} catch(IllegalArgumentException | IllegalStateException | UncheckedIOException e){
+			System.out.println(e.getMessage());
+			System.out.println("Usage: ShardedReplicationRunner [--strategy s] [--arrival seconds] [--service seconds]"
+							   + " [--stations n] [--queues n] [--choices d] [--arrival-distribution d]"
+							   + " [--service-distribution d] [--duration seconds] [--replications k] [--shards n]"
+							   + " [--seed n] [--directory path]");
+		}
+	}
+
+
+	/**
+	 * Start a worker JVM for every shard and wait for them all. Any shard that did not finish is
+	 * started again on its own, and once every shard is complete their files are merged into one
+	 * summary. The arguments are handed to every worker as they are, along with the number of its shard
+	 */
+	public static ReplicationSummary run(Scenario scenario, List<String> workerArgs, int replications, int shards, long seed,
+										 Path directory){
+		try{
+			Files.createDirectories(directory);
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+
+		int fingerprint = scenario.getFingerprint();
+		ShardFile[] files = new ShardFile[shards];
+		ArrayList<Integer> pending = new ArrayList<>();
+		for(int shard = 0; shard < shards; shard++){
+			pending.add(shard);
+		}
+
+		try{
+			for(int attempt = 1; !pending.isEmpty(); attempt++){
+				if(attempt > MAX_ATTEMPTS){
+					throw new IllegalStateException("Shard " + pending.get(0) + " failed " + MAX_ATTEMPTS + " times, see "
+													+ directory.resolve("shard-" + pending.get(0) + ".log"));
+				}
+
+				//Every pending shard runs side by side in its own JVM
+				ArrayList<Process> workers = new ArrayList<>();
+				for(int shard : pending){
+					workers.add(startWorker(workerArgs, shard, directory));
+				}
+				waitFor(workers);
+
+				//Only a shard whose file holds every one of its replications is done
+				ArrayList<Integer> failed = new ArrayList<>();
+				for(int shard : pending){
+					files[shard] = ShardFile.open(shardFile(directory, shard), scenario.getNumQueues(), scenario.getNumStations(), seed,
+												  first(replications, shards, shard), first(replications, shards, shard + 1)
+																					  - first(replications, shards, shard), fingerprint);
+					if(files[shard] == null){
+						System.out.println("Shard " + shard + " did not finish, starting it again");
+						failed.add(shard);
+					}
+				}
+				pending = failed;
+			}
+
+			//Each statistic is read straight out of every mapped file in turn, so only one column of
+			//samples is ever on the heap
+			return new ReplicationSummary(scenario, replications, statistic -> {
+				double[] samples = new double[replications];
+				int replication = 0;
+				for(ShardFile file : files){
+					for(int i = 0; i < file.getCount(); i++){
+						samples[replication++] = file.get(i, statistic);
+					}
+				}
+
+				return samples;
+			});
+		} finally {
+			//Shards that finished are closed even when another one gave up
+			for(ShardFile file : files){
+				if(file != null){
+					file.close();
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Run the replications of one shard in this JVM, one after the other, writing each one to the
+	 * shard's file as soon as it is done. Replications that an earlier attempt already finished are
+	 * skipped
+	 */
+	static void runShard(Scenario scenario, int replications, int shards, int shard, long masterSeed, Path directory){
+		int first = first(replications, shards, shard);
+		int count = first(replications, shards, shard + 1) - first;
+
+		//The same seeds ReplicationRunner would draw, so skip past the ones for earlier shards
+		SplittableRandom master = new SplittableRandom(masterSeed);
+		for(int i = 0; i < first; i++){
+			master.nextLong();
+		}
+		long[] seeds = new long[count];
+		for(int i = 0; i < count; i++){
+			seeds[i] = master.nextLong();
+		}
+
+		try(ShardFile file = ShardFile.create(shardFile(directory, shard), scenario.getNumQueues(), scenario.getNumStations(),
+											  masterSeed, first, count, scenario.getFingerprint())){
+			for(int i = file.getCompleted(); i < count; i++){
+				SimulationResult result = new SimulationResult(DiscreteEventSimulation.run(scenario, seeds[i]));
+				file.write(i, ReplicationRecord.of(result));
+			}
+		}
+	}
+
+
+	/**
+	 * Helper method for waiting on every worker. If the coordinator is interrupted, every worker is
+	 * stopped rather than left running on its own
+	 */
+	private static void waitFor(List<Process> workers){
+		try{
+			for(Process worker : workers){
+				worker.waitFor();
+			}
+		} catch(InterruptedException ie){
+			for(Process worker : workers){
+				worker.destroy();
+			}
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the workers, every worker was stopped");
+		}
+	}
+
+
+	/**
+	 * Helper method for starting the worker JVM of one shard, on the same Java and classpath as this
+	 * one. Its output goes to a log next to its result file
+	 */
+	private static Process startWorker(List<String> workerArgs, int shard, Path directory){
+		ArrayList<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(ShardedReplicationRunner.class.getName());
+		command.addAll(workerArgs);
+		command.add("--shard");
+		command.add(Integer.toString(shard));
+
+		try{
+			return new ProcessBuilder(command).redirectErrorStream(true)
+											  .redirectOutput(directory.resolve("shard-" + shard + ".log").toFile())
+											  .start();
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+
+	/**
+	 * Helper method for the number of the first replication of a shard
+	 */
+	private static int first(int replications, int shards, int shard){
+		return (int)((long)replications * shard / shards);
+	}
+
+
+	/**
+	 * Helper method for the result file of a shard
+	 */
+	private static Path shardFile(Path directory, int shard){
+		return directory.resolve("shard-" + shard + ".bin");
+	}
+}
@@ -0,0 +1,205 @@
+/**
+ * Author: Jack Robbins
+ *
+ * This class compares every dispatch strategy across a range of station counts, on the simulated clock
+ * For every strategy and station count it reports
+ * 	- The cost of one dispatch decision, measured with departures mixed in so that strategies
+ * 	  that track queue depths do their full work
+ * 	- The waiting time distribution over a number of replications: mean, standard deviation,
+ * 	  median, tail percentiles and maximum
+ *
+ * 	Multiple queue strategies get one queue per station, and the service time is picked so that every
+ * 	layout runs at the same load
+ */
+
+package experiment;
+
+import dispatch.DispatchStrategy;
+import dispatch.Dispatcher;
+import simulation.DiscreteEventSimulation;
+import simulation.Scenario;
+import statistics.RunningStatistics;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+
+public class StrategyComparison{
+	private static final String HEADER = "strategy,stations,queues,choices,dispatch_ns,average_wait,wait_deviation,"
+									   + "p50_wait,p95_wait,p99_wait,max_wait";
+
+
+	/**
+	 * Runs the comparison from the command line, for example
+	 * 	--stations 5,64,1024 --arrival 1 --load 0.9 --duration 86400 --replications 5 --choices 2
+	 * 	--decisions 1000000 --seed 42 --out comparison.csv
+	 */
+	public static void main(String[] args){
+		int[] stationCounts = {5, 64, 1024};
+		int averageArrivalTime = 1;
+		double load = 0.9;
+		int duration = 24 * 60 * 60;
+		int replications = 5;
+		int choices = DispatchStrategy.DEFAULT_CHOICES;
+		int decisions = 1_000_000;
+		long seed = System.currentTimeMillis();
+		String out = null;
+
+		try{
+			for(int i = 0; i + 1 < args.length; i += 2){
+				switch(args[i]){
+					case "--stations":
+						stationCounts = Arrays.stream(args[i + 1].split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+						break;
+					case "--arrival":
+						averageArrivalTime = Integer.parseInt(args[i + 1]);
+						break;
+					case "--load":
+						load = Double.parseDouble(args[i + 1]);
+						break;
+					case "--duration":
+						duration = Integer.parseInt(args[i + 1]);
+						break;
+					case "--replications":
+						replications = Integer.parseInt(args[i + 1]);
+						break;
+					case "--choices":
+						choices = Integer.parseInt(args[i + 1]);
+						break;
+					case "--decisions":
+						decisions = Integer.parseInt(args[i + 1]);
+						break;
+					case "--seed":
+						seed = Long.parseLong(args[i + 1]);
+						break;
+					case "--out":
+						out = args[i + 1];
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+
+			if(load <= 0 || replications < 1 || decisions < 1 || averageArrivalTime < 1){
+				throw new IllegalArgumentException("Load, replications, decisions and arrival time must all be positive");
+			}
+		} catch(IllegalArgumentException iae){
+			System.out.println(iae.getMessage());
+			System.out.println("Usage: StrategyComparison [--stations a,b] [--arrival seconds] [--load fraction] [--duration seconds]"
+							   + " [--replications k] [--choices d] [--decisions n] [--seed n] [--out file.csv]");
+			return;
+		}
+
+		StringBuilder csv = new StringBuilder(HEADER).append('\n');
+
+		for(int numStations : stationCounts){
+			//Service is stretched with the number of stations so that every layout is equally busy
+			int averageServiceTime = Math.max(1, (int)Math.round(numStations * averageArrivalTime * load));
+
+			System.out.println("\n================ " + numStations + " Stations, " + averageServiceTime
+							   + "s Service ================");
+			System.out.printf("%-22s %12s %10s %10s %10s %10s %10s %10s\n", "Strategy", "Dispatch ns", "Average",
+							  "Std dev", "p50", "p95", "p99", "Max");
+
+			for(DispatchStrategy strategy : DispatchStrategy.values()){
+				Scenario scenario = new Scenario(strategy, duration, averageArrivalTime, averageServiceTime, numStations, numStations);
+				scenario.setChoices(choices);
+
+				double dispatchCost = dispatchCost(scenario, decisions, seed);
+				RunningStatistics waits = waitingTimes(scenario, replications, seed);
+
+				String name = strategy == DispatchStrategy.POWER_OF_CHOICES ? strategy + "(d=" + choices + ")" : strategy.toString();
+				System.out.printf("%-22s %12.1f %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f\n", name, dispatchCost,
+								  waits.getMean() / 1000, waits.getStandardDeviation() / 1000, waits.getPercentile(0.50) / 1000.0,
+								  waits.getPercentile(0.95) / 1000.0, waits.getPercentile(0.99) / 1000.0, waits.getMax() / 1000.0);
+
+				csv.append(strategy).append(',').append(numStations).append(',').append(scenario.getNumQueues()).append(',')
+				   .append(choices).append(',').append(dispatchCost).append(',').append(waits.getMean() / 1000).append(',')
+				   .append(waits.getStandardDeviation() / 1000).append(',').append(waits.getPercentile(0.50) / 1000.0).append(',')
+				   .append(waits.getPercentile(0.95) / 1000.0).append(',').append(waits.getPercentile(0.99) / 1000.0).append(',')
+				   .append(waits.getMax() / 1000.0).append('\n');
+			}
+		}
+
+		System.out.println("\nWaiting times are in seconds, over " + replications + " replication"
+						   + (replications == 1 ? "" : "s") + " of " + duration + "s each");
+
+		if(out != null){
+			try(BufferedWriter writer = Files.newBufferedWriter(Paths.get(out), StandardCharsets.UTF_8)){
+				writer.write(csv.toString());
+			} catch(IOException ioe){
+				System.out.println(ioe.getMessage());
+			}
+		}
+	}
+
+
+	/**
+	 * Average cost of one decision in nanoseconds. Every decision is paired with a departure from
+	 * the queue chosen a lap of the queues earlier, which keeps about one passenger in every queue.
+	 * The loop is run once untimed first so that the JIT has compiled it
+	 */
+	public static double dispatchCost(Scenario scenario, int decisions, long seed){
+		timeDecisions(scenario, decisions, seed);
+		return (double)timeDecisions(scenario, decisions, seed) / decisions;
+	}
+
+
+	/**
+	 * Merge the waiting times of every passenger over a number of replications, in milliseconds.
+	 * Replications are seeded from the master seed up front and run in parallel
+	 */
+	public static RunningStatistics waitingTimes(Scenario scenario, int replications, long masterSeed){
+		SplittableRandom master = new SplittableRandom(masterSeed);
+		long[] seeds = new long[replications];
+		for(int i = 0; i < replications; i++){
+			seeds[i] = master.nextLong();
+		}
+
+		RunningStatistics[] runs = Arrays.stream(seeds).parallel()
+										 .mapToObj(seed -> DiscreteEventSimulation.run(scenario, seed).getOverallWaitStatistics())
+										 .toArray(RunningStatistics[]::new);
+
+		RunningStatistics merged = new RunningStatistics();
+		for(RunningStatistics run : runs){
+			merged.merge(run);
+		}
+
+		return merged;
+	}
+
+
+	/**
+	 * Helper method for timing a run of decisions on a fresh dispatcher, in nanoseconds
+	 */
+	private static long timeDecisions(Scenario scenario, int decisions, long seed){
+		int numQueues = scenario.getNumQueues();
+		Dispatcher dispatcher = scenario.getStrategy().createDispatcher(numQueues, scenario.getChoices(), new Random(seed));
+		int[] waiting = new int[numQueues];
+		long chosen = 0;
+
+		long start = System.nanoTime();
+		for(int i = 0; i < decisions; i++){
+			int slot = i % numQueues;
+			if(i >= numQueues){
+				dispatcher.passengerLeft(waiting[slot]);
+			}
+
+			waiting[slot] = dispatcher.selectQueue();
+			chosen += waiting[slot];
+		}
+		long elapsed = System.nanoTime() - start;
+
+		//Make sure the decisions are used, so that none of them can be optimised away
+		if(chosen < 0){
+			System.out.println(chosen);
+		}
+
+		return elapsed;
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * Author: Jack Robbins
+ * Histogram of times in milliseconds that any number of threads can record into at once
+ */
+
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Bucket i counts the times of up to 2^i milliseconds, and the last bucket counts everything longer.
+ * Every bucket is a LongAdder, so threads recording at the same time never wait on each other. The
+ * buckets are coarse, since they are meant for watching a run, not for its final statistics
+ */
+class ConcurrentHistogram{
+	//Number of buckets with an upper bound, the largest is 2^23 milliseconds or about 2.3 hours
+	static final int BOUNDED_BUCKETS = 24;
+
+	private final LongAdder[] counts;
+	private final LongAdder sum;
+
+
+	/**
+	 * Basic constructor, every bucket starts out empty
+	 */
+	ConcurrentHistogram(){
+		this.counts = new LongAdder[BOUNDED_BUCKETS + 1];
+		for(int i = 0; i < this.counts.length; i++){
+			this.counts[i] = new LongAdder();
+		}
+		this.sum = new LongAdder();
+	}
+
+
+	/**
+	 * Record one time in milliseconds. Negative times are counted as 0
+	 */
+	void record(long millis){
+		millis = Math.max(millis, 0);
+		int bucket = millis <= 1 ? 0 : Math.min(64 - Long.numberOfLeadingZeros(millis - 1), BOUNDED_BUCKETS);
+		this.counts[bucket].increment();
+		this.sum.add(millis);
+	}
+
+
+	/**
+	 * A simple helper method to get the number of times in one bucket
+	 */
+	long getCount(int bucket){
+		return this.counts[bucket].sum();
+	}
+
+
+	/**
+	 * The largest time in a bucket in milliseconds, infinite for the last one
+	 */
+	static double getUpperBound(int bucket){
+		return bucket < BOUNDED_BUCKETS ? (double)(1L << bucket) : Double.POSITIVE_INFINITY;
+	}
+
+
+	/**
+	 * A simple helper method to get the sum of every time recorded, in milliseconds
+	 */
+	long getSum(){
+		return this.sum.sum();
+	}
+
+
+	/**
+	 * A simple helper method to get the number of times recorded
+	 */
+	long getTotalCount(){
+		long total = 0;
+		for(LongAdder count : this.counts){
+			total += count.sum();
+		}
+
+		return total;
+	}
+
+
+	/**
+	 * The upper bound of the bucket below which the given fraction(between 0 and 1) of times fall,
+	 * in milliseconds
+	 */
+	double getPercentile(double fraction){
+		long[] snapshot = new long[this.counts.length];
+		long total = 0;
+		for(int i = 0; i < snapshot.length; i++){
+			snapshot[i] = this.counts[i].sum();
+			total += snapshot[i];
+		}
+
+		if(total == 0){
+			return 0;
+		}
+
+		long rank = Math.max(1, (long)Math.ceil(fraction * total));
+		long seen = 0;
+		for(int i = 0; i < snapshot.length; i++){
+			seen += snapshot[i];
+			if(seen >= rank){
+				return getUpperBound(i);
+			}
+		}
+
+		return getUpperBound(BOUNDED_BUCKETS);
+	}
+}
@@ -0,0 +1,488 @@
+/**
+ * Author: Jack Robbins
+ * Live metrics of a run in progress, published over JMX and as a Prometheus text file
+ *
+ * The metrics are fed from the same arrival, service start and departure records as a binary trace.
+ * Counters that several threads add to are LongAdders, and everything about one station is only ever
+ * written by the thread of that station, so recording never locks and never makes a station wait.
+ * Readers add the counters up when they are asked for a figure, which is the expensive side, but they
+ * only ask about once a second
+ */
+
+package metrics;
+
+import trace.TraceRecorder;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+
+public class LiveMetrics implements TraceRecorder, LiveMetricsMBean{
+	//JMX domain that every bean of a run is registered under
+	public static final String DOMAIN = "queueingSimulation";
+
+	//How often the text file is written
+	public static final long REFRESH_INTERVAL_MILLIS = 1000;
+
+	private final long startTime;
+	private final LongAdder[] queueArrivals;
+	private final LongAdder[] queueServiceStarts;
+	private final AtomicLongArray maxDepths;
+	private final AtomicIntegerArray stationBusy;
+	private final AtomicLongArray stationServed;
+	private final AtomicLongArray stationBusyTime;
+	private final AtomicLongArray stationLastEvent;
+	private final ConcurrentHistogram lineWaits;
+	private final ConcurrentHistogram serviceTimes;
+	private final List<ObjectName> registered;
+	private final Path file;
+	private final Thread writer;
+	private volatile boolean closed;
+
+
+	/**
+	 * Basic constructor. Nothing is published until create starts the writer
+	 */
+	LiveMetrics(int numQueues, int numStations, long startTime, Path file){
+		this.startTime = startTime;
+		this.queueArrivals = newAdders(numQueues);
+		this.queueServiceStarts = newAdders(numQueues);
+		this.maxDepths = new AtomicLongArray(numQueues);
+		this.stationBusy = new AtomicIntegerArray(numStations);
+		this.stationServed = new AtomicLongArray(numStations);
+		this.stationBusyTime = new AtomicLongArray(numStations);
+		this.stationLastEvent = new AtomicLongArray(numStations);
+		this.lineWaits = new ConcurrentHistogram();
+		this.serviceTimes = new ConcurrentHistogram();
+		this.registered = new ArrayList<>();
+		this.file = file;
+		this.writer = new Thread(this::writeLoop, "metrics-writer");
+		this.writer.setDaemon(true);
+		this.closed = false;
+	}
+
+
+	/**
+	 * Make the metrics of a run, register their beans and start writing the text file. A run that is
+	 * still registered from before is replaced
+	 */
+	public static LiveMetrics create(int numQueues, int numStations, long startTime, Path file){
+		LiveMetrics metrics = new LiveMetrics(numQueues, numStations, startTime, file);
+
+		try{
+			metrics.register(new ObjectName(DOMAIN + ":type=Simulation"), metrics);
+			for(int i = 0; i < numQueues; i++){
+				metrics.register(new ObjectName(DOMAIN + ":type=Queue,name=" + (i + 1)), new QueueMetrics(metrics, i));
+			}
+			for(int i = 0; i < numStations; i++){
+				metrics.register(new ObjectName(DOMAIN + ":type=Station,name=" + (i + 1)), new StationMetrics(metrics, i));
+			}
+		} catch(JMException jme){
+			metrics.unregister();
+			throw new IllegalStateException("Could not publish the metrics over JMX: " + jme.getMessage(), jme);
+		}
+
+		metrics.writer.start();
+		return metrics;
+	}
+
+
+	/**
+	 * Fold one record into the metrics. Arrivals can come from any thread, service starts and
+	 * departures only ever from the thread of the station that they name
+	 */
+	@Override
+	public void record(Type type, long time, long since, int queueID, int stationID, int passengerID){
+		switch(type){
+			case ARRIVAL:
+				this.queueArrivals[queueID].increment();
+
+				//The depth is only worked out here, since a line can only get longer when somebody joins it
+				long depth = this.getDepth(queueID);
+				if(depth > this.maxDepths.get(queueID)){
+					this.maxDepths.accumulateAndGet(queueID, depth, Math::max);
+				}
+				break;
+
+			case SERVICE_START:
+				this.queueServiceStarts[queueID].increment();
+				this.lineWaits.record(time - since);
+				this.stationBusy.setRelease(stationID, 1);
+				this.stationLastEvent.setRelease(stationID, time);
+				break;
+
+			case DEPARTURE:
+				this.serviceTimes.record(time - since);
+				this.stationBusy.setRelease(stationID, 0);
+				this.stationServed.setRelease(stationID, this.stationServed.getPlain(stationID) + 1);
+				this.stationBusyTime.setRelease(stationID, this.stationBusyTime.getPlain(stationID) + time - since);
+				this.stationLastEvent.setRelease(stationID, time);
+				break;
+		}
+	}
+
+
+	/**
+	 * Stop the writer, write the text file one last time and take the beans down. Only call this
+	 * once every thread that records into the metrics is done
+	 */
+	@Override
+	public void close(){
+		this.closed = true;
+		LockSupport.unpark(this.writer);
+
+		try{
+			this.writer.join();
+		} catch(InterruptedException ie){
+			System.out.println(ie.getMessage());
+		}
+
+		this.unregister();
+		this.writeTextFile();
+	}
+
+
+	/**
+	 * Number of passengers waiting in a line right now
+	 */
+	public long getDepth(int queueID){
+		return Math.max(0, this.queueArrivals[queueID].sum() - this.queueServiceStarts[queueID].sum());
+	}
+
+
+	/**
+	 * A simple helper method to get the most passengers that were ever waiting in a line at once
+	 */
+	public long getMaxDepth(int queueID){
+		return this.maxDepths.get(queueID);
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers that have joined a line
+	 */
+	public long getArrivals(int queueID){
+		return this.queueArrivals[queueID].sum();
+	}
+
+
+	/**
+	 * A simple helper method to get whether a station is serving somebody
+	 */
+	public boolean isBusy(int stationID){
+		return this.stationBusy.getAcquire(stationID) == 1;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers a station has served
+	 */
+	public long getServed(int stationID){
+		return this.stationServed.getAcquire(stationID);
+	}
+
+
+	/**
+	 * Percentage of the simulation time so far that a station spent serving finished passengers
+	 */
+	public double getUtilisation(int stationID){
+		long elapsed = this.getElapsed();
+		return elapsed == 0 ? 0 : (double)this.stationBusyTime.getAcquire(stationID) / elapsed * 100;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of lines
+	 */
+	public int getNumQueues(){
+		return this.queueArrivals.length;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of service stations
+	 */
+	public int getNumStations(){
+		return this.stationBusy.length();
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers that have joined any line
+	 */
+	@Override
+	public long getArrivals(){
+		long arrivals = 0;
+		for(LongAdder adder : this.queueArrivals){
+			arrivals += adder.sum();
+		}
+
+		return arrivals;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers that have been served
+	 */
+	@Override
+	public long getDepartures(){
+		long departures = 0;
+		for(int i = 0; i < this.stationServed.length(); i++){
+			departures += this.stationServed.getAcquire(i);
+		}
+
+		return departures;
+	}
+
+
+	/**
+	 * The number of passengers waiting in every line together
+	 */
+	@Override
+	public long getWaiting(){
+		long waiting = 0;
+		for(int i = 0; i < this.queueArrivals.length; i++){
+			waiting += this.getDepth(i);
+		}
+
+		return waiting;
+	}
+
+
+	/**
+	 * The number of stations that are serving somebody
+	 */
+	@Override
+	public int getBusyStations(){
+		int busy = 0;
+		for(int i = 0; i < this.stationBusy.length(); i++){
+			busy += this.stationBusy.getAcquire(i);
+		}
+
+		return busy;
+	}
+
+
+	/**
+	 * Passengers served per second, over the simulation time up to the latest departure
+	 */
+	@Override
+	public double getThroughput(){
+		long elapsed = this.getElapsed();
+		return elapsed == 0 ? 0 : this.getDepartures() / (elapsed / 1000.0);
+	}
+
+
+	/**
+	 * A simple helper method to get the average time in line in seconds
+	 */
+	@Override
+	public double getAverageLineWait(){
+		long count = this.lineWaits.getTotalCount();
+		return count == 0 ? 0 : this.lineWaits.getSum() / 1000.0 / count;
+	}
+
+
+	/**
+	 * The median time in line in seconds, to the bucket
+	 */
+	@Override
+	public double getLineWaitP50(){
+		return this.lineWaits.getPercentile(0.50) / 1000;
+	}
+
+
+	/**
+	 * The 95th percentile of the time in line in seconds, to the bucket
+	 */
+	@Override
+	public double getLineWaitP95(){
+		return this.lineWaits.getPercentile(0.95) / 1000;
+	}
+
+
+	/**
+	 * The 99th percentile of the time in line in seconds, to the bucket
+	 */
+	@Override
+	public double getLineWaitP99(){
+		return this.lineWaits.getPercentile(0.99) / 1000;
+	}
+
+
+	/**
+	 * Everything in the Prometheus text exposition format. Times are in seconds, as Prometheus expects
+	 */
+	public String toPrometheusText(){
+		StringBuilder text = new StringBuilder();
+
+		header(text, "simulation_queue_depth", "gauge", "Passengers waiting in the line");
+		for(int i = 0; i < this.getNumQueues(); i++){
+			text.append("simulation_queue_depth{queue=\"").append(i + 1).append("\"} ").append(this.getDepth(i)).append('\n');
+		}
+		header(text, "simulation_queue_max_depth", "gauge", "Most passengers ever waiting in the line at once");
+		for(int i = 0; i < this.getNumQueues(); i++){
+			text.append("simulation_queue_max_depth{queue=\"").append(i + 1).append("\"} ").append(this.getMaxDepth(i)).append('\n');
+		}
+		header(text, "simulation_queue_arrivals_total", "counter", "Passengers that joined the line");
+		for(int i = 0; i < this.getNumQueues(); i++){
+			text.append("simulation_queue_arrivals_total{queue=\"").append(i + 1).append("\"} ").append(this.getArrivals(i)).append('\n');
+		}
+
+		header(text, "simulation_station_busy", "gauge", "1 while the station is serving somebody, 0 while it is idle");
+		for(int i = 0; i < this.getNumStations(); i++){
+			text.append("simulation_station_busy{station=\"").append(i + 1).append("\"} ").append(this.isBusy(i) ? 1 : 0).append('\n');
+		}
+		header(text, "simulation_station_served_total", "counter", "Passengers the station finished serving");
+		for(int i = 0; i < this.getNumStations(); i++){
+			text.append("simulation_station_served_total{station=\"").append(i + 1).append("\"} ").append(this.getServed(i)).append('\n');
+		}
+		header(text, "simulation_station_utilisation_percent", "gauge", "Share of the simulation time the station spent serving");
+		for(int i = 0; i < this.getNumStations(); i++){
+			text.append("simulation_station_utilisation_percent{station=\"").append(i + 1).append("\"} ")
+				.append(this.getUtilisation(i)).append('\n');
+		}
+
+		header(text, "simulation_departures_total", "counter", "Passengers served by every station");
+		text.append("simulation_departures_total ").append(this.getDepartures()).append('\n');
+		header(text, "simulation_throughput_per_second", "gauge", "Passengers served per second of simulation time");
+		text.append("simulation_throughput_per_second ").append(this.getThroughput()).append('\n');
+
+		histogram(text, "simulation_line_wait_seconds", "Time spent in line before service started", this.lineWaits);
+		histogram(text, "simulation_service_seconds", "Time spent being served", this.serviceTimes);
+
+		return text.toString();
+	}
+
+
+	/**
+	 * The body of the background writer. It writes the text file every refresh interval until the
+	 * metrics are closed
+	 */
+	private void writeLoop(){
+		while(!this.closed){
+			LockSupport.parkNanos(REFRESH_INTERVAL_MILLIS * 1_000_000);
+			if(!this.closed){
+				this.writeTextFile();
+			}
+		}
+	}
+
+
+	/**
+	 * Write the text file next to where it goes and move it into place, so that a scraper never reads
+	 * half of one. A failed write is reported and the next one is tried as usual
+	 */
+	private void writeTextFile(){
+		if(this.file == null){
+			return;
+		}
+
+		try{
+			Path temporary = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+			Files.writeString(temporary, this.toPrometheusText(), StandardCharsets.UTF_8);
+			Files.move(temporary, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch(IOException ioe){
+			System.out.println(ioe.getMessage());
+		}
+	}
+
+
+	/**
+	 * Helper method for registering one bean, replacing one that is left over from another run
+	 */
+	private void register(ObjectName name, Object bean) throws JMException{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if(server.isRegistered(name)){
+			server.unregisterMBean(name);
+		}
+
+		server.registerMBean(bean, name);
+		this.registered.add(name);
+	}
+
+
+	/**
+	 * Helper method for taking down every bean this run registered
+	 */
+	private void unregister(){
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		for(ObjectName name : this.registered){
+			try{
+				if(server.isRegistered(name)){
+					server.unregisterMBean(name);
+				}
+			} catch(JMException jme){
+				System.out.println(jme.getMessage());
+			}
+		}
+
+		this.registered.clear();
+	}
+
+
+	/**
+	 * Simulation time that has gone by, up to the latest thing any station did
+	 */
+	private long getElapsed(){
+		long latest = this.startTime;
+		for(int i = 0; i < this.stationLastEvent.length(); i++){
+			latest = Math.max(latest, this.stationLastEvent.getAcquire(i));
+		}
+
+		return latest - this.startTime;
+	}
+
+
+	/**
+	 * Helper method for writing the help and type lines of one metric
+	 */
+	private static void header(StringBuilder text, String name, String type, String help){
+		text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+
+	/**
+	 * Helper method for writing one histogram. Prometheus buckets count everything up to their bound
+	 */
+	private static void histogram(StringBuilder text, String name, String help, ConcurrentHistogram histogram){
+		header(text, name, "histogram", help);
+
+		long cumulative = 0;
+		for(int i = 0; i <= ConcurrentHistogram.BOUNDED_BUCKETS; i++){
+			cumulative += histogram.getCount(i);
+			double bound = ConcurrentHistogram.getUpperBound(i);
+			String le = Double.isInfinite(bound) ? "+Inf" : Double.toString(bound / 1000);
+			text.append(name).append("_bucket{le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+		}
+
+		text.append(name).append("_sum ").append(histogram.getSum() / 1000.0).append('\n');
+		text.append(name).append("_count ").append(cumulative).append('\n');
+	}
+
+
+	/**
+	 * Helper method for making one LongAdder per line
+	 */
+	private static LongAdder[] newAdders(int count){
+		LongAdder[] adders = new LongAdder[count];
+		for(int i = 0; i < count; i++){
+			adders[i] = new LongAdder();
+		}
+
+		return adders;
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * Author: Jack Robbins
+ * The figures of a whole run that are published over JMX while it is in progress
+ */
+
+package metrics;
+
+
+public interface LiveMetricsMBean{
+	/**
+	 * Number of passengers that have joined a line so far
+	 */
+	long getArrivals();
+
+
+	/**
+	 * Number of passengers that have left a service station so far
+	 */
+	long getDepartures();
+
+
+	/**
+	 * Number of passengers waiting in every line together
+	 */
+	long getWaiting();
+
+
+	/**
+	 * Number of service stations that are serving somebody
+	 */
+	int getBusyStations();
+
+
+	/**
+	 * Passengers served per second of simulation time
+	 */
+	double getThroughput();
+
+
+	/**
+	 * Average time in seconds that served passengers spent in line before their service started
+	 */
+	double getAverageLineWait();
+
+
+	/**
+	 * Time in seconds that half of the passengers waited in line for at most
+	 */
+	double getLineWaitP50();
+
+
+	/**
+	 * Time in seconds that 95% of the passengers waited in line for at most
+	 */
+	double getLineWaitP95();
+
+
+	/**
+	 * Time in seconds that 99% of the passengers waited in line for at most
+	 */
+	double getLineWaitP99();
+}
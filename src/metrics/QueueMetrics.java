@@ -0,0 +1,48 @@
+/**
+ * Author: Jack Robbins
+ * The JMX bean of one line, a view onto the live metrics of the run
+ */
+
+package metrics;
+
+
+class QueueMetrics implements QueueMetricsMBean{
+	private final LiveMetrics metrics;
+	private final int queueID;
+
+
+	/**
+	 * Basic constructor
+	 */
+	QueueMetrics(LiveMetrics metrics, int queueID){
+		this.metrics = metrics;
+		this.queueID = queueID;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers in the line
+	 */
+	@Override
+	public long getDepth(){
+		return this.metrics.getDepth(this.queueID);
+	}
+
+
+	/**
+	 * A simple helper method to get the most passengers ever in the line at once
+	 */
+	@Override
+	public long getMaxDepth(){
+		return this.metrics.getMaxDepth(this.queueID);
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers that have joined the line
+	 */
+	@Override
+	public long getArrivals(){
+		return this.metrics.getArrivals(this.queueID);
+	}
+}
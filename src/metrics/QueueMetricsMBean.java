@@ -0,0 +1,26 @@
+/**
+ * Author: Jack Robbins
+ * The figures of one line that are published over JMX while a run is in progress
+ */
+
+package metrics;
+
+
+public interface QueueMetricsMBean{
+	/**
+	 * Number of passengers waiting in the line right now
+	 */
+	long getDepth();
+
+
+	/**
+	 * Most passengers that were ever waiting in the line at once
+	 */
+	long getMaxDepth();
+
+
+	/**
+	 * Number of passengers that have joined the line so far
+	 */
+	long getArrivals();
+}
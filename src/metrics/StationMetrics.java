@@ -0,0 +1,48 @@
+/**
+ * Author: Jack Robbins
+ * The JMX bean of one service station, a view onto the live metrics of the run
+ */
+
+package metrics;
+
+
+class StationMetrics implements StationMetricsMBean{
+	private final LiveMetrics metrics;
+	private final int stationID;
+
+
+	/**
+	 * Basic constructor
+	 */
+	StationMetrics(LiveMetrics metrics, int stationID){
+		this.metrics = metrics;
+		this.stationID = stationID;
+	}
+
+
+	/**
+	 * A simple helper method to get whether the station is serving somebody
+	 */
+	@Override
+	public boolean isBusy(){
+		return this.metrics.isBusy(this.stationID);
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers the station served
+	 */
+	@Override
+	public long getServed(){
+		return this.metrics.getServed(this.stationID);
+	}
+
+
+	/**
+	 * A simple helper method to get the share of the time the station was busy
+	 */
+	@Override
+	public double getUtilisation(){
+		return this.metrics.getUtilisation(this.stationID);
+	}
+}
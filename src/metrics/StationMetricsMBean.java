@@ -0,0 +1,26 @@
+/**
+ * Author: Jack Robbins
+ * The figures of one service station that are published over JMX while a run is in progress
+ */
+
+package metrics;
+
+
+public interface StationMetricsMBean{
+	/**
+	 * Is the station serving somebody right now
+	 */
+	boolean isBusy();
+
+
+	/**
+	 * Number of passengers the station has finished serving so far
+	 */
+	long getServed();
+
+
+	/**
+	 * Percentage of the simulation time so far that the station spent serving finished passengers
+	 */
+	double getUtilisation();
+}
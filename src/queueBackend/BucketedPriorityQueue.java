@@ -0,0 +1,342 @@
+/**
+ * Author: Jack Robbins
+ * Blocking priority queue with a fixed number of classes
+ *
+ * Instead of a heap, every class gets its own FIFO bucket and a bitmap records which buckets have
+ * anybody in them. Enqueueing appends to one bucket and sets one bit, and dequeueing takes the lowest
+ * set bit, so both are O(1) no matter how many elements are waiting. Class 0 is the highest priority,
+ * and elements of the same class come out in the order they went in
+ *
+ * 	Under the aging policy, dequeueing instead looks at the oldest element of every non-empty class
+ * 	and lets it count as one class higher for every aging interval it has waited. That is still
+ * 	bounded by the number of classes, never by the number of elements
+ */
+
+package queueBackend;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+
+public class BucketedPriorityQueue<E> extends AbstractQueue<E> implements BlockingQueue<E>{
+	//One bit per class in the bitmap
+	public static final int MAX_CLASSES = Long.SIZE;
+
+	private final ArrayDeque<E>[] buckets;
+	private final ToIntFunction<? super E> classOf;
+	private final ToLongFunction<? super E> enqueueTime;
+	private final LongSupplier clock;
+	private final long agingInterval;
+	private final ReentrantLock lock;
+	private final Condition notEmpty;
+	private long nonEmpty;
+	private int size;
+	private long promotions;
+
+
+	/**
+	 * Basic constructor for the strict policy, the highest waiting class always goes first
+	 */
+	public BucketedPriorityQueue(int numClasses, ToIntFunction<? super E> classOf){
+		this(numClasses, classOf, element -> 0, () -> 0, 0);
+	}
+
+
+	/**
+	 * Constructor for the aging policy. The enqueue time of an element and the clock have to be
+	 * in the same unit as the aging interval. An aging interval of 0 or less means strict priority
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public BucketedPriorityQueue(int numClasses, ToIntFunction<? super E> classOf, ToLongFunction<? super E> enqueueTime,
+								 LongSupplier clock, long agingInterval){
+		if(numClasses < 1 || numClasses > MAX_CLASSES){
+			throw new IllegalArgumentException("Need between 1 and " + MAX_CLASSES + " classes, got " + numClasses);
+		}
+
+		this.buckets = new ArrayDeque[numClasses];
+		for(int i = 0; i < numClasses; i++){
+			this.buckets[i] = new ArrayDeque<>();
+		}
+
+		this.classOf = classOf;
+		this.enqueueTime = enqueueTime;
+		this.clock = clock;
+		this.agingInterval = agingInterval;
+		this.lock = new ReentrantLock();
+		this.notEmpty = this.lock.newCondition();
+		this.nonEmpty = 0;
+		this.size = 0;
+		this.promotions = 0;
+	}
+
+
+	/**
+	 * Add an element to the back of its class. The queue is unbounded, so this always succeeds
+	 */
+	@Override
+	public boolean offer(E element){
+		Objects.requireNonNull(element);
+		int priorityClass = this.classOf.applyAsInt(element);
+		if(priorityClass < 0 || priorityClass >= this.buckets.length){
+			throw new IllegalArgumentException("No priority class " + priorityClass + " in a queue with "
+											   + this.buckets.length + " classes");
+		}
+
+		this.lock.lock();
+		try{
+			this.buckets[priorityClass].addLast(element);
+			this.nonEmpty |= 1L << priorityClass;
+			this.size++;
+			this.notEmpty.signal();
+		} finally{
+			this.lock.unlock();
+		}
+
+		return true;
+	}
+
+
+	/**
+	 * Take the front of the class that is served next, or null if the queue is empty
+	 */
+	@Override
+	public E poll(){
+		this.lock.lock();
+		try{
+			return this.size == 0 ? null : this.dequeue();
+		} finally{
+			this.lock.unlock();
+		}
+	}
+
+
+	/**
+	 * Look at the front of the class that is served next without taking it, so under aging this is
+	 * exactly what the next poll() would return
+	 */
+	@Override
+	public E peek(){
+		this.lock.lock();
+		try{
+			return this.size == 0 ? null : this.buckets[this.nextClass()].peekFirst();
+		} finally{
+			this.lock.unlock();
+		}
+	}
+
+
+	@Override
+	public void put(E element){
+		this.offer(element);
+	}
+
+
+	@Override
+	public boolean offer(E element, long timeout, TimeUnit unit){
+		return this.offer(element);
+	}
+
+
+	@Override
+	public E take() throws InterruptedException{
+		this.lock.lockInterruptibly();
+		try{
+			while(this.size == 0){
+				this.notEmpty.await();
+			}
+
+			return this.dequeue();
+		} finally{
+			this.lock.unlock();
+		}
+	}
+
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException{
+		long nanos = unit.toNanos(timeout);
+
+		this.lock.lockInterruptibly();
+		try{
+			while(this.size == 0){
+				if(nanos <= 0){
+					return null;
+				}
+				nanos = this.notEmpty.awaitNanos(nanos);
+			}
+
+			return this.dequeue();
+		} finally{
+			this.lock.unlock();
+		}
+	}
+
+
+	@Override
+	public int size(){
+		this.lock.lock();
+		try{
+			return this.size;
+		} finally{
+			this.lock.unlock();
+		}
+	}
+
+
+	@Override
+	public int remainingCapacity(){
+		return Integer.MAX_VALUE;
+	}
+
+
+	@Override
+	public int drainTo(Collection<? super E> collection){
+		return this.drainTo(collection, Integer.MAX_VALUE);
+	}
+
+
+	@Override
+	public int drainTo(Collection<? super E> collection, int maxElements){
+		int drained = 0;
+		E element;
+		while(drained < maxElements && (element = this.poll()) != null){
+			collection.add(element);
+			drained++;
+		}
+
+		return drained;
+	}
+
+
+	/**
+	 * A snapshot of every element, highest class first. It does not support removal
+	 */
+	@Override
+	public Iterator<E> iterator(){
+		ArrayList<E> snapshot = new ArrayList<>();
+
+		this.lock.lock();
+		try{
+			for(ArrayDeque<E> bucket : this.buckets){
+				snapshot.addAll(bucket);
+			}
+		} finally{
+			this.lock.unlock();
+		}
+
+		Iterator<E> elements = snapshot.iterator();
+		return new Iterator<E>(){
+			@Override
+			public boolean hasNext(){
+				return elements.hasNext();
+			}
+
+			@Override
+			public E next(){
+				return elements.next();
+			}
+		};
+	}
+
+
+	/**
+	 * A simple helper method to get the number of classes
+	 */
+	public int getNumClasses(){
+		return this.buckets.length;
+	}
+
+
+	/**
+	 * Carry on counting promotions from where a run that is being picked up again left off
+	 */
+	public void setPromotions(long promotions){
+		this.lock.lock();
+		try{
+			this.promotions = promotions;
+		} finally{
+			this.lock.unlock();
+		}
+	}
+
+
+	/**
+	 * A simple helper method to get how many times aging let a lower class go ahead of a higher one
+	 */
+	public long getPromotions(){
+		this.lock.lock();
+		try{
+			return this.promotions;
+		} finally{
+			this.lock.unlock();
+		}
+	}
+
+
+	/**
+	 * Helper method for taking the next element, the lock must be held and the queue must not be empty
+	 */
+	private E dequeue(){
+		int priorityClass = this.nextClass();
+		if(priorityClass != Long.numberOfTrailingZeros(this.nonEmpty)){
+			this.promotions++;
+		}
+
+		ArrayDeque<E> bucket = this.buckets[priorityClass];
+		E element = bucket.pollFirst();
+		if(bucket.isEmpty()){
+			this.nonEmpty &= ~(1L << priorityClass);
+		}
+
+		this.size--;
+		return element;
+	}
+
+
+	/**
+	 * Helper method for picking the class that is served next, the lock must be held and the queue
+	 * must not be empty
+	 */
+	private int nextClass(){
+		return this.agingInterval > 0 ? this.agedClass() : Long.numberOfTrailingZeros(this.nonEmpty);
+	}
+
+
+	/**
+	 * Helper method for picking the class to serve under aging. The front of each class is the one
+	 * that has waited longest, so only the fronts need to be looked at. Ties go to whoever has waited
+	 * longer, and then to the higher class
+	 */
+	private int agedClass(){
+		long now = this.clock.getAsLong();
+		int highest = Long.numberOfTrailingZeros(this.nonEmpty);
+		int chosen = highest;
+		long chosenRank = Long.MAX_VALUE;
+		long chosenTime = Long.MAX_VALUE;
+
+		for(long bits = this.nonEmpty; bits != 0; bits &= bits - 1){
+			int priorityClass = Long.numberOfTrailingZeros(bits);
+			long enqueued = this.enqueueTime.applyAsLong(this.buckets[priorityClass].peekFirst());
+			long rank = Math.max(0, priorityClass - (now - enqueued) / this.agingInterval);
+
+			if(rank < chosenRank || (rank == chosenRank && enqueued < chosenTime)){
+				chosen = priorityClass;
+				chosenRank = rank;
+				chosenTime = enqueued;
+			}
+		}
+
+		return chosen;
+	}
+}
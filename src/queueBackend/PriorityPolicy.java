@@ -0,0 +1,15 @@
+/**
+ * Author: Jack Robbins
+ * This enum lists the ways a priority line can pick which class to serve next
+ */
+
+package queueBackend;
+
+
+public enum PriorityPolicy{
+	//The highest class with anybody waiting is always served first. Priority only counts when a
+	//station picks its next passenger, nobody is ever pulled out of service
+	STRICT,
+	//Every aging interval spent waiting moves a passenger up one class, so low classes can not starve
+	AGING
+}
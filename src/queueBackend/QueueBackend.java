@@ -0,0 +1,35 @@
+/**
+ * Author: Jack Robbins
+ * This enum lists the blocking queues that a simulation's lines can be built on
+ */
+
+package queueBackend;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+
+public enum QueueBackend{
+	//Linked nodes, one allocated per element, with separate put and take locks
+	LINKED,
+	//One preallocated array guarded by a single lock
+	ARRAY,
+	//Lock-free ring buffer for one producer and many consumers
+	RING_BUFFER;
+
+
+	/**
+	 * Make a new, empty queue that can hold at least the given number of elements
+	 */
+	public <E> BlockingQueue<E> create(int capacity){
+		switch(this){
+			case ARRAY:
+				return new ArrayBlockingQueue<>(Math.max(capacity, 1));
+			case RING_BUFFER:
+				return new SpmcRingBuffer<>(capacity);
+			default:
+				return new LinkedBlockingQueue<>(Math.max(capacity, 1));
+		}
+	}
+}
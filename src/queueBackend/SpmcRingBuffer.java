@@ -0,0 +1,273 @@
+/**
+ * Author: Jack Robbins
+ * Lock-free bounded ring buffer for one producer and many consumers
+ *
+ * Every slot carries a sequence number that says whose turn it is. The producer may only fill
+ * a slot whose sequence equals its position, and a consumer may only empty a slot whose sequence
+ * is one past its position. Consumers race for the head with a compare and set, while the single
+ * producer owns the tail outright. Nothing is ever allocated per element and no lock is ever taken
+ *
+ * 	Only one thread may ever call offer or put. In a simulation that is the arrival thread
+ */
+
+package queueBackend;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+
+public class SpmcRingBuffer<E> extends AbstractQueue<E> implements BlockingQueue<E>{
+	//Busy spins before a waiting thread starts parking
+	private static final int SPINS = 64;
+
+	//Longest a waiting thread will park before checking again
+	private static final long MAX_PARK_NANOS = 1_000_000;
+
+	//Largest power of two an int can hold
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private final AtomicReferenceArray<E> buffer;
+	private final AtomicLongArray sequences;
+	private final int capacity;
+	private final int mask;
+	private final AtomicLong head;
+	private volatile long tail;
+
+
+	/**
+	 * Basic constructor, the capacity is rounded up to the next power of two
+	 */
+	public SpmcRingBuffer(int capacity){
+		if(capacity > MAX_CAPACITY){
+			throw new IllegalArgumentException("A ring buffer can hold at most " + MAX_CAPACITY + " elements, got " + capacity);
+		}
+
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		this.buffer = new AtomicReferenceArray<>(size);
+		this.sequences = new AtomicLongArray(size);
+		this.capacity = size;
+		this.mask = size - 1;
+		this.head = new AtomicLong(0);
+		this.tail = 0;
+
+		//Every slot starts out free for the producer's first lap
+		for(int i = 0; i < size; i++){
+			this.sequences.set(i, i);
+		}
+	}
+
+
+	/**
+	 * Add an element to the back of the ring if there is room. Producer thread only
+	 */
+	@Override
+	public boolean offer(E element){
+		Objects.requireNonNull(element);
+
+		long position = this.tail;
+		int index = (int)(position & this.mask);
+
+		//The consumers have not emptied this slot since the last lap, so we are full
+		if(this.sequences.getAcquire(index) != position){
+			return false;
+		}
+
+		this.buffer.setRelease(index, element);
+		this.sequences.setRelease(index, position + 1);
+		this.tail = position + 1;
+		return true;
+	}
+
+
+	/**
+	 * Take the element at the front of the ring, or null if it is empty
+	 */
+	@Override
+	public E poll(){
+		while(true){
+			long position = this.head.get();
+			int index = (int)(position & this.mask);
+			long difference = this.sequences.getAcquire(index) - (position + 1);
+
+			if(difference == 0){
+				//The slot is full and it is our turn, as long as no other consumer beats us to it
+				if(this.head.compareAndSet(position, position + 1)){
+					E element = this.buffer.getAcquire(index);
+					this.buffer.setRelease(index, null);
+					//Hand the slot back to the producer for its next lap
+					this.sequences.setRelease(index, position + this.capacity);
+					return element;
+				}
+			} else if(difference < 0){
+				//The producer has not filled this slot yet
+				return null;
+			}
+
+			//Another consumer took this slot first, try again with the new head
+		}
+	}
+
+
+	/**
+	 * Look at the element at the front of the ring without taking it
+	 */
+	@Override
+	public E peek(){
+		long position = this.head.get();
+		int index = (int)(position & this.mask);
+		if(this.sequences.getAcquire(index) != position + 1){
+			return null;
+		}
+
+		return this.buffer.getAcquire(index);
+	}
+
+
+	/**
+	 * Add an element, waiting for room if the ring is full. Producer thread only
+	 */
+	@Override
+	public void put(E element) throws InterruptedException{
+		for(int attempt = 0; !this.offer(element); attempt++){
+			backoff(attempt);
+		}
+	}
+
+
+	/**
+	 * Add an element, waiting up to the timeout for room. Producer thread only
+	 */
+	@Override
+	public boolean offer(E element, long timeout, TimeUnit unit) throws InterruptedException{
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for(int attempt = 0; !this.offer(element); attempt++){
+			if(System.nanoTime() - deadline >= 0){
+				return false;
+			}
+			backoff(attempt);
+		}
+
+		return true;
+	}
+
+
+	/**
+	 * Take an element, waiting for one to show up if the ring is empty
+	 */
+	@Override
+	public E take() throws InterruptedException{
+		E element;
+		for(int attempt = 0; (element = this.poll()) == null; attempt++){
+			backoff(attempt);
+		}
+
+		return element;
+	}
+
+
+	/**
+	 * Take an element, waiting up to the timeout for one to show up
+	 */
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException{
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		E element;
+		for(int attempt = 0; (element = this.poll()) == null; attempt++){
+			if(System.nanoTime() - deadline >= 0){
+				return null;
+			}
+			backoff(attempt);
+		}
+
+		return element;
+	}
+
+
+	/**
+	 * The number of elements in the ring. This is only a snapshot while other threads are working
+	 */
+	@Override
+	public int size(){
+		long size = this.tail - this.head.get();
+		return (int)Math.max(0, Math.min(size, this.capacity));
+	}
+
+
+	@Override
+	public int remainingCapacity(){
+		return this.capacity - this.size();
+	}
+
+
+	@Override
+	public int drainTo(Collection<? super E> collection){
+		return this.drainTo(collection, Integer.MAX_VALUE);
+	}
+
+
+	@Override
+	public int drainTo(Collection<? super E> collection, int maxElements){
+		int drained = 0;
+		E element;
+		while(drained < maxElements && (element = this.poll()) != null){
+			collection.add(element);
+			drained++;
+		}
+
+		return drained;
+	}
+
+
+	/**
+	 * A weakly consistent iterator over a snapshot of the ring. It does not support removal
+	 */
+	@Override
+	public Iterator<E> iterator(){
+		ArrayList<E> snapshot = new ArrayList<>();
+		for(long position = this.head.get(); position < this.tail; position++){
+			E element = this.buffer.getAcquire((int)(position & this.mask));
+			if(element != null){
+				snapshot.add(element);
+			}
+		}
+
+		Iterator<E> elements = snapshot.iterator();
+		return new Iterator<E>(){
+			@Override
+			public boolean hasNext(){
+				return elements.hasNext();
+			}
+
+			@Override
+			public E next(){
+				return elements.next();
+			}
+		};
+	}
+
+
+	/**
+	 * Helper method for waiting between attempts. We spin briefly, then park for longer and
+	 * longer stretches so that an idle station does not burn a core
+	 */
+	private static void backoff(int attempt) throws InterruptedException{
+		if(Thread.interrupted()){
+			throw new InterruptedException("Interrupted while waiting on the ring buffer");
+		}
+
+		if(attempt < SPINS){
+			Thread.onSpinWait();
+		} else {
+			LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1_000L << Math.min(attempt - SPINS, 10)));
+		}
+	}
+}
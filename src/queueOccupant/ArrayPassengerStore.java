@@ -0,0 +1,82 @@
+/**
+ * Author: Jack Robbins
+ * Passenger store backed by parallel primitive arrays on the heap
+ *
+ * Four arrays take 24 bytes per passenger with no object headers, and the garbage
+ * collector only ever sees four objects no matter how many passengers there are
+ */
+
+package queueOccupant;
+
+
+public class ArrayPassengerStore implements PassengerStore{
+	private long[] arrivalTimes;
+	private long[] serviceStartTimes;
+	private int[] queueIDs;
+	private int[] stationIDs;
+
+
+	/**
+	 * Basic constructor, allocates room for every passenger up front
+	 */
+	public ArrayPassengerStore(int numPassengers){
+		this.arrivalTimes = new long[numPassengers];
+		this.serviceStartTimes = new long[numPassengers];
+		this.queueIDs = new int[numPassengers];
+		this.stationIDs = new int[numPassengers];
+	}
+
+
+	@Override
+	public int size(){
+		return this.arrivalTimes.length;
+	}
+
+
+	@Override
+	public long getArrivalTime(int passenger){
+		return this.arrivalTimes[passenger];
+	}
+
+
+	@Override
+	public void setArrivalTime(int passenger, long time){
+		this.arrivalTimes[passenger] = time;
+	}
+
+
+	@Override
+	public long getServiceStartTime(int passenger){
+		return this.serviceStartTimes[passenger];
+	}
+
+
+	@Override
+	public void setServiceStartTime(int passenger, long time){
+		this.serviceStartTimes[passenger] = time;
+	}
+
+
+	@Override
+	public int getQueueID(int passenger){
+		return this.queueIDs[passenger];
+	}
+
+
+	@Override
+	public void setQueueID(int passenger, int queueID){
+		this.queueIDs[passenger] = queueID;
+	}
+
+
+	@Override
+	public int getStationID(int passenger){
+		return this.stationIDs[passenger];
+	}
+
+
+	@Override
+	public void setStationID(int passenger, int stationID){
+		this.stationIDs[passenger] = stationID;
+	}
+}
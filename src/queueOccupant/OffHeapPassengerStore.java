@@ -0,0 +1,114 @@
+/**
+ * Author: Jack Robbins
+ * Passenger store backed by direct byte buffers outside of the heap
+ *
+ * Each passenger is one 24 byte record(arrival time, service start time, queue ID, station ID).
+ * A single buffer can only address 2GB, so records are split over fixed size chunks
+ */
+
+package queueOccupant;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+
+public class OffHeapPassengerStore implements PassengerStore{
+	//Layout of one record
+	private static final int ARRIVAL_OFFSET = 0;
+	private static final int SERVICE_START_OFFSET = 8;
+	private static final int QUEUE_OFFSET = 16;
+	private static final int STATION_OFFSET = 20;
+	private static final int RECORD_SIZE = 24;
+
+	//Passengers per chunk, as a power of two so that finding a record is a shift and a mask
+	private static final int CHUNK_BITS = 24;
+	private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+	private ByteBuffer[] chunks;
+	private int numPassengers;
+
+
+	/**
+	 * Basic constructor, allocates every chunk up front
+	 */
+	public OffHeapPassengerStore(int numPassengers){
+		this.numPassengers = numPassengers;
+
+		int numChunks = (int)(((long)numPassengers + CHUNK_MASK) >>> CHUNK_BITS);
+		this.chunks = new ByteBuffer[numChunks];
+		for(int i = 0; i < numChunks; i++){
+			int passengersInChunk = Math.min(CHUNK_MASK + 1, numPassengers - (i << CHUNK_BITS));
+			this.chunks[i] = ByteBuffer.allocateDirect(passengersInChunk * RECORD_SIZE).order(ByteOrder.nativeOrder());
+		}
+	}
+
+
+	@Override
+	public int size(){
+		return this.numPassengers;
+	}
+
+
+	@Override
+	public long getArrivalTime(int passenger){
+		return chunk(passenger).getLong(offset(passenger) + ARRIVAL_OFFSET);
+	}
+
+
+	@Override
+	public void setArrivalTime(int passenger, long time){
+		chunk(passenger).putLong(offset(passenger) + ARRIVAL_OFFSET, time);
+	}
+
+
+	@Override
+	public long getServiceStartTime(int passenger){
+		return chunk(passenger).getLong(offset(passenger) + SERVICE_START_OFFSET);
+	}
+
+
+	@Override
+	public void setServiceStartTime(int passenger, long time){
+		chunk(passenger).putLong(offset(passenger) + SERVICE_START_OFFSET, time);
+	}
+
+
+	@Override
+	public int getQueueID(int passenger){
+		return chunk(passenger).getInt(offset(passenger) + QUEUE_OFFSET);
+	}
+
+
+	@Override
+	public void setQueueID(int passenger, int queueID){
+		chunk(passenger).putInt(offset(passenger) + QUEUE_OFFSET, queueID);
+	}
+
+
+	@Override
+	public int getStationID(int passenger){
+		return chunk(passenger).getInt(offset(passenger) + STATION_OFFSET);
+	}
+
+
+	@Override
+	public void setStationID(int passenger, int stationID){
+		chunk(passenger).putInt(offset(passenger) + STATION_OFFSET, stationID);
+	}
+
+
+	/**
+	 * Helper method for finding the chunk that holds a passenger
+	 */
+	private ByteBuffer chunk(int passenger){
+		return this.chunks[passenger >>> CHUNK_BITS];
+	}
+
+
+	/**
+	 * Helper method for finding where a passenger's record starts within its chunk
+	 */
+	private static int offset(int passenger){
+		return (passenger & CHUNK_MASK) * RECORD_SIZE;
+	}
+}
@@ -7,6 +7,10 @@
 
 package queueOccupant;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 
 public class Passenger{
 	//Keep track of waiting time for each passenger	
@@ -14,12 +18,63 @@ public class Passenger{
 	private long waitingEndTime;
 	private int queueID;
 	private int processedBy;
+	private int priorityClass;
+	private int passengerID;
+	private long serviceTime;
+
+
+	/**
+	 * Basic constructor, the service time is made up by the simulation unless one is set
+	 */
+	public Passenger(){
+		this.serviceTime = -1;
+	}
+
+
+	/**
+	 * Read back a passenger that writeTo() wrote out
+	 */
+	public static Passenger readFrom(DataInput in) throws IOException{
+		Passenger passenger = new Passenger();
+		passenger.waitingStartTime = in.readLong();
+		passenger.waitingEndTime = in.readLong();
+		passenger.queueID = in.readInt();
+		passenger.processedBy = in.readInt();
+		passenger.priorityClass = in.readInt();
+		passenger.passengerID = in.readInt();
+		passenger.serviceTime = in.readLong();
+		return passenger;
+	}
+
+
+	/**
+	 * Write out everything about the passenger
+	 */
+	public void writeTo(DataOutput out) throws IOException{
+		out.writeLong(this.waitingStartTime);
+		out.writeLong(this.waitingEndTime);
+		out.writeInt(this.queueID);
+		out.writeInt(this.processedBy);
+		out.writeInt(this.priorityClass);
+		out.writeInt(this.passengerID);
+		out.writeLong(this.serviceTime);
+	}
+
 
 	/**
 	 * Keep track of when the passenger starts waiting in line
 	 */
 	public void startWaiting(int queueID){
-		this.waitingStartTime = System.currentTimeMillis();
+		this.startWaiting(queueID, System.currentTimeMillis());
+	}
+
+
+	/**
+	 * Keep track of when the passenger starts waiting in line, using a time in milliseconds
+	 * from the simulation clock
+	 */
+	public void startWaiting(int queueID, long time){
+		this.waitingStartTime = time;
 		this.queueID = queueID;
 		this.processedBy = -1;
 	}
@@ -29,11 +84,44 @@ public class Passenger{
 	 * Keep track of when the passenger stops waiting(dequeued)
 	 */
 	public void stopWaiting(int queueID){
-		this.waitingEndTime = System.currentTimeMillis();
+		this.stopWaiting(queueID, System.currentTimeMillis());
+	}
+
+
+	/**
+	 * Keep track of when the passenger stops waiting, using a time in milliseconds from
+	 * the simulation clock
+	 */
+	public void stopWaiting(int queueID, long time){
+		this.waitingEndTime = time;
 		this.processedBy = 	queueID;
 	}
 
 	
+	/**
+	 * Set the number of the passenger, in order of creation
+	 */
+	public void setPassengerID(int passengerID){
+		this.passengerID = passengerID;
+	}
+
+
+	/**
+	 * Set the service time that was observed for the passenger in milliseconds, -1 for none
+	 */
+	public void setServiceTime(long serviceTime){
+		this.serviceTime = serviceTime;
+	}
+
+
+	/**
+	 * Set the priority class of the passenger, 0 is the highest
+	 */
+	public void setPriorityClass(int priorityClass){
+		this.priorityClass = priorityClass;
+	}
+
+
 	/**
 	 * Keep track of which service station served the passenger
 	 */
@@ -51,9 +139,49 @@ public class Passenger{
 
 
 	/**
-	 * Get the waiting time in seconds
+	 * Return the number of the passenger
+	 */
+	public int getPassengerID(){
+		return this.passengerID;
+	}
+
+
+	/**
+	 * Return the observed service time of the passenger in milliseconds, -1 if there is none
+	 */
+	public long getServiceTime(){
+		return this.serviceTime;
+	}
+
+
+	/**
+	 * Return the priority class of the passenger, 0 is the highest
+	 */
+	public int getPriorityClass(){
+		return this.priorityClass;
+	}
+
+
+	/**
+	 * Return when the passenger started waiting, in milliseconds
+	 */
+	public long getWaitingStartTime(){
+		return this.waitingStartTime;
+	}
+
+
+	/**
+	 * Get the waiting time in milliseconds
+	 */
+	public long getWaitingTimeMillis(){
+		return this.waitingEndTime - this.waitingStartTime;
+	}
+
+
+	/**
+	 * Get the waiting time in seconds, without cutting off the milliseconds
 	 */
-	public long getWaitingTime(){
-		return (this.waitingEndTime - this.waitingStartTime) / 1000;
+	public double getWaitingTime(){
+		return (this.waitingEndTime - this.waitingStartTime) / 1000.0;
 	}
 }
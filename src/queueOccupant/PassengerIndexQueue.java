@@ -0,0 +1,90 @@
+/**
+ * Author: Jack Robbins
+ * FIFO queue of passenger numbers
+ *
+ * When passengers live in a PassengerStore, the queues only need to hold their numbers.
+ * This is a growable ring buffer of ints, so no node or boxed Integer is made per passenger.
+ * Passengers can also be taken from the back, which is where other stations steal from
+ */
+
+package queueOccupant;
+
+
+public class PassengerIndexQueue{
+	private int[] passengers;
+	private int head;
+	private int size;
+
+
+	/**
+	 * Basic constructor, starts small and doubles whenever it fills up
+	 */
+	public PassengerIndexQueue(){
+		this.passengers = new int[16];
+		this.head = 0;
+		this.size = 0;
+	}
+
+
+	/**
+	 * Add a passenger to the back of the queue
+	 */
+	public void offer(int passenger){
+		if(this.size == this.passengers.length){
+			grow();
+		}
+
+		this.passengers[(this.head + this.size) & (this.passengers.length - 1)] = passenger;
+		this.size++;
+	}
+
+
+	/**
+	 * Take the passenger at the front of the queue, or -1 if the queue is empty
+	 */
+	public int poll(){
+		if(this.size == 0){
+			return -1;
+		}
+
+		int passenger = this.passengers[this.head];
+		this.head = (this.head + 1) & (this.passengers.length - 1);
+		this.size--;
+		return passenger;
+	}
+
+
+	/**
+	 * Take the passenger at the back of the queue, or -1 if the queue is empty
+	 */
+	public int pollLast(){
+		if(this.size == 0){
+			return -1;
+		}
+
+		this.size--;
+		return this.passengers[(this.head + this.size) & (this.passengers.length - 1)];
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers waiting
+	 */
+	public int size(){
+		return this.size;
+	}
+
+
+	/**
+	 * Helper method for doubling the ring, unrolling it so that the head is back at 0
+	 */
+	private void grow(){
+		int[] grown = new int[this.passengers.length * 2];
+		for(int i = 0; i < this.size; i++){
+			grown[i] = this.passengers[(this.head + i) & (this.passengers.length - 1)];
+		}
+
+		this.passengers = grown;
+		this.head = 0;
+	}
+}
@@ -0,0 +1,31 @@
+/**
+ * Author: Jack Robbins
+ * This enum lists the ways that a discrete event run can keep its passengers
+ */
+
+package queueOccupant;
+
+
+public enum PassengerStorage{
+	//One Passenger object each, held in an array until the end of the run
+	OBJECTS,
+	//Parallel primitive arrays on the heap
+	ARRAYS,
+	//Fixed size records in direct buffers outside of the heap
+	OFF_HEAP;
+
+
+	/**
+	 * Make a store for the given number of passengers. Object storage has no store
+	 */
+	public PassengerStore createStore(int numPassengers){
+		switch(this){
+			case ARRAYS:
+				return new ArrayPassengerStore(numPassengers);
+			case OFF_HEAP:
+				return new OffHeapPassengerStore(numPassengers);
+			default:
+				return null;
+		}
+	}
+}
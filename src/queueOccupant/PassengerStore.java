@@ -0,0 +1,46 @@
+/**
+ * Author: Jack Robbins
+ * Passenger store interface
+ *
+ * A passenger store keeps the timing information of every passenger in primitive
+ * columns instead of one Passenger object each. Passengers are referred to by their
+ * number, starting from 0
+ */
+
+package queueOccupant;
+
+
+public interface PassengerStore{
+	/**
+	 * The number of passengers that the store can hold
+	 */
+	int size();
+
+	/**
+	 * When the passenger joined their queue, in milliseconds
+	 */
+	long getArrivalTime(int passenger);
+
+	void setArrivalTime(int passenger, long time);
+
+	/**
+	 * When a station started serving the passenger, in milliseconds
+	 */
+	long getServiceStartTime(int passenger);
+
+	void setServiceStartTime(int passenger, long time);
+
+	/**
+	 * The queue that the passenger joined
+	 */
+	int getQueueID(int passenger);
+
+	void setQueueID(int passenger, int queueID);
+
+	/**
+	 * The station that served the passenger, -1 until they are served
+	 */
+	int getStationID(int passenger);
+
+	void setStationID(int passenger, int stationID);
+}
@@ -0,0 +1,68 @@
+/**
+ * Author: Jack Robbins
+ * A passenger that makes their way through a network of stages, one line after the other
+ */
+
+package queueOccupant;
+
+
+/**
+ * On top of everything a passenger keeps for the stage they are at, a routed passenger remembers
+ * which stage that is and when they first came into the network, so that the whole trip can be
+ * timed once they leave
+ */
+public final class RoutedPassenger extends Passenger{
+	private final long enteredNetwork;
+	private int stage;
+	private int stagesVisited;
+
+
+	/**
+	 * Basic constructor, takes over the number, class and any observed service time of a new
+	 * arrival that comes into the first stage at the given time
+	 */
+	public RoutedPassenger(Passenger arrival, long enteredNetwork){
+		this.setPassengerID(arrival.getPassengerID());
+		this.setPriorityClass(arrival.getPriorityClass());
+		this.setServiceTime(arrival.getServiceTime());
+		this.enteredNetwork = enteredNetwork;
+		this.stage = 0;
+		this.stagesVisited = 1;
+	}
+
+
+	/**
+	 * Send the passenger on to another stage. An observed service time only ever belongs to the
+	 * stage the passenger first came into
+	 */
+	public void moveTo(int stage){
+		this.stage = stage;
+		this.stagesVisited++;
+		this.setServiceTime(-1);
+	}
+
+
+	/**
+	 * A simple helper method to get the stage the passenger is at
+	 */
+	public int getStage(){
+		return this.stage;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of stages visited so far, counting a stage again
+	 * every time the passenger is sent back to it
+	 */
+	public int getStagesVisited(){
+		return this.stagesVisited;
+	}
+
+
+	/**
+	 * A simple helper method to get when the passenger came into the network, in milliseconds
+	 */
+	public long getEnteredNetwork(){
+		return this.enteredNetwork;
+	}
+}
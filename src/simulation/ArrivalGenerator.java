@@ -0,0 +1,200 @@
+/**
+ * Author: Jack Robbins
+ * This class makes the arrivals of a run one at a time, as each one is needed
+ */
+
+package simulation;
+
+import arrivals.ArrivalSource;
+import distribution.SplitMixStream;
+import queueOccupant.Passenger;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+
+/**
+ * Nobody exists before they are about to arrive, so the memory a run needs depends on how many
+ * passengers are in line instead of on how long the run is. Original arrivals can come up to 3
+ * seconds out of order, so a small window of them is drawn ahead and handed out earliest first.
+ * Recorded arrivals are read straight from their log. Only one thread may ever take arrivals
+ */
+class ArrivalGenerator implements AutoCloseable{
+	private final Scenario scenario;
+	private final SplitMixStream arrivalStream;
+	private final ArrivalSource source;
+	private final int numPassengers;
+	private final Passenger[] window;
+	private final long[] windowTimes;
+	private int windowSize;
+	private int drawn;
+	private long previousArrival;
+	private long arrivalTime;
+	private int generated;
+
+
+	/**
+	 * Basic constructor. Recorded arrivals are replayed when the scenario has an arrival file, and
+	 * anything else is drawn from the arrival stream
+	 */
+	ArrivalGenerator(Scenario scenario, SplitMixStream arrivalStream){
+		this.scenario = scenario;
+		this.arrivalStream = arrivalStream;
+		this.source = scenario.getArrivalFile() != null ? ArrivalSource.open(scenario.getArrivalFile()) : null;
+
+		//Num passengers will be the duration divided by average arrival
+		this.numPassengers = scenario.getDuration() / scenario.getAverageArrivalTime();
+
+		//An arrival can be at most 1 second late or 2 seconds early, so nobody more than this many
+		//places behind a passenger can arrive before them
+		int windowLength = 3 / scenario.getAverageArrivalTime() + 2;
+		this.window = new Passenger[windowLength];
+		this.windowTimes = new long[windowLength];
+		this.windowSize = 0;
+		this.drawn = 0;
+		this.previousArrival = 0;
+		this.generated = 0;
+	}
+
+
+	/**
+	 * Make the next passenger to arrive, or return null once nobody else is coming. Their arrival
+	 * time is read with getArrivalTime() afterwards
+	 */
+	Passenger next(){
+		Passenger passenger = this.source != null ? this.nextReplayed() : this.nextDrawn();
+		if(passenger != null){
+			this.generated++;
+		}
+
+		return passenger;
+	}
+
+
+	/**
+	 * Helper method for taking the earliest arrival out of the window, after topping it back up.
+	 * Ties go to whoever was drawn first
+	 */
+	private Passenger nextDrawn(){
+		while(this.windowSize < this.window.length && this.drawn < this.numPassengers){
+			this.previousArrival = this.scenario.drawArrivalTime(this.drawn, this.previousArrival, this.arrivalStream);
+
+			//Make our new passenger
+			Passenger passenger = new Passenger();
+			passenger.setPassengerID(this.drawn);
+			passenger.setPriorityClass(this.scenario.drawPriorityClass(this.arrivalStream));
+
+			this.window[this.windowSize] = passenger;
+			this.windowTimes[this.windowSize] = this.previousArrival;
+			this.windowSize++;
+			this.drawn++;
+		}
+
+		if(this.windowSize == 0){
+			return null;
+		}
+
+		int earliest = 0;
+		for(int i = 1; i < this.windowSize; i++){
+			if(this.windowTimes[i] < this.windowTimes[earliest]
+			   || (this.windowTimes[i] == this.windowTimes[earliest]
+				   && this.window[i].getPassengerID() < this.window[earliest].getPassengerID())){
+				earliest = i;
+			}
+		}
+
+		//Fill the hole with the last one in the window
+		Passenger passenger = this.window[earliest];
+		this.arrivalTime = this.windowTimes[earliest];
+		this.windowSize--;
+		this.window[earliest] = this.window[this.windowSize];
+		this.windowTimes[earliest] = this.windowTimes[this.windowSize];
+		this.window[this.windowSize] = null;
+		return passenger;
+	}
+
+
+	/**
+	 * Helper method for reading the next recorded arrival. The log is cut off at the duration of the
+	 * scenario
+	 */
+	private Passenger nextReplayed(){
+		if(!this.source.next() || this.source.getArrivalTime() > this.scenario.getDuration() * 1000L){
+			return null;
+		}
+
+		Passenger passenger = new Passenger();
+		passenger.setPassengerID(this.generated);
+		passenger.setPriorityClass(this.scenario.drawPriorityClass(this.arrivalStream));
+		passenger.setServiceTime(this.source.getServiceTime());
+		this.arrivalTime = this.source.getArrivalTime();
+		return passenger;
+	}
+
+
+	/**
+	 * Write out how far the arrivals have got, along with everybody drawn ahead into the window. The
+	 * arrival stream is written out with the rest of the random streams
+	 */
+	void writeState(DataOutput out) throws IOException{
+		out.writeInt(this.generated);
+		out.writeInt(this.drawn);
+		out.writeLong(this.previousArrival);
+		out.writeLong(this.arrivalTime);
+		out.writeInt(this.windowSize);
+		for(int i = 0; i < this.windowSize; i++){
+			out.writeLong(this.windowTimes[i]);
+			this.window[i].writeTo(out);
+		}
+	}
+
+
+	/**
+	 * Carry on from where writeState() found the arrivals. A log is read up to the same place again
+	 */
+	void readState(DataInput in) throws IOException{
+		this.generated = in.readInt();
+		this.drawn = in.readInt();
+		this.previousArrival = in.readLong();
+		this.arrivalTime = in.readLong();
+		this.windowSize = in.readInt();
+		for(int i = 0; i < this.windowSize; i++){
+			this.windowTimes[i] = in.readLong();
+			this.window[i] = Passenger.readFrom(in);
+		}
+
+		if(this.source != null){
+			for(int i = 0; i < this.generated; i++){
+				this.source.next();
+			}
+		}
+	}
+
+
+	/**
+	 * A simple helper method to get the arrival time of the last passenger made, in milliseconds from
+	 * the start of the run
+	 */
+	long getArrivalTime(){
+		return this.arrivalTime;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers made so far
+	 */
+	int getGenerated(){
+		return this.generated;
+	}
+
+
+	/**
+	 * Close the arrival log, if there is one
+	 */
+	@Override
+	public void close(){
+		if(this.source != null){
+			this.source.close();
+		}
+	}
+}
@@ -0,0 +1,281 @@
+/**
+ * Author: Jack Robbins
+ * This class takes snapshots of a discrete event run every so often, and picks a run back up from one
+ *
+ * 	A snapshot holds everything the run would need to carry on: the clock and every event on the
+ * 	calendar, every passenger in line, which stations are idle, where every random stream is up to
+ * 	and every statistic gathered so far. A run picked up from a snapshot gives exactly the same
+ * 	results as one that was never stopped
+ */
+
+package simulation;
+
+import dispatch.Dispatcher;
+import queueBackend.BucketedPriorityQueue;
+import queueOccupant.Passenger;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+
+/**
+ * Snapshots are only taken between two events, when nothing is half done. The run itself only turns
+ * its state into bytes, and a background writer puts them on disk, so the run never waits on the disk.
+ * If the writer falls behind, it skips straight to the newest snapshot. Every snapshot is written next
+ * to the file and moved over it in one go, so the file always holds one whole snapshot
+ */
+final class Checkpoint implements AutoCloseable{
+	//"QSCP" in ASCII
+	private static final int MAGIC = 0x51534350;
+	private static final int VERSION = 2;
+
+	//Magic, version, the fingerprint of the scenario and the checksum of everything after them
+	private static final int HEADER_BYTES = 16;
+
+	private final Path file;
+	private final long interval;
+	private final Scenario scenario;
+	private final int fingerprint;
+	private final EventCalendar calendar;
+	private final SimulationContext context;
+	private final Dispatcher dispatcher;
+	private final ArrivalGenerator arrivals;
+	private final IdleStations idleStations;
+	private final long[] serviceStart;
+	private final AtomicReference<byte[]> pending;
+	private final Thread writer;
+	private volatile boolean closed;
+	private long nextCheckpoint;
+	private int lastSize;
+
+
+	/**
+	 * Basic constructor, takes in every part of the run that a snapshot is made of and starts the
+	 * background writer right away
+	 */
+	Checkpoint(Scenario scenario, EventCalendar calendar, SimulationContext context, Dispatcher dispatcher,
+			   ArrivalGenerator arrivals, IdleStations idleStations, long[] serviceStart){
+		this.file = scenario.getCheckpointFile();
+		this.interval = scenario.getCheckpointInterval() * 1000L;
+		this.scenario = scenario;
+		this.fingerprint = scenario.getFingerprint();
+		this.calendar = calendar;
+		this.context = context;
+		this.dispatcher = dispatcher;
+		this.arrivals = arrivals;
+		this.idleStations = idleStations;
+		this.serviceStart = serviceStart;
+		this.pending = new AtomicReference<>();
+		this.closed = false;
+		this.nextCheckpoint = this.interval;
+		this.lastSize = 4096;
+
+		this.writer = new Thread(this::writeLoop, "checkpoint-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+
+	/**
+	 * Take a snapshot if another checkpoint interval of simulated time has gone by since the last one.
+	 * Only the thread running the calendar may call this, in between two events
+	 */
+	void takeIfDue(){
+		if(this.calendar.now() < this.nextCheckpoint){
+			return;
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(this.lastSize);
+		try(DataOutputStream out = new DataOutputStream(bytes)){
+			this.writeState(out);
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+
+		byte[] snapshot = bytes.toByteArray();
+		this.lastSize = snapshot.length;
+		this.pending.set(snapshot);
+		LockSupport.unpark(this.writer);
+
+		this.nextCheckpoint = (this.calendar.now() / this.interval + 1) * this.interval;
+	}
+
+
+	/**
+	 * Put the whole run back the way the snapshot in the checkpoint file found it. Every part of the
+	 * run has to be set up from the same scenario first, just like for a new run
+	 */
+	void restore(){
+		byte[] snapshot;
+		try{
+			snapshot = Files.readAllBytes(this.file);
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+
+		ByteBuffer header = ByteBuffer.wrap(snapshot);
+		CRC32 checksum = new CRC32();
+		checksum.update(snapshot, Math.min(HEADER_BYTES, snapshot.length), Math.max(snapshot.length - HEADER_BYTES, 0));
+		if(snapshot.length < HEADER_BYTES || header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+		   || header.getInt(12) != (int)checksum.getValue()){
+			throw new IllegalArgumentException(this.file + " is not a whole checkpoint");
+		}
+
+		try(DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot, HEADER_BYTES,
+																			   snapshot.length - HEADER_BYTES))){
+			//The description is only there to say what the snapshot was taken of, the fingerprint also
+			//covers the distributions, backend, storage and priority classes that it leaves out
+			String taken = in.readUTF();
+			if(!taken.equals(this.scenario.toString())){
+				throw new IllegalArgumentException(this.file + " is a checkpoint of " + taken + ", not of " + this.scenario);
+			}
+			if(header.getInt(8) != this.fingerprint){
+				throw new IllegalArgumentException(this.file + " is a checkpoint of " + taken + " with other distributions, queue"
+												   + " backend, passenger storage or priority classes");
+			}
+
+			this.readState(in);
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+
+		this.nextCheckpoint = (this.calendar.now() / this.interval + 1) * this.interval;
+	}
+
+
+	/**
+	 * Stop the writer once the newest snapshot is on disk
+	 */
+	@Override
+	public void close(){
+		this.closed = true;
+		LockSupport.unpark(this.writer);
+
+		try{
+			this.writer.join();
+		} catch(InterruptedException ie){
+			System.out.println(ie.getMessage());
+		}
+	}
+
+
+	/**
+	 * Helper method for writing out every part of the run. Each passenger is only ever in one place,
+	 * in line, on the calendar or drawn ahead by the arrivals, so they are written out right there
+	 */
+	private void writeState(DataOutputStream out) throws IOException{
+		out.writeUTF(this.scenario.toString());
+		this.calendar.writeState(out);
+		this.context.getRandomStreams().writeState(out);
+		this.dispatcher.writeState(out);
+		this.arrivals.writeState(out);
+		this.context.writeState(out);
+		this.idleStations.writeState(out);
+
+		for(long start : this.serviceStart){
+			out.writeLong(start);
+		}
+
+		//Lines hand out their passengers in the order they are served
+		for(BlockingQueue<Passenger> queue : this.context.getQueues()){
+			out.writeInt(queue.size());
+			for(Passenger passenger : queue){
+				passenger.writeTo(out);
+			}
+			if(queue instanceof BucketedPriorityQueue<Passenger> priorityQueue){
+				out.writeLong(priorityQueue.getPromotions());
+			}
+		}
+	}
+
+
+	/**
+	 * Helper method for reading back every part of the run, in the same order as writeState()
+	 */
+	private void readState(DataInputStream in) throws IOException{
+		this.calendar.readState(in);
+		this.context.getRandomStreams().readState(in);
+		this.dispatcher.readState(in);
+		this.arrivals.readState(in);
+		this.context.readState(in);
+		this.idleStations.readState(in);
+
+		for(int i = 0; i < this.serviceStart.length; i++){
+			this.serviceStart[i] = in.readLong();
+		}
+
+		//Joining again in the same order lines every class back up the same way
+		for(BlockingQueue<Passenger> queue : this.context.getQueues()){
+			queue.clear();
+			int size = in.readInt();
+			for(int i = 0; i < size; i++){
+				queue.offer(Passenger.readFrom(in));
+			}
+			if(queue instanceof BucketedPriorityQueue<Passenger> priorityQueue){
+				priorityQueue.setPromotions(in.readLong());
+			}
+		}
+	}
+
+
+	/**
+	 * The body of the background writer. It writes the newest snapshot whenever there is one, until
+	 * the run is over and the last one is on disk
+	 */
+	private void writeLoop(){
+		while(true){
+			byte[] snapshot = this.pending.getAndSet(null);
+			if(snapshot != null){
+				this.write(snapshot);
+			} else if(this.closed){
+				return;
+			} else {
+				LockSupport.park();
+			}
+		}
+	}
+
+
+	/**
+	 * Write one snapshot next to the checkpoint file and move it over the old one once it is safely on
+	 * disk. A failed write is reported, and the last snapshot that did make it stays in place
+	 */
+	private void write(byte[] snapshot){
+		CRC32 checksum = new CRC32();
+		checksum.update(snapshot);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).putInt(this.fingerprint)
+									  .putInt((int)checksum.getValue()).flip();
+		ByteBuffer body = ByteBuffer.wrap(snapshot);
+
+		Path temporary = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+		try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+												   StandardOpenOption.TRUNCATE_EXISTING)){
+			while(header.hasRemaining() || body.hasRemaining()){
+				channel.write(new ByteBuffer[]{header, body});
+			}
+			channel.force(true);
+		} catch(IOException ioe){
+			System.out.println(ioe.getMessage());
+			return;
+		}
+
+		try{
+			Files.move(temporary, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch(IOException ioe){
+			System.out.println(ioe.getMessage());
+		}
+	}
+}
@@ -0,0 +1,660 @@
+/**
+ * Author: Jack Robbins
+ *
+ * This class contains the discrete event versions of the queueing strategies in Simulation.java
+ * Strategies included are
+ * 	- Single queue with any number of service stations
+ * 	- Multiple queues with a round robin dispatch
+ * 	- Multiple queues with a shortest queue dispatch
+ * 	- Multiple queues with a random queue dispatch
+ * 	- Multiple queues with a power of d choices dispatch
+ *
+ * 	Instead of sleeping on real threads, every arrival and departure is placed on an event calendar
+ * 	and the simulated clock jumps straight from one event to the next. This means that a run that
+ * 	would take hours in real time finishes in milliseconds
+ */
+
+package simulation;
+
+import dispatch.DispatchStrategy;
+import dispatch.Dispatcher;
+import distribution.RandomStreams;
+import distribution.SplitMixStream;
+import metrics.LiveMetrics;
+import queueOccupant.Passenger;
+import queueOccupant.PassengerIndexQueue;
+import queueOccupant.PassengerStorage;
+import queueOccupant.PassengerStore;
+import timeSeries.TimeSeriesSampler;
+import trace.TraceRecorder;
+import java.util.Random;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+
+/**
+ * This class contains five separate simulations, all of which must
+ * be called statically
+ */
+public class DiscreteEventSimulation{
+	/**
+	 * A simulation in which all passengers are taken from a single queue when ready
+	 */
+	public static void single_QueueSimulation(int duration, int averageArrivalTime, int averageServiceTime){
+		single_QueueSimulation(duration, averageArrivalTime, averageServiceTime, Simulation.DEFAULT_NUM_STATIONS);
+	}
+
+
+	/**
+	 * A simulation in which all passengers are taken from a single queue when ready, served by
+	 * the given number of service stations
+	 */
+	public static void single_QueueSimulation(int duration, int averageArrivalTime, int averageServiceTime, int numStations){
+		runScenario(new Scenario(DispatchStrategy.SINGLE_QUEUE, duration, averageArrivalTime, averageServiceTime, numStations, 1));
+	}
+
+
+	/**
+	 * Queueing simulation with a round robin dispatch strategy
+	 */
+	public static void multi_RoundRobinSimulation(int duration, int averageArrivalTime, int averageServiceTime){
+		multi_RoundRobinSimulation(duration, averageArrivalTime, averageServiceTime,
+								   Simulation.DEFAULT_NUM_STATIONS, Simulation.DEFAULT_NUM_STATIONS);
+	}
+
+
+	/**
+	 * Queueing simulation with a round robin dispatch strategy over the given number of stations and queues
+	 */
+	public static void multi_RoundRobinSimulation(int duration, int averageArrivalTime, int averageServiceTime,
+												  int numStations, int numQueues){
+		runScenario(new Scenario(DispatchStrategy.ROUND_ROBIN, duration, averageArrivalTime, averageServiceTime,
+								 numStations, numQueues));
+	}
+
+
+	/**
+	 * Simulation in which the shortest queue is always chosen for entrants
+	 */
+	public static void multi_ShortestQueueSimulation(int duration, int averageArrivalTime, int averageServiceTime){
+		multi_ShortestQueueSimulation(duration, averageArrivalTime, averageServiceTime,
+									  Simulation.DEFAULT_NUM_STATIONS, Simulation.DEFAULT_NUM_STATIONS);
+	}
+
+
+	/**
+	 * Simulation in which the shortest queue is always chosen for entrants, over the given number
+	 * of stations and queues
+	 */
+	public static void multi_ShortestQueueSimulation(int duration, int averageArrivalTime, int averageServiceTime,
+													 int numStations, int numQueues){
+		runScenario(new Scenario(DispatchStrategy.SHORTEST_QUEUE, duration, averageArrivalTime, averageServiceTime,
+								 numStations, numQueues));
+	}
+
+
+	/**
+	 * A simulation where each entrant is assigned to a queue at random
+	 */
+	public static void multi_RandomQueueSimulation(int duration, int averageArrivalTime, int averageServiceTime){
+		multi_RandomQueueSimulation(duration, averageArrivalTime, averageServiceTime,
+									Simulation.DEFAULT_NUM_STATIONS, Simulation.DEFAULT_NUM_STATIONS);
+	}
+
+
+	/**
+	 * A simulation where each entrant is assigned to a queue at random, over the given number of
+	 * stations and queues
+	 */
+	public static void multi_RandomQueueSimulation(int duration, int averageArrivalTime, int averageServiceTime,
+												   int numStations, int numQueues){
+		runScenario(new Scenario(DispatchStrategy.RANDOM_QUEUE, duration, averageArrivalTime, averageServiceTime,
+								 numStations, numQueues));
+	}
+
+
+	/**
+	 * A simulation where each entrant looks at a few queues picked at random and joins the shortest
+	 * of them, over the given number of stations and queues
+	 */
+	public static void multi_PowerOfChoicesSimulation(int duration, int averageArrivalTime, int averageServiceTime,
+													   int numStations, int numQueues, int choices){
+		Scenario scenario = new Scenario(DispatchStrategy.POWER_OF_CHOICES, duration, averageArrivalTime, averageServiceTime,
+										 numStations, numQueues);
+		scenario.setChoices(choices);
+		runScenario(scenario);
+	}
+
+
+	/**
+	 * Run any scenario once, seeded from the clock, and print its statistics
+	 */
+	public static void runScenario(Scenario scenario){
+		runScenario(scenario, System.currentTimeMillis());
+	}
+
+
+	/**
+	 * Run any scenario once with the given seed and print its statistics. The same seed always
+	 * gives the same run
+	 */
+	public static void runScenario(Scenario scenario, long seed){
+		SimulationContext context = run(scenario, seed);
+		Simulation.printRuntimeStatistics(context);
+	}
+
+
+	/**
+	 * Run one replication of a scenario without printing anything. Every call builds its own
+	 * context and random, so calls with different seeds can safely run in parallel
+	 */
+	public static SimulationContext run(Scenario scenario, long seed){
+		RandomStreams streams = new RandomStreams(seed, scenario.getNumStations());
+		Dispatcher dispatcher = scenario.getStrategy().createDispatcher(scenario.getNumQueues(), scenario.getChoices(),
+																		  streams.getDispatchRandom());
+		validateCheckpoint(scenario);
+
+		SimulationContext context;
+		if(scenario.getPassengerStorage() != PassengerStorage.OBJECTS){
+			//Passengers in a store are only numbers, so there is nothing to hold their class
+			if(scenario.getNumClasses() > 1){
+				throw new IllegalArgumentException("Priority classes need passengers stored as objects, got "
+												   + scenario.getPassengerStorage());
+			}
+
+			//A store is sized for every passenger up front, but a log is only counted as it is read
+			if(scenario.getArrivalFile() != null){
+				throw new IllegalArgumentException("Arrival logs need passengers stored as objects, got "
+												   + scenario.getPassengerStorage());
+			}
+
+			context = runOnStore(scenario, dispatcher, streams);
+		} else {
+			context = run(scenario, dispatcher, streams, false);
+		}
+
+		//Everything that is going to be traced has been by now
+		context.getTraceRecorder().close();
+		return context;
+	}
+
+
+	/**
+	 * Pick a run of a scenario back up from the last snapshot in its checkpoint file and print its
+	 * statistics, exactly as if it had never stopped
+	 */
+	public static void resumeScenario(Scenario scenario){
+		SimulationContext context = resume(scenario);
+		Simulation.printRuntimeStatistics(context);
+	}
+
+
+	/**
+	 * Pick a run of a scenario back up from the last snapshot in its checkpoint file without printing
+	 * anything. The seed and everything else about the run come from the snapshot, and snapshots keep
+	 * being taken to the same file as the run carries on
+	 */
+	public static SimulationContext resume(Scenario scenario){
+		if(scenario.getCheckpointFile() == null){
+			throw new IllegalArgumentException("A run can only be picked up again from a checkpoint file");
+		}
+		validateCheckpoint(scenario);
+
+		//Every stream is moved on to where the snapshot found it
+		RandomStreams streams = new RandomStreams(0, scenario.getNumStations());
+		Dispatcher dispatcher = scenario.getStrategy().createDispatcher(scenario.getNumQueues(), scenario.getChoices(),
+																		  streams.getDispatchRandom());
+		return run(scenario, dispatcher, streams, true);
+	}
+
+
+	/**
+	 * Helper method for checking that a run with a checkpoint file only keeps state that a snapshot
+	 * can hold. A trace, live metrics or a time series would have to start over halfway through a run
+	 */
+	private static void validateCheckpoint(Scenario scenario){
+		if(scenario.getCheckpointFile() == null){
+			return;
+		}
+
+		if(scenario.getPassengerStorage() != PassengerStorage.OBJECTS){
+			throw new IllegalArgumentException("Checkpoints need passengers stored as objects, got " + scenario.getPassengerStorage());
+		}
+
+		if(scenario.getTraceFile() != null || scenario.getMetricsFile() != null || scenario.getTimeSeriesFile() != null){
+			throw new IllegalArgumentException("Checkpoints can not be combined with a trace, live metrics or a time series");
+		}
+	}
+
+
+	/**
+	 * Run a simulation on the event calendar and hand back the finished context. Station i
+	 * serves queue i % numQueues, so with one queue every station serves it. A resumed run
+	 * starts from the snapshot in the checkpoint file instead of from an empty calendar
+	 */
+	private static SimulationContext run(Scenario scenario, Dispatcher dispatcher, RandomStreams streams, boolean resume){
+		int duration = scenario.getDuration();
+		int averageArrivalTime = scenario.getAverageArrivalTime();
+		int averageServiceTime = scenario.getAverageServiceTime();
+		int numStations = scenario.getNumStations();
+		int numQueues = scenario.getNumQueues();
+		boolean workStealing = scenario.isWorkStealing();
+		Random random = streams.getDispatchRandom();
+		SplitMixStream arrivalStream = streams.getArrivalStream();
+		Simulation.validateLayout(numStations, numQueues);
+		Simulation.validateArrivals(scenario);
+
+		//The calendar doubles as the clock for the whole run
+		EventCalendar calendar = new EventCalendar();
+
+		//Create a context object that we will use for passing values
+		SimulationContext context = new SimulationContext();
+		context.setClock(calendar);
+		context.setStartTime(calendar.now());
+		context.setAverageServiceTime(averageServiceTime);
+		context.setNumStations(numStations);
+		context.setRandomness(streams, scenario.getServiceDistribution());
+		if(scenario.getTraceFile() != null){
+			context.setTraceRecorder(TraceRecorder.create(scenario.getTraceFile(), numQueues, numStations, context.getStartTime()));
+		}
+		if(scenario.getMetricsFile() != null){
+			context.setTraceRecorder(context.getTraceRecorder().andThen(
+				LiveMetrics.create(numQueues, numStations, context.getStartTime(), scenario.getMetricsFile())));
+		}
+
+		//Num passengers will be the duration divided by average arrival
+		int numPassengers = duration / averageArrivalTime;
+		context.setNumPassengers(numPassengers);
+
+		//Every line is on the simulated clock, so aging priority lines age in simulated time
+		for(int i = 0; i < numQueues; i++){
+			context.addQueue(Simulation.createQueue(scenario, calendar, numPassengers));
+		}
+		context.setWorkStealing(workStealing);
+		context.setPriorityClasses(scenario.getNumClasses(), scenario.getPriorityPolicy());
+
+		//Arrivals are made one at a time as the run goes, with only the next one on the calendar, so
+		//a run or a recorded log of any length needs the same amount of memory
+		ArrivalGenerator arrivals = new ArrivalGenerator(scenario, arrivalStream);
+
+		//Every station starts out idle
+		IdleStations idleStations = new IdleStations(numStations, numQueues);
+
+		//When each station started on the passenger it is currently serving
+		long[] serviceStart = new long[numStations];
+
+		Checkpoint checkpoint = scenario.getCheckpointFile() != null
+								? new Checkpoint(scenario, calendar, context, dispatcher, arrivals, idleStations, serviceStart)
+								: null;
+		if(resume){
+			checkpoint.restore();
+		} else {
+			scheduleNextArrival(arrivals, calendar);
+		}
+
+		TimeSeriesSampler sampler = Simulation.createSampler(scenario, numQueues, numStations);
+		IntUnaryOperator depthOf = queueID -> context.getQueues().get(queueID).size();
+		IntPredicate isBusy = stationID -> context.getStationBusyTime(stationID).isBusy();
+		long nextSample = 0;
+
+		//Process every event in time order until the calendar runs dry
+		while(calendar.hasNext()){
+			//Snapshots are only taken in between two events
+			if(checkpoint != null){
+				checkpoint.takeIfDue();
+			}
+
+			//Every sample sees every event up to and including its own time
+			if(sampler != null){
+				nextSample = sampleBefore(sampler, nextSample, calendar.peekTime(), depthOf, isBusy);
+			}
+
+			Event event = calendar.next();
+			int queueID = event.getQueueID();
+
+			switch(event.getType()){
+				case ARRIVAL:
+					//Only one arrival is ever on the calendar, so put the next one on now
+					scheduleNextArrival(arrivals, calendar);
+
+					queueID = dispatcher.selectQueue();
+					//Start waiting before joining the line, since an aging line reads the enqueue time
+					event.getPassenger().startWaiting(queueID, calendar.now());
+					context.getQueues().get(queueID).offer(event.getPassenger());
+					context.getTraceRecorder().record(TraceRecorder.Type.ARRIVAL, calendar.now(), calendar.now(), queueID, -1,
+													  event.getPassenger().getPassengerID());
+
+					//Wake up an idle station that serves this queue, if there is one. Otherwise an idle
+					//station from another line can steal the new arrival straight off the back
+					int idleStation = idleStations.pop(queueID);
+					boolean stolen = false;
+					if(idleStation < 0 && workStealing){
+						idleStation = idleStations.popAny(random.nextInt(numQueues));
+						stolen = idleStation >= 0;
+					}
+
+					if(idleStation >= 0){
+						serviceStart[idleStation] = calendar.now();
+						startService(idleStation, queueID, stolen, context, calendar);
+						if(stolen){
+							context.recordSteal(idleStation);
+						}
+					}
+
+					//Update queue lengths in context
+					context.setLongestQueueLength(queueID);
+					break;
+
+				case DEPARTURE:
+					int stationID = event.getStationID();
+					event.getPassenger().stopWaiting(stationID, calendar.now());
+					context.recordService(queueID, stationID, event.getPassenger().getWaitingTimeMillis(),
+										  calendar.now() - serviceStart[stationID]);
+					context.recordClassWait(event.getPassenger().getPriorityClass(), event.getPassenger().getWaitingTimeMillis());
+					context.getTraceRecorder().record(TraceRecorder.Type.DEPARTURE, calendar.now(), serviceStart[stationID], queueID,
+													  stationID, event.getPassenger().getPassengerID());
+					context.passengerServed();
+					context.stationIdle(stationID);
+					dispatcher.passengerLeft(queueID);
+
+					//The station is free again, so it can immediately take the next passenger from its
+					//own line, or from the back of another line if it is allowed to steal
+					int ownQueue = stationID % numQueues;
+					serviceStart[stationID] = calendar.now();
+					if(!startService(stationID, ownQueue, false, context, calendar)
+					   && !(workStealing && steal(stationID, ownQueue, context, calendar, random))){
+						idleStations.push(ownQueue, stationID);
+					}
+					break;
+			}
+		}
+
+		//A log can run out before the duration of the scenario is up
+		arrivals.close();
+		context.setNumPassengers(arrivals.getGenerated());
+		if(checkpoint != null){
+			checkpoint.close();
+		}
+		if(sampler != null){
+			sampleBefore(sampler, nextSample, calendar.now() + 1, depthOf, isBusy);
+			sampler.close();
+		}
+
+		return context;
+	}
+
+
+	/**
+	 * Run a simulation where passengers are only numbers into a PassengerStore. No Passenger or queue
+	 * node is ever made, so the heap stays flat no matter how many passengers go through. Arrival
+	 * times are decided up front exactly like in run(), but only a small window of them sits on the
+	 * calendar at any time
+	 */
+	private static SimulationContext runOnStore(Scenario scenario, Dispatcher dispatcher, RandomStreams streams){
+		int duration = scenario.getDuration();
+		int averageArrivalTime = scenario.getAverageArrivalTime();
+		int averageServiceTime = scenario.getAverageServiceTime();
+		int numStations = scenario.getNumStations();
+		int numQueues = scenario.getNumQueues();
+		boolean workStealing = scenario.isWorkStealing();
+		Random random = streams.getDispatchRandom();
+		SplitMixStream arrivalStream = streams.getArrivalStream();
+		Simulation.validateLayout(numStations, numQueues);
+
+		//The calendar doubles as the clock for the whole run
+		EventCalendar calendar = new EventCalendar();
+
+		//Create a context object that we will use for passing values
+		SimulationContext context = new SimulationContext();
+		context.setClock(calendar);
+		context.setStartTime(calendar.now());
+		context.setAverageServiceTime(averageServiceTime);
+		context.setNumStations(numStations);
+		context.setRandomness(streams, scenario.getServiceDistribution());
+		if(scenario.getTraceFile() != null){
+			context.setTraceRecorder(TraceRecorder.create(scenario.getTraceFile(), numQueues, numStations, context.getStartTime()));
+		}
+		if(scenario.getMetricsFile() != null){
+			context.setTraceRecorder(context.getTraceRecorder().andThen(
+				LiveMetrics.create(numQueues, numStations, context.getStartTime(), scenario.getMetricsFile())));
+		}
+
+		//Num passengers will be the duration divided by average arrival
+		int numPassengers = duration / averageArrivalTime;
+		context.setNumPassengers(numPassengers);
+
+		//The queues only hold passenger numbers
+		PassengerIndexQueue[] queues = new PassengerIndexQueue[numQueues];
+		for(int i = 0; i < numQueues; i++){
+			queues[i] = new PassengerIndexQueue();
+			context.registerQueue();
+		}
+		context.setWorkStealing(workStealing);
+
+		PassengerStore store = scenario.getPassengerStorage().createStore(numPassengers);
+		long arrivalTime = 0;
+		for(int i = 0; i < numPassengers; i++){
+			arrivalTime = scenario.drawArrivalTime(i, arrivalTime, arrivalStream);
+			store.setArrivalTime(i, Math.max(0, arrivalTime));
+			store.setQueueID(i, -1);
+			store.setStationID(i, -1);
+		}
+
+		//An arrival can be at most 1 second late or 2 seconds early, so nobody more than this many
+		//places behind a passenger can arrive before them. Keeping this many arrivals on the calendar
+		//means they still come out in time order
+		int window = 3 / averageArrivalTime + 2;
+		int nextArrival = 0;
+		while(nextArrival < numPassengers && nextArrival < window){
+			calendar.schedule(store.getArrivalTime(nextArrival), Event.Type.ARRIVAL, -1, -1, nextArrival);
+			nextArrival++;
+		}
+
+		//Every station starts out idle
+		IdleStations idleStations = new IdleStations(numStations, numQueues);
+
+		TimeSeriesSampler sampler = Simulation.createSampler(scenario, numQueues, numStations);
+		IntUnaryOperator depthOf = queueID -> queues[queueID].size();
+		IntPredicate isBusy = stationID -> context.getStationBusyTime(stationID).isBusy();
+		long nextSample = 0;
+
+		//Process every event in time order until the calendar runs dry
+		while(calendar.hasNext()){
+			//Every sample sees every event up to and including its own time
+			if(sampler != null){
+				nextSample = sampleBefore(sampler, nextSample, calendar.peekTime(), depthOf, isBusy);
+			}
+
+			Event event = calendar.next();
+			int queueID = event.getQueueID();
+			int passenger = event.getPassengerIndex();
+
+			switch(event.getType()){
+				case ARRIVAL:
+					//Slide the window forward
+					if(nextArrival < numPassengers){
+						calendar.schedule(store.getArrivalTime(nextArrival), Event.Type.ARRIVAL, -1, -1, nextArrival);
+						nextArrival++;
+					}
+
+					queueID = dispatcher.selectQueue();
+					store.setQueueID(passenger, queueID);
+					queues[queueID].offer(passenger);
+					context.getTraceRecorder().record(TraceRecorder.Type.ARRIVAL, calendar.now(), calendar.now(), queueID, -1, passenger);
+
+					//Wake up an idle station that serves this queue, if there is one. Otherwise an idle
+					//station from another line can steal the new arrival straight off the back
+					int idleStation = idleStations.pop(queueID);
+					boolean stolen = false;
+					if(idleStation < 0 && workStealing){
+						idleStation = idleStations.popAny(random.nextInt(numQueues));
+						stolen = idleStation >= 0;
+					}
+
+					if(idleStation >= 0){
+						startService(idleStation, queueID, stolen, queues[queueID], store, context, calendar);
+						if(stolen){
+							context.recordSteal(idleStation);
+						}
+					}
+
+					//Update queue lengths in context
+					context.setLongestQueueLength(queueID, queues[queueID].size());
+					break;
+
+				case DEPARTURE:
+					int stationID = event.getStationID();
+					context.recordService(queueID, stationID, calendar.now() - store.getArrivalTime(passenger),
+										  calendar.now() - store.getServiceStartTime(passenger));
+					context.getTraceRecorder().record(TraceRecorder.Type.DEPARTURE, calendar.now(), store.getServiceStartTime(passenger),
+													  queueID, stationID, passenger);
+					context.passengerServed();
+					context.stationIdle(stationID);
+					dispatcher.passengerLeft(queueID);
+
+					//The station is free again, so it can immediately take the next passenger from its
+					//own line, or from the back of another line if it is allowed to steal
+					int ownQueue = stationID % numQueues;
+					if(!startService(stationID, ownQueue, false, queues[ownQueue], store, context, calendar)
+					   && !(workStealing && steal(stationID, ownQueue, queues, store, context, calendar, random))){
+						idleStations.push(ownQueue, stationID);
+					}
+					break;
+			}
+		}
+
+		if(sampler != null){
+			sampleBefore(sampler, nextSample, calendar.now() + 1, depthOf, isBusy);
+			sampler.close();
+		}
+
+		return context;
+	}
+
+
+	/**
+	 * Helper method for taking every sample that is due before the given time, since nothing changes in
+	 * between two events. Returns the time of the next sample
+	 */
+	private static long sampleBefore(TimeSeriesSampler sampler, long nextSample, long time, IntUnaryOperator depthOf,
+									 IntPredicate isBusy){
+		while(nextSample < time){
+			sampler.record(nextSample, depthOf, isBusy);
+			nextSample += sampler.getInterval();
+		}
+
+		return nextSample;
+	}
+
+
+	/**
+	 * Helper method for putting the next arrival on the calendar, if anybody else is coming
+	 */
+	private static void scheduleNextArrival(ArrivalGenerator arrivals, EventCalendar calendar){
+		Passenger passenger = arrivals.next();
+		if(passenger != null){
+			calendar.schedule(arrivals.getArrivalTime(), Event.Type.ARRIVAL, -1, -1, passenger);
+		}
+	}
+
+
+	/**
+	 * Helper method for having a station whose own line is empty take the passenger at the back of
+	 * another line. Lines are tried in turn from a random one on, like a ForkJoin worker looking for
+	 * a victim. Returns false, and counts a failed attempt, if every other line is empty
+	 */
+	private static boolean steal(int stationID, int ownQueue, SimulationContext context, EventCalendar calendar, Random random){
+		int numQueues = context.getNumQueues();
+		int firstVictim = random.nextInt(numQueues);
+
+		for(int i = 0; i < numQueues; i++){
+			int victim = (firstVictim + i) % numQueues;
+			if(victim != ownQueue && startService(stationID, victim, true, context, calendar)){
+				context.recordSteal(stationID);
+				return true;
+			}
+		}
+
+		context.recordFailedSteal(stationID);
+		return false;
+	}
+
+
+	/**
+	 * Helper method for stealing the passenger number at the back of another line, in the same
+	 * way as the steal above
+	 */
+	private static boolean steal(int stationID, int ownQueue, PassengerIndexQueue[] queues, PassengerStore store,
+								 SimulationContext context, EventCalendar calendar, Random random){
+		int firstVictim = random.nextInt(queues.length);
+
+		for(int i = 0; i < queues.length; i++){
+			int victim = (firstVictim + i) % queues.length;
+			if(victim != ownQueue && startService(stationID, victim, true, queues[victim], store, context, calendar)){
+				context.recordSteal(stationID);
+				return true;
+			}
+		}
+
+		context.recordFailedSteal(stationID);
+		return false;
+	}
+
+
+	/**
+	 * Helper method for having an idle station take the next passenger from a queue. Thieves take
+	 * from the back instead of the front. Returns false if nobody was waiting, in which case the
+	 * station stays idle
+	 */
+	private static boolean startService(int stationID, int queueID, boolean fromBack, SimulationContext context,
+										EventCalendar calendar){
+		BlockingQueue<Passenger> queue = context.getQueues().get(queueID);
+
+		//Only work stealing runs take from the back, and their lines are always deques
+		Passenger dequeued = fromBack ? ((BlockingDeque<Passenger>)queue).pollLast() : queue.poll();
+
+		if(dequeued == null){
+			return false;
+		}
+
+		context.getTraceRecorder().record(TraceRecorder.Type.SERVICE_START, calendar.now(), dequeued.getWaitingStartTime(), queueID,
+										  stationID, dequeued.getPassengerID());
+
+		//Recorded arrivals bring the service time that was observed for them, everybody else gets one
+		//drawn from the stream of the station serving them
+		long serviceTime = dequeued.getServiceTime() >= 0 ? dequeued.getServiceTime() : context.drawServiceTime(stationID);
+		context.stationBusy(stationID);
+
+		calendar.schedule(calendar.now() + serviceTime, Event.Type.DEPARTURE, queueID, stationID, dequeued);
+		return true;
+	}
+
+
+	/**
+	 * Helper method for having an idle station take the next passenger number from a queue. Thieves
+	 * take from the back instead of the front. Returns false if nobody was waiting, in which case the
+	 * station stays idle
+	 */
+	private static boolean startService(int stationID, int queueID, boolean fromBack, PassengerIndexQueue queue,
+										PassengerStore store, SimulationContext context, EventCalendar calendar){
+		int dequeued = fromBack ? queue.pollLast() : queue.poll();
+
+		if(dequeued < 0){
+			return false;
+		}
+
+		store.setServiceStartTime(dequeued, calendar.now());
+		store.setStationID(dequeued, stationID);
+		context.getTraceRecorder().record(TraceRecorder.Type.SERVICE_START, calendar.now(), store.getArrivalTime(dequeued), queueID,
+										  stationID, dequeued);
+
+		//Drawn from the stream of the station serving them
+		long serviceTime = context.drawServiceTime(stationID);
+		context.stationBusy(stationID);
+
+		calendar.schedule(calendar.now() + serviceTime, Event.Type.DEPARTURE, queueID, stationID, dequeued);
+		return true;
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ * Author: Jack Robbins
+ * Event object for the discrete event simulation
+ *
+ * An event is something that happens at a single point in simulated time, such as a
+ * passenger arriving or a service station finishing with a passenger
+ */
+
+package simulation;
+
+import queueOccupant.Passenger;
+
+
+public class Event implements Comparable<Event>{
+	/**
+	 * The kinds of events that can be placed on the calendar
+	 */
+	public enum Type{
+		ARRIVAL,
+		DEPARTURE
+	}
+
+	private long time;
+	private long sequence;
+	private Type type;
+	private int queueID;
+	private int stationID;
+	private Passenger passenger;
+	private int passengerIndex;
+
+
+	/**
+	 * Basic constructor, events are only made by the calendar
+	 */
+	Event(long time, long sequence, Type type, int queueID, int stationID, Passenger passenger, int passengerIndex){
+		this.time = time;
+		this.sequence = sequence;
+		this.type = type;
+		this.queueID = queueID;
+		this.stationID = stationID;
+		this.passenger = passenger;
+		this.passengerIndex = passengerIndex;
+	}
+
+
+	/**
+	 * Events are ordered by time. At the same time arrivals come before departures, so the
+	 * order does not depend on how early an arrival was put on the calendar. Anything else that
+	 * happens at the same time is handled in the order that it was scheduled
+	 */
+	@Override
+	public int compareTo(Event other){
+		if(this.time != other.time){
+			return Long.compare(this.time, other.time);
+		}
+
+		if(this.type != other.type){
+			return this.type.compareTo(other.type);
+		}
+
+		return Long.compare(this.sequence, other.sequence);
+	}
+
+
+	/**
+	 * A simple helper method to get the time of the event in milliseconds
+	 */
+	public long getTime(){
+		return this.time;
+	}
+
+
+	/**
+	 * A simple helper method to get the order the event was scheduled in
+	 */
+	public long getSequence(){
+		return this.sequence;
+	}
+
+
+	/**
+	 * A simple helper method to get the type of the event
+	 */
+	public Type getType(){
+		return this.type;
+	}
+
+
+	/**
+	 * A simple helper method to get the queue that the event concerns
+	 */
+	public int getQueueID(){
+		return this.queueID;
+	}
+
+
+	/**
+	 * A simple helper method to get the service station that the event concerns
+	 */
+	public int getStationID(){
+		return this.stationID;
+	}
+
+
+	/**
+	 * A simple helper method to get the passenger that the event concerns
+	 */
+	public Passenger getPassenger(){
+		return this.passenger;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of the passenger that the event concerns,
+	 * when passengers are kept in a PassengerStore
+	 */
+	public int getPassengerIndex(){
+		return this.passengerIndex;
+	}
+}
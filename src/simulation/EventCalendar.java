@@ -0,0 +1,125 @@
+/**
+ * Author: Jack Robbins
+ * Event calendar for the discrete event simulation
+ *
+ * The calendar holds every future event in a priority queue and owns the simulated clock.
+ * Taking the next event off of the calendar moves the clock forward to the time of that event
+ */
+
+package simulation;
+
+import queueOccupant.Passenger;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.PriorityQueue;
+
+
+public class EventCalendar implements SimulationClock{
+	private PriorityQueue<Event> events;
+	private long now;
+	private long sequence;
+
+
+	/**
+	 * Basic constructor, the clock starts at 0
+	 */
+	public EventCalendar(){
+		this.events = new PriorityQueue<>();
+		this.now = 0;
+		this.sequence = 0;
+	}
+
+
+	/**
+	 * Place an event on the calendar. Events can never be scheduled in the past
+	 */
+	public void schedule(long time, Event.Type type, int queueID, int stationID, Passenger passenger){
+		long eventTime = Math.max(time, this.now);
+		this.events.add(new Event(eventTime, this.sequence++, type, queueID, stationID, passenger, -1));
+	}
+
+
+	/**
+	 * Place an event for a passenger that lives in a PassengerStore on the calendar
+	 */
+	public void schedule(long time, Event.Type type, int queueID, int stationID, int passengerIndex){
+		long eventTime = Math.max(time, this.now);
+		this.events.add(new Event(eventTime, this.sequence++, type, queueID, stationID, null, passengerIndex));
+	}
+
+
+	/**
+	 * Are there any more events left to process
+	 */
+	public boolean hasNext(){
+		return !this.events.isEmpty();
+	}
+
+
+	/**
+	 * The time of the next event, without taking it off of the calendar. There has to be one
+	 */
+	public long peekTime(){
+		return this.events.peek().getTime();
+	}
+
+
+	/**
+	 * Remove the next event from the calendar and advance the clock to it
+	 */
+	public Event next(){
+		Event event = this.events.poll();
+		this.now = event.getTime();
+		return event;
+	}
+
+
+	/**
+	 * The current simulated time in milliseconds
+	 */
+	@Override
+	public long now(){
+		return this.now;
+	}
+
+
+	/**
+	 * Write out the clock and every event still to come. Only events for passenger objects can be
+	 * written out, and each passenger is written along with their event
+	 */
+	void writeState(DataOutput out) throws IOException{
+		out.writeLong(this.now);
+		out.writeLong(this.sequence);
+		out.writeInt(this.events.size());
+		for(Event event : this.events){
+			out.writeLong(event.getTime());
+			out.writeLong(event.getSequence());
+			out.writeByte(event.getType().ordinal());
+			out.writeInt(event.getQueueID());
+			out.writeInt(event.getStationID());
+			event.getPassenger().writeTo(out);
+		}
+	}
+
+
+	/**
+	 * Replace the clock and every event with what writeState() wrote out. Events keep their sequence
+	 * numbers, so ties still come out in the order they were first scheduled
+	 */
+	void readState(DataInput in) throws IOException{
+		this.now = in.readLong();
+		this.sequence = in.readLong();
+		this.events.clear();
+
+		int numEvents = in.readInt();
+		for(int i = 0; i < numEvents; i++){
+			long time = in.readLong();
+			long sequence = in.readLong();
+			Event.Type type = Event.Type.values()[in.readByte()];
+			int queueID = in.readInt();
+			int stationID = in.readInt();
+			this.events.add(new Event(time, sequence, type, queueID, stationID, Passenger.readFrom(in), -1));
+		}
+	}
+}
@@ -0,0 +1,14 @@
+/**
+ * Author: Jack Robbins
+ * This enum lists the ways that a real time simulation can run its service stations
+ */
+
+package simulation;
+
+
+public enum ExecutionMode{
+	//One single threaded scheduled executor per station, plus one for arrivals
+	EXECUTOR,
+	//One virtual thread per station, plus one for arrivals
+	VIRTUAL_THREAD
+}
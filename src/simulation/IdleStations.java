@@ -0,0 +1,108 @@
+/**
+ * Author: Jack Robbins
+ * This class keeps track of which service stations are idle in a discrete event run
+ */
+
+package simulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+
+/**
+ * Each queue keeps a stack of its idle stations so that an arrival never has to scan
+ * every station. Station i serves queue i % numQueues
+ */
+class IdleStations{
+	private int[][] idleStations;
+	private int[] numIdle;
+	private int totalIdle;
+
+
+	/**
+	 * Basic constructor, every station starts out idle. They are pushed in reverse so that
+	 * the lowest numbered station is woken up first
+	 */
+	IdleStations(int numStations, int numQueues){
+		this.idleStations = new int[numQueues][];
+		this.numIdle = new int[numQueues];
+		for(int queueID = 0; queueID < numQueues; queueID++){
+			this.idleStations[queueID] = new int[(numStations - queueID + numQueues - 1) / numQueues];
+		}
+
+		for(int stationID = numStations - 1; stationID >= 0; stationID--){
+			this.push(stationID % numQueues, stationID);
+		}
+	}
+
+
+	/**
+	 * Take an idle station that serves the queue, or -1 if they are all busy
+	 */
+	int pop(int queueID){
+		if(this.numIdle[queueID] == 0){
+			return -1;
+		}
+
+		this.totalIdle--;
+		return this.idleStations[queueID][--this.numIdle[queueID]];
+	}
+
+
+	/**
+	 * Take an idle station from any queue, looking at the given queue first and then the ones
+	 * after it. Returns -1 straight away if every station is busy
+	 */
+	int popAny(int firstQueue){
+		if(this.totalIdle == 0){
+			return -1;
+		}
+
+		for(int i = 0; i < this.numIdle.length; i++){
+			int stationID = this.pop((firstQueue + i) % this.numIdle.length);
+			if(stationID >= 0){
+				return stationID;
+			}
+		}
+
+		return -1;
+	}
+
+
+	/**
+	 * Mark a station as idle again
+	 */
+	void push(int queueID, int stationID){
+		this.idleStations[queueID][this.numIdle[queueID]++] = stationID;
+		this.totalIdle++;
+	}
+
+
+	/**
+	 * Write out the idle stations of every queue, in the order they are stacked
+	 */
+	void writeState(DataOutput out) throws IOException{
+		for(int queueID = 0; queueID < this.numIdle.length; queueID++){
+			out.writeInt(this.numIdle[queueID]);
+			for(int i = 0; i < this.numIdle[queueID]; i++){
+				out.writeInt(this.idleStations[queueID][i]);
+			}
+		}
+	}
+
+
+	/**
+	 * Replace the idle stations of every queue with what writeState() wrote out
+	 */
+	void readState(DataInput in) throws IOException{
+		this.totalIdle = 0;
+		for(int queueID = 0; queueID < this.numIdle.length; queueID++){
+			this.numIdle[queueID] = in.readInt();
+			for(int i = 0; i < this.numIdle[queueID]; i++){
+				this.idleStations[queueID][i] = in.readInt();
+			}
+			this.totalIdle += this.numIdle[queueID];
+		}
+	}
+}
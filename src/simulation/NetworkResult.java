@@ -0,0 +1,264 @@
+/**
+ * Author: Jack Robbins
+ * This class holds the statistics of a finished network run, for every stage and for the whole trip
+ */
+
+package simulation;
+
+import statistics.RunningStatistics;
+
+
+/**
+ * Every stage is summed up like a single stage run, along with how often it was visited, how busy
+ * theory says it should be and how much of the time in the network was spent there. Times are kept
+ * in seconds
+ */
+public class NetworkResult{
+	private long runtime;
+	private long seed;
+	private String[] names;
+	private Scenario[] scenarios;
+	private SimulationResult[] stageResults;
+	private long[] visits;
+	private double[] offeredLoads;
+	private double[] averageWaitTimes;
+	private double[][] waitTimePercentiles;
+	private double[] timeShares;
+	private long passengers;
+	private double averageEndToEnd;
+	private double maxEndToEnd;
+	private double endToEndDeviation;
+	private double[] endToEndPercentiles;
+	private double averageStagesVisited;
+	private int bottleneck;
+	private double saturationArrivalTime;
+
+
+	/**
+	 * Pull all of the statistics out of the finished contexts of every stage. End to end times and
+	 * the number of stages visited are given per passenger that left the network
+	 */
+	NetworkResult(StageNetwork network, SimulationContext[] contexts, RunningStatistics endToEnd, RunningStatistics stagesVisited,
+				  long seed){
+		int numStages = network.getNumStages();
+		this.seed = seed;
+		this.names = new String[numStages];
+		this.scenarios = new Scenario[numStages];
+		this.stageResults = new SimulationResult[numStages];
+		this.visits = new long[numStages];
+		this.offeredLoads = network.getOfferedLoads();
+		this.averageWaitTimes = new double[numStages];
+		this.waitTimePercentiles = new double[numStages][SimulationResult.PERCENTILES.length];
+		this.timeShares = new double[numStages];
+
+		//Walking between stages takes no time, so the time at every stage adds up to the whole trip
+		double totalTime = endToEnd.getMean() * endToEnd.getCount();
+		for(int i = 0; i < numStages; i++){
+			RunningStatistics waits = contexts[i].getOverallWaitStatistics();
+			this.names[i] = network.getName(i);
+			this.scenarios[i] = network.getStage(i);
+			this.stageResults[i] = new SimulationResult(contexts[i]);
+			this.visits[i] = waits.getCount();
+			this.averageWaitTimes[i] = waits.getMean() / 1000;
+			for(int j = 0; j < SimulationResult.PERCENTILES.length; j++){
+				this.waitTimePercentiles[i][j] = waits.getPercentile(SimulationResult.PERCENTILES[j]) / 1000.0;
+			}
+			this.timeShares[i] = totalTime == 0 ? 0 : waits.getMean() * waits.getCount() / totalTime * 100;
+		}
+		this.runtime = this.stageResults[0].getRuntime();
+
+		this.passengers = endToEnd.getCount();
+		this.averageEndToEnd = endToEnd.getMean() / 1000;
+		this.maxEndToEnd = endToEnd.getMax() / 1000.0;
+		this.endToEndDeviation = endToEnd.getStandardDeviation() / 1000;
+		this.endToEndPercentiles = new double[SimulationResult.PERCENTILES.length];
+		for(int j = 0; j < SimulationResult.PERCENTILES.length; j++){
+			this.endToEndPercentiles[j] = endToEnd.getPercentile(SimulationResult.PERCENTILES[j]) / 1000.0;
+		}
+		this.averageStagesVisited = stagesVisited.getCount() == 0 ? 0 : stagesVisited.getMean();
+
+		//The bottleneck is the stage whose stations were busiest. Load moves on from a stage no faster
+		//than it is served, so this is the stage that holds back everything after it
+		this.bottleneck = 0;
+		double busiest = -1;
+		for(int i = 0; i < numStages; i++){
+			if(this.stageResults[i].getAverageUtilisation() > busiest){
+				busiest = this.stageResults[i].getAverageUtilisation();
+				this.bottleneck = i;
+			}
+		}
+
+		//The stage with the highest offered load fills up first as arrivals speed up, at 100%
+		double highestLoad = 0;
+		for(double load : this.offeredLoads){
+			highestLoad = Math.max(highestLoad, load);
+		}
+		this.saturationArrivalTime = highestLoad / 100 * network.getStage(0).getAverageArrivalTime();
+	}
+
+
+	/**
+	 * A simple helper method to get the runtime in seconds
+	 */
+	public long getRuntime(){
+		return this.runtime;
+	}
+
+
+	/**
+	 * A simple helper method to get the seed of the run
+	 */
+	public long getSeed(){
+		return this.seed;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of stages
+	 */
+	public int getNumStages(){
+		return this.names.length;
+	}
+
+
+	/**
+	 * A simple helper method to get the name of a stage
+	 */
+	public String getName(int stage){
+		return this.names[stage];
+	}
+
+
+	/**
+	 * A simple helper method to get the scenario of a stage
+	 */
+	public Scenario getScenario(int stage){
+		return this.scenarios[stage];
+	}
+
+
+	/**
+	 * A simple helper method to get everything a stage measured, as if it had been run on its own
+	 */
+	public SimulationResult getStageResult(int stage){
+		return this.stageResults[stage];
+	}
+
+
+	/**
+	 * A simple helper method to get the number of times passengers were served at a stage
+	 */
+	public long getVisits(int stage){
+		return this.visits[stage];
+	}
+
+
+	/**
+	 * Get the number of times the average passenger was served at a stage
+	 */
+	public double getVisitRatio(int stage){
+		return this.passengers == 0 ? 0 : (double)this.visits[stage] / this.passengers;
+	}
+
+
+	/**
+	 * A simple helper method to get how busy queueing theory says the stations of a stage should be,
+	 * in percent
+	 */
+	public double getOfferedLoad(int stage){
+		return this.offeredLoads[stage];
+	}
+
+
+	/**
+	 * A simple helper method to get the average waiting time at a stage, which runs until the
+	 * passenger leaves its station
+	 */
+	public double getAverageWaitTime(int stage){
+		return this.averageWaitTimes[stage];
+	}
+
+
+	/**
+	 * A simple helper method to get a percentile of the waiting time at a stage. Percentiles are
+	 * numbered in the order of SimulationResult.PERCENTILES
+	 */
+	public double getWaitTimePercentile(int stage, int percentile){
+		return this.waitTimePercentiles[stage][percentile];
+	}
+
+
+	/**
+	 * A simple helper method to get the percentage of all the time passengers spent in the network
+	 * that was spent at a stage
+	 */
+	public double getTimeShare(int stage){
+		return this.timeShares[stage];
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers that went through the network
+	 */
+	public long getPassengers(){
+		return this.passengers;
+	}
+
+
+	/**
+	 * A simple helper method to get the average time from coming into the network to leaving it
+	 */
+	public double getAverageEndToEnd(){
+		return this.averageEndToEnd;
+	}
+
+
+	/**
+	 * A simple helper method to get the longest time anybody spent in the network
+	 */
+	public double getMaxEndToEnd(){
+		return this.maxEndToEnd;
+	}
+
+
+	/**
+	 * A simple helper method to get the standard deviation of the time spent in the network
+	 */
+	public double getEndToEndDeviation(){
+		return this.endToEndDeviation;
+	}
+
+
+	/**
+	 * A simple helper method to get a percentile of the time spent in the network. Percentiles are
+	 * numbered in the order of SimulationResult.PERCENTILES
+	 */
+	public double getEndToEndPercentile(int percentile){
+		return this.endToEndPercentiles[percentile];
+	}
+
+
+	/**
+	 * A simple helper method to get the average number of stages a passenger was served at
+	 */
+	public double getAverageStagesVisited(){
+		return this.averageStagesVisited;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of the stage whose stations were busiest
+	 */
+	public int getBottleneck(){
+		return this.bottleneck;
+	}
+
+
+	/**
+	 * A simple helper method to get the shortest average time between arrivals that every stage could
+	 * still keep up with, in seconds
+	 */
+	public double getSaturationArrivalTime(){
+		return this.saturationArrivalTime;
+	}
+}
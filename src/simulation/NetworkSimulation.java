@@ -0,0 +1,238 @@
+/**
+ * Author: Jack Robbins
+ *
+ * This class runs a network of stages on the simulated clock, such as check-in, then security, then
+ * boarding. Every stage has its own dispatch strategy, stations and service times, and when a
+ * passenger leaves a stage they are routed on to the next one at random
+ *
+ * 	All of the stages share one event calendar, so a bottleneck at one stage holds back the
+ * 	arrivals at every stage after it exactly like it would in real life
+ */
+
+package simulation;
+
+import dispatch.Dispatcher;
+import distribution.RandomStreams;
+import distribution.SplitMixStream;
+import queueOccupant.Passenger;
+import queueOccupant.RoutedPassenger;
+import statistics.RunningStatistics;
+import java.util.concurrent.BlockingQueue;
+
+
+/**
+ * Each stage keeps its own context, so every stage gets the same statistics as a single stage run,
+ * on top of the waits from coming into the network to leaving it
+ */
+public class NetworkSimulation{
+	/**
+	 * Run a network and print the statistics of every stage and of the whole trip
+	 */
+	public static void runNetwork(StageNetwork network, long seed){
+		printNetworkStatistics(run(network, seed));
+	}
+
+
+	/**
+	 * Run a network on the event calendar and hand back its results. The arrivals, the routing and
+	 * every stage draw from their own random streams split off of the seed, so the same seed always
+	 * gives the same results
+	 */
+	public static NetworkResult run(StageNetwork network, long seed){
+		int numStages = network.getNumStages();
+		SplitMixStream master = new SplitMixStream(seed);
+		SplitMixStream arrivalStream = master.split();
+		SplitMixStream routingStream = master.split();
+		Simulation.validateArrivals(network.getStage(0));
+
+		//A network that passengers can never leave would never run dry
+		network.getVisitRatios();
+
+		//The calendar doubles as the clock for the whole run
+		EventCalendar calendar = new EventCalendar();
+
+		//Every stage is set up like a single stage run of its own scenario, all on the same clock
+		SimulationContext[] contexts = new SimulationContext[numStages];
+		Dispatcher[] dispatchers = new Dispatcher[numStages];
+		IdleStations[] idleStations = new IdleStations[numStages];
+		long[][] serviceStart = new long[numStages][];
+		for(int i = 0; i < numStages; i++){
+			Scenario stage = network.getStage(i);
+			RandomStreams streams = new RandomStreams(master.nextLong(), stage.getNumStations());
+			dispatchers[i] = stage.getStrategy().createDispatcher(stage.getNumQueues(), stage.getChoices(), streams.getDispatchRandom());
+
+			contexts[i] = new SimulationContext();
+			contexts[i].setClock(calendar);
+			contexts[i].setStartTime(calendar.now());
+			contexts[i].setAverageServiceTime(stage.getAverageServiceTime());
+			contexts[i].setNumStations(stage.getNumStations());
+			contexts[i].setRandomness(streams, stage.getServiceDistribution());
+
+			//Passengers can be routed back to a stage any number of times, so its lines are never bounded
+			for(int j = 0; j < stage.getNumQueues(); j++){
+				contexts[i].addQueue(Simulation.createQueue(stage, calendar, Integer.MAX_VALUE));
+			}
+
+			//Every station starts out idle
+			idleStations[i] = new IdleStations(stage.getNumStations(), stage.getNumQueues());
+			serviceStart[i] = new long[stage.getNumStations()];
+		}
+
+		//Only the next arrival from outside is ever on the calendar
+		ArrivalGenerator arrivals = new ArrivalGenerator(network.getStage(0), arrivalStream);
+		scheduleNextArrival(arrivals, calendar);
+
+		//From coming into the first stage to leaving the last one
+		RunningStatistics endToEnd = new RunningStatistics();
+		RunningStatistics stagesVisited = new RunningStatistics();
+
+		//Process every event in time order until the calendar runs dry
+		while(calendar.hasNext()){
+			Event event = calendar.next();
+			int queueID = event.getQueueID();
+			RoutedPassenger passenger;
+
+			switch(event.getType()){
+				case ARRIVAL:
+					//Passengers from outside are only made routed once they come in, and the next one is
+					//put on the calendar straight away. Anybody else was routed here from another stage
+					if(event.getPassenger() instanceof RoutedPassenger routed){
+						passenger = routed;
+					} else {
+						scheduleNextArrival(arrivals, calendar);
+						passenger = new RoutedPassenger(event.getPassenger(), calendar.now());
+					}
+
+					int stage = passenger.getStage();
+					SimulationContext context = contexts[stage];
+					queueID = dispatchers[stage].selectQueue();
+					passenger.startWaiting(queueID, calendar.now());
+					context.getQueues().get(queueID).offer(passenger);
+
+					//Wake up an idle station that serves this line, if there is one
+					int idleStation = idleStations[stage].pop(queueID);
+					if(idleStation >= 0){
+						serviceStart[stage][idleStation] = calendar.now();
+						startService(idleStation, queueID, context, calendar);
+					}
+
+					//Update queue lengths in context
+					context.setLongestQueueLength(queueID);
+					break;
+
+				case DEPARTURE:
+					passenger = (RoutedPassenger)event.getPassenger();
+					stage = passenger.getStage();
+					context = contexts[stage];
+					int stationID = event.getStationID();
+					passenger.stopWaiting(stationID, calendar.now());
+					context.recordService(queueID, stationID, passenger.getWaitingTimeMillis(),
+										  calendar.now() - serviceStart[stage][stationID]);
+					context.passengerServed();
+					context.stationIdle(stationID);
+					dispatchers[stage].passengerLeft(queueID);
+
+					//The station is free again, so it can immediately take the next passenger from its own line
+					int ownQueue = stationID % context.getNumQueues();
+					serviceStart[stage][stationID] = calendar.now();
+					if(!startService(stationID, ownQueue, context, calendar)){
+						idleStations[stage].push(ownQueue, stationID);
+					}
+
+					//Walking from one stage to the next takes no time
+					int nextStage = network.nextStage(stage, routingStream);
+					if(nextStage >= 0){
+						passenger.moveTo(nextStage);
+						calendar.schedule(calendar.now(), Event.Type.ARRIVAL, -1, -1, passenger);
+					} else {
+						endToEnd.add(calendar.now() - passenger.getEnteredNetwork());
+						stagesVisited.add(passenger.getStagesVisited());
+					}
+					break;
+			}
+		}
+
+		arrivals.close();
+		for(SimulationContext context : contexts){
+			context.setNumPassengers(arrivals.getGenerated());
+		}
+
+		return new NetworkResult(network, contexts, endToEnd, stagesVisited, seed);
+	}
+
+
+	/**
+	 * Helper method for putting the next arrival from outside on the calendar, if anybody else is coming
+	 */
+	private static void scheduleNextArrival(ArrivalGenerator arrivals, EventCalendar calendar){
+		Passenger passenger = arrivals.next();
+		if(passenger != null){
+			calendar.schedule(arrivals.getArrivalTime(), Event.Type.ARRIVAL, -1, -1, passenger);
+		}
+	}
+
+
+	/**
+	 * Helper method for having an idle station of a stage take the next passenger from one of its
+	 * lines. Returns false if nobody was waiting, in which case the station stays idle
+	 */
+	private static boolean startService(int stationID, int queueID, SimulationContext context, EventCalendar calendar){
+		BlockingQueue<Passenger> queue = context.getQueues().get(queueID);
+		Passenger dequeued = queue.poll();
+
+		if(dequeued == null){
+			return false;
+		}
+
+		//Recorded arrivals bring the service time that was observed for them at the first stage,
+		//everybody else gets one drawn from the stream of the station serving them
+		long serviceTime = dequeued.getServiceTime() >= 0 ? dequeued.getServiceTime() : context.drawServiceTime(stationID);
+		context.stationBusy(stationID);
+
+		calendar.schedule(calendar.now() + serviceTime, Event.Type.DEPARTURE, queueID, stationID, dequeued);
+		return true;
+	}
+
+
+	/**
+	 * A helper method for printing the statistics of every stage, the whole trip and the bottleneck
+	 * to the command line
+	 */
+	public static void printNetworkStatistics(NetworkResult result){
+		System.out.println("\n\n=================== Network Statistics ======================");
+		System.out.println("Program Runtime: " + result.getRuntime() + " seconds");
+		System.out.println("Seed: " + result.getSeed());
+		System.out.println("Passengers through the network: " + result.getPassengers() + "\n");
+
+		for(int i = 0; i < result.getNumStages(); i++){
+			SimulationResult stage = result.getStageResult(i);
+			Scenario scenario = result.getScenario(i);
+			System.out.println("Stage " + (i + 1) + "(" + result.getName(i) + ", " + scenario.getStrategy() + " with "
+							   + scenario.getNumStations() + " stations and " + scenario.getNumQueues() + " queues, "
+							   + scenario.getAverageServiceTime() + "s service) Statistics: ");
+			System.out.printf("\tVisits: %d, %.2f per passenger\n", result.getVisits(i), result.getVisitRatio(i));
+			System.out.printf("\tAverage waiting time: %.2f seconds, p95 %.2f, max %.2f seconds\n", result.getAverageWaitTime(i),
+							  result.getWaitTimePercentile(i, 1), stage.getOverallMaxWaitTime());
+			System.out.println("\tLongest length: " + stage.getOverallLongestLength());
+			System.out.printf("\tStations active %.2f%% of the time, offered load %.2f%%\n", stage.getAverageUtilisation(),
+							  result.getOfferedLoad(i));
+			System.out.printf("\tShare of the time spent in the network: %.2f%%\n", result.getTimeShare(i));
+		}
+
+		System.out.println("\nEnd to End Statistics");
+		System.out.printf("\tAverage time in the network: %.2f seconds\n", result.getAverageEndToEnd());
+		System.out.printf("\tTime in the network standard deviation: %.2f seconds\n", result.getEndToEndDeviation());
+		System.out.printf("\tTime in the network percentiles: p50 %.2f, p95 %.2f, p99 %.2f seconds\n", result.getEndToEndPercentile(0),
+						  result.getEndToEndPercentile(1), result.getEndToEndPercentile(2));
+		System.out.printf("\tMaximum time in the network: %.2f seconds\n", result.getMaxEndToEnd());
+		System.out.printf("\tAverage stages visited: %.2f\n", result.getAverageStagesVisited());
+
+		int bottleneck = result.getBottleneck();
+		System.out.printf("\nBottleneck: stage %d(%s), stations active %.2f%% of the time\n", bottleneck + 1,
+						  result.getName(bottleneck), result.getStageResult(bottleneck).getAverageUtilisation());
+		System.out.printf("\tThe network can take at most one arrival every %.2f seconds\n", result.getSaturationArrivalTime());
+
+		//For prettiness
+		System.out.println("\n\n=============================================================");
+	}
+}
@@ -0,0 +1,558 @@
+/**
+ * Author: Jack Robbins
+ * This class describes one simulation setup that can be run over and over again
+ */
+
+package simulation;
+
+import dispatch.DispatchStrategy;
+import distribution.Distribution;
+import distribution.JitterDistribution;
+import eventLog.EventLogMode;
+import queueBackend.BucketedPriorityQueue;
+import queueBackend.PriorityPolicy;
+import queueBackend.QueueBackend;
+import queueOccupant.PassengerStorage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+import java.util.zip.CRC32;
+
+
+/**
+ * A scenario holds only the inputs to a simulation, never any of its state. Every run of
+ * a scenario builds its own context, so one scenario can be shared between threads
+ */
+public class Scenario{
+	private DispatchStrategy strategy;
+	private int duration;
+	private int averageArrivalTime;
+	private int averageServiceTime;
+	private int numStations;
+	private int numQueues;
+	private PassengerStorage passengerStorage;
+	private ExecutionMode executionMode;
+	private QueueBackend queueBackend;
+	private int choices;
+	private boolean workStealing;
+	private double[] classMix;
+	private PriorityPolicy priorityPolicy;
+	private int agingInterval;
+	private EventLogMode eventLogMode;
+	private Path eventLogFile;
+	private Path traceFile;
+	private Path metricsFile;
+	private Path arrivalFile;
+	private Path checkpointFile;
+	private int checkpointInterval;
+	private Path timeSeriesFile;
+	private int sampleInterval;
+	private Distribution arrivalDistribution;
+	private Distribution serviceDistribution;
+
+
+	/**
+	 * Basic constructor, a single queue strategy always has exactly one queue
+	 */
+	public Scenario(DispatchStrategy strategy, int duration, int averageArrivalTime, int averageServiceTime,
+					int numStations, int numQueues){
+		Simulation.validateLayout(numStations, strategy.isSingleQueue() ? 1 : numQueues);
+
+		this.strategy = strategy;
+		this.duration = duration;
+		this.averageArrivalTime = averageArrivalTime;
+		this.averageServiceTime = averageServiceTime;
+		this.numStations = numStations;
+		this.numQueues = strategy.isSingleQueue() ? 1 : numQueues;
+		this.passengerStorage = PassengerStorage.OBJECTS;
+		this.executionMode = ExecutionMode.EXECUTOR;
+		this.queueBackend = QueueBackend.LINKED;
+		this.choices = DispatchStrategy.DEFAULT_CHOICES;
+		this.workStealing = false;
+		this.classMix = new double[]{1};
+		this.priorityPolicy = PriorityPolicy.STRICT;
+		this.agingInterval = averageServiceTime;
+		this.eventLogMode = EventLogMode.CONSOLE;
+		this.eventLogFile = Paths.get("events.csv");
+		this.traceFile = null;
+		this.metricsFile = null;
+		this.arrivalFile = null;
+		this.checkpointFile = null;
+		this.checkpointInterval = 60 * 60;
+		this.timeSeriesFile = null;
+		this.sampleInterval = 1000;
+		this.arrivalDistribution = null;
+		this.serviceDistribution = new JitterDistribution(averageServiceTime, JitterDistribution.DEFAULT_SPREAD);
+	}
+
+
+	/**
+	 * Choose how passengers are kept during a discrete event run. Like every other
+	 * setting, this must be done before the scenario is handed out to be run
+	 */
+	public void setPassengerStorage(PassengerStorage passengerStorage){
+		this.passengerStorage = passengerStorage;
+	}
+
+
+	/**
+	 * Choose how the stations of a real time run are threaded
+	 */
+	public void setExecutionMode(ExecutionMode executionMode){
+		this.executionMode = executionMode;
+	}
+
+
+	/**
+	 * Choose the kind of blocking queue that every line is built on
+	 */
+	public void setQueueBackend(QueueBackend queueBackend){
+		this.queueBackend = queueBackend;
+	}
+
+
+	/**
+	 * Choose how many queues the power of d choices strategy looks at for every entrant
+	 */
+	public void setChoices(int choices){
+		if(choices < 1){
+			throw new IllegalArgumentException("Need to look at one queue or more, got " + choices);
+		}
+
+		this.choices = choices;
+	}
+
+
+	/**
+	 * Let a station whose own line is empty take passengers from the back of other lines.
+	 * Taking from the back needs a deque, so the lines of a work stealing run are always
+	 * LinkedBlockingDeques, whatever the queue backend is set to
+	 */
+	public void setWorkStealing(boolean workStealing){
+		this.workStealing = workStealing;
+	}
+
+
+	/**
+	 * Give passengers priority classes. Each entry is the share of arrivals in that class, with
+	 * the highest priority class first. Shares do not need to add up to one
+	 */
+	public void setPriorityClasses(double... classMix){
+		if(classMix.length < 1 || classMix.length > BucketedPriorityQueue.MAX_CLASSES){
+			throw new IllegalArgumentException("Need between 1 and " + BucketedPriorityQueue.MAX_CLASSES
+											   + " priority classes, got " + classMix.length);
+		}
+
+		double total = 0;
+		for(double share : classMix){
+			if(share < 0){
+				throw new IllegalArgumentException("Priority class shares can not be negative");
+			}
+			total += share;
+		}
+
+		if(total <= 0){
+			throw new IllegalArgumentException("At least one priority class needs a share of the arrivals");
+		}
+
+		this.classMix = classMix.clone();
+	}
+
+
+	/**
+	 * Choose how a priority line picks the class it serves next
+	 */
+	public void setPriorityPolicy(PriorityPolicy priorityPolicy){
+		this.priorityPolicy = priorityPolicy;
+	}
+
+
+	/**
+	 * Choose how many seconds of waiting move a passenger up one class under the aging policy.
+	 * This starts out as the average service time
+	 */
+	public void setAgingInterval(int agingInterval){
+		if(agingInterval < 1){
+			throw new IllegalArgumentException("The aging interval must be at least one second, got " + agingInterval);
+		}
+
+		this.agingInterval = agingInterval;
+	}
+
+
+	/**
+	 * Choose where a real time run logs every enqueue and dequeue. This starts out as the console
+	 */
+	public void setEventLogMode(EventLogMode eventLogMode){
+		this.eventLogMode = eventLogMode;
+	}
+
+
+	/**
+	 * Choose the file that the event log is written to in FILE mode
+	 */
+	public void setEventLogFile(Path eventLogFile){
+		this.eventLogFile = eventLogFile;
+	}
+
+
+	/**
+	 * Record a binary trace of the run to the given file, or pass null for no trace
+	 */
+	public void setTraceFile(Path traceFile){
+		this.traceFile = traceFile;
+	}
+
+
+	/**
+	 * Publish live metrics of the run over JMX and to the given Prometheus text file, or pass null
+	 * to leave them off
+	 */
+	public void setMetricsFile(Path metricsFile){
+		this.metricsFile = metricsFile;
+	}
+
+
+	/**
+	 * Replay the arrivals in a recorded log instead of making them up, or pass null for synthetic
+	 * arrivals. Arrivals more than the duration after the first one are not replayed
+	 */
+	public void setArrivalFile(Path arrivalFile){
+		this.arrivalFile = arrivalFile;
+	}
+
+
+	/**
+	 * Take a snapshot of a discrete event run to the given file every checkpoint interval, so that it can
+	 * be picked up again after it dies, or pass null for no snapshots
+	 */
+	public void setCheckpointFile(Path checkpointFile){
+		this.checkpointFile = checkpointFile;
+	}
+
+
+	/**
+	 * Choose how many seconds of simulated time go by between two snapshots
+	 */
+	public void setCheckpointInterval(int checkpointInterval){
+		if(checkpointInterval < 1){
+			throw new IllegalArgumentException("Checkpoints need to be at least a second apart, got " + checkpointInterval);
+		}
+
+		this.checkpointInterval = checkpointInterval;
+	}
+
+
+	/**
+	 * Sample how deep every queue is and whether every station is busy into a time series file every
+	 * sample interval, or pass null for no samples
+	 */
+	public void setTimeSeriesFile(Path timeSeriesFile){
+		this.timeSeriesFile = timeSeriesFile;
+	}
+
+
+	/**
+	 * Choose how many milliseconds of run time go by between two samples
+	 */
+	public void setSampleInterval(int sampleInterval){
+		if(sampleInterval < 1){
+			throw new IllegalArgumentException("Samples need to be at least a millisecond apart, got " + sampleInterval);
+		}
+
+		this.sampleInterval = sampleInterval;
+	}
+
+
+	/**
+	 * Draw the gaps between arrivals from a distribution, or pass null for the original arrivals,
+	 * which are evenly spaced by the average arrival time give or take up to 2 seconds
+	 */
+	public void setArrivalDistribution(Distribution arrivalDistribution){
+		this.arrivalDistribution = arrivalDistribution;
+	}
+
+
+	/**
+	 * Draw service times from a distribution. This starts out as the average service time give or
+	 * take up to 2 seconds
+	 */
+	public void setServiceDistribution(Distribution serviceDistribution){
+		if(serviceDistribution == null){
+			throw new IllegalArgumentException("A service distribution is required");
+		}
+
+		this.serviceDistribution = serviceDistribution;
+	}
+
+
+	/**
+	 * Draw the arrival time in milliseconds of passenger number i, given the arrival time of the
+	 * passenger before them. Original arrivals can come slightly out of order, arrivals drawn from
+	 * a distribution never do
+	 */
+	public long drawArrivalTime(int i, long previousArrival, RandomGenerator random){
+		if(this.arrivalDistribution == null){
+			//+/- 2 seconds randomly for arrival
+			return (i * this.averageArrivalTime + random.nextInt(-2, 2)) * 1000L;
+		}
+
+		return (i == 0 ? 0 : previousArrival) + this.arrivalDistribution.sampleMillis(random);
+	}
+
+
+	/**
+	 * Draw the priority class of a new arrival according to the class mix. Nothing is drawn from
+	 * the random when there is only one class, so runs without priorities are not changed
+	 */
+	public int drawPriorityClass(RandomGenerator random){
+		if(this.classMix.length == 1){
+			return 0;
+		}
+
+		double total = 0;
+		for(double share : this.classMix){
+			total += share;
+		}
+
+		double draw = random.nextDouble() * total;
+		for(int i = 0; i < this.classMix.length - 1; i++){
+			draw -= this.classMix[i];
+			if(draw < 0){
+				return i;
+			}
+		}
+
+		return this.classMix.length - 1;
+	}
+
+
+	/**
+	 * A simple helper method to get the dispatch strategy
+	 */
+	public DispatchStrategy getStrategy(){
+		return this.strategy;
+	}
+
+
+	/**
+	 * A simple helper method to get the duration in seconds
+	 */
+	public int getDuration(){
+		return this.duration;
+	}
+
+
+	/**
+	 * A simple helper method to get the average arrival time in seconds
+	 */
+	public int getAverageArrivalTime(){
+		return this.averageArrivalTime;
+	}
+
+
+	/**
+	 * A simple helper method to get the average service time in seconds
+	 */
+	public int getAverageServiceTime(){
+		return this.averageServiceTime;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of service stations
+	 */
+	public int getNumStations(){
+		return this.numStations;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of queues
+	 */
+	public int getNumQueues(){
+		return this.numQueues;
+	}
+
+
+	/**
+	 * A simple helper method to get how passengers are kept during a discrete event run
+	 */
+	public PassengerStorage getPassengerStorage(){
+		return this.passengerStorage;
+	}
+
+
+	/**
+	 * A simple helper method to get how the stations of a real time run are threaded
+	 */
+	public ExecutionMode getExecutionMode(){
+		return this.executionMode;
+	}
+
+
+	/**
+	 * A simple helper method to get the kind of blocking queue that every line is built on
+	 */
+	public QueueBackend getQueueBackend(){
+		return this.queueBackend;
+	}
+
+
+	/**
+	 * A simple helper method to get how many queues the power of d choices strategy looks at
+	 */
+	public int getChoices(){
+		return this.choices;
+	}
+
+
+	/**
+	 * A simple helper method to get whether idle stations steal from other lines. A single
+	 * line has nobody to steal from, so it never does
+	 */
+	public boolean isWorkStealing(){
+		return this.workStealing && this.numQueues > 1;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of priority classes
+	 */
+	public int getNumClasses(){
+		return this.classMix.length;
+	}
+
+
+	/**
+	 * A simple helper method to get how a priority line picks the class it serves next
+	 */
+	public PriorityPolicy getPriorityPolicy(){
+		return this.priorityPolicy;
+	}
+
+
+	/**
+	 * A simple helper method to get the aging interval in seconds
+	 */
+	public int getAgingInterval(){
+		return this.agingInterval;
+	}
+
+
+	/**
+	 * A simple helper method to get where a real time run logs its events
+	 */
+	public EventLogMode getEventLogMode(){
+		return this.eventLogMode;
+	}
+
+
+	/**
+	 * A simple helper method to get the file that the event log is written to
+	 */
+	public Path getEventLogFile(){
+		return this.eventLogFile;
+	}
+
+
+	/**
+	 * A simple helper method to get the file that the trace is recorded to, null if there is no trace
+	 */
+	public Path getTraceFile(){
+		return this.traceFile;
+	}
+
+
+	/**
+	 * A simple helper method to get the Prometheus text file of the live metrics, null when they are off
+	 */
+	public Path getMetricsFile(){
+		return this.metricsFile;
+	}
+
+
+	/**
+	 * A simple helper method to get the arrival log that is replayed, null for synthetic arrivals
+	 */
+	public Path getArrivalFile(){
+		return this.arrivalFile;
+	}
+
+
+	/**
+	 * A simple helper method to get the file that snapshots of the run are taken to, null when there are none
+	 */
+	public Path getCheckpointFile(){
+		return this.checkpointFile;
+	}
+
+
+	/**
+	 * A simple helper method to get the simulated seconds between two snapshots
+	 */
+	public int getCheckpointInterval(){
+		return this.checkpointInterval;
+	}
+
+
+	/**
+	 * A simple helper method to get the file that the time series is sampled to, null when there is none
+	 */
+	public Path getTimeSeriesFile(){
+		return this.timeSeriesFile;
+	}
+
+
+	/**
+	 * A simple helper method to get the milliseconds between two samples
+	 */
+	public int getSampleInterval(){
+		return this.sampleInterval;
+	}
+
+
+	/**
+	 * A simple helper method to get the distribution of the gaps between arrivals, null for the original arrivals
+	 */
+	public Distribution getArrivalDistribution(){
+		return this.arrivalDistribution;
+	}
+
+
+	/**
+	 * A simple helper method to get the distribution of service times
+	 */
+	public Distribution getServiceDistribution(){
+		return this.serviceDistribution;
+	}
+
+
+	/**
+	 * A fingerprint of every setting the results of a run on the simulated clock depend on. The
+	 * description of the scenario leaves out the distributions, the backend, the storage and the
+	 * priority class settings, so they are added to it here
+	 */
+	public int getFingerprint(){
+		CRC32 checksum = new CRC32();
+		checksum.update((this + " arrivals " + Distribution.describe(this.arrivalDistribution) + " service "
+						 + Distribution.describe(this.serviceDistribution) + " backend " + this.queueBackend + " storage "
+						 + this.passengerStorage + " classes " + Arrays.toString(this.classMix) + " aging "
+						 + this.agingInterval).getBytes(StandardCharsets.UTF_8));
+		return (int)checksum.getValue();
+	}
+
+
+	@Override
+	public String toString(){
+		String strategy = this.strategy == DispatchStrategy.POWER_OF_CHOICES ? this.strategy + "(d=" + this.choices + ")"
+																			  : this.strategy.toString();
+		return strategy + " with " + this.numStations + " stations and " + this.numQueues + " queues, "
+			   + this.averageArrivalTime + "s arrivals, " + this.averageServiceTime + "s service for "
+			   + this.duration + "s" + (this.arrivalFile != null ? " replaying " + this.arrivalFile : "")
+			   + (this.isWorkStealing() ? " with work stealing" : "")
+			   + (this.classMix.length > 1 ? ", " + this.classMix.length + " priority classes(" + this.priorityPolicy + ")" : "");
+	}
+}
@@ -3,442 +3,611 @@
  *
  * This class contains the simulation of queueing strategies(Strategy Pattern)
  * Strategies included are 
- * 	- Single queue with 5 service stations
+ * 	- Single queue with any number of service stations
  * 	- Multiple queues with a round robin dispatch
  * 	- Multiple queues with a shortest queue dispatch
  * 	- Multiple queues with a random queue dispatch
+ * 	- Multiple queues with a power of d choices dispatch
  *
- * 	Using ScheduledExecutorService for simulation of enqueueing and dequeueing
+ * 	Using ScheduledExecutorService or virtual threads for simulation of enqueueing and dequeueing
  */
 
 package simulation;
 
+import dispatch.DispatchStrategy;
+import dispatch.Dispatcher;
+import distribution.RandomStreams;
+import eventLog.EventLog;
+import metrics.LiveMetrics;
+import queueBackend.BucketedPriorityQueue;
+import queueBackend.PriorityPolicy;
+import queueBackend.QueueBackend;
 import queueOccupant.Passenger;
-import java.util.Random;
+import timeSeries.TimeSeriesSampler;
+import trace.TraceRecorder;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 
 /**
- * This class contains four separate simulations, all of which must
+ * This class contains five separate simulations, all of which must
  * be called statically 
  */
 public class Simulation{
+	//Number of service stations when none is given
+	public static final int DEFAULT_NUM_STATIONS = 5;
+
+	//How long a work stealing station with nothing to do waits on its own line before looking again, in milliseconds
+	private static final long STEAL_INTERVAL = 100;
+
+
 	/**
 	 * A simulation in which all passengers are taken from a single queue when ready
 	 */
 	public static void single_QueueSimulation(int duration, int averageArrivalTime, int averageServiceTime){
-		//Create a context object that we will use for passing values
-		SimulationContext context = new SimulationContext();
-		context.setStartTime(System.currentTimeMillis());
-		context.setAverageServiceTime(averageServiceTime);
+		single_QueueSimulation(duration, averageArrivalTime, averageServiceTime, DEFAULT_NUM_STATIONS);
+	}
 
-		//Num passengers will be the duration divided by average arrival
-		int numPassengers = duration / averageArrivalTime;
-		context.setNumPassengers(numPassengers);	
 
-		//Single blocking queue for all of our passengers
-		BlockingQueue<Passenger> line = new LinkedBlockingQueue<>(numPassengers);
-		context.addQueue(line);	
+	/**
+	 * A simulation in which all passengers are taken from a single queue when ready, served by
+	 * the given number of service stations
+	 */
+	public static void single_QueueSimulation(int duration, int averageArrivalTime, int averageServiceTime, int numStations){
+		single_QueueSimulation(duration, averageArrivalTime, averageServiceTime, numStations, ExecutionMode.EXECUTOR);
+	}
 
-		//5 service stations
-		ScheduledExecutorService service1 = Executors.newScheduledThreadPool(1);
-		ScheduledExecutorService service2 = Executors.newScheduledThreadPool(1);
-		ScheduledExecutorService service3 = Executors.newScheduledThreadPool(1);
-		ScheduledExecutorService service4 = Executors.newScheduledThreadPool(1);
-		ScheduledExecutorService service5 = Executors.newScheduledThreadPool(1);
 
-		//Dispatch thread
-		ScheduledExecutorService passengerPool = Executors.newScheduledThreadPool(1);
+	/**
+	 * A simulation in which all passengers are taken from a single queue when ready, served by
+	 * the given number of service stations running in the given execution mode
+	 */
+	public static void single_QueueSimulation(int duration, int averageArrivalTime, int averageServiceTime, int numStations,
+											  ExecutionMode mode){
+		Scenario scenario = new Scenario(DispatchStrategy.SINGLE_QUEUE, duration, averageArrivalTime, averageServiceTime, numStations, 1);
+		scenario.setExecutionMode(mode);
+		runScenario(scenario);
+	}
 
-		//Initialize a random for some randomness in times
-		Random random = new Random(System.currentTimeMillis());
-
-		//Keep an array of passengers for timing
-		Passenger[] passengers = new Passenger[numPassengers];
-		context.setPassengers(passengers);
-
-		//Randomly schedule the arrival for all passengers
-		for(int i = 0; i < numPassengers; i++){
-			//+/- 2 seconds randomly for arrival
-			int	delaySeconds = i * averageArrivalTime + random.nextInt(-2, 2);
-			passengers[i] = new Passenger();
-			//Local copy to avoid compile error
-			Passenger entrant = passengers[i];
-			//Schedule passenger pool entrance
-			passengerPool.schedule(() -> enqueue(0, entrant, context), delaySeconds, TimeUnit.SECONDS);
-			//Schedule the dequeue for each service station
-		}
 
-		//Immediately begin dequeueing from the pool
-		for(int i = 0; i < numPassengers; i++){
-			//When the pool is empty, each service station is ready to dequeue	
-			//Schedule the dequeue for each service station
-			switch(i % 5){
-				case 0: 
-					service1.schedule(() -> dequeue(0, 0, context), 1, TimeUnit.SECONDS);	
-					break;
-				case 1:
-					service2.schedule(() -> dequeue(0, 1, context), 1, TimeUnit.SECONDS);	
-					break;
-				case 2:	
-					service3.schedule(() -> dequeue(0, 2, context), 1, TimeUnit.SECONDS);	
-					break;
-				case 3:
-					service4.schedule(() -> dequeue(0, 3, context), 1, TimeUnit.SECONDS);	
-					break;
-				case 4:	
-					service5.schedule(() -> dequeue(0, 4, context), 1, TimeUnit.SECONDS);		
-					break;
-			}
-		}
+	/**
+	 * Queueing simulation with a round robin dispatch strategy
+	 */
+	public static void multi_RoundRobinSimulation(int duration, int averageArrivalTime, int averageServiceTime){
+		multi_RoundRobinSimulation(duration, averageArrivalTime, averageServiceTime, DEFAULT_NUM_STATIONS, DEFAULT_NUM_STATIONS);
+	}
 
-		//Shutdown
-		service1.shutdown();
-		service2.shutdown();
-		service3.shutdown();
-		service4.shutdown();
-		service5.shutdown();
-		passengerPool.shutdown();
-	
-		//Blocking while loop for service station termination
-		while(!service1.isTerminated() || !service2.isTerminated() || 
-			  !service3.isTerminated() || !service4.isTerminated() ||
-			  !service5.isTerminated() || !passengerPool.isTerminated());
 
-		
-		//Print runtime statistics to the console
-		printRuntimeStatistics(context);
+	/**
+	 * Queueing simulation with a round robin dispatch strategy over the given number of stations and queues
+	 */
+	public static void multi_RoundRobinSimulation(int duration, int averageArrivalTime, int averageServiceTime,
+												  int numStations, int numQueues){
+		multi_RoundRobinSimulation(duration, averageArrivalTime, averageServiceTime, numStations, numQueues, ExecutionMode.EXECUTOR);
 	}
 
 
 	/**
-	 * Queueing simulation with a round robin dispatch strategy
+	 * Queueing simulation with a round robin dispatch strategy over the given number of stations and
+	 * queues, running in the given execution mode
 	 */
-	public static void multi_RoundRobinSimulation(int duration, int averageArrivalTime, int averageServiceTime){
-		//Create the context object that we will use for passing values
-		SimulationContext context = new SimulationContext();
-		context.setStartTime(System.currentTimeMillis());
-		context.setAverageServiceTime(averageServiceTime);
-
-		//Num passengers will be the duration divided by average arrival
-		int numPassengers = duration / averageArrivalTime;
-		context.setNumPassengers(numPassengers);
+	public static void multi_RoundRobinSimulation(int duration, int averageArrivalTime, int averageServiceTime,
+												  int numStations, int numQueues, ExecutionMode mode){
+		Scenario scenario = new Scenario(DispatchStrategy.ROUND_ROBIN, duration, averageArrivalTime, averageServiceTime,
+										 numStations, numQueues);
+		scenario.setExecutionMode(mode);
+		runScenario(scenario);
+	}
 
-		//Initialize the random element for time randomness
-		Random random = new Random(System.currentTimeMillis());
-
-		//5 service lines for this simulation -- one per service station
-		BlockingQueue<Passenger> service1_line = new LinkedBlockingQueue<>(numPassengers);
-		BlockingQueue<Passenger> service2_line = new LinkedBlockingQueue<>(numPassengers);
-		BlockingQueue<Passenger> service3_line = new LinkedBlockingQueue<>(numPassengers);
-		BlockingQueue<Passenger> service4_line = new LinkedBlockingQueue<>(numPassengers);
-		BlockingQueue<Passenger> service5_line = new LinkedBlockingQueue<>(numPassengers);
-
-		context.addQueue(service1_line);
-		context.addQueue(service2_line);
-		context.addQueue(service3_line);
-		context.addQueue(service4_line);
-		context.addQueue(service5_line);
-
-
-		//5 service stations
-		ScheduledExecutorService service1 = Executors.newScheduledThreadPool(1);
-		ScheduledExecutorService service2 = Executors.newScheduledThreadPool(1);
-		ScheduledExecutorService service3 = Executors.newScheduledThreadPool(1);
-		ScheduledExecutorService service4 = Executors.newScheduledThreadPool(1);
-		ScheduledExecutorService service5 = Executors.newScheduledThreadPool(1);
 	
-		//1 queue for passengers to enter from
-		ScheduledExecutorService passengerPool = Executors.newScheduledThreadPool(1);
+	/**
+	 * Simulation in which the shortest queue is always chosen for entrants
+	 */
+	public static void multi_ShortestQueueSimulation(int duration, int averageArrivalTime, int averageServiceTime){
+		multi_ShortestQueueSimulation(duration, averageArrivalTime, averageServiceTime, DEFAULT_NUM_STATIONS, DEFAULT_NUM_STATIONS);
+	}
 
-		//Keep an array of passengers for timing
-		Passenger[] passengers = new Passenger[numPassengers];
-		context.setPassengers(passengers);
 
-		int[] occupancy = new int[5];
+	/**
+	 * Simulation in which the shortest queue is always chosen for entrants, over the given number
+	 * of stations and queues
+	 */
+	public static void multi_ShortestQueueSimulation(int duration, int averageArrivalTime, int averageServiceTime,
+													 int numStations, int numQueues){
+		multi_ShortestQueueSimulation(duration, averageArrivalTime, averageServiceTime, numStations, numQueues, ExecutionMode.EXECUTOR);
+	}
 
-		//Schedule all of the passengers
-		for(int i = 0; i < numPassengers; i++){
-			//Calculate the arrival time with a random element
-			int delaySeconds = i * averageArrivalTime + random.nextInt(-2, 2);
-			//Make our new passenger
-			passengers[i] = new Passenger();
-			Passenger entrant = passengers[i];
 
-			//Round robin dispatch strategy
-			final int queueNum = i % 5;
-			passengerPool.schedule(() -> enqueue(queueNum, entrant, context), delaySeconds, TimeUnit.SECONDS);
-			occupancy[queueNum]++;
-		}
+	/**
+	 * Simulation in which the shortest queue is always chosen for entrants, over the given number
+	 * of stations and queues, running in the given execution mode
+	 */
+	public static void multi_ShortestQueueSimulation(int duration, int averageArrivalTime, int averageServiceTime,
+													 int numStations, int numQueues, ExecutionMode mode){
+		Scenario scenario = new Scenario(DispatchStrategy.SHORTEST_QUEUE, duration, averageArrivalTime, averageServiceTime,
+										 numStations, numQueues);
+		scenario.setExecutionMode(mode);
+		runScenario(scenario);
+	}
 
-		//Schedule the appropriate dequeue based on occupancy
-		for(int i = 0; i < occupancy[0]; i++){
-			service1.schedule(() -> dequeue(0, 0, context), 1, TimeUnit.SECONDS);	
-		}
 
-		for(int i = 0; i < occupancy[1]; i++){
-			service2.schedule(() -> dequeue(1, 1, context), 1, TimeUnit.SECONDS);	
-		}
+	/**
+	 * A simulation where each entrant is assigned to a queue at random
+	 */
+	public static void multi_RandomQueueSimulation(int duration, int averageArrivalTime, int averageServiceTime){
+		multi_RandomQueueSimulation(duration, averageArrivalTime, averageServiceTime, DEFAULT_NUM_STATIONS, DEFAULT_NUM_STATIONS);
+	}
 
-		for(int i = 0; i < occupancy[2]; i++){
-			service3.schedule(() -> dequeue(2, 2, context), 1, TimeUnit.SECONDS);	
-		}
 
-		for(int i = 0; i < occupancy[3]; i++){
-			service4.schedule(() -> dequeue(3, 3, context), 1, TimeUnit.SECONDS);	
-		}
+	/**
+	 * A simulation where each entrant is assigned to a queue at random, over the given number of
+	 * stations and queues
+	 */
+	public static void multi_RandomQueueSimulation(int duration, int averageArrivalTime, int averageServiceTime,
+												   int numStations, int numQueues){
+		multi_RandomQueueSimulation(duration, averageArrivalTime, averageServiceTime, numStations, numQueues, ExecutionMode.EXECUTOR);
+	}
 
-		for(int i = 0; i < occupancy[4]; i++){
-			service5.schedule(() -> dequeue(4, 4, context), 1, TimeUnit.SECONDS);	
-		}
-		
 
-		//Shutdown
-		service1.shutdown();
-		service2.shutdown();
-		service3.shutdown();
-		service4.shutdown();
-		service5.shutdown();
-		passengerPool.shutdown();
-	
-		//Blocking while loop for service station termination
-		while(!service1.isTerminated() || !service2.isTerminated() || 
-			  !service3.isTerminated() || !service4.isTerminated() ||
-			  !service5.isTerminated() || !passengerPool.isTerminated());
+	/**
+	 * A simulation where each entrant is assigned to a queue at random, over the given number of
+	 * stations and queues, running in the given execution mode
+	 */
+	public static void multi_RandomQueueSimulation(int duration, int averageArrivalTime, int averageServiceTime,
+												   int numStations, int numQueues, ExecutionMode mode){
+		Scenario scenario = new Scenario(DispatchStrategy.RANDOM_QUEUE, duration, averageArrivalTime, averageServiceTime,
+										 numStations, numQueues);
+		scenario.setExecutionMode(mode);
+		runScenario(scenario);
+	}
 
-		//Print runtime statistics to the console
-		printRuntimeStatistics(context);	
+
+	/**
+	 * A simulation where each entrant looks at a few queues picked at random and joins the shortest
+	 * of them, over the given number of stations and queues
+	 */
+	public static void multi_PowerOfChoicesSimulation(int duration, int averageArrivalTime, int averageServiceTime,
+													   int numStations, int numQueues, int choices){
+		multi_PowerOfChoicesSimulation(duration, averageArrivalTime, averageServiceTime, numStations, numQueues, choices,
+									   ExecutionMode.EXECUTOR);
 	}
 
-	
+
 	/**
-	 * Simulation in which the shortest queue is always chosen for entrants
+	 * A simulation where each entrant looks at a few queues picked at random and joins the shortest
+	 * of them, over the given number of stations and queues, running in the given execution mode
 	 */
-	public static void multi_ShortestQueueSimulation(int duration, int averageArrivalTime, int averageServiceTime){
-		//Initialize the context object that we will use for passing values
+	public static void multi_PowerOfChoicesSimulation(int duration, int averageArrivalTime, int averageServiceTime,
+													   int numStations, int numQueues, int choices, ExecutionMode mode){
+		Scenario scenario = new Scenario(DispatchStrategy.POWER_OF_CHOICES, duration, averageArrivalTime, averageServiceTime,
+										 numStations, numQueues);
+		scenario.setChoices(choices);
+		scenario.setExecutionMode(mode);
+		runScenario(scenario);
+	}
+
+
+	/**
+	 * Run any scenario in real time and print its statistics. Every strategy is the same
+	 * simulation with a different dispatcher. Station i serves queue i % numQueues, so with
+	 * one queue every station serves it
+	 */
+	public static void runScenario(Scenario scenario){
+		runScenario(scenario, System.currentTimeMillis());
+	}
+
+
+	/**
+	 * Run any scenario in real time with every random stream split off of the given seed, and print
+	 * its statistics. The same seed always draws the same arrivals and service times, although the
+	 * order that threads get to the queues in can still differ from run to run
+	 */
+	public static void runScenario(Scenario scenario, long seed){
+		//Every station and the arrivals get their own stream for some randomness in times
+		RandomStreams streams = new RandomStreams(seed, scenario.getNumStations());
+		Dispatcher dispatcher = scenario.getStrategy().createDispatcher(scenario.getNumQueues(), scenario.getChoices(),
+																		  streams.getDispatchRandom());
+
+		int duration = scenario.getDuration();
+		int averageArrivalTime = scenario.getAverageArrivalTime();
+		int averageServiceTime = scenario.getAverageServiceTime();
+		int numStations = scenario.getNumStations();
+		int numQueues = scenario.getNumQueues();
+		ExecutionMode mode = scenario.getExecutionMode();
+		validateArrivals(scenario);
+
+		//Threads that are part way through a sleep can not be written out, so only the simulated clock is checkpointed
+		if(scenario.getCheckpointFile() != null){
+			throw new IllegalArgumentException("Checkpoints are only taken of runs on the simulated clock");
+		}
+
+		//Create a context object that we will use for passing values
 		SimulationContext context = new SimulationContext();
 		context.setStartTime(System.currentTimeMillis());
 		context.setAverageServiceTime(averageServiceTime);
+		context.setNumStations(numStations);
+		context.setRandomness(streams, scenario.getServiceDistribution());
 
 		//Num passengers will be the duration divided by average arrival
 		int numPassengers = duration / averageArrivalTime;
 		context.setNumPassengers(numPassengers);
 
-		Random random = new Random(System.currentTimeMillis());
+		//One blocking queue per line, built on whichever backend the scenario asks for
+		for(int i = 0; i < numQueues; i++){
+			context.addQueue(createQueue(scenario, context.getClock(), numPassengers));
+		}
+		context.setWorkStealing(scenario.isWorkStealing());
+		context.setPriorityClasses(scenario.getNumClasses(), scenario.getPriorityPolicy());
+
+		//Arrivals are only made as the dispatch thread lets them in, and a recorded log is streamed from
+		//disk the same way. Which line they join is only decided when they arrive, so that the
+		//dispatcher can look at the queues as they are at that moment
+		ArrivalGenerator arrivals = new ArrivalGenerator(scenario, streams.getArrivalStream());
+
+		//Stations record what they do into the event log instead of printing it themselves
+		context.setEventLog(EventLog.create(scenario.getEventLogMode(), scenario.getEventLogFile(),
+											context.getClock()::now, context.getStartTime()));
+		if(scenario.getTraceFile() != null){
+			context.setTraceRecorder(TraceRecorder.create(scenario.getTraceFile(), numQueues, numStations, context.getStartTime()));
+		}
+		if(scenario.getMetricsFile() != null){
+			context.setTraceRecorder(context.getTraceRecorder().andThen(
+				LiveMetrics.create(numQueues, numStations, context.getStartTime(), scenario.getMetricsFile())));
+		}
 
-		//5 service lines for this simulation -- one per service station
-		BlockingQueue<Passenger> service1_line = new LinkedBlockingQueue<>(numPassengers);
-		BlockingQueue<Passenger> service2_line = new LinkedBlockingQueue<>(numPassengers);
-		BlockingQueue<Passenger> service3_line = new LinkedBlockingQueue<>(numPassengers);
-		BlockingQueue<Passenger> service4_line = new LinkedBlockingQueue<>(numPassengers);
-		BlockingQueue<Passenger> service5_line = new LinkedBlockingQueue<>(numPassengers);
+		//Samples are taken on a thread of their own, by the wall clock
+		TimeSeriesSampler sampler = createSampler(scenario, numQueues, numStations);
+		if(sampler != null){
+			sampler.sampleEvery(() -> context.getClock().now() - context.getStartTime(),
+								queueID -> context.getQueues().get(queueID).size(),
+								stationID -> context.getStationBusyTime(stationID).isBusy());
+		}
 
-		context.addQueue(service1_line);
-		context.addQueue(service2_line);
-		context.addQueue(service3_line);
-		context.addQueue(service4_line);
-		context.addQueue(service5_line);
+		//Track the platform threads that are alive during the run
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		threadBean.resetPeakThreadCount();
+
+		int threadsStarted = 0;
+		switch(mode){
+			case EXECUTOR:
+				threadsStarted = runOnExecutors(context, arrivals, dispatcher);
+				break;
+			case VIRTUAL_THREAD:
+				threadsStarted = runOnVirtualThreads(context, arrivals, dispatcher);
+				break;
+		}
 
+		//A log can run out before the duration of the scenario is up
+		arrivals.close();
+		context.setNumPassengers(arrivals.getGenerated());
 
-		//5 service stations
-		ScheduledExecutorService service1 = Executors.newScheduledThreadPool(1);
-		ScheduledExecutorService service2 = Executors.newScheduledThreadPool(1);
-		ScheduledExecutorService service3 = Executors.newScheduledThreadPool(1);
-		ScheduledExecutorService service4 = Executors.newScheduledThreadPool(1);
-		ScheduledExecutorService service5 = Executors.newScheduledThreadPool(1);
-	
-		//1 queue for passengers to enter from
-		ScheduledExecutorService passengerPool = Executors.newScheduledThreadPool(1);
+		//Every station is done, so whatever is still buffered can be written out before the statistics
+		context.getEventLog().close();
+		context.getTraceRecorder().close();
+		if(sampler != null){
+			sampler.close();
+		}
+
+		//Print runtime statistics to the console
+		printRuntimeStatistics(context);
+		printSchedulerStatistics(context, mode, threadsStarted, threadBean.getPeakThreadCount());
+		printQueueBackendStatistics(context, scenario.getQueueBackend());
+	}
 
 
-		//Keep an array of passengers for timing
-		Passenger[] passengers = new Passenger[numPassengers];
-		context.setPassengers(passengers);
-		
-		int[] occupancy = new int[5];
-		
-		int shortestQueueID = 0;
+	/**
+	 * Make the time series sampler of a run, or return null if the scenario does not ask for one
+	 */
+	static TimeSeriesSampler createSampler(Scenario scenario, int numQueues, int numStations){
+		if(scenario.getTimeSeriesFile() == null){
+			return null;
+		}
 
-		//Schedule all of the passengers
-		for(int i = 0; i < numPassengers; i++){	
-	
-			//Recalculate shortest queue
-			int shortestQueueLength = 100;
-			for(int j = 0; j < 5; j++){
-				if(occupancy[j] < shortestQueueLength){
-					shortestQueueID = j;
-					shortestQueueLength = occupancy[j];
-				}
+		return TimeSeriesSampler.create(scenario.getTimeSeriesFile(), numQueues, numStations, scenario.getSampleInterval());
+	}
+
+
+	/**
+	 * Make one line for a scenario. Thieves take from the back of a line, so a work stealing run
+	 * always uses deques, and a run with priority classes uses a bucket per class on the given clock.
+	 * Anything else is built on the backend that the scenario asks for
+	 */
+	static BlockingQueue<Passenger> createQueue(Scenario scenario, SimulationClock clock, int capacity){
+		if(scenario.getNumClasses() > 1){
+			if(scenario.isWorkStealing()){
+				throw new IllegalArgumentException("Priority classes can not be combined with work stealing");
 			}
 
-			//Calculate the arrival time with a random element
-			int delaySeconds = i * averageArrivalTime + random.nextInt(-2, 2);
-			//Make our new passenger
-			passengers[i] = new Passenger();
-			Passenger entrant = passengers[i];
-			
-			final int shortestQueue = shortestQueueID;
-			//Shortest queue dispatch strategy
-			passengerPool.schedule(() -> enqueue(shortestQueue, entrant, context), delaySeconds, TimeUnit.SECONDS);
-			occupancy[shortestQueue]++;
+			long agingInterval = scenario.getPriorityPolicy() == PriorityPolicy.AGING ? scenario.getAgingInterval() * 1000L : 0;
+			return new BucketedPriorityQueue<>(scenario.getNumClasses(), Passenger::getPriorityClass,
+											   Passenger::getWaitingStartTime, clock::now, agingInterval);
 		}
 
-		//Schedule the appropriate dequeue based on occupancy
-		for(int i = 0; i < occupancy[0]; i++){
-			service1.schedule(() -> dequeue(0, 0, context), 1, TimeUnit.SECONDS);	
+		if(scenario.isWorkStealing()){
+			return new LinkedBlockingDeque<>();
 		}
 
-		for(int i = 0; i < occupancy[1]; i++){
-			service2.schedule(() -> dequeue(1, 1, context), 1, TimeUnit.SECONDS);	
+		//Nobody knows how many arrivals a log holds until it is read, so its lines are never bounded
+		return scenario.getQueueBackend().create(scenario.getArrivalFile() != null ? Integer.MAX_VALUE : capacity);
+	}
+
+
+	/**
+	 * Run the stations and the arrivals on scheduled executors, one platform thread each. Only the
+	 * next arrival is ever waiting on the dispatch executor, and it schedules the one after it when
+	 * it fires. Every station runs one long task that serves whoever it is handed until nobody else
+	 * is coming, or finds its own work if the stations steal. Returns the number of threads started
+	 */
+	private static int runOnExecutors(SimulationContext context, ArrivalGenerator arrivals, Dispatcher dispatcher){
+		int numStations = context.getNumStations();
+		int numQueues = context.getQueues().size();
+
+		//One executor per service station
+		ScheduledExecutorService[] stations = new ScheduledExecutorService[numStations];
+		for(int i = 0; i < numStations; i++){
+			stations[i] = Executors.newScheduledThreadPool(1);
 		}
 
-		for(int i = 0; i < occupancy[2]; i++){
-			service3.schedule(() -> dequeue(2, 2, context), 1, TimeUnit.SECONDS);	
+		//Dispatch thread
+		ScheduledExecutorService passengerPool = Executors.newScheduledThreadPool(1);
+
+		//Only the dispatch thread hands out stations, so this needs no locking
+		int[] nextStation = IntStream.range(0, numQueues).toArray();
+		ArrayList<BlockingQueue<Integer>> tickets = createTickets(numStations);
+		AtomicInteger remaining = new AtomicInteger(1);
+
+		passengerPool.execute(() -> scheduleNextArrival(passengerPool, arrivals, context, dispatcher, nextStation, tickets, remaining));
+
+		for(int stationID = 0; stationID < numStations; stationID++){
+			final int station = stationID;
+			stations[station].execute(() -> runStation(station, context, dispatcher, tickets.get(station), remaining));
 		}
 
-		for(int i = 0; i < occupancy[3]; i++){
-			service4.schedule(() -> dequeue(3, 3, context), 1, TimeUnit.SECONDS);	
+		for(ScheduledExecutorService station : stations){
+			station.shutdown();
 		}
 
-		for(int i = 0; i < occupancy[4]; i++){
-			service5.schedule(() -> dequeue(4, 4, context), 1, TimeUnit.SECONDS);	
+		//Block until every service station is done. A station only stops once the last arrival has
+		//told it that nobody else is coming, so by then the dispatch thread has nothing left to do
+		for(ScheduledExecutorService station : stations){
+			awaitTermination(station);
 		}
 
-		//Shutdown
-		service1.shutdown();
-		service2.shutdown();
-		service3.shutdown();
-		service4.shutdown();
-		service5.shutdown();
 		passengerPool.shutdown();
-	
-		//Blocking while loop for service station termination
-		while(!service1.isTerminated() || !service2.isTerminated() || 
-			  !service3.isTerminated() || !service4.isTerminated() ||
-			  !service5.isTerminated() || !passengerPool.isTerminated());
+		awaitTermination(passengerPool);
 
+		return numStations + 1;
+	}
 
 
-		//Print runtime statistics to the console
-		printRuntimeStatistics(context);			
+	/**
+	 * Helper method for putting the next arrival on the dispatch executor. When it fires it lets the
+	 * passenger in and then puts the one after it on, so the delay queue never holds more than one
+	 * arrival. Once the arrivals run out the stations are told that nobody else is coming
+	 */
+	private static void scheduleNextArrival(ScheduledExecutorService passengerPool, ArrivalGenerator arrivals, SimulationContext context,
+											Dispatcher dispatcher, int[] nextStation, ArrayList<BlockingQueue<Integer>> tickets,
+											AtomicInteger remaining){
+		Passenger entrant = arrivals.next();
+		if(entrant == null){
+			endArrivals(tickets, remaining);
+			return;
+		}
+
+		final long scheduledTime = context.getStartTime() + Math.max(arrivals.getArrivalTime(), 0);
+		passengerPool.schedule(() -> {
+			admit(entrant, scheduledTime, context, dispatcher, nextStation, tickets, remaining);
+			scheduleNextArrival(passengerPool, arrivals, context, dispatcher, nextStation, tickets, remaining);
+		}, scheduledTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
 	}
 
 
 	/**
-	 * A simulation where each entrant is assigned to a queue at random
+	 * Run every station and the arrival pump as its own virtual thread. Blocking in take() or
+	 * sleeping through a service only parks the virtual thread, so thousands of stations only need
+	 * a handful of carrier threads. Returns the number of threads started
 	 */
-	public static void multi_RandomQueueSimulation(int duration, int averageArrivalTime, int averageServiceTime){
-		SimulationContext context = new SimulationContext();
-		context.setStartTime(System.currentTimeMillis());
-		context.setAverageServiceTime(averageServiceTime);
+	private static int runOnVirtualThreads(SimulationContext context, ArrivalGenerator arrivals, Dispatcher dispatcher){
+		int numStations = context.getNumStations();
+		int numQueues = context.getQueues().size();
+		Thread[] threads = new Thread[numStations + 1];
+		ArrayList<BlockingQueue<Integer>> tickets = createTickets(numStations);
+		AtomicInteger remaining = new AtomicInteger(1);
+
+		//The arrival pump makes each passenger just before letting them in, in order of arrival time
+		threads[numStations] = Thread.ofVirtual().name("passenger-pool").start(() -> {
+			int[] nextStation = IntStream.range(0, numQueues).toArray();
+
+			try{
+				Passenger entrant;
+				while((entrant = arrivals.next()) != null){
+					long scheduledTime = context.getStartTime() + Math.max(arrivals.getArrivalTime(), 0);
+					long sleepTime = scheduledTime - System.currentTimeMillis();
+					if(sleepTime > 0){
+						Thread.sleep(sleepTime);
+					}
+
+					admit(entrant, scheduledTime, context, dispatcher, nextStation, tickets, remaining);
+				}
+			} catch(InterruptedException ie){
+				System.out.println(ie.getMessage());
+			}
 
-		//Num passengers will be the duration divided by average arrival
-		int numPassengers = duration / averageArrivalTime;
-		context.setNumPassengers(numPassengers);
+			endArrivals(tickets, remaining);
+		});
 
-		//For our random queue enqueueing
-		Random random = new Random(System.currentTimeMillis());
-
-		//5 service lines for this simulation -- one per service station
-		BlockingQueue<Passenger> service1_line = new LinkedBlockingQueue<>(numPassengers);
-		BlockingQueue<Passenger> service2_line = new LinkedBlockingQueue<>(numPassengers);
-		BlockingQueue<Passenger> service3_line = new LinkedBlockingQueue<>(numPassengers);
-		BlockingQueue<Passenger> service4_line = new LinkedBlockingQueue<>(numPassengers);
-		BlockingQueue<Passenger> service5_line = new LinkedBlockingQueue<>(numPassengers);
-
-		context.addQueue(service1_line);
-		context.addQueue(service2_line);
-		context.addQueue(service3_line);
-		context.addQueue(service4_line);
-		context.addQueue(service5_line);
-
-		//5 service stations
-		ScheduledExecutorService service1 = Executors.newScheduledThreadPool(1);
-		ScheduledExecutorService service2 = Executors.newScheduledThreadPool(1);
-		ScheduledExecutorService service3 = Executors.newScheduledThreadPool(1);
-		ScheduledExecutorService service4 = Executors.newScheduledThreadPool(1);
-		ScheduledExecutorService service5 = Executors.newScheduledThreadPool(1);
-		
-		//1 queue for passengers to enter from
-		ScheduledExecutorService passengerPool = Executors.newScheduledThreadPool(1);
+		for(int stationID = 0; stationID < numStations; stationID++){
+			final int station = stationID;
+			threads[station] = Thread.ofVirtual().name("station-" + (station + 1))
+									 .start(() -> runStation(station, context, dispatcher, tickets.get(station), remaining));
+		}
 
-		//Keep an array of passengers for timing
-		Passenger[] passengers = new Passenger[numPassengers];
-		context.setPassengers(passengers);
+		//Block until every service station and the arrival pump are done
+		for(Thread thread : threads){
+			try{
+				thread.join();
+			} catch(InterruptedException ie){
+				System.out.println(ie.getMessage());
+			}
+		}
 
-		int[] occupancy = new int[5];
+		return threads.length;
+	}
 
-		//Schedule all of the passengers
-		for(int i = 0; i < numPassengers; i++){
-			//Calculate the arrival time with a random element
-			int	delaySeconds = i * averageArrivalTime + random.nextInt(-2, 2);
-			passengers[i] = new Passenger();
-			Passenger entrant = passengers[i];
 
-			//Random queue dispatch strategy
-			final int queueNum = random.nextInt(0, 5);
-			passengerPool.schedule(() -> enqueue(queueNum, entrant, context), delaySeconds, TimeUnit.SECONDS);
-			occupancy[queueNum]++;
+	/**
+	 * Helper method for making one line of tickets per station. Each arrival leaves a ticket with a
+	 * station serving the queue it joined, and a negative ticket tells the station that nobody else
+	 * is coming. Tickets are only ever left for passengers still in line, so these stay as short as
+	 * the lines themselves
+	 */
+	private static ArrayList<BlockingQueue<Integer>> createTickets(int numStations){
+		ArrayList<BlockingQueue<Integer>> tickets = new ArrayList<>();
+		for(int i = 0; i < numStations; i++){
+			tickets.add(new LinkedBlockingQueue<>());
 		}
 
-		//Schedule the appropriate dequeue based on occupancy
-		for(int i = 0; i < occupancy[0]; i++){
-			service1.schedule(() -> dequeue(0, 0, context), 1, TimeUnit.SECONDS);	
+		return tickets;
+	}
+
+
+	/**
+	 * Helper method for letting an arrival into the line the dispatcher picks, and handing a ticket
+	 * to a station serving it. Only the dispatch thread calls this
+	 */
+	private static void admit(Passenger entrant, long scheduledTime, SimulationContext context, Dispatcher dispatcher,
+							  int[] nextStation, ArrayList<BlockingQueue<Integer>> tickets, AtomicInteger remaining){
+		int queueNum = dispatcher.selectQueue();
+
+		//Thieves stop once everybody that arrived has been taken, so count the arrival before it is in line
+		remaining.incrementAndGet();
+		enqueue(queueNum, entrant, scheduledTime, context);
+
+		//Tickets are unbounded, so this never fails
+		if(!context.isWorkStealing()){
+			tickets.get(nextStation(nextStation, queueNum, tickets.size())).offer(queueNum);
 		}
+	}
+
 
-		for(int i = 0; i < occupancy[1]; i++){
-			service2.schedule(() -> dequeue(1, 1, context), 1, TimeUnit.SECONDS);	
+	/**
+	 * Helper method for telling every station that nobody else is coming. The arrivals themselves
+	 * count as one, so thieves can only stop after this
+	 */
+	private static void endArrivals(ArrayList<BlockingQueue<Integer>> tickets, AtomicInteger remaining){
+		for(BlockingQueue<Integer> stationTickets : tickets){
+			stationTickets.offer(-1);
 		}
 
-		for(int i = 0; i < occupancy[2]; i++){
-			service3.schedule(() -> dequeue(2, 2, context), 1, TimeUnit.SECONDS);	
+		remaining.decrementAndGet();
+	}
+
+
+	/**
+	 * The long lived loop of one service station. It keeps dequeueing for as long as it is handed
+	 * tickets, until it is told that nobody else is coming. Stations that steal find their own work
+	 */
+	private static void runStation(int stationID, SimulationContext context, Dispatcher dispatcher, BlockingQueue<Integer> tickets,
+								   AtomicInteger remaining){
+		if(context.isWorkStealing()){
+			stealingStation(stationID, context, dispatcher, remaining);
+			return;
 		}
 
-		for(int i = 0; i < occupancy[3]; i++){
-			service4.schedule(() -> dequeue(3, 3, context), 1, TimeUnit.SECONDS);	
+		try{
+			int queueNum;
+			while((queueNum = tickets.take()) >= 0){
+				dequeue(queueNum, stationID, context, dispatcher);
+			}
+		} catch(InterruptedException ie){
+			System.out.println(ie.getMessage());
 		}
+	}
+
+
+	/**
+	 * Helper method for spreading each queue's passengers over the stations that serve it in
+	 * turn. Station i serves queue i % numQueues, so the stations for a queue are numQueues apart
+	 */
+	private static int nextStation(int[] nextStation, int queueID, int numStations){
+		int numQueues = nextStation.length;
+		int stationID = nextStation[queueID];
+
+		//Move on to the next station serving this queue, wrapping around to the first one
+		nextStation[queueID] = stationID + numQueues < numStations ? stationID + numQueues : queueID;
+		return stationID;
+	}
 
-		for(int i = 0; i < occupancy[4]; i++){
-			service5.schedule(() -> dequeue(4, 4, context), 1, TimeUnit.SECONDS);	
+
+	/**
+	 * Make sure that a recorded log is only replayed into lines that can hold any number of arrivals,
+	 * since nobody knows how many it holds until it is read
+	 */
+	static void validateArrivals(Scenario scenario){
+		if(scenario.getArrivalFile() != null && scenario.getQueueBackend() != QueueBackend.LINKED){
+			throw new IllegalArgumentException("Arrival logs need an unbounded queue backend, got " + scenario.getQueueBackend());
 		}
+	}
 
-		//Shutdown
-		service1.shutdown();
-		service2.shutdown();
-		service3.shutdown();
-		service4.shutdown();
-		service5.shutdown();
-		passengerPool.shutdown();
-	
-		//Blocking while loop for service station termination
-		while(!service1.isTerminated() || !service2.isTerminated() || 
-		      !service3.isTerminated() || !service4.isTerminated() ||
-			  !service5.isTerminated() || !passengerPool.isTerminated());
-	
 
-		//Print runtime statistics to the console
-		printRuntimeStatistics(context);	
+	/**
+	 * Make sure that every queue has at least one service station serving it
+	 */
+	static void validateLayout(int numStations, int numQueues){
+		if(numStations < 1 || numQueues < 1 || numQueues > numStations){
+			throw new IllegalArgumentException("Need at least one station per queue, got " + numStations
+											   + " stations and " + numQueues + " queues");
+		}
 	}
 
 
 	/**
-	 * Helper method for enqueueing a passenger into a blocking queue
+	 * Helper method for blocking until an executor has finished all of its work
 	 */
-	private static void enqueue(int queueID, Passenger p, SimulationContext context){
+	private static void awaitTermination(ScheduledExecutorService executor){
 		try{
-			//Put the passenger in the queue
-			context.getQueues().get(queueID).put(p);
-			//Set the waiting flag for calculation
+			while(!executor.awaitTermination(1, TimeUnit.SECONDS));
+		} catch(InterruptedException ie){
+			System.out.println(ie.getMessage());
+		}
+	}
+
+
+	/**
+	 * Helper method for enqueueing a passenger into a blocking queue. The scheduled time is when the
+	 * passenger should have arrived, so that we can see how late the scheduler let them in
+	 */
+	private static void enqueue(int queueID, Passenger p, long scheduledTime, SimulationContext context){
+		try{
+			//Keep track of scheduler overhead
+			context.addArrivalLag(System.currentTimeMillis() - scheduledTime);
+
+			//Set the waiting flag for calculation. This has to happen before the put, since a
+			//station can take the passenger the moment they are in the queue
 			p.startWaiting(queueID);
+			context.getTraceRecorder().record(TraceRecorder.Type.ARRIVAL, p.getWaitingStartTime(), p.getWaitingStartTime(), queueID,
+											  -1, p.getPassengerID());
+
+			//Put the passenger in the queue, timing only the queue operation itself
+			long enqueueStart = System.nanoTime();
+			context.getQueues().get(queueID).put(p);
+			context.recordEnqueue(System.nanoTime() - enqueueStart);
 
 			//Update queue lengths in context
 			context.setLongestQueueLength(queueID);	
 
-			System.out.println("Enqueueing into queue: " + (queueID+1));
+			context.getEventLog().record(EventLog.Type.ENQUEUE, queueID, -1, p.getPassengerID());
 		} catch(InterruptedException ie){
 			System.out.println(ie.getMessage());
 		}
@@ -448,28 +617,79 @@ public class Simulation{
 	/**
 	 * Helper method for dequeueing passenger from a blocking queue
 	 */
-	private static void dequeue(int queueID, int stationID, SimulationContext context){
+	private static void dequeue(int queueID, int stationID, SimulationContext context, Dispatcher dispatcher){
 		try{
-			//For time randomness
-			Random random = new Random(System.currentTimeMillis());
-			//Attempt to dequeue
-			Passenger dequeued = context.getQueues().get(queueID).take();
-			
-			//If it worked, perform all of our updates
+			//Attempt to dequeue. Only a dequeue that finds someone waiting is timed, since
+			//time spent blocked in take() is waiting for an arrival, not queue overhead
+			BlockingQueue<Passenger> queue = context.getQueues().get(queueID);
+			long dequeueStart = System.nanoTime();
+			Passenger dequeued = queue.poll();
 			if(dequeued != null){
-				//There should be no wait if we're the first 5 customers	
-				if(context.getPassengersServed() > 4){
-					//Occupy the service station for a certain number of seconds
-					int randomFactor = random.nextInt(-2, 2);	
-					TimeUnit.SECONDS.sleep(context.getAverageServiceTime() + randomFactor);
-					context.addToRandomFactor(randomFactor);
+				context.recordDequeue(System.nanoTime() - dequeueStart);
+			} else {
+				dequeued = queue.take();
+			}
+
+			serve(dequeued, queueID, stationID, context, dispatcher);
+		} catch(InterruptedException ie){
+			System.out.println(ie.getMessage());
+		}
+	}
+
+
+	/**
+	 * A station in a work stealing run. It serves its own line from the front, and when that is empty
+	 * it looks through the other lines from a random one on and takes from the back of the first one
+	 * that has anybody in it, like a ForkJoin worker. If every line is empty it waits on its own line
+	 * for a while before looking again. A failed steal is only counted once per idle period, like on the
+	 * event calendar, rather than once for every look around while idle. The station stops once nobody
+	 * else is coming and everybody that arrived has been taken
+	 */
+	private static void stealingStation(int stationID, SimulationContext context, Dispatcher dispatcher, AtomicInteger remaining){
+		int numQueues = context.getNumQueues();
+		int ownQueue = stationID % numQueues;
+		BlockingDeque<Passenger> own = (BlockingDeque<Passenger>)context.getQueues().get(ownQueue);
+		boolean idle = false;
+
+		try{
+			while(remaining.get() > 0){
+				int queueID = ownQueue;
+				long dequeueStart = System.nanoTime();
+				Passenger dequeued = own.pollFirst();
+
+				//Our own line is empty, so go looking for a victim
+				if(dequeued == null){
+					int firstVictim = ThreadLocalRandom.current().nextInt(numQueues);
+					for(int i = 0; i < numQueues && dequeued == null; i++){
+						queueID = (firstVictim + i) % numQueues;
+						if(queueID != ownQueue){
+							dequeued = ((BlockingDeque<Passenger>)context.getQueues().get(queueID)).pollLast();
+						}
+					}
+
+					if(dequeued != null){
+						context.recordSteal(stationID);
+					} else if(!idle){
+						context.recordFailedSteal(stationID);
+					}
+				}
+
+				if(dequeued == null){
+					//Nobody is waiting anywhere, so wait on our own line for a bit before looking again.
+					//This take is counted like any other, along with the time spent waiting in it
+					idle = true;
+					queueID = ownQueue;
+					dequeueStart = System.nanoTime();
+					dequeued = own.pollFirst(STEAL_INTERVAL, TimeUnit.MILLISECONDS);
+					if(dequeued == null){
+						continue;
+					}
 				}
 
-				//Set the waiting flag
-				dequeued.stopWaiting(stationID);
-				//Keep track of the passengers served
-				context.passengerServed();
-				System.out.println("Station " + (stationID + 1) + " dequeueing from queue: " + (queueID + 1));
+				context.recordDequeue(System.nanoTime() - dequeueStart);
+				idle = false;
+				remaining.decrementAndGet();
+				serve(dequeued, queueID, stationID, context, dispatcher);
 			}
 		} catch(InterruptedException ie){
 			System.out.println(ie.getMessage());
@@ -478,34 +698,80 @@ public class Simulation{
 
 
 	/**
-	 * A private helper method for printing the runtime statistics to the command line
+	 * Helper method for serving a passenger that a station took out of a queue
 	 */
-	private static void printRuntimeStatistics(SimulationContext context){		
-		long simulationDuration = ((System.currentTimeMillis() - context.getStartTime()) / 1000);
+	private static void serve(Passenger dequeued, int queueID, int stationID, SimulationContext context,
+							  Dispatcher dispatcher) throws InterruptedException{
+		long serviceStart = context.getClock().now();
+		context.getTraceRecorder().record(TraceRecorder.Type.SERVICE_START, serviceStart, dequeued.getWaitingStartTime(), queueID,
+										  stationID, dequeued.getPassengerID());
+
+		//Recorded arrivals bring the service time that was observed for them. Anybody else occupies the
+		//station for a time drawn from its own stream. Only this station's thread ever draws from it,
+		//so there is nothing to lock and nothing to allocate
+		long serviceTime = dequeued.getServiceTime() >= 0 ? dequeued.getServiceTime() : context.drawServiceTime(stationID);
+		context.stationBusy(stationID);
+		TimeUnit.MILLISECONDS.sleep(serviceTime);
+		context.stationIdle(stationID);
+
+		//Set the waiting flag
+		dequeued.stopWaiting(stationID);
+		context.recordService(queueID, stationID, dequeued.getWaitingTimeMillis(), serviceTime);
+		context.recordClassWait(dequeued.getPriorityClass(), dequeued.getWaitingTimeMillis());
+		context.getTraceRecorder().record(TraceRecorder.Type.DEPARTURE, context.getClock().now(), serviceStart, queueID, stationID,
+										  dequeued.getPassengerID());
+		//Keep track of the passengers served
+		context.passengerServed();
+		dispatcher.passengerLeft(queueID);
+		context.getEventLog().record(EventLog.Type.DEQUEUE, queueID, stationID, dequeued.getPassengerID());
+	}
+
+
+	/**
+	 * A helper method for printing the runtime statistics to the command line. This is shared
+	 * with the discrete event simulation, so the runtime is read from the context's clock
+	 */
+	static void printRuntimeStatistics(SimulationContext context){		
+		SimulationResult result = new SimulationResult(context);
 
 		//Display program statistics for user
 		System.out.println("\n\n=================== Program Statistics ======================");
-		System.out.println("Program Runtime: " + simulationDuration + " seconds\n");
-		for(int i = 0; i < context.getQueues().size(); i++){
+		System.out.println("Program Runtime: " + result.getRuntime() + " seconds");
+		System.out.println("Seed: " + context.getRandomStreams().getSeed() + "\n");
+		for(int i = 0; i < result.getNumQueues(); i++){
 			System.out.println("Queue " + (i + 1) + " Statistics: ");
-			System.out.printf("\tAverage waiting time: %.2f seconds\n", getAverageWaitTime(context, i));
-			System.out.printf("\tMaximum waiting time: %.2f seconds\n", getMaxWaitTime(context, i));	
-			System.out.println("\tLongest length: " + context.getLongestQueueLength(i));
-		}
-
-		//Calcualte the number of passengers per queue
-		int[] passengersByQueue = new int[5];
-		for(Passenger passenger : context.getPassengers()){
-			passengersByQueue[passenger.getProcessedBy()]++;
+			System.out.printf("\tAverage waiting time: %.2f seconds\n", result.getAverageWaitTime(i));
+			System.out.printf("\tMaximum waiting time: %.2f seconds\n", result.getMaxWaitTime(i));	
+			System.out.printf("\tWaiting time standard deviation: %.2f seconds\n", result.getWaitTimeDeviation(i));
+			System.out.printf("\tWaiting time percentiles: p50 %.2f, p95 %.2f, p99 %.2f seconds\n", result.getWaitTimePercentile(i, 0),
+							  result.getWaitTimePercentile(i, 1), result.getWaitTimePercentile(i, 2));
+			System.out.println("\tLongest length: " + result.getLongestLength(i));
 		}
 
 		System.out.println("\nService Time Waiting Percentages");
-		//Print out the percentage of active time per station
-		for(int i = 0; i < 5; i++){
-			double stationActivePercent = ((((double)passengersByQueue[i] * context.getAverageServiceTime())
-											+ context.getRandomFactor()) / simulationDuration) * 100;
+		//Print out the percentage of active time per station, measured from when it actually started and stopped
+		for(int i = 0; i < result.getNumStations(); i++){
+			if(result.isWorkStealing()){
+				System.out.printf("\tStation %d: active %.2f%% of the time, stole %d passengers, %d failed steal attempts\n", i + 1,
+								  result.getStationUtilisation(i), result.getSteals(i), result.getFailedSteals(i));
+			} else {
+				System.out.printf("\tStation %d: active %.2f%% of the time\n", i + 1, result.getStationUtilisation(i));
+			}
+			System.out.printf("\t\t%.2f passengers per hour, idle gaps average %.2f, p50 %.2f, p95 %.2f, max %.2f seconds\n",
+							  result.getStationThroughput(i), result.getAverageIdleGap(i), result.getIdleGapPercentile(i, 0),
+							  result.getIdleGapPercentile(i, 1), result.getMaxIdleGap(i));
+		}
 
-			System.out.printf("\tStation %d: active %.2f%% of the time\n", i + 1, stationActivePercent);
+		//Only worth showing when passengers were actually split into classes
+		if(result.getNumClasses() > 1){
+			System.out.println("\nPriority Class Statistics(" + result.getPriorityPolicy() + " policy)");
+			for(int i = 0; i < result.getNumClasses(); i++){
+				System.out.printf("\tClass %d: %d served, average wait %.2f, p95 %.2f, p99 %.2f, max %.2f seconds, %d starved\n",
+								  i + 1, result.getClassPassengersServed(i), result.getClassAverageWaitTime(i),
+								  result.getClassWaitTimePercentile(i, 1), result.getClassWaitTimePercentile(i, 2),
+								  result.getClassMaxWaitTime(i), result.getStarved(i));
+			}
+			System.out.println("\tPassengers served ahead of a higher class by aging: " + result.getPromotions());
 		}
 		
 		//For prettiness
@@ -514,40 +780,44 @@ public class Simulation{
 
 
 	/**
-	 * A private helper function that gets the average waiting time for a queue
+	 * A private helper method for printing the threading statistics of a real time run
 	 */
-	private static double getAverageWaitTime(SimulationContext context, int queueID){
-		double waitingSum = 0;
-		int passengersInQueue = 0;
-		
-		for(Passenger passenger : context.getPassengers()){
-			if(passenger.getQueueID() == queueID){
-				if(passenger.getWaitingTime() < 0){
-					waitingSum += context.getAverageServiceTime();	
-				} else {
-					waitingSum += passenger.getWaitingTime();
-				}
-				passengersInQueue++;
-			}
-		}
+	private static void printSchedulerStatistics(SimulationContext context, ExecutionMode mode, int threadsStarted,
+												 int peakPlatformThreads){
+		System.out.println("\nScheduler Statistics(" + mode + " mode)");
+		System.out.println("\tThreads started: " + threadsStarted + (mode == ExecutionMode.VIRTUAL_THREAD ? " virtual" : " platform"));
+		System.out.println("\tPeak platform threads: " + peakPlatformThreads);
+		System.out.printf("\tAverage arrival lag: %.2f ms\n", context.getAverageArrivalLag());
+		System.out.println("\tMaximum arrival lag: " + context.getMaxArrivalLag() + " ms");
 
-		//Take the average
-		return waitingSum / passengersInQueue;
+		//For prettiness
+		System.out.println("\n=============================================================");
 	}
 
 
 	/**
-	 * A private helper method that gets the maximum waiting time for a given queue
+	 * A private helper method for printing the throughput of the queue backend
 	 */
-	private static double getMaxWaitTime(SimulationContext context, int queueID){
-		double maximumWaitTime = 0;
+	private static void printQueueBackendStatistics(SimulationContext context, QueueBackend backend){
+		//Work stealing and priority runs always use their own lines, whatever backend was asked for
+		String name = context.getNumClasses() > 1 ? "BucketedPriorityQueue"
+					  : context.isWorkStealing() ? "LinkedBlockingDeque" : backend.toString();
+		System.out.println("\nQueue Backend Statistics(" + name + ")");
+		printThroughput("Enqueue", context.getEnqueueCount(), context.getEnqueueNanos());
+		printThroughput("Dequeue", context.getDequeueCount(), context.getDequeueNanos());
 
-		for(Passenger passenger : context.getPassengers()){
-			if(passenger.getQueueID() == queueID && passenger.getWaitingTime() > maximumWaitTime){
-				maximumWaitTime = passenger.getWaitingTime();
-			}
-		}
+		//For prettiness
+		System.out.println("\n=============================================================");
+	}
 
-		return maximumWaitTime;
+
+	/**
+	 * A private helper method for printing one line of queue throughput
+	 */
+	private static void printThroughput(String operation, long count, long nanos){
+		double averageNanos = count == 0 ? 0 : (double)nanos / count;
+		double operationsPerSecond = nanos == 0 ? 0 : count * 1e9 / nanos;
+		System.out.printf("\t%s: %d operations, %.0f ns average, %.2f million operations per second\n",
+						  operation, count, averageNanos, operationsPerSecond / 1e6);
 	}
 }
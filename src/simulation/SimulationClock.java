@@ -0,0 +1,43 @@
+/**
+ * Author: Jack Robbins
+ * This interface is the source of time for a simulation run
+ */
+
+package simulation;
+
+
+/**
+ * Every timestamp taken during a simulation comes from one of these. A real
+ * time run reads the wall clock, while a discrete event run reads the time of
+ * the event that is currently being processed
+ */
+public interface SimulationClock{
+	/**
+	 * The current time in milliseconds
+	 */
+	long now();
+
+
+	/**
+	 * The current time in nanoseconds, for measuring how long things take. Only the difference
+	 * between two readings means anything. Simulated clocks only move in whole milliseconds
+	 */
+	default long nanoTime(){
+		return this.now() * 1_000_000;
+	}
+
+
+	//The wall clock of a real time run, with the finest timer the JVM has for measuring intervals
+	SimulationClock WALL = new SimulationClock(){
+		@Override
+		public long now(){
+			return System.currentTimeMillis();
+		}
+
+
+		@Override
+		public long nanoTime(){
+			return System.nanoTime();
+		}
+	};
+}
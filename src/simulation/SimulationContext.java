@@ -5,10 +5,20 @@
 
 package simulation;
 
+import distribution.Distribution;
+import distribution.RandomStreams;
+import eventLog.EventLog;
+import queueBackend.PriorityPolicy;
 import queueOccupant.Passenger;
+import statistics.BusyTimeAccumulator;
+import statistics.RunningStatistics;
+import trace.TraceRecorder;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * We pass around the context object as a nice package that allows us to keep
@@ -18,71 +28,141 @@ import java.util.concurrent.BlockingQueue;
  */
 public class SimulationContext{
 	/* Context object keeps track of these objects */
-	private int shortestQueueLength;
 	private int averageServiceTime;
-	private int shortestQueueID;
 	private ArrayList<BlockingQueue<Passenger>> queues;
-	private HashMap<BlockingQueue<Passenger>, Integer> lengths;
+	private ArrayList<Integer> lengths;
 	private long startTime;
+	private long startNanos;
 	private int numPassengers;
-	private Passenger[] passengers;
-	private int passengersServed;
-	private int randomFactor;
+	private int numStations;
+	private LongAdder passengersServed;
+	private SimulationClock clock;
+	private long arrivalLagSum;
+	private long maxArrivalLag;
+	private int arrivals;
+	private ArrayList<RunningStatistics> queueWaitStatistics;
+	private RunningStatistics[] stationServiceStatistics;
+	private BusyTimeAccumulator[] stationBusyTimes;
+	private RunningStatistics overallWaitStatistics;
+	private LongAdder enqueueCount;
+	private LongAdder enqueueNanos;
+	private LongAdder dequeueCount;
+	private LongAdder dequeueNanos;
+	private boolean workStealing;
+	private long[] steals;
+	private long[] failedSteals;
+	private PriorityPolicy priorityPolicy;
+	private RunningStatistics[] classWaitStatistics;
+	private long[] starved;
+	private EventLog eventLog;
+	private TraceRecorder traceRecorder;
+	private RandomStreams randomStreams;
+	private Distribution serviceDistribution;
+
+	//A passenger has starved when they waited longer than this many average service times
+	public static final int STARVATION_FACTOR = 10;
 
 
 	/**
 	 * Basic constructor, just initialize all arguments/data structures
 	 */
 	public SimulationContext(){
-		this.shortestQueueLength = 100;
-		this.shortestQueueID = 0;
 		this.queues = new ArrayList<>();
-		this.lengths = new HashMap<>();
-		this.passengersServed = 0;
-		this.randomFactor = 0;
+		this.lengths = new ArrayList<>();
+		this.passengersServed = new LongAdder();
+		this.numStations = 5;
+		this.queueWaitStatistics = new ArrayList<>();
+		this.stationServiceStatistics = newStatistics(this.numStations);
+		this.steals = new long[this.numStations];
+		this.failedSteals = new long[this.numStations];
+		this.priorityPolicy = PriorityPolicy.STRICT;
+		this.classWaitStatistics = newStatistics(1);
+		this.starved = new long[1];
+		this.overallWaitStatistics = new RunningStatistics();
+		this.clock = SimulationClock.WALL;
+		this.startNanos = this.clock.nanoTime();
+		this.stationBusyTimes = newBusyTimes(this.numStations, this.startNanos);
+		this.eventLog = EventLog.OFF;
+		this.traceRecorder = TraceRecorder.OFF;
+		this.enqueueCount = new LongAdder();
+		this.enqueueNanos = new LongAdder();
+		this.dequeueCount = new LongAdder();
+		this.dequeueNanos = new LongAdder();
 	}	
 
 	
 	/**
-	 * Set a simulation start time
+	 * Set a simulation start time. Every station is idle from now on, until it serves somebody
 	 */
 	public void setStartTime(long startTime){
 		this.startTime = startTime;
+		this.startNanos = this.clock.nanoTime();
+		this.stationBusyTimes = newBusyTimes(this.numStations, this.startNanos);
 	}
 
 
 	/**
-	 * Add to the randomness factor that we put into all of our processing times
+	 * Set the clock that all timestamps are taken from
 	 */
-	public void addToRandomFactor(int randomAdjustment){
-		this.randomFactor += randomAdjustment;
+	public void setClock(SimulationClock clock){
+		this.clock = clock;
 	}
 
 
 	/**
-	 * Set the average service time for convenience
+	 * Set the log that stations record their enqueues and dequeues into
 	 */
-	public void setAverageServiceTime(int averageServiceTime){
-		this.averageServiceTime = averageServiceTime;
+	public void setEventLog(EventLog eventLog){
+		this.eventLog = eventLog;
+	}
+
+
+	/**
+	 * Set the recorder that every arrival, service start and departure is traced to
+	 */
+	public void setTraceRecorder(TraceRecorder traceRecorder){
+		this.traceRecorder = traceRecorder;
 	}
 
 
 	/**
-	 * Set the internal array of passengers
+	 * Set the random streams of the run and the distribution that service times are drawn from
 	 */
-	public void setPassengers(Passenger[] passengers){
-		this.passengers = passengers;
+	public void setRandomness(RandomStreams randomStreams, Distribution serviceDistribution){
+		this.randomStreams = randomStreams;
+		this.serviceDistribution = serviceDistribution;
 	}
 
 
 	/**
-	 * Update the shortest queue length
+	 * Draw the service time in milliseconds of the passenger a station is about to serve, from that
+	 * station's own stream. There should be no wait if we're the first 5 customers
 	 */
-	public void setShortestQueueLength(int queueID){
-		if(this.queues.get(queueID).size() < this.shortestQueueLength){
-			this.shortestQueueLength = this.queues.get(queueID).size();
-			this.shortestQueueID = queueID;
+	public long drawServiceTime(int stationID){
+		if(this.passengersServed.sum() <= 4){
+			return 0;
 		}
+
+		return this.serviceDistribution.sampleMillis(this.randomStreams.getStationStream(stationID));
+	}
+
+
+	/**
+	 * Record how many milliseconds late a passenger was let into their queue. Only the
+	 * arrival thread calls this
+	 */
+	public void addArrivalLag(long lag){
+		this.arrivalLagSum += lag;
+		this.maxArrivalLag = Math.max(this.maxArrivalLag, lag);
+		this.arrivals++;
+	}
+
+
+	/**
+	 * Set the average service time for convenience
+	 */
+	public void setAverageServiceTime(int averageServiceTime){
+		this.averageServiceTime = averageServiceTime;
 	}
 
 
@@ -94,13 +174,50 @@ public class SimulationContext{
 	}
 
 
+	/**
+	 * Set the number of service stations
+	 */
+	public void setNumStations(int numStations){
+		this.numStations = numStations;
+		this.stationServiceStatistics = newStatistics(numStations);
+		this.stationBusyTimes = newBusyTimes(numStations, this.startNanos);
+		this.steals = new long[numStations];
+		this.failedSteals = new long[numStations];
+	}
+
+
+	/**
+	 * Mark the run as one where idle stations steal passengers from other lines
+	 */
+	public void setWorkStealing(boolean workStealing){
+		this.workStealing = workStealing;
+	}
+
+
+	/**
+	 * Set up the accumulators for every priority class, along with the policy that the lines use to pick between them
+	 */
+	public void setPriorityClasses(int numClasses, PriorityPolicy priorityPolicy){
+		this.classWaitStatistics = newStatistics(numClasses);
+		this.starved = new long[numClasses];
+		this.priorityPolicy = priorityPolicy;
+	}
+
+
 	/**
 	 * Updates the longest queue length
 	 */
 	public void setLongestQueueLength(int queueID){
-		BlockingQueue<Passenger> queue = this.queues.get(queueID);
-		if(lengths.get(queue) < queue.size()){
-			lengths.put(queue, queue.size());
+		this.setLongestQueueLength(queueID, this.queues.get(queueID).size());
+	}
+
+
+	/**
+	 * Updates the longest queue length for a queue that is not kept in the context
+	 */
+	public void setLongestQueueLength(int queueID, int length){
+		if(this.lengths.get(queueID) < length){
+			this.lengths.set(queueID, length);
 		}
 	}
 
@@ -110,23 +227,166 @@ public class SimulationContext{
 	 */
 	public void addQueue(BlockingQueue<Passenger> queue){
 		this.queues.add(queue);
-		this.lengths.put(queue, 0); 
+		this.registerQueue();
 	}
 
 
 	/**
-	 * A simple helpper method to update the number of passengers served
+	 * Make room for the statistics of one more queue and return its ID. Queues that
+	 * hold passenger numbers instead of passengers are only registered, never added
+	 */
+	public int registerQueue(){
+		this.lengths.add(0);
+		this.queueWaitStatistics.add(new RunningStatistics());
+		return this.lengths.size() - 1;
+	}
+
+
+	/**
+	 * Fold a served passenger into the running statistics of their queue and station. Both
+	 * times are in milliseconds. Stations sharing a queue can call this at the same time,
+	 * so every accumulator is locked while it is updated
+	 */
+	public void recordService(int queueID, int stationID, long waitingTime, long serviceTime){
+		RunningStatistics queueStatistics = this.queueWaitStatistics.get(queueID);
+		synchronized(queueStatistics){
+			queueStatistics.add(waitingTime);
+		}
+
+		RunningStatistics stationStatistics = this.stationServiceStatistics[stationID];
+		synchronized(stationStatistics){
+			stationStatistics.add(serviceTime);
+		}
+
+		synchronized(this.overallWaitStatistics){
+			this.overallWaitStatistics.add(waitingTime);
+		}
+	}
+
+
+	/**
+	 * Fold a served passenger into the waiting time statistics of their priority class. A passenger
+	 * that waited more than STARVATION_FACTOR average service times is counted as starved
+	 */
+	public void recordClassWait(int priorityClass, long waitingTime){
+		RunningStatistics classStatistics = this.classWaitStatistics[priorityClass];
+		synchronized(classStatistics){
+			classStatistics.add(waitingTime);
+			if(waitingTime > STARVATION_FACTOR * this.averageServiceTime * 1000L){
+				this.starved[priorityClass]++;
+			}
+		}
+	}
+
+
+	/**
+	 * Record how long one put into a queue took. Every station thread calls these, so they
+	 * are counted on LongAdders rather than behind a lock
+	 */
+	public void recordEnqueue(long nanos){
+		this.enqueueCount.increment();
+		this.enqueueNanos.add(nanos);
+	}
+
+
+	/**
+	 * Record how long one take from a queue took, when someone was already waiting
+	 */
+	public void recordDequeue(long nanos){
+		this.dequeueCount.increment();
+		this.dequeueNanos.add(nanos);
+	}
+
+
+	/**
+	 * A station started serving somebody. Only the thread of the station calls this, and the time
+	 * is read from the clock of the run
+	 */
+	public void stationBusy(int stationID){
+		this.stationBusyTimes[stationID].busy(this.clock.nanoTime());
+	}
+
+
+	/**
+	 * A station finished serving somebody
+	 */
+	public void stationIdle(int stationID){
+		this.stationBusyTimes[stationID].idle(this.clock.nanoTime());
+	}
+
+
+	/**
+	 * A station took a passenger from the back of another line. Each station only ever
+	 * counts its own steals, so no locking is needed
+	 */
+	public void recordSteal(int stationID){
+		this.steals[stationID]++;
+	}
+
+
+	/**
+	 * A station ran out of work and found every other line empty. This is counted once per idle
+	 * period, however many times the station looks around before work turns up
+	 */
+	public void recordFailedSteal(int stationID){
+		this.failedSteals[stationID]++;
+	}
+
+
+	/**
+	 * A simple helpper method to update the number of passengers served. Every station counts its
+	 * passengers here, so the count is a LongAdder rather than a plain int
 	 */
 	public void passengerServed(){
-		this.passengersServed++;
+		this.passengersServed.increment();
 	}
 
 
 	/**
-	 * A simple helper method to get the passengers array
+	 * Write out every statistic gathered so far. The queues, stations and classes have to be set up
+	 * before, and the same ones again before reading it back
 	 */
-	public Passenger[] getPassengers(){
-		return this.passengers;
+	public void writeState(DataOutput out) throws IOException{
+		out.writeLong(this.passengersServed.sum());
+		for(int queueID = 0; queueID < this.lengths.size(); queueID++){
+			out.writeInt(this.lengths.get(queueID));
+			this.queueWaitStatistics.get(queueID).writeState(out);
+		}
+		for(int stationID = 0; stationID < this.numStations; stationID++){
+			this.stationServiceStatistics[stationID].writeState(out);
+			this.stationBusyTimes[stationID].writeState(out);
+			out.writeLong(this.steals[stationID]);
+			out.writeLong(this.failedSteals[stationID]);
+		}
+		for(int priorityClass = 0; priorityClass < this.classWaitStatistics.length; priorityClass++){
+			this.classWaitStatistics[priorityClass].writeState(out);
+			out.writeLong(this.starved[priorityClass]);
+		}
+		this.overallWaitStatistics.writeState(out);
+	}
+
+
+	/**
+	 * Replace every statistic gathered so far with what writeState() wrote out
+	 */
+	public void readState(DataInput in) throws IOException{
+		this.passengersServed.reset();
+		this.passengersServed.add(in.readLong());
+		for(int queueID = 0; queueID < this.lengths.size(); queueID++){
+			this.lengths.set(queueID, in.readInt());
+			this.queueWaitStatistics.get(queueID).readState(in);
+		}
+		for(int stationID = 0; stationID < this.numStations; stationID++){
+			this.stationServiceStatistics[stationID].readState(in);
+			this.stationBusyTimes[stationID].readState(in);
+			this.steals[stationID] = in.readLong();
+			this.failedSteals[stationID] = in.readLong();
+		}
+		for(int priorityClass = 0; priorityClass < this.classWaitStatistics.length; priorityClass++){
+			this.classWaitStatistics[priorityClass].readState(in);
+			this.starved[priorityClass] = in.readLong();
+		}
+		this.overallWaitStatistics.readState(in);
 	}
 
 
@@ -138,6 +398,14 @@ public class SimulationContext{
 	}
 
 
+	/**
+	 * A simple helper method to get the simulation clock
+	 */
+	public SimulationClock getClock(){
+		return this.clock;
+	}
+
+
 	/**
 	 * A simple helper method to get the average service time
 	 */
@@ -153,34 +421,50 @@ public class SimulationContext{
 		return this.numPassengers;
 	}
 
+
+	/**
+	 * A simple helper method to get the number of service stations
+	 */
+	public int getNumStations(){
+		return this.numStations;
+	}
+
 	
 	/**
 	 * A simple helper method to get the number of passengers served
 	 */
 	public int getPassengersServed(){
-		return this.passengersServed;
+		return this.passengersServed.intValue();
+	}
+
+	/**
+	 * Time since the start of the run in nanoseconds, by the clock of the run
+	 */
+	public long getElapsedNanos(){
+		return this.clock.nanoTime() - this.startNanos;
 	}
 
+
 	/**
-	 * A simple helper method to get the randomness factor
+	 * A simple helper method to get the busy time accounting of a station
 	 */
-	public int getRandomFactor(){
-		return this.randomFactor;
+	public BusyTimeAccumulator getStationBusyTime(int stationID){
+		return this.stationBusyTimes[stationID];
 	}
 
 	/**
-	 * A simple helper method to get the length of the shortest queue
+	 * A simple helper method to get the average arrival lag in milliseconds
 	 */
-	public int getShortestQueueLength(){
-		return this.shortestQueueLength;
+	public double getAverageArrivalLag(){
+		return this.arrivals == 0 ? 0 : (double)this.arrivalLagSum / this.arrivals;
 	}
 
 
 	/**
-	 * A simple helper method to get the ID of the shortest queue
+	 * A simple helper method to get the maximum arrival lag in milliseconds
 	 */
-	public int getShortestQueueID(){
-		return this.shortestQueueID;
+	public long getMaxArrivalLag(){
+		return this.maxArrivalLag;
 	}
 
 
@@ -192,11 +476,180 @@ public class SimulationContext{
 	}
 
 
+	/**
+	 * A simple helper method to get the waiting time statistics of a queue, in milliseconds
+	 */
+	public RunningStatistics getQueueWaitStatistics(int queueID){
+		return this.queueWaitStatistics.get(queueID);
+	}
+
+
+	/**
+	 * A simple helper method to get the service time statistics of a station, in milliseconds
+	 */
+	public RunningStatistics getStationServiceStatistics(int stationID){
+		return this.stationServiceStatistics[stationID];
+	}
+
+
+	/**
+	 * A simple helper method to get the waiting time statistics over every queue, in milliseconds
+	 */
+	public RunningStatistics getOverallWaitStatistics(){
+		return this.overallWaitStatistics;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of queues, including registered ones
+	 */
+	public int getNumQueues(){
+		return this.lengths.size();
+	}
+
+
 	/**
 	 * Simple helper method to return longest queue length
 	 */
 	public int getLongestQueueLength(int queueID){
-		return this.lengths.get(this.queues.get(queueID));
+		return this.lengths.get(queueID);
 	}
 
+
+	/**
+	 * A simple helper method to get the number of timed enqueues
+	 */
+	public long getEnqueueCount(){
+		return this.enqueueCount.sum();
+	}
+
+
+	/**
+	 * A simple helper method to get the total time spent enqueueing, in nanoseconds
+	 */
+	public long getEnqueueNanos(){
+		return this.enqueueNanos.sum();
+	}
+
+
+	/**
+	 * A simple helper method to get the number of timed dequeues
+	 */
+	public long getDequeueCount(){
+		return this.dequeueCount.sum();
+	}
+
+
+	/**
+	 * A simple helper method to get the total time spent dequeueing, in nanoseconds
+	 */
+	public long getDequeueNanos(){
+		return this.dequeueNanos.sum();
+	}
+
+
+	/**
+	 * A simple helper method to get whether idle stations steal from other lines
+	 */
+	public boolean isWorkStealing(){
+		return this.workStealing;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers a station stole
+	 */
+	public long getSteals(int stationID){
+		return this.steals[stationID];
+	}
+
+
+	/**
+	 * A simple helper method to get the number of times a station found nothing to steal
+	 */
+	public long getFailedSteals(int stationID){
+		return this.failedSteals[stationID];
+	}
+
+
+	/**
+	 * A simple helper method to get the event log of the run
+	 */
+	public EventLog getEventLog(){
+		return this.eventLog;
+	}
+
+
+	/**
+	 * A simple helper method to get the random streams of the run
+	 */
+	public RandomStreams getRandomStreams(){
+		return this.randomStreams;
+	}
+
+
+	/**
+	 * A simple helper method to get the trace recorder of the run
+	 */
+	public TraceRecorder getTraceRecorder(){
+		return this.traceRecorder;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of priority classes
+	 */
+	public int getNumClasses(){
+		return this.classWaitStatistics.length;
+	}
+
+
+	/**
+	 * A simple helper method to get how the lines pick the class they serve next
+	 */
+	public PriorityPolicy getPriorityPolicy(){
+		return this.priorityPolicy;
+	}
+
+
+	/**
+	 * A simple helper method to get the waiting time statistics of a priority class
+	 */
+	public RunningStatistics getClassWaitStatistics(int priorityClass){
+		return this.classWaitStatistics[priorityClass];
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers in a class that starved
+	 */
+	public long getStarved(int priorityClass){
+		return this.starved[priorityClass];
+	}
+
+
+	/**
+	 * Helper method for making a fresh busy time accumulator for every station, idle from the given time
+	 */
+	private static BusyTimeAccumulator[] newBusyTimes(int count, long startNanos){
+		BusyTimeAccumulator[] busyTimes = new BusyTimeAccumulator[count];
+		for(int i = 0; i < count; i++){
+			busyTimes[i] = new BusyTimeAccumulator(startNanos);
+		}
+
+		return busyTimes;
+	}
+
+
+	/**
+	 * Helper method for making a fresh accumulator for every station
+	 */
+	private static RunningStatistics[] newStatistics(int count){
+		RunningStatistics[] statistics = new RunningStatistics[count];
+		for(int i = 0; i < count; i++){
+			statistics[i] = new RunningStatistics();
+		}
+
+		return statistics;
+	}
 }
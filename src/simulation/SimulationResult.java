@@ -0,0 +1,380 @@
+/**
+ * Author: Jack Robbins
+ * This class holds the final statistics of one finished simulation run
+ */
+
+package simulation;
+
+import queueBackend.BucketedPriorityQueue;
+import queueBackend.PriorityPolicy;
+import queueOccupant.Passenger;
+import statistics.BusyTimeAccumulator;
+import statistics.RunningStatistics;
+import java.util.concurrent.BlockingQueue;
+
+
+/**
+ * Once a run is over, everything that we report about it is pulled out of the context
+ * and kept here. A result never changes after it is made, so results from different
+ * runs can be handed between threads and combined freely. Everything is read from the
+ * running statistics in the context, so making a result never looks at a single passenger
+ */
+public class SimulationResult{
+	private long runtime;
+	private double[] averageWaitTimes;
+	private double[] maxWaitTimes;
+	private double[] waitTimeDeviations;
+	private double[][] waitTimePercentiles;
+	private int[] longestLengths;
+	private long[] passengersByStation;
+	private double[] stationUtilisation;
+	private double[] stationThroughput;
+	private double[] averageIdleGaps;
+	private double[][] idleGapPercentiles;
+	private double[] maxIdleGaps;
+	private double overallAverageWaitTime;
+	private double overallMaxWaitTime;
+	private boolean workStealing;
+	private long[] steals;
+	private long[] failedSteals;
+	private PriorityPolicy priorityPolicy;
+	private long[] passengersByClass;
+	private double[] classAverageWaitTimes;
+	private double[] classMaxWaitTimes;
+	private double[][] classWaitTimePercentiles;
+	private long[] starved;
+	private long promotions;
+
+	//Percentiles reported for every queue
+	public static final double[] PERCENTILES = {0.50, 0.95, 0.99};
+
+
+	/**
+	 * Pull all of the statistics out of a finished context. Times are kept in seconds
+	 */
+	public SimulationResult(SimulationContext context){
+		this.runtime = (context.getClock().now() - context.getStartTime()) / 1000;
+
+		int numQueues = context.getNumQueues();
+		this.averageWaitTimes = new double[numQueues];
+		this.maxWaitTimes = new double[numQueues];
+		this.waitTimeDeviations = new double[numQueues];
+		this.waitTimePercentiles = new double[numQueues][PERCENTILES.length];
+		this.longestLengths = new int[numQueues];
+
+		for(int i = 0; i < numQueues; i++){
+			RunningStatistics waits = context.getQueueWaitStatistics(i);
+			this.averageWaitTimes[i] = waits.getMean() / 1000;
+			this.maxWaitTimes[i] = waits.getMax() / 1000.0;
+			this.waitTimeDeviations[i] = waits.getStandardDeviation() / 1000;
+			for(int j = 0; j < PERCENTILES.length; j++){
+				this.waitTimePercentiles[i][j] = waits.getPercentile(PERCENTILES[j]) / 1000.0;
+			}
+			this.longestLengths[i] = context.getLongestQueueLength(i);
+		}
+
+		this.overallAverageWaitTime = context.getOverallWaitStatistics().getMean() / 1000;
+		this.overallMaxWaitTime = context.getOverallWaitStatistics().getMax() / 1000.0;
+
+		//Every station measured exactly how long it was busy, so utilisation is busy time over the
+		//whole run rather than an estimate from the average service time
+		long elapsedNanos = context.getElapsedNanos();
+		double elapsedHours = elapsedNanos / 3_600_000_000_000.0;
+		this.passengersByStation = new long[context.getNumStations()];
+		this.stationUtilisation = new double[context.getNumStations()];
+		this.stationThroughput = new double[context.getNumStations()];
+		this.averageIdleGaps = new double[context.getNumStations()];
+		this.idleGapPercentiles = new double[context.getNumStations()][PERCENTILES.length];
+		this.maxIdleGaps = new double[context.getNumStations()];
+		this.workStealing = context.isWorkStealing();
+		this.steals = new long[context.getNumStations()];
+		this.failedSteals = new long[context.getNumStations()];
+		for(int i = 0; i < this.stationUtilisation.length; i++){
+			this.steals[i] = context.getSteals(i);
+			this.failedSteals[i] = context.getFailedSteals(i);
+			this.passengersByStation[i] = context.getStationServiceStatistics(i).getCount();
+
+			BusyTimeAccumulator busyTime = context.getStationBusyTime(i);
+			this.stationUtilisation[i] = elapsedNanos == 0 ? 0 : (double)busyTime.getBusyNanos(context.getClock().nanoTime())
+																 / elapsedNanos * 100;
+			this.stationThroughput[i] = elapsedHours == 0 ? 0 : busyTime.getServed() / elapsedHours;
+
+			//Idle gaps are kept in microseconds
+			RunningStatistics idleGaps = busyTime.getIdleGaps();
+			this.averageIdleGaps[i] = idleGaps.getCount() == 0 ? 0 : idleGaps.getMean() / 1_000_000;
+			this.maxIdleGaps[i] = idleGaps.getMax() / 1_000_000.0;
+			for(int j = 0; j < PERCENTILES.length; j++){
+				this.idleGapPercentiles[i][j] = idleGaps.getPercentile(PERCENTILES[j]) / 1_000_000.0;
+			}
+		}
+
+		//Waiting times split up by priority class
+		int numClasses = context.getNumClasses();
+		this.priorityPolicy = context.getPriorityPolicy();
+		this.passengersByClass = new long[numClasses];
+		this.classAverageWaitTimes = new double[numClasses];
+		this.classMaxWaitTimes = new double[numClasses];
+		this.classWaitTimePercentiles = new double[numClasses][PERCENTILES.length];
+		this.starved = new long[numClasses];
+		for(int i = 0; i < numClasses; i++){
+			RunningStatistics waits = context.getClassWaitStatistics(i);
+			this.passengersByClass[i] = waits.getCount();
+			this.classAverageWaitTimes[i] = waits.getMean() / 1000;
+			this.classMaxWaitTimes[i] = waits.getMax() / 1000.0;
+			for(int j = 0; j < PERCENTILES.length; j++){
+				this.classWaitTimePercentiles[i][j] = waits.getPercentile(PERCENTILES[j]) / 1000.0;
+			}
+			this.starved[i] = context.getStarved(i);
+		}
+
+		for(BlockingQueue<Passenger> queue : context.getQueues()){
+			if(queue instanceof BucketedPriorityQueue<Passenger> priorityQueue){
+				this.promotions += priorityQueue.getPromotions();
+			}
+		}
+	}
+
+
+	/**
+	 * A simple helper method to get the runtime in seconds
+	 */
+	public long getRuntime(){
+		return this.runtime;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of queues
+	 */
+	public int getNumQueues(){
+		return this.averageWaitTimes.length;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of service stations
+	 */
+	public int getNumStations(){
+		return this.stationUtilisation.length;
+	}
+
+
+	/**
+	 * A simple helper method to get the average waiting time of a queue in seconds
+	 */
+	public double getAverageWaitTime(int queueID){
+		return this.averageWaitTimes[queueID];
+	}
+
+
+	/**
+	 * A simple helper method to get the maximum waiting time of a queue in seconds
+	 */
+	public double getMaxWaitTime(int queueID){
+		return this.maxWaitTimes[queueID];
+	}
+
+
+	/**
+	 * A simple helper method to get the standard deviation of the waiting time of a queue in seconds
+	 */
+	public double getWaitTimeDeviation(int queueID){
+		return this.waitTimeDeviations[queueID];
+	}
+
+
+	/**
+	 * A simple helper method to get one of the waiting time percentiles of a queue in seconds.
+	 * The index is into PERCENTILES
+	 */
+	public double getWaitTimePercentile(int queueID, int percentile){
+		return this.waitTimePercentiles[queueID][percentile];
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers that a station served
+	 */
+	public long getPassengersServed(int stationID){
+		return this.passengersByStation[stationID];
+	}
+
+
+	/**
+	 * A simple helper method to get the longest length that a queue ever reached
+	 */
+	public int getLongestLength(int queueID){
+		return this.longestLengths[queueID];
+	}
+
+
+	/**
+	 * A simple helper method to get the average waiting time over every passenger in seconds
+	 */
+	public double getOverallAverageWaitTime(){
+		return this.overallAverageWaitTime;
+	}
+
+
+	/**
+	 * A simple helper method to get the maximum waiting time over every passenger in seconds
+	 */
+	public double getOverallMaxWaitTime(){
+		return this.overallMaxWaitTime;
+	}
+
+
+	/**
+	 * Get the longest length that any queue ever reached
+	 */
+	public int getOverallLongestLength(){
+		int longest = 0;
+		for(int length : this.longestLengths){
+			longest = Math.max(longest, length);
+		}
+
+		return longest;
+	}
+
+
+	/**
+	 * Get the percentage of the time that the average station was active
+	 */
+	public double getAverageUtilisation(){
+		double sum = 0;
+		for(double utilisation : this.stationUtilisation){
+			sum += utilisation;
+		}
+
+		return sum / this.stationUtilisation.length;
+	}
+
+
+	/**
+	 * A simple helper method to get the percentage of the time that a station was active
+	 */
+	public double getStationUtilisation(int stationID){
+		return this.stationUtilisation[stationID];
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers a station served per hour
+	 */
+	public double getStationThroughput(int stationID){
+		return this.stationThroughput[stationID];
+	}
+
+
+	/**
+	 * A simple helper method to get the average time in seconds that a station sat idle between passengers
+	 */
+	public double getAverageIdleGap(int stationID){
+		return this.averageIdleGaps[stationID];
+	}
+
+
+	/**
+	 * A simple helper method to get one of the idle gap percentiles of a station in seconds, indexed like PERCENTILES
+	 */
+	public double getIdleGapPercentile(int stationID, int percentile){
+		return this.idleGapPercentiles[stationID][percentile];
+	}
+
+
+	/**
+	 * A simple helper method to get the longest time in seconds that a station sat idle between passengers
+	 */
+	public double getMaxIdleGap(int stationID){
+		return this.maxIdleGaps[stationID];
+	}
+
+
+	/**
+	 * A simple helper method to get whether idle stations stole from other lines
+	 */
+	public boolean isWorkStealing(){
+		return this.workStealing;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers a station stole
+	 */
+	public long getSteals(int stationID){
+		return this.steals[stationID];
+	}
+
+
+	/**
+	 * A simple helper method to get the number of times a station found nothing to steal
+	 */
+	public long getFailedSteals(int stationID){
+		return this.failedSteals[stationID];
+	}
+
+
+	/**
+	 * A simple helper method to get the number of priority classes
+	 */
+	public int getNumClasses(){
+		return this.passengersByClass.length;
+	}
+
+
+	/**
+	 * A simple helper method to get how the lines picked the class they served next
+	 */
+	public PriorityPolicy getPriorityPolicy(){
+		return this.priorityPolicy;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers served in a priority class
+	 */
+	public long getClassPassengersServed(int priorityClass){
+		return this.passengersByClass[priorityClass];
+	}
+
+
+	/**
+	 * A simple helper method to get the average waiting time of a priority class in seconds
+	 */
+	public double getClassAverageWaitTime(int priorityClass){
+		return this.classAverageWaitTimes[priorityClass];
+	}
+
+
+	/**
+	 * A simple helper method to get the maximum waiting time of a priority class in seconds
+	 */
+	public double getClassMaxWaitTime(int priorityClass){
+		return this.classMaxWaitTimes[priorityClass];
+	}
+
+
+	/**
+	 * A simple helper method to get one of the waiting time percentiles of a priority class in seconds.
+	 * The index is into PERCENTILES
+	 */
+	public double getClassWaitTimePercentile(int priorityClass, int percentile){
+		return this.classWaitTimePercentiles[priorityClass][percentile];
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers in a priority class that starved
+	 */
+	public long getStarved(int priorityClass){
+		return this.starved[priorityClass];
+	}
+
+
+	/**
+	 * A simple helper method to get the number of times an aging line served a passenger ahead of a higher class
+	 */
+	public long getPromotions(){
+		return this.promotions;
+	}
+}
@@ -0,0 +1,292 @@
+/**
+ * Author: Jack Robbins
+ * This class describes a network of stages that passengers go through one after the other, such as
+ * check-in, then security, then boarding
+ */
+
+package simulation;
+
+import dispatch.DispatchStrategy;
+import distribution.Distribution;
+import queueBackend.QueueBackend;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+
+/**
+ * Every stage is a scenario of its own, with its own strategy, stations, lines and service times.
+ * The first stage added is where everybody comes into the network, and its arrivals(time,
+ * distribution, log and duration) are the arrivals of the whole network. When a passenger leaves a
+ * stage they are routed on to another stage at random with the probabilities given, and whatever
+ * is left over is the chance that they leave the network. Stages can be routed back to, so a
+ * network does not have to be a straight line
+ */
+public class StageNetwork{
+	private ArrayList<String> names;
+	private ArrayList<Scenario> stages;
+	private ArrayList<int[]> routeTargets;
+	private ArrayList<double[]> routeProbabilities;
+
+
+	/**
+	 * Basic constructor, the network starts out without any stages
+	 */
+	public StageNetwork(){
+		this.names = new ArrayList<>();
+		this.stages = new ArrayList<>();
+		this.routeTargets = new ArrayList<>();
+		this.routeProbabilities = new ArrayList<>();
+	}
+
+
+	/**
+	 * Add a stage to the network and return its number. Passengers come back to the same lines as
+	 * many times as they are routed there, so the lines can not have a fixed capacity
+	 */
+	public int addStage(String name, Scenario stage){
+		if(this.names.contains(name)){
+			throw new IllegalArgumentException("There is already a stage called " + name);
+		}
+		if(stage.isWorkStealing() || stage.getNumClasses() > 1){
+			throw new IllegalArgumentException("Stages can not steal work or have priority classes, " + name + " does");
+		}
+		if(stage.getQueueBackend() != QueueBackend.LINKED){
+			throw new IllegalArgumentException("Stages need an unbounded queue backend, " + name + " has " + stage.getQueueBackend());
+		}
+
+		this.names.add(name);
+		this.stages.add(stage);
+		this.routeTargets.add(new int[0]);
+		this.routeProbabilities.add(new double[0]);
+		return this.stages.size() - 1;
+	}
+
+
+	/**
+	 * Send the given share of the passengers leaving one stage on to another. The shares out of any
+	 * stage can add up to at most 1, and the rest leave the network
+	 */
+	public void route(String from, String to, double probability){
+		int source = this.getStage(from);
+		int target = this.getStage(to);
+		if(!(probability > 0 && probability <= 1)){
+			throw new IllegalArgumentException("Routing probabilities must be above 0 and at most 1, got " + probability);
+		}
+
+		double total = probability;
+		for(double share : this.routeProbabilities.get(source)){
+			total += share;
+		}
+		if(total > 1 + 1e-9){
+			throw new IllegalArgumentException("The routes out of " + from + " add up to more than 1");
+		}
+
+		int[] targets = this.routeTargets.get(source);
+		double[] probabilities = this.routeProbabilities.get(source);
+		targets = Arrays.copyOf(targets, targets.length + 1);
+		probabilities = Arrays.copyOf(probabilities, probabilities.length + 1);
+		targets[targets.length - 1] = target;
+		probabilities[probabilities.length - 1] = probability;
+		this.routeTargets.set(source, targets);
+		this.routeProbabilities.set(source, probabilities);
+	}
+
+
+	/**
+	 * Pick the stage that a passenger leaving the given stage goes to next, or -1 if they leave
+	 * the network
+	 */
+	int nextStage(int stage, RandomGenerator random){
+		int[] targets = this.routeTargets.get(stage);
+		if(targets.length == 0){
+			return -1;
+		}
+
+		double[] probabilities = this.routeProbabilities.get(stage);
+		double draw = random.nextDouble();
+		for(int i = 0; i < targets.length; i++){
+			draw -= probabilities[i];
+			if(draw < 0){
+				return targets[i];
+			}
+		}
+
+		return -1;
+	}
+
+
+	/**
+	 * The average number of times a passenger coming into the network visits each stage. These
+	 * solve the traffic equations, where the visits to a stage are the arrivals from outside plus
+	 * the visits to every stage times the chance of being routed from there. A network that
+	 * passengers can never leave has no solution
+	 */
+	public double[] getVisitRatios(){
+		int numStages = this.stages.size();
+
+		//Build (I - P transposed) v = e, where only the first stage gets arrivals from outside
+		double[][] system = new double[numStages][numStages + 1];
+		for(int i = 0; i < numStages; i++){
+			system[i][i] = 1;
+		}
+		system[0][numStages] = 1;
+		for(int from = 0; from < numStages; from++){
+			int[] targets = this.routeTargets.get(from);
+			double[] probabilities = this.routeProbabilities.get(from);
+			for(int i = 0; i < targets.length; i++){
+				system[targets[i]][from] -= probabilities[i];
+			}
+		}
+
+		//Gaussian elimination with partial pivoting, there are only ever a handful of stages
+		for(int column = 0; column < numStages; column++){
+			int pivot = column;
+			for(int row = column + 1; row < numStages; row++){
+				if(Math.abs(system[row][column]) > Math.abs(system[pivot][column])){
+					pivot = row;
+				}
+			}
+			if(Math.abs(system[pivot][column]) < 1e-12){
+				throw new IllegalArgumentException("Passengers can never leave the network once they reach " + this.names.get(column));
+			}
+
+			double[] swap = system[column];
+			system[column] = system[pivot];
+			system[pivot] = swap;
+
+			for(int row = 0; row < numStages; row++){
+				if(row != column && system[row][column] != 0){
+					double factor = system[row][column] / system[column][column];
+					for(int k = column; k <= numStages; k++){
+						system[row][k] -= factor * system[column][k];
+					}
+				}
+			}
+		}
+
+		double[] visits = new double[numStages];
+		for(int i = 0; i < numStages; i++){
+			visits[i] = system[i][numStages] / system[i][i];
+		}
+
+		return visits;
+	}
+
+
+	/**
+	 * The share of the time that the stations of each stage would have to be busy to keep up with
+	 * the arrivals, in percent. A stage at 100 or more can never keep up
+	 */
+	public double[] getOfferedLoads(){
+		double[] visits = this.getVisitRatios();
+		double arrivalRate = 1.0 / this.stages.get(0).getAverageArrivalTime();
+
+		double[] loads = new double[visits.length];
+		for(int i = 0; i < visits.length; i++){
+			Scenario stage = this.stages.get(i);
+			loads[i] = arrivalRate * visits[i] * stage.getServiceDistribution().getMean() / stage.getNumStations() * 100;
+		}
+
+		return loads;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of stages
+	 */
+	public int getNumStages(){
+		return this.stages.size();
+	}
+
+
+	/**
+	 * A simple helper method to get the scenario of a stage
+	 */
+	public Scenario getStage(int stage){
+		return this.stages.get(stage);
+	}
+
+
+	/**
+	 * A simple helper method to get the number of a stage from its name
+	 */
+	public int getStage(String name){
+		int stage = this.names.indexOf(name);
+		if(stage < 0){
+			throw new IllegalArgumentException("There is no stage called " + name);
+		}
+
+		return stage;
+	}
+
+
+	/**
+	 * A simple helper method to get the name of a stage
+	 */
+	public String getName(int stage){
+		return this.names.get(stage);
+	}
+
+
+	/**
+	 * Read a network from a text file. Blank lines and lines starting with # are skipped, and every
+	 * other line is either a stage or a route
+	 * 	stage name strategy stations queues service [distribution]
+	 * 	route from to probability
+	 * Service times are averages in seconds, and the distribution is any that Distribution.parse
+	 * knows, jitter when none is given. Stages have to be listed before they are routed to, and the
+	 * first one listed is where passengers come in, every given number of seconds on average
+	 */
+	public static StageNetwork read(Path file, int duration, int averageArrivalTime, Distribution arrivalDistribution){
+		StageNetwork network = new StageNetwork();
+
+		try(BufferedReader reader = Files.newBufferedReader(file)){
+			String line;
+			int lineNumber = 0;
+			while((line = reader.readLine()) != null){
+				lineNumber++;
+				line = line.trim();
+				if(line.isEmpty() || line.startsWith("#")){
+					continue;
+				}
+
+				String[] fields = line.split("\\s+");
+				try{
+					if(fields[0].equalsIgnoreCase("stage") && (fields.length == 6 || fields.length == 7)){
+						DispatchStrategy strategy = DispatchStrategy.valueOf(fields[2].toUpperCase());
+						int averageServiceTime = Integer.parseInt(fields[5]);
+						Scenario stage = new Scenario(strategy, duration, averageArrivalTime, averageServiceTime,
+													  Integer.parseInt(fields[3]), Integer.parseInt(fields[4]));
+						if(fields.length == 7){
+							stage.setServiceDistribution(Distribution.parse(fields[6], averageServiceTime));
+						}
+						if(network.getNumStages() == 0){
+							stage.setArrivalDistribution(arrivalDistribution);
+						}
+						network.addStage(fields[1], stage);
+					} else if(fields[0].equalsIgnoreCase("route") && fields.length == 4){
+						network.route(fields[1], fields[2], Double.parseDouble(fields[3]));
+					} else {
+						throw new IllegalArgumentException("Expected a stage or a route");
+					}
+				} catch(IllegalArgumentException iae){
+					throw new IllegalArgumentException("Line " + lineNumber + " of " + file + ": " + iae.getMessage());
+				}
+			}
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+
+		if(network.getNumStages() == 0){
+			throw new IllegalArgumentException(file + " does not have any stages");
+		}
+
+		return network;
+	}
+}
@@ -0,0 +1,123 @@
+/**
+ * Author: Jack Robbins
+ * This class measures how long one service station is busy, from the exact times it starts and stops
+ */
+
+package statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+
+/**
+ * Every station gets one of these, and only the thread of that station ever updates it, so nothing
+ * here is locked. Whether the station is busy can be read from any thread, for sampling. Times are in
+ * nanoseconds, and only the differences between them matter. Idle gaps are kept in microseconds, so
+ * that a gap of days still fits the percentile histogram
+ */
+public class BusyTimeAccumulator{
+	private volatile boolean busy;
+	private long busySince;
+	private long idleSince;
+	private long busyNanos;
+	private long served;
+	private RunningStatistics idleGaps;
+
+
+	/**
+	 * Basic constructor, the station is idle from the start of the run
+	 */
+	public BusyTimeAccumulator(long startNanos){
+		this.busy = false;
+		this.idleSince = startNanos;
+		this.busyNanos = 0;
+		this.served = 0;
+		this.idleGaps = new RunningStatistics();
+	}
+
+
+	/**
+	 * The station started serving somebody. A station that goes straight from one passenger to the
+	 * next was never idle, so only gaps longer than 0 are counted
+	 */
+	public void busy(long nanos){
+		long gap = nanos - this.idleSince;
+		if(gap > 0){
+			this.idleGaps.add(gap / 1000);
+		}
+
+		this.busy = true;
+		this.busySince = nanos;
+	}
+
+
+	/**
+	 * The station finished serving somebody
+	 */
+	public void idle(long nanos){
+		this.busyNanos += nanos - this.busySince;
+		this.served++;
+		this.busy = false;
+		this.idleSince = nanos;
+	}
+
+
+	/**
+	 * Write out whether the station is busy, since when, and everything added up so far
+	 */
+	public void writeState(DataOutput out) throws IOException{
+		out.writeBoolean(this.busy);
+		out.writeLong(this.busySince);
+		out.writeLong(this.idleSince);
+		out.writeLong(this.busyNanos);
+		out.writeLong(this.served);
+		this.idleGaps.writeState(out);
+	}
+
+
+	/**
+	 * Replace everything measured so far with what writeState() wrote out
+	 */
+	public void readState(DataInput in) throws IOException{
+		this.busy = in.readBoolean();
+		this.busySince = in.readLong();
+		this.idleSince = in.readLong();
+		this.busyNanos = in.readLong();
+		this.served = in.readLong();
+		this.idleGaps.readState(in);
+	}
+
+
+	/**
+	 * Total time spent serving up to the given time, including the passenger being served right now
+	 */
+	public long getBusyNanos(long nowNanos){
+		return this.busy ? this.busyNanos + nowNanos - this.busySince : this.busyNanos;
+	}
+
+
+	/**
+	 * A simple helper method to get whether the station is serving somebody right now
+	 */
+	public boolean isBusy(){
+		return this.busy;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of passengers the station finished serving
+	 */
+	public long getServed(){
+		return this.served;
+	}
+
+
+	/**
+	 * A simple helper method to get the gaps between services in microseconds, along with the wait
+	 * for the first passenger
+	 */
+	public RunningStatistics getIdleGaps(){
+		return this.idleGaps;
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ * Author: Jack Robbins
+ * This class is a 95% confidence interval for the mean of a set of samples
+ */
+
+package statistics;
+
+
+/**
+ * The interval is built using the Student t distribution, since the number of
+ * replications is usually small. Samples that are not a number(a queue that
+ * nobody ever joined, for example) are left out
+ */
+public class ConfidenceInterval{
+	//Two sided 95% critical values of the t distribution for 1 to 30 degrees of freedom
+	private static final double[] T_CRITICAL = {
+		12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+		2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+		2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+	};
+
+	//Two sided 95% critical value of the normal distribution
+	private static final double Z_CRITICAL = 1.959964;
+
+	private double mean;
+	private double halfWidth;
+	private int samples;
+
+
+	/**
+	 * Build the interval from a set of samples
+	 */
+	public ConfidenceInterval(double[] values){
+		double sum = 0;
+		for(double value : values){
+			if(!Double.isNaN(value)){
+				sum += value;
+				this.samples++;
+			}
+		}
+
+		this.mean = this.samples == 0 ? Double.NaN : sum / this.samples;
+
+		//One sample tells us nothing about the spread
+		if(this.samples < 2){
+			this.halfWidth = Double.NaN;
+			return;
+		}
+
+		double squaredDeviations = 0;
+		for(double value : values){
+			if(!Double.isNaN(value)){
+				squaredDeviations += (value - this.mean) * (value - this.mean);
+			}
+		}
+
+		double standardDeviation = Math.sqrt(squaredDeviations / (this.samples - 1));
+		this.halfWidth = tCritical(this.samples - 1) * standardDeviation / Math.sqrt(this.samples);
+	}
+
+
+	/**
+	 * A simple helper method to get the sample mean
+	 */
+	public double getMean(){
+		return this.mean;
+	}
+
+
+	/**
+	 * A simple helper method to get the half width of the interval
+	 */
+	public double getHalfWidth(){
+		return this.halfWidth;
+	}
+
+
+	/**
+	 * A simple helper method to get the lower bound of the interval
+	 */
+	public double getLower(){
+		return this.mean - this.halfWidth;
+	}
+
+
+	/**
+	 * A simple helper method to get the upper bound of the interval
+	 */
+	public double getUpper(){
+		return this.mean + this.halfWidth;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of samples that went into the interval
+	 */
+	public int getSamples(){
+		return this.samples;
+	}
+
+
+	@Override
+	public String toString(){
+		return String.format("%.2f +/- %.2f", this.mean, this.halfWidth);
+	}
+
+
+	/**
+	 * Critical value of the t distribution. Past the end of the table we use the
+	 * Cornish-Fisher expansion around the normal critical value
+	 */
+	private static double tCritical(int degreesOfFreedom){
+		if(degreesOfFreedom <= T_CRITICAL.length){
+			return T_CRITICAL[degreesOfFreedom - 1];
+		}
+
+		double z = Z_CRITICAL;
+		double df = degreesOfFreedom;
+		return z + (z * z * z + z) / (4 * df)
+				 + (5 * Math.pow(z, 5) + 16 * z * z * z + 3 * z) / (96 * df * df);
+	}
+}
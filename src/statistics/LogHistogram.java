@@ -0,0 +1,155 @@
+/**
+ * Author: Jack Robbins
+ * This class is a fixed size histogram with logarithmically sized buckets
+ */
+
+package statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+
+/**
+ * Values below 32 get a bucket each. Above that, every power of two is split into
+ * 32 equal buckets, so a value is never off by more than about 3% when it is read
+ * back. The histogram never grows, no matter how many values are recorded
+ */
+public class LogHistogram{
+	//Number of buckets per power of two, as a power of two itself
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	//Largest power of two that gets its own buckets, anything bigger lands in the last bucket
+	private static final int MAX_EXPONENT = 40;
+
+	private long[] counts;
+	private long totalCount;
+
+
+	/**
+	 * Basic constructor, every bucket starts out empty
+	 */
+	public LogHistogram(){
+		this.counts = new long[SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+		this.totalCount = 0;
+	}
+
+
+	/**
+	 * Record a value. Negative values are counted as 0
+	 */
+	public void record(long value){
+		this.counts[bucketOf(Math.max(value, 0))]++;
+		this.totalCount++;
+	}
+
+
+	/**
+	 * Add every value in another histogram to this one
+	 */
+	public void merge(LogHistogram other){
+		for(int i = 0; i < this.counts.length; i++){
+			this.counts[i] += other.counts[i];
+		}
+		this.totalCount += other.totalCount;
+	}
+
+
+	/**
+	 * Write out every bucket that holds anything, along with its number, since most of them are
+	 * always empty
+	 */
+	public void writeState(DataOutput out) throws IOException{
+		int used = 0;
+		for(long count : this.counts){
+			if(count != 0){
+				used++;
+			}
+		}
+
+		out.writeInt(used);
+		for(int i = 0; i < this.counts.length; i++){
+			if(this.counts[i] != 0){
+				out.writeInt(i);
+				out.writeLong(this.counts[i]);
+			}
+		}
+	}
+
+
+	/**
+	 * Replace everything recorded so far with what writeState() wrote out
+	 */
+	public void readState(DataInput in) throws IOException{
+		Arrays.fill(this.counts, 0);
+		this.totalCount = 0;
+
+		int used = in.readInt();
+		for(int i = 0; i < used; i++){
+			int bucket = in.readInt();
+			this.counts[bucket] = in.readLong();
+			this.totalCount += this.counts[bucket];
+		}
+	}
+
+
+	/**
+	 * Get the value below which the given fraction(between 0 and 1) of values fall
+	 */
+	public long getPercentile(double fraction){
+		if(this.totalCount == 0){
+			return 0;
+		}
+
+		long rank = Math.max(1, (long)Math.ceil(fraction * this.totalCount));
+		long seen = 0;
+		for(int i = 0; i < this.counts.length; i++){
+			seen += this.counts[i];
+			if(seen >= rank){
+				return valueOf(i);
+			}
+		}
+
+		return valueOf(this.counts.length - 1);
+	}
+
+
+	/**
+	 * A simple helper method to get the number of values recorded
+	 */
+	public long getTotalCount(){
+		return this.totalCount;
+	}
+
+
+	/**
+	 * Find the bucket that a value falls into
+	 */
+	private static int bucketOf(long value){
+		if(value < SUB_BUCKETS){
+			return (int)value;
+		}
+
+		int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+		int shift = exponent - SUB_BUCKET_BITS;
+		int subBucket = (int)Math.min((value >> shift) - SUB_BUCKETS, SUB_BUCKETS - 1);
+		return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+	}
+
+
+	/**
+	 * The value in the middle of a bucket
+	 */
+	private static long valueOf(int bucket){
+		if(bucket < SUB_BUCKETS){
+			return bucket;
+		}
+
+		int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+		long subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+		long lower = (SUB_BUCKETS + subBucket) << shift;
+		return lower + ((1L << shift) >> 1);
+	}
+}
@@ -0,0 +1,160 @@
+/**
+ * Author: Jack Robbins
+ * This class keeps running statistics over a stream of values
+ */
+
+package statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+
+/**
+ * Values are folded in one at a time as they happen, so nothing needs to be kept
+ * around until the end of a run. The mean and variance use Welford's method, which
+ * stays accurate even over hundreds of millions of values, and percentiles come from
+ * a fixed size histogram
+ */
+public class RunningStatistics{
+	private long count;
+	private double mean;
+	private double squaredDeviations;
+	private long min;
+	private long max;
+	private LogHistogram histogram;
+
+
+	/**
+	 * Basic constructor, nothing has been recorded yet
+	 */
+	public RunningStatistics(){
+		this.count = 0;
+		this.mean = 0;
+		this.squaredDeviations = 0;
+		this.min = Long.MAX_VALUE;
+		this.max = Long.MIN_VALUE;
+		this.histogram = new LogHistogram();
+	}
+
+
+	/**
+	 * Fold one value into the statistics
+	 */
+	public void add(long value){
+		this.count++;
+		double delta = value - this.mean;
+		this.mean += delta / this.count;
+		this.squaredDeviations += delta * (value - this.mean);
+		this.min = Math.min(this.min, value);
+		this.max = Math.max(this.max, value);
+		this.histogram.record(value);
+	}
+
+
+	/**
+	 * Fold every value from another set of statistics into this one
+	 */
+	public void merge(RunningStatistics other){
+		if(other.count == 0){
+			return;
+		}
+
+		long combinedCount = this.count + other.count;
+		double delta = other.mean - this.mean;
+		this.mean += delta * other.count / combinedCount;
+		this.squaredDeviations += other.squaredDeviations + delta * delta * this.count * other.count / combinedCount;
+		this.count = combinedCount;
+		this.min = Math.min(this.min, other.min);
+		this.max = Math.max(this.max, other.max);
+		this.histogram.merge(other.histogram);
+	}
+
+
+	/**
+	 * Write out everything folded in so far, exactly as it is held, so that reading it back carries on
+	 * with the very same numbers
+	 */
+	public void writeState(DataOutput out) throws IOException{
+		out.writeLong(this.count);
+		out.writeDouble(this.mean);
+		out.writeDouble(this.squaredDeviations);
+		out.writeLong(this.min);
+		out.writeLong(this.max);
+		this.histogram.writeState(out);
+	}
+
+
+	/**
+	 * Replace everything folded in so far with what writeState() wrote out
+	 */
+	public void readState(DataInput in) throws IOException{
+		this.count = in.readLong();
+		this.mean = in.readDouble();
+		this.squaredDeviations = in.readDouble();
+		this.min = in.readLong();
+		this.max = in.readLong();
+		this.histogram.readState(in);
+	}
+
+
+	/**
+	 * A simple helper method to get the number of values
+	 */
+	public long getCount(){
+		return this.count;
+	}
+
+
+	/**
+	 * A simple helper method to get the mean, which is not a number if nothing was recorded
+	 */
+	public double getMean(){
+		return this.count == 0 ? Double.NaN : this.mean;
+	}
+
+
+	/**
+	 * A simple helper method to get the sample variance
+	 */
+	public double getVariance(){
+		return this.count < 2 ? 0 : this.squaredDeviations / (this.count - 1);
+	}
+
+
+	/**
+	 * A simple helper method to get the sample standard deviation
+	 */
+	public double getStandardDeviation(){
+		return Math.sqrt(this.getVariance());
+	}
+
+
+	/**
+	 * A simple helper method to get the smallest value, 0 if nothing was recorded
+	 */
+	public long getMin(){
+		return this.count == 0 ? 0 : this.min;
+	}
+
+
+	/**
+	 * A simple helper method to get the largest value, 0 if nothing was recorded
+	 */
+	public long getMax(){
+		return this.count == 0 ? 0 : this.max;
+	}
+
+
+	/**
+	 * Get an approximate percentile(fraction between 0 and 1) from the histogram. A bucket is read back
+	 * as its middle, so the answer is kept between the smallest and largest values actually seen
+	 */
+	public long getPercentile(double fraction){
+		if(this.getCount() == 0){
+			return 0;
+		}
+
+		return Math.min(Math.max(this.histogram.getPercentile(fraction), this.getMin()), this.getMax());
+	}
+}
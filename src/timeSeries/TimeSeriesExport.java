@@ -0,0 +1,131 @@
+/**
+ * Author: Jack Robbins
+ * This class sums up a time series file and exports it for plotting
+ *
+ * 	Every column is read back on its own, and the depth of every queue is summed up along with when
+ * 	it peaked, which is what bursts are tuned by. Given a second file, every sample is also written
+ * 	out as one CSV row, ready for a spreadsheet or a plotting tool. Usage:
+ * 		java timeSeries.TimeSeriesExport timeseries.bin [timeseries.csv]
+ */
+
+package timeSeries;
+
+import statistics.RunningStatistics;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+
+public class TimeSeriesExport{
+	/**
+	 * Sum up the time series named on the command line, and export it if a CSV file is named too
+	 */
+	public static void main(String[] args){
+		if(args.length < 1 || args.length > 2){
+			System.out.println("Usage: TimeSeriesExport timeseries.bin [timeseries.csv]");
+			return;
+		}
+
+		try{
+			TimeSeriesReader reader = new TimeSeriesReader(Paths.get(args[0]));
+
+			long start = System.nanoTime();
+			long[] times = reader.getTimes();
+			int[][] depths = new int[reader.getNumQueues()][];
+			for(int i = 0; i < depths.length; i++){
+				depths[i] = reader.getDepths(i);
+			}
+			boolean[][] busy = new boolean[reader.getNumStations()][];
+			for(int i = 0; i < busy.length; i++){
+				busy[i] = reader.getBusy(i);
+			}
+			long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+			System.out.println("Read " + reader.getNumSamples() + " samples, one every " + reader.getInterval() + " ms, in "
+							   + elapsed + " ms");
+			printStatistics(times, depths, busy);
+
+			if(args.length == 2){
+				writeCsv(args[1], times, depths, busy);
+				System.out.println("Wrote every sample to " + args[1]);
+			}
+		} catch(IOException | IllegalArgumentException e){
+			System.out.println(e.getMessage());
+		}
+	}
+
+
+	/**
+	 * A helper method for printing how deep every queue got and how busy every station was to the command line
+	 */
+	public static void printStatistics(long[] times, int[][] depths, boolean[][] busy){
+		System.out.println("\n\n================= Time Series Statistics ====================");
+
+		for(int i = 0; i < depths.length; i++){
+			RunningStatistics statistics = new RunningStatistics();
+			int peak = 0;
+			for(int j = 0; j < depths[i].length; j++){
+				statistics.add(depths[i][j]);
+				if(depths[i][j] > depths[i][peak]){
+					peak = j;
+				}
+			}
+
+			System.out.println("Queue " + (i + 1) + ": ");
+			System.out.printf("\tAverage depth: %.2f, p95 %d, standard deviation %.2f\n", statistics.getMean(),
+							  statistics.getPercentile(0.95), statistics.getStandardDeviation());
+			if(times.length > 0){
+				System.out.printf("\tDeepest: %d at %.2f seconds\n", depths[i][peak], times[peak] / 1000.0);
+			}
+		}
+
+		for(int i = 0; i < busy.length; i++){
+			int busySamples = 0;
+			for(boolean sample : busy[i]){
+				if(sample){
+					busySamples++;
+				}
+			}
+
+			System.out.printf("Station %d: busy in %.2f%% of the samples\n", i + 1,
+							  busy[i].length == 0 ? 0 : 100.0 * busySamples / busy[i].length);
+		}
+
+		//For prettiness
+		System.out.println("\n\n=============================================================");
+	}
+
+
+	/**
+	 * Helper method for writing one CSV row per sample, with the time in seconds, then the depth of every
+	 * queue, then a 1 for every busy station
+	 */
+	private static void writeCsv(String file, long[] times, int[][] depths, boolean[][] busy) throws IOException{
+		try(BufferedWriter out = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)){
+			StringBuilder row = new StringBuilder("time_s");
+			for(int i = 0; i < depths.length; i++){
+				row.append(",queue_").append(i + 1);
+			}
+			for(int i = 0; i < busy.length; i++){
+				row.append(",station_").append(i + 1);
+			}
+			out.write(row.toString());
+			out.newLine();
+
+			for(int j = 0; j < times.length; j++){
+				row.setLength(0);
+				row.append(times[j] / 1000.0);
+				for(int[] depth : depths){
+					row.append(',').append(depth[j]);
+				}
+				for(boolean[] station : busy){
+					row.append(',').append(station[j] ? 1 : 0);
+				}
+				out.write(row.toString());
+				out.newLine();
+			}
+		}
+	}
+}
@@ -0,0 +1,53 @@
+/**
+ * Author: Jack Robbins
+ * This class holds the layout of a time series file
+ *
+ * A time series is a fixed size header followed by blocks of samples, all in big endian order
+ * 	Header: magic, version, number of queues, number of stations(4 bytes each), sample interval in
+ * 			milliseconds(8 bytes), rows per full block(4 bytes), padded to 32 bytes
+ * 	Block:	number of rows(4 bytes), then one column after the other: the time of every sample(8 bytes
+ * 			each), the depth of every queue(4 bytes each, one column per queue), then whether every
+ * 			station was busy(1 byte each, one column per station)
+ *
+ * 	Every block but the last one holds exactly the rows per full block, so a reader can jump straight
+ * 	to any column of any block. A block is only ever written whole, so a file whose run died halfway
+ * 	still reads back up to its last whole block
+ */
+
+package timeSeries;
+
+
+class TimeSeriesFormat{
+	static final int MAGIC = 0x51535453;
+	static final int VERSION = 1;
+
+	static final int HEADER_BYTES = 32;
+
+	//Where each field of the header starts
+	static final int NUM_QUEUES_OFFSET = 8;
+	static final int NUM_STATIONS_OFFSET = 12;
+	static final int INTERVAL_OFFSET = 16;
+	static final int BLOCK_ROWS_OFFSET = 24;
+
+	//Samples are written out this many rows at a time
+	static final int BLOCK_ROWS = 4096;
+
+	//Bytes before the first column of a block
+	static final int BLOCK_HEADER_BYTES = 4;
+
+
+	/**
+	 * Number of bytes one row takes up, over every column
+	 */
+	static int rowBytes(int numQueues, int numStations){
+		return 8 + 4 * numQueues + numStations;
+	}
+
+
+	/**
+	 * Number of bytes in a block of the given number of rows
+	 */
+	static long blockBytes(int rows, int numQueues, int numStations){
+		return BLOCK_HEADER_BYTES + (long)rows * rowBytes(numQueues, numStations);
+	}
+}
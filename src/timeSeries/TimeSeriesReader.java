@@ -0,0 +1,181 @@
+/**
+ * Author: Jack Robbins
+ * This class reads a time series file back one column at a time
+ *
+ * Every column of a block sits in one piece, so reading a column is one read per block straight
+ * into an array, without touching any of the other columns. Plotting the depth of one queue over a
+ * whole day only ever reads that queue's column
+ */
+
+package timeSeries;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+public class TimeSeriesReader{
+	private Path file;
+	private int numQueues;
+	private int numStations;
+	private long interval;
+	private int blockRows;
+	private int numBlocks;
+	private int numSamples;
+
+
+	/**
+	 * Basic constructor, reads and checks the header and counts the whole blocks in the file
+	 */
+	public TimeSeriesReader(Path file) throws IOException{
+		this.file = file;
+
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			ByteBuffer header = ByteBuffer.allocate(TimeSeriesFormat.HEADER_BYTES);
+			if(channel.size() < TimeSeriesFormat.HEADER_BYTES){
+				throw new IllegalArgumentException(file + " is too short to be a time series");
+			}
+
+			readFully(channel, header, 0);
+			if(header.getInt(0) != TimeSeriesFormat.MAGIC || header.getInt(4) != TimeSeriesFormat.VERSION){
+				throw new IllegalArgumentException(file + " is not a version " + TimeSeriesFormat.VERSION + " time series");
+			}
+
+			this.numQueues = header.getInt(TimeSeriesFormat.NUM_QUEUES_OFFSET);
+			this.numStations = header.getInt(TimeSeriesFormat.NUM_STATIONS_OFFSET);
+			this.interval = header.getLong(TimeSeriesFormat.INTERVAL_OFFSET);
+			this.blockRows = header.getInt(TimeSeriesFormat.BLOCK_ROWS_OFFSET);
+
+			//Only whole blocks count, a run that died can leave half of one at the end
+			ByteBuffer rows = ByteBuffer.allocate(TimeSeriesFormat.BLOCK_HEADER_BYTES);
+			long position = TimeSeriesFormat.HEADER_BYTES;
+			while(position + TimeSeriesFormat.BLOCK_HEADER_BYTES <= channel.size()){
+				readFully(channel, rows.clear(), position);
+				int blockSize = rows.getInt(0);
+				long blockBytes = TimeSeriesFormat.blockBytes(blockSize, this.numQueues, this.numStations);
+				if(blockSize < 1 || blockSize > this.blockRows || position + blockBytes > channel.size()){
+					break;
+				}
+
+				this.numBlocks++;
+				this.numSamples += blockSize;
+				position += blockBytes;
+			}
+		}
+	}
+
+
+	/**
+	 * Read the time of every sample, in milliseconds from the start of the run
+	 */
+	public long[] getTimes() throws IOException{
+		long[] times = new long[this.numSamples];
+		this.readColumn(0, 8, (buffer, offset, rows) -> buffer.asLongBuffer().get(times, offset, rows));
+		return times;
+	}
+
+
+	/**
+	 * Read how many passengers were waiting in a queue at every sample
+	 */
+	public int[] getDepths(int queueID) throws IOException{
+		int[] depths = new int[this.numSamples];
+		this.readColumn(8 + 4L * queueID, 4, (buffer, offset, rows) -> buffer.asIntBuffer().get(depths, offset, rows));
+		return depths;
+	}
+
+
+	/**
+	 * Read whether a station was serving somebody at every sample
+	 */
+	public boolean[] getBusy(int stationID) throws IOException{
+		boolean[] busy = new boolean[this.numSamples];
+		this.readColumn(8 + 4L * this.numQueues + stationID, 1, (buffer, offset, rows) -> {
+			for(int i = 0; i < rows; i++){
+				busy[offset + i] = buffer.get(i) != 0;
+			}
+		});
+		return busy;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of queues
+	 */
+	public int getNumQueues(){
+		return this.numQueues;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of stations
+	 */
+	public int getNumStations(){
+		return this.numStations;
+	}
+
+
+	/**
+	 * A simple helper method to get the milliseconds between two samples
+	 */
+	public long getInterval(){
+		return this.interval;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of samples in the file
+	 */
+	public int getNumSamples(){
+		return this.numSamples;
+	}
+
+
+	/**
+	 * Helper method for reading one column out of every block. A column starts the given number of bytes
+	 * per row into the rows of a block, and each value in it takes up the given width
+	 */
+	private void readColumn(long bytesPerRowBefore, int width, ColumnChunk chunk) throws IOException{
+		try(FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)){
+			ByteBuffer buffer = ByteBuffer.allocateDirect(this.blockRows * width);
+			long position = TimeSeriesFormat.HEADER_BYTES;
+			int offset = 0;
+
+			for(int i = 0; i < this.numBlocks; i++){
+				int rows = Math.min(this.blockRows, this.numSamples - offset);
+				buffer.clear().limit(rows * width);
+				readFully(channel, buffer, position + TimeSeriesFormat.BLOCK_HEADER_BYTES + bytesPerRowBefore * rows);
+				buffer.flip();
+				chunk.read(buffer, offset, rows);
+
+				offset += rows;
+				position += TimeSeriesFormat.blockBytes(rows, this.numQueues, this.numStations);
+			}
+		}
+	}
+
+
+	/**
+	 * Helper method for filling a buffer from the given place in the file
+	 */
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException{
+		while(buffer.hasRemaining()){
+			if(channel.read(buffer, position + buffer.position()) < 0){
+				throw new IOException("Unexpected end of file");
+			}
+		}
+	}
+
+
+	/**
+	 * Copies the part of a column that is in one block into the whole column
+	 */
+	private interface ColumnChunk{
+		/**
+		 * Copy the given number of rows out of the buffer, to the given place in the column
+		 */
+		void read(ByteBuffer buffer, int offset, int rows);
+	}
+}
@@ -0,0 +1,274 @@
+/**
+ * Author: Jack Robbins
+ * This class samples how deep every queue is and whether every station is busy at a fixed interval,
+ * and writes the samples out to a columnar time series file as the run goes
+ *
+ * 	Samples go into preallocated primitive rings, one column per queue and per station, so taking a
+ * 	sample is a handful of array stores and never allocates. A background writer takes every full
+ * 	block of rows out of the rings and writes it out column by column. Memory use is the same no
+ * 	matter how long the run is, and a whole day of samples can be read back one column at a time
+ */
+
+package timeSeries;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Only one thread may ever take samples, either the thread running the event calendar or the sampler
+ * thread of a real time run. If the writer falls a whole ring behind, sampling waits for it rather
+ * than losing rows
+ */
+public final class TimeSeriesSampler implements AutoCloseable{
+	//Blocks of rows the rings hold, so the run can fill some while another one is being written
+	private static final int RING_BLOCKS = 4;
+
+	private final FileChannel channel;
+	private final int numQueues;
+	private final int numStations;
+	private final long interval;
+	private final int capacity;
+	private final long[] times;
+	private final int[][] depths;
+	private final byte[][] busy;
+	private final AtomicLong head;
+	private final AtomicLong tail;
+	private final ByteBuffer block;
+	private final Thread writer;
+	private Thread sampler;
+	private volatile boolean sampling;
+	private volatile boolean closed;
+	private IOException failure;
+
+
+	/**
+	 * Basic constructor, creates the file and writes the header
+	 */
+	private TimeSeriesSampler(Path file, int numQueues, int numStations, long interval) throws IOException{
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+										StandardOpenOption.TRUNCATE_EXISTING);
+		this.numQueues = numQueues;
+		this.numStations = numStations;
+		this.interval = interval;
+		this.capacity = RING_BLOCKS * TimeSeriesFormat.BLOCK_ROWS;
+		this.times = new long[this.capacity];
+		this.depths = new int[numQueues][this.capacity];
+		this.busy = new byte[numStations][this.capacity];
+		this.head = new AtomicLong();
+		this.tail = new AtomicLong();
+		this.block = ByteBuffer.allocateDirect((int)TimeSeriesFormat.blockBytes(TimeSeriesFormat.BLOCK_ROWS, numQueues, numStations));
+		this.sampling = false;
+		this.closed = false;
+
+		ByteBuffer header = ByteBuffer.allocate(TimeSeriesFormat.HEADER_BYTES);
+		header.putInt(0, TimeSeriesFormat.MAGIC);
+		header.putInt(4, TimeSeriesFormat.VERSION);
+		header.putInt(TimeSeriesFormat.NUM_QUEUES_OFFSET, numQueues);
+		header.putInt(TimeSeriesFormat.NUM_STATIONS_OFFSET, numStations);
+		header.putLong(TimeSeriesFormat.INTERVAL_OFFSET, interval);
+		header.putInt(TimeSeriesFormat.BLOCK_ROWS_OFFSET, TimeSeriesFormat.BLOCK_ROWS);
+		while(header.hasRemaining()){
+			this.channel.write(header);
+		}
+
+		this.writer = new Thread(this::writeLoop, "time-series-writer");
+		this.writer.setDaemon(true);
+	}
+
+
+	/**
+	 * Make a sampler that writes to the given file, taking a sample every interval in milliseconds, and
+	 * start its writer
+	 */
+	public static TimeSeriesSampler create(Path file, int numQueues, int numStations, long interval){
+		if(interval < 1){
+			throw new IllegalArgumentException("Samples need to be at least a millisecond apart, got " + interval);
+		}
+
+		try{
+			TimeSeriesSampler sampler = new TimeSeriesSampler(file, numQueues, numStations, interval);
+			sampler.writer.start();
+			return sampler;
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+
+	/**
+	 * Take one sample at the given time in milliseconds from the start of the run, asking for the depth
+	 * of every queue and whether every station is busy
+	 */
+	public void record(long time, IntUnaryOperator depthOf, IntPredicate isBusy){
+		long row = this.head.getPlain();
+
+		//Wait for the writer rather than overwrite rows it has not written yet
+		while(row - this.tail.getAcquire() == this.capacity){
+			LockSupport.unpark(this.writer);
+			LockSupport.parkNanos(100_000);
+		}
+
+		int slot = (int)(row % this.capacity);
+		this.times[slot] = time;
+		for(int queueID = 0; queueID < this.numQueues; queueID++){
+			this.depths[queueID][slot] = depthOf.applyAsInt(queueID);
+		}
+		for(int stationID = 0; stationID < this.numStations; stationID++){
+			this.busy[stationID][slot] = (byte)(isBusy.test(stationID) ? 1 : 0);
+		}
+
+		//Publish the row to the writer, and wake it up once a block is full
+		this.head.setRelease(row + 1);
+		if((row + 1) % TimeSeriesFormat.BLOCK_ROWS == 0){
+			LockSupport.unpark(this.writer);
+		}
+	}
+
+
+	/**
+	 * Take a sample every interval on a thread of its own, for runs in real time. The clock gives the
+	 * milliseconds since the start of the run, and the first sample is taken straight away
+	 */
+	public void sampleEvery(LongSupplier clock, IntUnaryOperator depthOf, IntPredicate isBusy){
+		this.sampling = true;
+		this.sampler = new Thread(() -> {
+			long next = 0;
+			while(this.sampling){
+				long wait = next - clock.getAsLong();
+				if(wait > 0){
+					LockSupport.parkNanos(wait * 1_000_000);
+					continue;
+				}
+
+				this.record(next, depthOf, isBusy);
+				next += this.interval;
+			}
+		}, "time-series-sampler");
+		this.sampler.setDaemon(true);
+		this.sampler.start();
+	}
+
+
+	/**
+	 * A simple helper method to get the milliseconds between two samples
+	 */
+	public long getInterval(){
+		return this.interval;
+	}
+
+
+	/**
+	 * Stop sampling, write out every row that is left and close the file
+	 */
+	@Override
+	public void close(){
+		if(this.sampler != null){
+			this.sampling = false;
+			LockSupport.unpark(this.sampler);
+			join(this.sampler);
+		}
+
+		this.closed = true;
+		LockSupport.unpark(this.writer);
+		join(this.writer);
+
+		try{
+			this.channel.close();
+		} catch(IOException ioe){
+			this.failure = this.failure == null ? ioe : this.failure;
+		}
+
+		if(this.failure != null){
+			throw new UncheckedIOException(this.failure);
+		}
+	}
+
+
+	/**
+	 * The body of the background writer. It writes every full block as soon as there is one, and once
+	 * the sampler is closed it writes whatever is left as one last, shorter block
+	 */
+	private void writeLoop(){
+		while(!this.closed){
+			LockSupport.park();
+			this.writeBlocks(TimeSeriesFormat.BLOCK_ROWS);
+		}
+
+		//Nobody is sampling any more by now
+		this.writeBlocks(TimeSeriesFormat.BLOCK_ROWS);
+		this.writeBlocks(1);
+	}
+
+
+	/**
+	 * Write out blocks for as long as there are at least the given number of rows waiting. A block never
+	 * holds more than the rows per full block, and always starts at the start of a block in the rings
+	 */
+	private void writeBlocks(int minimumRows){
+		long from = this.tail.getPlain();
+		long to = this.head.getAcquire();
+
+		while(to - from >= minimumRows){
+			int rows = (int)Math.min(to - from, TimeSeriesFormat.BLOCK_ROWS);
+			this.writeBlock((int)(from % this.capacity), rows);
+
+			//Hand the rows back to the sampler
+			from += rows;
+			this.tail.setRelease(from);
+		}
+	}
+
+
+	/**
+	 * Write one block, column by column. Once writing has failed, blocks are only dropped, so that
+	 * sampling never waits on a writer that can not write
+	 */
+	private void writeBlock(int start, int rows){
+		if(this.failure != null){
+			return;
+		}
+
+		this.block.clear();
+		this.block.putInt(rows);
+		this.block.asLongBuffer().put(this.times, start, rows);
+		this.block.position(this.block.position() + 8 * rows);
+		for(int[] column : this.depths){
+			this.block.asIntBuffer().put(column, start, rows);
+			this.block.position(this.block.position() + 4 * rows);
+		}
+		for(byte[] column : this.busy){
+			this.block.put(column, start, rows);
+		}
+		this.block.flip();
+
+		try{
+			while(this.block.hasRemaining()){
+				this.channel.write(this.block);
+			}
+		} catch(IOException ioe){
+			this.failure = ioe;
+		}
+	}
+
+
+	/**
+	 * Helper method for waiting on a thread to finish
+	 */
+	private static void join(Thread thread){
+		try{
+			thread.join();
+		} catch(InterruptedException ie){
+			System.out.println(ie.getMessage());
+		}
+	}
+}
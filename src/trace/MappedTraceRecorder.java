@@ -0,0 +1,151 @@
+/**
+ * Author: Jack Robbins
+ * Memory-mapped implementation of the trace recorder
+ *
+ * The file is mapped one chunk at a time and records are written straight into the mapping, so
+ * recording is a few stores into memory and the operating system writes the pages out on its own.
+ * Once a chunk is full the next one is mapped. When the trace is closed the record count goes into
+ * the header and the file is cut down to the records that were actually written
+ *
+ * Every record claims its slot with one atomic add and is then written without a lock, so real time
+ * stations never wait on each other to record. Only the thread that runs off the end of a chunk takes
+ * the lock, to map the next one
+ */
+
+package trace;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+class MappedTraceRecorder implements TraceRecorder{
+	private final FileChannel channel;
+	private final long startTime;
+	private final AtomicLong records;
+	private volatile Chunk chunk;
+
+
+	/**
+	 * Basic constructor, creates the file and writes the header
+	 */
+	MappedTraceRecorder(Path file, int numQueues, int numStations, long startTime) throws IOException{
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+										StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		this.startTime = startTime;
+		this.records = new AtomicLong();
+
+		//The header shares the first chunk with the records
+		this.chunk = this.map(0);
+		MappedByteBuffer header = this.chunk.buffer;
+		header.putInt(0, TraceFormat.MAGIC);
+		header.putInt(4, TraceFormat.VERSION);
+		header.putInt(TraceFormat.NUM_QUEUES_OFFSET, numQueues);
+		header.putInt(TraceFormat.NUM_STATIONS_OFFSET, numStations);
+		header.putLong(TraceFormat.RECORD_COUNT_OFFSET, 0);
+	}
+
+
+	/**
+	 * Write one record into the mapping. Real time stations record from their own threads, so each
+	 * one claims a slot of its own first and then writes into it alongside everybody else
+	 */
+	@Override
+	public void record(Type type, long time, long since, int queueID, int stationID, int passengerID){
+		long position = TraceFormat.HEADER_BYTES + this.records.getAndIncrement() * TraceFormat.RECORD_BYTES;
+		Chunk chunk = this.chunk;
+		if(position < chunk.start || position >= chunk.start + TraceFormat.CHUNK_BYTES){
+			chunk = this.chunkAt(position);
+		}
+
+		MappedByteBuffer buffer = chunk.buffer;
+		int offset = (int)(position - chunk.start);
+		buffer.putLong(offset + TraceFormat.TIME_OFFSET, time - this.startTime);
+		buffer.putLong(offset + TraceFormat.SINCE_OFFSET, since - this.startTime);
+		buffer.putInt(offset + TraceFormat.TYPE_OFFSET, type.ordinal() + 1);
+		buffer.putInt(offset + TraceFormat.QUEUE_OFFSET, queueID);
+		buffer.putInt(offset + TraceFormat.STATION_OFFSET, stationID);
+		buffer.putInt(offset + TraceFormat.PASSENGER_OFFSET, passengerID);
+	}
+
+
+	/**
+	 * Write the record count into the header and cut the file down to the records that were written.
+	 * Every station has to be done recording by now
+	 */
+	@Override
+	public synchronized void close(){
+		try{
+			long records = this.records.get();
+			MappedByteBuffer header = this.map(0).buffer;
+			header.putLong(TraceFormat.RECORD_COUNT_OFFSET, records);
+			header.force();
+			this.chunk = null;
+
+			this.channel.truncate(TraceFormat.HEADER_BYTES + records * TraceFormat.RECORD_BYTES);
+			this.channel.close();
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+
+	/**
+	 * A simple helper method to get the number of records written so far
+	 */
+	public long getRecords(){
+		return this.records.get();
+	}
+
+
+	/**
+	 * Helper method for finding the chunk a record position falls in, for a thread that ran off the end
+	 * of the current one. The first thread to get here maps the next chunk for everybody, and a thread
+	 * that was held up after claiming a slot in an older chunk maps that one again just for itself
+	 */
+	private synchronized Chunk chunkAt(long position){
+		long start = position - position % TraceFormat.CHUNK_BYTES;
+		Chunk chunk = this.chunk;
+		if(start == chunk.start){
+			return chunk;
+		}
+
+		chunk = this.map(start);
+		if(start > this.chunk.start){
+			this.chunk = chunk;
+		}
+		return chunk;
+	}
+
+
+	/**
+	 * Helper method for mapping the chunk that starts at the given position. The file grows to
+	 * cover the whole chunk
+	 */
+	private Chunk map(long position){
+		try{
+			return new Chunk(position, this.channel.map(FileChannel.MapMode.READ_WRITE, position, TraceFormat.CHUNK_BYTES));
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+
+	/**
+	 * One mapped chunk of the file, along with where in the file it starts
+	 */
+	private static final class Chunk{
+		private final long start;
+		private final MappedByteBuffer buffer;
+
+
+		private Chunk(long start, MappedByteBuffer buffer){
+			this.start = start;
+			this.buffer = buffer;
+		}
+	}
+}
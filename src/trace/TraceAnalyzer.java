@@ -0,0 +1,207 @@
+/**
+ * Author: Jack Robbins
+ * This class rebuilds the statistics of a run from its binary trace
+ *
+ * 	The trace is streamed through once, so the statistics of a run that took hours come back in
+ * 	seconds without running it again. Every record is folded into running statistics as it is read,
+ * 	so memory use does not depend on the length of the trace. Usage:
+ * 		java trace.TraceAnalyzer trace.bin
+ */
+
+package trace;
+
+import statistics.RunningStatistics;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+
+public class TraceAnalyzer implements TraceVisitor{
+	private RunningStatistics[] queueWaitStatistics;
+	private RunningStatistics[] queueServiceStatistics;
+	private RunningStatistics[] stationServiceStatistics;
+	private RunningStatistics overallWaitStatistics;
+	private long[] stationBusyTime;
+	private int[] lengths;
+	private int[] longestLengths;
+	private int lastArrivalQueue;
+	private long runtime;
+
+
+	/**
+	 * Analyze the trace named on the command line and print its statistics
+	 */
+	public static void main(String[] args){
+		if(args.length != 1){
+			System.out.println("Usage: TraceAnalyzer trace.bin");
+			return;
+		}
+
+		try{
+			TraceReader reader = new TraceReader(Paths.get(args[0]));
+			TraceAnalyzer analyzer = new TraceAnalyzer(reader.getNumQueues(), reader.getNumStations());
+
+			long start = System.nanoTime();
+			long records = reader.forEach(analyzer);
+			long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+			System.out.println("Read " + records + " records in " + elapsed + " ms");
+			analyzer.printStatistics();
+		} catch(IOException | IllegalArgumentException e){
+			System.out.println(e.getMessage());
+		}
+	}
+
+
+	/**
+	 * Basic constructor, nothing has been read yet
+	 */
+	public TraceAnalyzer(int numQueues, int numStations){
+		this.queueWaitStatistics = new RunningStatistics[numQueues];
+		for(int i = 0; i < numQueues; i++){
+			this.queueWaitStatistics[i] = new RunningStatistics();
+		}
+
+		this.queueServiceStatistics = new RunningStatistics[numQueues];
+		for(int i = 0; i < numQueues; i++){
+			this.queueServiceStatistics[i] = new RunningStatistics();
+		}
+
+		this.stationServiceStatistics = new RunningStatistics[numStations];
+		for(int i = 0; i < numStations; i++){
+			this.stationServiceStatistics[i] = new RunningStatistics();
+		}
+
+		this.overallWaitStatistics = new RunningStatistics();
+		this.stationBusyTime = new long[numStations];
+		this.lengths = new int[numQueues];
+		this.longestLengths = new int[numQueues];
+		this.lastArrivalQueue = -1;
+		this.runtime = 0;
+	}
+
+
+	/**
+	 * Fold one record into the statistics. A passenger's wait ends when their service starts and
+	 * their service ends when they leave, and both records carry when the step before started.
+	 * The waiting times that a run prints itself last until the passenger leaves their station,
+	 * which is the wait in line plus the service
+	 */
+	@Override
+	public void visit(TraceRecorder.Type type, long time, long since, int queueID, int stationID, int passengerID){
+		this.runtime = Math.max(this.runtime, time);
+
+		//The simulation only measures a line after an idle station has had the chance to take the
+		//new arrival, so an arrival that goes straight into service never counts towards the length
+		if(this.lastArrivalQueue >= 0 && !(type == TraceRecorder.Type.SERVICE_START && queueID == this.lastArrivalQueue)){
+			this.updateLongestLength(this.lastArrivalQueue);
+		}
+		this.lastArrivalQueue = -1;
+
+		switch(type){
+			case ARRIVAL:
+				this.lengths[queueID]++;
+				this.lastArrivalQueue = queueID;
+				break;
+			case SERVICE_START:
+				this.lengths[queueID]--;
+				this.queueWaitStatistics[queueID].add(time - since);
+				this.overallWaitStatistics.add(time - since);
+				break;
+			case DEPARTURE:
+				this.queueServiceStatistics[queueID].add(time - since);
+				this.stationServiceStatistics[stationID].add(time - since);
+				this.stationBusyTime[stationID] += time - since;
+				break;
+		}
+	}
+
+
+	/**
+	 * Helper method for updating the longest length that a queue reached
+	 */
+	private void updateLongestLength(int queueID){
+		this.longestLengths[queueID] = Math.max(this.longestLengths[queueID], this.lengths[queueID]);
+	}
+
+
+	/**
+	 * A helper method for printing the rebuilt statistics to the command line
+	 */
+	public void printStatistics(){
+		System.out.println("\n\n==================== Trace Statistics =======================");
+		System.out.println("Traced Runtime: " + this.runtime / 1000 + " seconds\n");
+		for(int i = 0; i < this.queueWaitStatistics.length; i++){
+			RunningStatistics waits = this.queueWaitStatistics[i];
+			System.out.println("Queue " + (i + 1) + " Statistics: ");
+			System.out.printf("\tAverage waiting time in line: %.2f seconds\n", waits.getMean() / 1000);
+			System.out.printf("\tAverage time until leaving a station: %.2f seconds\n",
+							  (waits.getMean() + this.queueServiceStatistics[i].getMean()) / 1000);
+			System.out.printf("\tMaximum waiting time in line: %.2f seconds\n", Math.max(waits.getMax(), 0) / 1000.0);
+			System.out.printf("\tWaiting time in line standard deviation: %.2f seconds\n", waits.getStandardDeviation() / 1000);
+			System.out.printf("\tWaiting time in line percentiles: p50 %.2f, p95 %.2f, p99 %.2f seconds\n", waits.getPercentile(0.50) / 1000.0,
+							  waits.getPercentile(0.95) / 1000.0, waits.getPercentile(0.99) / 1000.0);
+			System.out.println("\tLongest length: " + this.getLongestLength(i));
+		}
+
+		System.out.printf("\nOverall average waiting time in line: %.2f seconds\n", this.overallWaitStatistics.getMean() / 1000);
+
+		//Busy time is the exact sum of every service in the trace
+		System.out.println("\nService Station Statistics");
+		for(int i = 0; i < this.stationServiceStatistics.length; i++){
+			System.out.printf("\tStation %d: served %d passengers, average service %.2f seconds, active %.2f%% of the time\n", i + 1,
+							  this.stationServiceStatistics[i].getCount(), this.stationServiceStatistics[i].getMean() / 1000,
+							  this.getStationUtilisation(i));
+		}
+
+		//For prettiness
+		System.out.println("\n\n=============================================================");
+	}
+
+
+	/**
+	 * A simple helper method to get the waiting time statistics of a queue, in milliseconds
+	 */
+	public RunningStatistics getQueueWaitStatistics(int queueID){
+		return this.queueWaitStatistics[queueID];
+	}
+
+
+	/**
+	 * A simple helper method to get the service time statistics of a station, in milliseconds
+	 */
+	public RunningStatistics getStationServiceStatistics(int stationID){
+		return this.stationServiceStatistics[stationID];
+	}
+
+
+	/**
+	 * A simple helper method to get the waiting time statistics over every passenger, in milliseconds
+	 */
+	public RunningStatistics getOverallWaitStatistics(){
+		return this.overallWaitStatistics;
+	}
+
+
+	/**
+	 * A simple helper method to get the longest length that a queue ever reached
+	 */
+	public int getLongestLength(int queueID){
+		return Math.max(this.longestLengths[queueID], queueID == this.lastArrivalQueue ? this.lengths[queueID] : 0);
+	}
+
+
+	/**
+	 * Get the percentage of the traced time that a station spent serving
+	 */
+	public double getStationUtilisation(int stationID){
+		return this.runtime == 0 ? 0 : (double)this.stationBusyTime[stationID] / this.runtime * 100;
+	}
+
+
+	/**
+	 * A simple helper method to get the time of the last record in milliseconds
+	 */
+	public long getRuntime(){
+		return this.runtime;
+	}
+}
@@ -0,0 +1,42 @@
+/**
+ * Author: Jack Robbins
+ * This class holds the layout of a binary trace file
+ *
+ * A trace is a fixed size header followed by fixed size records, all in big endian order
+ * 	Header: magic, version, number of queues, number of stations(4 bytes each), record count(8 bytes),
+ * 			padded to the size of one record
+ * 	Record: time, time of the previous step(8 bytes each), type, queue, station, passenger(4 bytes each)
+ *
+ * 	Types are stored as their ordinal plus one, so a record that was never written reads as type 0.
+ * 	A reader can always stop at the first empty record, even in a trace whose run died halfway
+ */
+
+package trace;
+
+
+class TraceFormat{
+	static final int MAGIC = 0x51545243;
+	static final int VERSION = 1;
+
+	static final int HEADER_BYTES = 32;
+	static final int RECORD_BYTES = 32;
+
+	//Where each field of the header starts
+	static final int NUM_QUEUES_OFFSET = 8;
+	static final int NUM_STATIONS_OFFSET = 12;
+	static final int RECORD_COUNT_OFFSET = 16;
+
+	//Where each field of a record starts
+	static final int TIME_OFFSET = 0;
+	static final int SINCE_OFFSET = 8;
+	static final int TYPE_OFFSET = 16;
+	static final int QUEUE_OFFSET = 20;
+	static final int STATION_OFFSET = 24;
+	static final int PASSENGER_OFFSET = 28;
+
+	//Files are mapped this many bytes at a time. It is a whole number of records, so no record is ever split
+	static final long CHUNK_BYTES = 1L << 26;
+
+	//Cached so that turning a stored type back into a Type never allocates
+	static final TraceRecorder.Type[] TYPES = TraceRecorder.Type.values();
+}
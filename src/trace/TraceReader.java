@@ -0,0 +1,106 @@
+/**
+ * Author: Jack Robbins
+ * This class streams through a binary trace file
+ *
+ * The file is mapped read only one chunk at a time, so a trace of any size is read with a fixed
+ * amount of memory, and every record is read straight out of the mapping
+ */
+
+package trace;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+public class TraceReader{
+	private Path file;
+	private int numQueues;
+	private int numStations;
+	private long recordCount;
+
+
+	/**
+	 * Basic constructor, reads and checks the header
+	 */
+	public TraceReader(Path file) throws IOException{
+		this.file = file;
+
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			if(channel.size() < TraceFormat.HEADER_BYTES){
+				throw new IllegalArgumentException(file + " is too short to be a trace");
+			}
+
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, TraceFormat.HEADER_BYTES);
+			if(header.getInt(0) != TraceFormat.MAGIC || header.getInt(4) != TraceFormat.VERSION){
+				throw new IllegalArgumentException(file + " is not a version " + TraceFormat.VERSION + " trace");
+			}
+
+			this.numQueues = header.getInt(TraceFormat.NUM_QUEUES_OFFSET);
+			this.numStations = header.getInt(TraceFormat.NUM_STATIONS_OFFSET);
+
+			//A run that never closed its trace leaves the count at 0, so fall back on the size of the file
+			this.recordCount = header.getLong(TraceFormat.RECORD_COUNT_OFFSET);
+			if(this.recordCount == 0){
+				this.recordCount = (channel.size() - TraceFormat.HEADER_BYTES) / TraceFormat.RECORD_BYTES;
+			}
+		}
+	}
+
+
+	/**
+	 * Hand every record to the visitor in the order they were recorded. Stops early at the first
+	 * record that was never written. Returns the number of records visited
+	 */
+	public long forEach(TraceVisitor visitor) throws IOException{
+		long visited = 0;
+
+		try(FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)){
+			long end = TraceFormat.HEADER_BYTES + this.recordCount * TraceFormat.RECORD_BYTES;
+			for(long chunkStart = TraceFormat.HEADER_BYTES; chunkStart < end; chunkStart += TraceFormat.CHUNK_BYTES){
+				long chunkBytes = Math.min(TraceFormat.CHUNK_BYTES, end - chunkStart);
+				MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkBytes);
+
+				for(int offset = 0; offset < chunkBytes; offset += TraceFormat.RECORD_BYTES){
+					int type = chunk.getInt(offset + TraceFormat.TYPE_OFFSET);
+					if(type == 0){
+						return visited;
+					}
+
+					visitor.visit(TraceFormat.TYPES[type - 1], chunk.getLong(offset + TraceFormat.TIME_OFFSET),
+								  chunk.getLong(offset + TraceFormat.SINCE_OFFSET), chunk.getInt(offset + TraceFormat.QUEUE_OFFSET),
+								  chunk.getInt(offset + TraceFormat.STATION_OFFSET), chunk.getInt(offset + TraceFormat.PASSENGER_OFFSET));
+					visited++;
+				}
+			}
+		}
+
+		return visited;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of queues in the traced run
+	 */
+	public int getNumQueues(){
+		return this.numQueues;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of service stations in the traced run
+	 */
+	public int getNumStations(){
+		return this.numStations;
+	}
+
+
+	/**
+	 * A simple helper method to get the number of records in the trace
+	 */
+	public long getRecordCount(){
+		return this.recordCount;
+	}
+}
@@ -0,0 +1,84 @@
+/**
+ * Author: Jack Robbins
+ * This interface records a binary trace of every arrival, service start and departure of a run
+ */
+
+package trace;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+
+/**
+ * Every record has the same layout, so a trace can be read back without any parsing. Times are in
+ * milliseconds and are written relative to the start of the run. Along with its own time, every
+ * record carries the time of the step before it, which is when a passenger arrived for a service
+ * start and when their service started for a departure. That way a reader never needs to remember
+ * anything about a passenger to work out how long they waited or were served
+ */
+@FunctionalInterface
+public interface TraceRecorder{
+	/**
+	 * The kinds of records in a trace
+	 */
+	enum Type{
+		ARRIVAL,
+		SERVICE_START,
+		DEPARTURE
+	}
+
+	//A recorder that throws everything away, for runs without a trace
+	TraceRecorder OFF = (type, time, since, queueID, stationID, passengerID) -> {};
+
+
+	/**
+	 * Record one event. Both times are read from the simulation clock
+	 */
+	void record(Type type, long time, long since, int queueID, int stationID, int passengerID);
+
+
+	/**
+	 * Finish the trace. Only call this once every thread that records into it is done
+	 */
+	default void close(){
+	}
+
+
+	/**
+	 * Make a recorder that hands every record to this one and then to the next one, and closes both
+	 */
+	default TraceRecorder andThen(TraceRecorder next){
+		if(this == OFF){
+			return next;
+		}
+
+		TraceRecorder first = this;
+		return new TraceRecorder(){
+			@Override
+			public void record(Type type, long time, long since, int queueID, int stationID, int passengerID){
+				first.record(type, time, since, queueID, stationID, passengerID);
+				next.record(type, time, since, queueID, stationID, passengerID);
+			}
+
+
+			@Override
+			public void close(){
+				first.close();
+				next.close();
+			}
+		};
+	}
+
+
+	/**
+	 * Make a recorder that writes a new trace to the given file, replacing anything already there
+	 */
+	static TraceRecorder create(Path file, int numQueues, int numStations, long startTime){
+		try{
+			return new MappedTraceRecorder(file, numQueues, numStations, startTime);
+		} catch(IOException ioe){
+			throw new UncheckedIOException(ioe);
+		}
+	}
+}
@@ -0,0 +1,19 @@
+/**
+ * Author: Jack Robbins
+ * This interface is handed every record of a trace in turn
+ */
+
+package trace;
+
+
+/**
+ * New metrics can be worked out from an old trace by writing one of these. Every field of the
+ * record is passed as a primitive, so reading a trace never makes an object per record
+ */
+@FunctionalInterface
+public interface TraceVisitor{
+	/**
+	 * Look at one record. Times are in milliseconds from the start of the run
+	 */
+	void visit(TraceRecorder.Type type, long time, long since, int queueID, int stationID, int passengerID);
+}